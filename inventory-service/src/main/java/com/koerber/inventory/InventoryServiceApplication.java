@@ -1,13 +1,31 @@
 package com.koerber.inventory;
 
+import com.koerber.inventory.dto.LocationConfig;
+import com.koerber.inventory.dto.RateLimitConfig;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class InventoryServiceApplication {
 
     public static void main(String[] args) {
         SpringApplication.run(InventoryServiceApplication.class, args);
     }
+
+    @Bean
+    @ConfigurationProperties(prefix = "rate-limit")
+    public RateLimitConfig rateLimitConfig() {
+        return new RateLimitConfig();
+    }
+
+    @Bean
+    @ConfigurationProperties(prefix = "inventory.locations")
+    public LocationConfig locationConfig() {
+        return new LocationConfig();
+    }
 }
 
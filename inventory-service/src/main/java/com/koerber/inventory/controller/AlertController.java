@@ -0,0 +1,48 @@
+package com.koerber.inventory.controller;
+
+import com.koerber.inventory.dto.AlertEventDTO;
+import com.koerber.inventory.dto.AlertThresholdDTO;
+import com.koerber.inventory.dto.StockAlertDTO;
+import com.koerber.inventory.service.StockAlertService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Low-stock and near-expiry alerts for replenishment, served from memory
+ */
+@RestController
+@RequestMapping("/inventory/alerts")
+@RequiredArgsConstructor
+public class AlertController {
+
+    private final StockAlertService stockAlertService;
+
+    @GetMapping
+    public ResponseEntity<List<StockAlertDTO>> getAlerts(@RequestParam(required = false) String type) {
+        return ResponseEntity.ok(stockAlertService.getAlerts(type));
+    }
+
+    @GetMapping("/feed")
+    public ResponseEntity<List<AlertEventDTO>> getFeed(@RequestParam(defaultValue = "0") long after,
+                                                       @RequestParam(defaultValue = "100") int limit) {
+        return ResponseEntity.ok(stockAlertService.getFeed(after, limit));
+    }
+
+    @GetMapping("/thresholds")
+    public ResponseEntity<List<AlertThresholdDTO>> getThresholds() {
+        return ResponseEntity.ok(stockAlertService.getThresholds());
+    }
+
+    @PutMapping("/thresholds/{productId}")
+    public ResponseEntity<AlertThresholdDTO> setThreshold(@PathVariable Long productId,
+                                                          @RequestBody AlertThresholdDTO request) {
+        try {
+            return ResponseEntity.ok(stockAlertService.setReorderLevel(productId, request.getReorderLevel()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.koerber.inventory.controller;
+
+import com.koerber.inventory.dto.ExpiryWeekDTO;
+import com.koerber.inventory.dto.ProductExpiryDTO;
+import com.koerber.inventory.dto.StockSummaryDTO;
+import com.koerber.inventory.service.InventoryAnalyticsService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * Catalog-wide stock and expiry reports, served from the in-memory snapshot
+ */
+@RestController
+@RequestMapping("/inventory/analytics")
+@RequiredArgsConstructor
+public class AnalyticsController {
+
+    private final InventoryAnalyticsService inventoryAnalyticsService;
+
+    @GetMapping("/expiring")
+    public ResponseEntity<List<ProductExpiryDTO>> getExpiring(@RequestParam(defaultValue = "30") int days,
+                                                              @RequestParam(defaultValue = "100") int limit) {
+        try {
+            return ResponseEntity.ok(inventoryAnalyticsService.getExpiringByProduct(days, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/expiry-weeks")
+    public ResponseEntity<List<ExpiryWeekDTO>> getExpiryWeeks(@RequestParam(defaultValue = "12") int weeks) {
+        try {
+            return ResponseEntity.ok(inventoryAnalyticsService.getExpiryWeeks(weeks));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/summary")
+    public ResponseEntity<StockSummaryDTO> getSummary() {
+        return ResponseEntity.ok(inventoryAnalyticsService.getSummary());
+    }
+
+    @PostMapping("/rebuild")
+    public ResponseEntity<Integer> rebuild() {
+        return ResponseEntity.ok(inventoryAnalyticsService.rebuild());
+    }
+}
@@ -0,0 +1,43 @@
+package com.koerber.inventory.controller;
+
+import com.koerber.inventory.dto.HoldRequest;
+import com.koerber.inventory.dto.HoldResponse;
+import com.koerber.inventory.service.HoldService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/inventory/hold")
+@RequiredArgsConstructor
+public class HoldController {
+
+    private final HoldService holdService;
+
+    @PostMapping
+    public ResponseEntity<HoldResponse> placeHold(@RequestBody HoldRequest request) {
+        try {
+            return ResponseEntity.ok(holdService.placeHold(request));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new HoldResponse(false, e.getMessage()));
+        }
+    }
+
+    @PostMapping("/{holdId}/confirm")
+    public ResponseEntity<HoldResponse> confirmHold(@PathVariable Long holdId) {
+        try {
+            return ResponseEntity.ok(holdService.confirmHold(holdId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new HoldResponse(false, e.getMessage()));
+        }
+    }
+
+    @PostMapping("/{holdId}/release")
+    public ResponseEntity<HoldResponse> releaseHold(@PathVariable Long holdId) {
+        try {
+            return ResponseEntity.ok(holdService.releaseHold(holdId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new HoldResponse(false, e.getMessage()));
+        }
+    }
+}
@@ -3,10 +3,29 @@ package com.koerber.inventory.controller;
 import com.koerber.inventory.dto.InventoryResponse;
 import com.koerber.inventory.dto.InventoryUpdateRequest;
 import com.koerber.inventory.dto.InventoryUpdateResponse;
+import com.koerber.inventory.dto.StockReleaseRequest;
+import com.koerber.inventory.service.DeadlineExceededException;
+import com.koerber.inventory.service.HotProductTracker;
+import com.koerber.inventory.service.InventoryResponseCache;
 import com.koerber.inventory.service.InventoryService;
+import com.koerber.inventory.service.RateLimiter;
+import com.koerber.inventory.service.RequestDeadline;
+import com.koerber.inventory.service.RequestLanes;
+import com.koerber.inventory.service.ReservationCombiner;
+import com.koerber.inventory.service.ReservationMetrics;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/inventory")
@@ -14,25 +33,166 @@ import org.springframework.web.bind.annotation.*;
 public class InventoryController {
 
     private final InventoryService inventoryService;
+    private final ReservationCombiner reservationCombiner;
+    private final RateLimiter rateLimiter;
+    private final ReservationMetrics reservationMetrics;
+    private final InventoryResponseCache responseCache;
+    private final RequestLanes requestLanes;
+    private final HotProductTracker hotProductTracker;
+
+    private static final MediaType SMILE = new MediaType("application", "x-jackson-smile");
 
+    /**
+     * Get inventory for a product. The response carries the product's
+     * inventory version as its ETag; a matching If-None-Match gets 304, and
+     * an unchanged product is served from cached bytes. Only a cache miss
+     * is queued on the read lane.
+     */
     @GetMapping("/{productId}")
-    public ResponseEntity<InventoryResponse> getInventory(@PathVariable Long productId) {
+    public CompletableFuture<ResponseEntity<byte[]>> getInventory(
+            @PathVariable Long productId,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            HttpServletRequest httpRequest,
+            WebRequest webRequest) {
+        hotProductTracker.record(productId);
+        long retryAfterSeconds = rateLimiter.tryAcquire(RateLimiter.clientIdOf(httpRequest));
+        if (retryAfterSeconds > 0) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                    .build());
+        }
+
+        String version = inventoryService.getInventoryVersion(productId);
+        String etag = "\"" + version + "\"";
+        if (webRequest.checkNotModified(etag)) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build());
+        }
+
+        boolean smile = prefersSmile(accept);
+        InventoryResponseCache.Entry cached = responseCache.get(productId, version);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(inventoryBody(cached, smile));
+        }
         try {
-            InventoryResponse response = inventoryService.getInventoryByProductId(productId);
-            return ResponseEntity.ok(response);
-        } catch (IllegalArgumentException e) {
-            return ResponseEntity.notFound().build();
+            return requestLanes.submitRead(() -> {
+                try {
+                    InventoryResponse response = inventoryService.getInventoryByProductId(productId);
+                    return inventoryBody(responseCache.put(productId, version, response), smile);
+                } catch (IllegalArgumentException e) {
+                    return ResponseEntity.notFound().<byte[]>build();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(laneFull());
         }
     }
 
     @PostMapping("/update")
-    public ResponseEntity<InventoryUpdateResponse> updateInventory(@RequestBody InventoryUpdateRequest request) {
-        InventoryUpdateResponse response = inventoryService.updateInventory(request);
+    public CompletableFuture<ResponseEntity<InventoryUpdateResponse>> updateInventory(
+            @RequestBody InventoryUpdateRequest request,
+            @RequestHeader(value = RequestDeadline.HEADER, required = false) Long timeoutMillis) {
+        hotProductTracker.record(request.getProductId());
+        if (timeoutMillis != null) {
+            RequestDeadline.start(timeoutMillis);
+        }
+        try {
+            // Combined requests wait for their group without holding a lane worker.
+            // Combined groups are allocated from the default location.
+            if (request.getLocation() == null && reservationCombiner.appliesTo(request.getProductId())) {
+                return reservationCombiner.submit(request).handle(this::combinedResponse);
+            }
+            // The lane worker takes over the deadline
+            return requestLanes.submitReservation(() -> reserve(request));
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(laneFull());
+        } finally {
+            RequestDeadline.clear();
+        }
+    }
+
+    /**
+     * Put back the stock of cancelled orders, e.g. all cancellations in a
+     * chunk of a bulk status change, in one transaction. Runs on the
+     * reservation lane, as it writes to the same batches.
+     */
+    @PostMapping("/release")
+    public CompletableFuture<ResponseEntity<List<InventoryUpdateResponse>>> releaseInventory(
+            @RequestBody List<StockReleaseRequest> requests) {
+        try {
+            return requestLanes.submitReservation(() -> ResponseEntity.ok(inventoryService.releaseInventory(requests)));
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(laneFull());
+        }
+    }
+
+    private ResponseEntity<InventoryUpdateResponse> reserve(InventoryUpdateRequest request) {
+        try {
+            return updateResponse(inventoryService.updateInventory(request));
+        } catch (DeadlineExceededException e) {
+            return deadlineExceeded(e);
+        }
+    }
+
+    private ResponseEntity<InventoryUpdateResponse> combinedResponse(InventoryUpdateResponse response, Throwable error) {
+        Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+        if (cause instanceof DeadlineExceededException) {
+            return deadlineExceeded((DeadlineExceededException) cause);
+        }
+        if (cause instanceof RejectedExecutionException) {
+            return laneFull();
+        }
+        if (cause != null) {
+            throw new CompletionException(cause);
+        }
+        return updateResponse(response);
+    }
+
+    // The caller has given up; nothing was reserved
+    private ResponseEntity<InventoryUpdateResponse> deadlineExceeded(DeadlineExceededException e) {
+        reservationMetrics.recordDeadlineExceeded();
+        return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT)
+                .body(new InventoryUpdateResponse(false, e.getMessage()));
+    }
+
+    private ResponseEntity<InventoryUpdateResponse> updateResponse(InventoryUpdateResponse response) {
         if (response.isSuccess()) {
+            reservationMetrics.recordReserved();
             return ResponseEntity.ok(response);
         } else {
+            reservationMetrics.recordRejected();
             return ResponseEntity.badRequest().body(response);
         }
     }
-}
 
+    private static ResponseEntity<byte[]> inventoryBody(InventoryResponseCache.Entry entry, boolean smile) {
+        return ResponseEntity.ok()
+                .varyBy(HttpHeaders.ACCEPT)
+                .contentType(smile ? SMILE : MediaType.APPLICATION_JSON)
+                .body(smile ? entry.getSmile() : entry.getJson());
+    }
+
+    // Shed by its lane; the caller may retry shortly
+    private static <T> ResponseEntity<T> laneFull() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .build();
+    }
+
+    // Smile only when the client ranks it above JSON
+    private static boolean prefersSmile(String accept) {
+        if (accept == null) {
+            return false;
+        }
+        List<MediaType> mediaTypes = MediaType.parseMediaTypes(accept);
+        MediaType.sortBySpecificityAndQuality(mediaTypes);
+        for (MediaType mediaType : mediaTypes) {
+            if (mediaType.includes(SMILE) && !mediaType.isWildcardType() && !mediaType.isWildcardSubtype()) {
+                return true;
+            }
+            if (mediaType.includes(MediaType.APPLICATION_JSON)) {
+                return false;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,33 @@
+package com.koerber.inventory.controller;
+
+import com.koerber.inventory.dto.LedgerEntryDTO;
+import com.koerber.inventory.service.InventoryLedger;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Audit trail and manual compaction for the ledger storage mode
+ */
+@RestController
+@RequestMapping("/inventory/ledger")
+@RequiredArgsConstructor
+public class LedgerController {
+
+    private final InventoryLedger inventoryLedger;
+
+    @GetMapping("/{batchId}")
+    public ResponseEntity<List<LedgerEntryDTO>> getEntries(@PathVariable Long batchId) {
+        return ResponseEntity.ok(inventoryLedger.getEntries(batchId));
+    }
+
+    @PostMapping("/compact")
+    public ResponseEntity<Long> compact() {
+        if (!inventoryLedger.isEnabled()) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(inventoryLedger.compact());
+    }
+}
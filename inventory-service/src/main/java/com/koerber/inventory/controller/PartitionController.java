@@ -0,0 +1,50 @@
+package com.koerber.inventory.controller;
+
+import com.koerber.inventory.dto.PartitionHandoffDTO;
+import com.koerber.inventory.service.PartitionService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Handoff endpoints used by Order Service when partitions are added or removed
+ */
+@RestController
+@RequestMapping("/inventory/partition")
+@RequiredArgsConstructor
+public class PartitionController {
+
+    private final PartitionService partitionService;
+
+    @GetMapping("/products")
+    public ResponseEntity<List<Long>> getProductIds() {
+        return ResponseEntity.ok(partitionService.getProductIds());
+    }
+
+    @GetMapping("/held-products")
+    public ResponseEntity<List<Long>> getHeldProductIds() {
+        return ResponseEntity.ok(partitionService.getHeldProductIds());
+    }
+
+    @PostMapping("/export")
+    public ResponseEntity<PartitionHandoffDTO> exportProducts(@RequestBody List<Long> productIds) {
+        try {
+            return ResponseEntity.ok(partitionService.exportProducts(productIds));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+
+    @PostMapping("/import")
+    public ResponseEntity<Integer> importProducts(@RequestBody PartitionHandoffDTO handoff) {
+        return ResponseEntity.ok(partitionService.importProducts(handoff));
+    }
+
+    @PostMapping("/drop")
+    public ResponseEntity<Integer> dropProducts(@RequestBody List<Long> productIds) {
+        return ResponseEntity.ok(partitionService.dropProducts(productIds));
+    }
+}
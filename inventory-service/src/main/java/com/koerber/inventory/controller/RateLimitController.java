@@ -0,0 +1,41 @@
+package com.koerber.inventory.controller;
+
+import com.koerber.inventory.dto.ClientRateLimitStats;
+import com.koerber.inventory.dto.RateLimitConfig;
+import com.koerber.inventory.service.RateLimiter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Inspect and reload the per-client rate limits
+ */
+@RestController
+@RequestMapping("/admin/rate-limits")
+@RequiredArgsConstructor
+public class RateLimitController {
+
+    private final RateLimiter rateLimiter;
+
+    @GetMapping
+    public RateLimitConfig getConfig() {
+        return rateLimiter.getConfig();
+    }
+
+    @PutMapping
+    public ResponseEntity<?> reload(@RequestBody RateLimitConfig config) {
+        try {
+            rateLimiter.reload(config);
+            return ResponseEntity.ok(rateLimiter.getConfig());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/clients")
+    public List<ClientRateLimitStats> getClientStats() {
+        return rateLimiter.getClientStats();
+    }
+}
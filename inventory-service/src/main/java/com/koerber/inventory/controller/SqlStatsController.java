@@ -0,0 +1,36 @@
+package com.koerber.inventory.controller;
+
+import com.koerber.inventory.dto.SqlStatementStatsDTO;
+import com.koerber.inventory.profiling.SqlProfiler;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Per-statement SQL statistics from the JDBC profiler
+ */
+@RestController
+@RequestMapping("/admin/sql-stats")
+@RequiredArgsConstructor
+public class SqlStatsController {
+
+    private final SqlProfiler sqlProfiler;
+
+    @GetMapping
+    public ResponseEntity<List<SqlStatementStatsDTO>> getStatistics(@RequestParam(defaultValue = "total") String sort,
+                                                                    @RequestParam(defaultValue = "50") int limit) {
+        try {
+            return ResponseEntity.ok(sqlProfiler.getStatistics(sort, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @DeleteMapping
+    public ResponseEntity<Void> reset() {
+        sqlProfiler.reset();
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,115 @@
+package com.koerber.inventory.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Stand-in for database replication when running locally against two H2
+ * databases (inventory.replica.local-sync.enabled). The replica gets the
+ * primary's schema once, then a periodic copy of every table, applied in
+ * one transaction so readers never see a half-copied state. The copy
+ * interval plays the part of replication lag.
+ */
+@Slf4j
+public class LocalReplicaSynchronizer {
+
+    private static final Set<String> SKIPPED_TABLES = new HashSet<>(Arrays.asList(
+            "DATABASECHANGELOG", "DATABASECHANGELOGLOCK", "REPLICATION_HEARTBEAT"));
+
+    private final JdbcTemplate primary;
+    private final JdbcTemplate replica;
+    private final TransactionTemplate replicaTransaction;
+    private final ReplicaMonitor replicaMonitor;
+
+    private volatile boolean initialised;
+
+    public LocalReplicaSynchronizer(DataSource primaryDataSource, DataSource replicaDataSource,
+                                    ReplicaMonitor replicaMonitor) {
+        this.primary = new JdbcTemplate(primaryDataSource);
+        this.replica = new JdbcTemplate(replicaDataSource);
+        this.replicaTransaction = new TransactionTemplate(new DataSourceTransactionManager(replicaDataSource));
+        this.replicaMonitor = replicaMonitor;
+    }
+
+    /**
+     * Create the primary's tables on the replica, then copy the data
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void initialise() {
+        if (initialised) {
+            return;
+        }
+        for (String statement : primary.queryForList("SCRIPT NODATA", String.class)) {
+            replica.execute(statement);
+        }
+        initialised = true;
+        log.info("Local replica initialised");
+        sync();
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.replica.local-sync.interval-ms:1000}")
+    public synchronized void sync() {
+        if (!initialised) {
+            return;
+        }
+        // Everything committed before this point is included in the copy
+        long position = System.currentTimeMillis();
+        List<String> tables = primary.queryForList(
+                "SELECT table_name FROM information_schema.tables WHERE table_schema = 'PUBLIC' " +
+                "AND table_type = 'BASE TABLE'", String.class)
+                .stream()
+                .filter(table -> !SKIPPED_TABLES.contains(table))
+                .collect(Collectors.toList());
+
+        List<TableCopy> copies = new ArrayList<>(tables.size());
+        for (String table : tables) {
+            copies.add(new TableCopy(table, primary.queryForList("SELECT * FROM " + table)));
+        }
+
+        replicaTransaction.executeWithoutResult(status -> {
+            for (TableCopy copy : copies) {
+                replica.update("DELETE FROM " + copy.table);
+                copy.insertInto(replica);
+            }
+            replica.update("MERGE INTO replication_heartbeat (heartbeat_id, written_at) KEY (heartbeat_id) VALUES (1, ?)",
+                    position);
+        });
+        replicaMonitor.setReplicatedUpTo(position);
+    }
+
+    private static class TableCopy {
+        private final String table;
+        private final List<Map<String, Object>> rows;
+
+        private TableCopy(String table, List<Map<String, Object>> rows) {
+            this.table = table;
+            this.rows = rows;
+        }
+
+        private void insertInto(JdbcTemplate target) {
+            if (rows.isEmpty()) {
+                return;
+            }
+            List<String> columns = new ArrayList<>(rows.get(0).keySet());
+            String sql = "INSERT INTO " + table + " (" + String.join(", ", columns) + ") VALUES ("
+                    + columns.stream().map(column -> "?").collect(Collectors.joining(", ")) + ")";
+            target.batchUpdate(sql, rows.stream()
+                    .map(row -> columns.stream().map(row::get).toArray())
+                    .collect(Collectors.toList()));
+        }
+    }
+}
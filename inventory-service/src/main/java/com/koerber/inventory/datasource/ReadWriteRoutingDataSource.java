@@ -0,0 +1,39 @@
+package com.koerber.inventory.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Sends read-only transactions to the replica and everything else to the
+ * primary. A read falls back to the primary when the replica is too stale
+ * or has not caught up with a write the reader must see. Must sit behind a
+ * LazyConnectionDataSourceProxy, so the route is chosen at the first
+ * statement, once the transaction's read-only flag is known.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    static final String PRIMARY = "primary";
+    static final String REPLICA = "replica";
+    // Metric tag only: a read that went to the primary
+    static final String REPLICA_STALE = "replica_stale";
+
+    private final ReplicaMonitor replicaMonitor;
+
+    public ReadWriteRoutingDataSource(ReplicaMonitor replicaMonitor) {
+        this.replicaMonitor = replicaMonitor;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || DataSourceRouting.isPrimaryOnly()) {
+            replicaMonitor.recordRoute(PRIMARY);
+            return PRIMARY;
+        }
+        if (!replicaMonitor.canServe(DataSourceRouting.getReadAfter())) {
+            replicaMonitor.recordRoute(REPLICA_STALE);
+            return PRIMARY;
+        }
+        replicaMonitor.recordRoute(REPLICA);
+        return REPLICA;
+    }
+}
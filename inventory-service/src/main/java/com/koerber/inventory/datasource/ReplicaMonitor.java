@@ -0,0 +1,109 @@
+package com.koerber.inventory.datasource;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Tracks how far the replica has caught up with the primary.
+ * The primary's replication_heartbeat row is stamped with the current time
+ * at a fixed rate; reading it back from the replica tells which primary
+ * writes the replica already contains. All writes committed before that
+ * time are visible on the replica.
+ *
+ * Also publishes the replica lag and the routing decisions as metrics;
+ * it is a MeterBinder so the pools never depend on the meter registry.
+ */
+@Slf4j
+public class ReplicaMonitor implements MeterBinder {
+
+    private final JdbcTemplate primary;
+    private final JdbcTemplate replica;
+    private final long maxStalenessMillis;
+
+    private final ConcurrentMap<String, LongAdder> routes = new ConcurrentHashMap<>();
+
+    // Primary time the replica has caught up to; 0 until first seen
+    private volatile long replicatedUpTo;
+
+    public ReplicaMonitor(DataSource primaryDataSource, DataSource replicaDataSource, long maxStalenessMillis) {
+        this.primary = new JdbcTemplate(primaryDataSource);
+        this.replica = new JdbcTemplate(replicaDataSource);
+        this.maxStalenessMillis = maxStalenessMillis;
+        for (String route : new String[] {ReadWriteRoutingDataSource.PRIMARY, ReadWriteRoutingDataSource.REPLICA,
+                ReadWriteRoutingDataSource.REPLICA_STALE}) {
+            routes.put(route, new LongAdder());
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("datasource.replica.lag", this, ReplicaMonitor::getLagMillis)
+                .description("Milliseconds of primary writes not yet on the replica")
+                .baseUnit("milliseconds")
+                .register(registry);
+        routes.forEach((route, count) -> FunctionCounter.builder("datasource.routing", count, LongAdder::sum)
+                .description("Connections handed out by route; replica_stale went to the primary")
+                .tag("route", route)
+                .register(registry));
+    }
+
+    @Scheduled(fixedRateString = "${inventory.replica.heartbeat-interval-ms:1000}")
+    public void writeHeartbeat() {
+        try {
+            primary.update("UPDATE replication_heartbeat SET written_at = ? WHERE heartbeat_id = 1",
+                    System.currentTimeMillis());
+        } catch (RuntimeException e) {
+            log.warn("Failed to write replication heartbeat: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.replica.poll-interval-ms:200}")
+    public void pollReplica() {
+        try {
+            Long writtenAt = replica.queryForObject(
+                    "SELECT written_at FROM replication_heartbeat WHERE heartbeat_id = 1", Long.class);
+            if (writtenAt != null) {
+                replicatedUpTo = writtenAt;
+            }
+        } catch (RuntimeException e) {
+            // Not reachable or not initialised yet: it simply stays stale
+            log.debug("Failed to read replica heartbeat: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * @param readAfter Time of the last write the reader must see, or 0
+     * @return Whether the replica is within the staleness tolerance and has that write
+     */
+    public boolean canServe(long readAfter) {
+        long upTo = replicatedUpTo;
+        return upTo > readAfter && System.currentTimeMillis() - upTo <= maxStalenessMillis;
+    }
+
+    void recordRoute(String route) {
+        routes.get(route).increment();
+    }
+
+    public long getLagMillis() {
+        long upTo = replicatedUpTo;
+        return upTo == 0 ? -1 : Math.max(System.currentTimeMillis() - upTo, 0);
+    }
+
+    /**
+     * Record progress reported directly by a replication process
+     * @param upTo Primary time the replica has caught up to
+     */
+    void setReplicatedUpTo(long upTo) {
+        replicatedUpTo = upTo;
+    }
+}
@@ -0,0 +1,21 @@
+package com.koerber.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * An alert being RAISED or CLEARED, numbered so feed readers can resume
+ * after the last sequence they saw
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AlertEventDTO {
+    private Long sequence;
+    private String action;
+    private LocalDateTime occurredAt;
+    private StockAlertDTO alert;
+}
@@ -0,0 +1,13 @@
+package com.koerber.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AlertThresholdDTO {
+    private Long productId;
+    private Integer reorderLevel;
+}
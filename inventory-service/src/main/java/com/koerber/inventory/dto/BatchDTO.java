@@ -13,5 +13,13 @@ public class BatchDTO {
     private Long batchId;
     private Integer quantity;
     private LocalDate expiryDate;
+    // Warehouse holding the batch
+    private String location;
+
+    public BatchDTO(Long batchId, Integer quantity, LocalDate expiryDate) {
+        this.batchId = batchId;
+        this.quantity = quantity;
+        this.expiryDate = expiryDate;
+    }
 }
 
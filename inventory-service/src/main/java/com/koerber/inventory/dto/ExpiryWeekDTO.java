@@ -0,0 +1,19 @@
+package com.koerber.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Stock at risk in one expiry week, starting at weekStart inclusive
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExpiryWeekDTO {
+    private LocalDate weekStart;
+    private Long quantity;
+    private Integer batches;
+}
@@ -0,0 +1,14 @@
+package com.koerber.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HoldRequest {
+    private Long productId;
+    private Integer quantity;
+    private Long ttlSeconds;
+}
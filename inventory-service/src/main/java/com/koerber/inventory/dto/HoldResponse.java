@@ -0,0 +1,26 @@
+package com.koerber.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HoldResponse {
+    private boolean success;
+    private String message;
+    private Long holdId;
+    private Long productId;
+    private Integer quantity;
+    private List<Long> reservedFromBatchIds;
+    private LocalDateTime expiresAt;
+
+    public HoldResponse(boolean success, String message) {
+        this.success = success;
+        this.message = message;
+    }
+}
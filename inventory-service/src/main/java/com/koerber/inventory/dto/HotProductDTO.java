@@ -0,0 +1,19 @@
+package com.koerber.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Estimated request count of a product over the sliding window, and its
+ * share of all requests in the window
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HotProductDTO {
+    private Long productId;
+    private Long requests;
+    private Double share;
+    private Boolean hot;
+}
@@ -13,5 +13,20 @@ public class InventoryUpdateRequest {
     private Long productId;
     private Integer quantity;
     private List<Long> reservedFromBatchIds;
+    // The order's reference, a UUID; recorded on the inventory ledger
+    private String orderRef;
+    // Warehouse nearest to the customer, e.g. "EAST"; the default location when null
+    private String location;
+
+    public InventoryUpdateRequest(Long productId, Integer quantity, List<Long> reservedFromBatchIds) {
+        this.productId = productId;
+        this.quantity = quantity;
+        this.reservedFromBatchIds = reservedFromBatchIds;
+    }
+
+    public InventoryUpdateRequest(Long productId, Integer quantity, List<Long> reservedFromBatchIds, String orderRef) {
+        this(productId, quantity, reservedFromBatchIds);
+        this.orderRef = orderRef;
+    }
 }
 
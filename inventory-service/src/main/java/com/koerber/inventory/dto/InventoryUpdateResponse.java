@@ -4,11 +4,19 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.Map;
+
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class InventoryUpdateResponse {
     private boolean success;
     private String message;
-}
+    // Quantity taken per batch ID, for a successful reservation
+    private Map<Long, Integer> allocations;
 
+    public InventoryUpdateResponse(boolean success, String message) {
+        this.success = success;
+        this.message = message;
+    }
+}
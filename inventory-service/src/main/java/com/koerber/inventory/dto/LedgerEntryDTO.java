@@ -0,0 +1,18 @@
+package com.koerber.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LedgerEntryDTO {
+    private Long entryId;
+    private Long batchId;
+    private Integer delta;
+    private String orderRef;
+    private LocalDateTime createdAt;
+}
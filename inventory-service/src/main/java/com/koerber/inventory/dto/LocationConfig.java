@@ -0,0 +1,22 @@
+package com.koerber.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Warehouse settings for the location-aware handler: the location of
+ * requests that name none, and for each location the warehouses to ship
+ * from, nearest first.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LocationConfig {
+    private String defaultLocation = "MAIN";
+    private Map<String, List<String>> proximity = new LinkedHashMap<>();
+}
@@ -0,0 +1,20 @@
+package com.koerber.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PartitionBatchDTO {
+    private Long batchId;
+    private Long productId;
+    private String productName;
+    private Integer quantity;
+    private LocalDate expiryDate;
+    // Warehouse holding the batch
+    private String location;
+}
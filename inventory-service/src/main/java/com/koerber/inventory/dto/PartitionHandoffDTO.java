@@ -0,0 +1,21 @@
+package com.koerber.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Everything a partition holds for a set of products: their batches and
+ * the reservation records that keep retried reservations idempotent.
+ * Importing it replaces what the target held for those products.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PartitionHandoffDTO {
+    private List<Long> productIds;
+    private List<PartitionBatchDTO> batches;
+    private List<PartitionReservationDTO> reservations;
+}
@@ -0,0 +1,20 @@
+package com.koerber.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PartitionReservationDTO {
+    private String orderRef;
+    private Long productId;
+    private Integer quantity;
+    // Quantity taken per batch, as "batchId:quantity,..."
+    private String allocations;
+    private LocalDateTime createdAt;
+    private LocalDateTime releasedAt;
+}
@@ -0,0 +1,17 @@
+package com.koerber.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Stock of one product expiring within the requested window
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductExpiryDTO {
+    private Long productId;
+    private Long quantity;
+    private Integer batches;
+}
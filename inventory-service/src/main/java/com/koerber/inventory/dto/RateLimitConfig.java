@@ -0,0 +1,30 @@
+package com.koerber.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Rate limit settings: quota tiers and the tier of each known client.
+ * Clients not listed get the default tier.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RateLimitConfig {
+    private boolean enabled;
+    private String defaultTier;
+    private Map<String, Tier> tiers = new LinkedHashMap<>();
+    private Map<String, String> clients = new LinkedHashMap<>();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Tier {
+        private double requestsPerSecond;
+        private int burst;
+    }
+}
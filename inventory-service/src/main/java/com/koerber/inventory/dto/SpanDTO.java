@@ -0,0 +1,26 @@
+package com.koerber.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One span of an exported trace; SQL statements run while it was current
+ * are listed with it
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SpanDTO {
+    private String spanId;
+    private String parentSpanId;
+    private String name;
+    private Long startEpochMicros;
+    private Long durationMicros;
+    private Map<String, String> tags;
+    private List<String> statements;
+    private String error;
+}
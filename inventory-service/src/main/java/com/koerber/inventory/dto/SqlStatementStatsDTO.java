@@ -0,0 +1,27 @@
+package com.koerber.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Execution statistics of one normalized SQL statement. repeatedRequests
+ * counts requests that ran it at least the repeat threshold times (N+1
+ * suspects); plan is the EXPLAIN output of a slow execution, taking planMs
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SqlStatementStatsDTO {
+    private String sql;
+    private Long count;
+    private Double totalMs;
+    private Double meanMs;
+    private Double maxMs;
+    private Long rows;
+    private Double meanRows;
+    private Long repeatedRequests;
+    private Long maxPerRequest;
+    private String plan;
+    private Double planMs;
+}
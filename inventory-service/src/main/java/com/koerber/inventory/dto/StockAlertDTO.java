@@ -0,0 +1,25 @@
+package com.koerber.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * An active alert: LOW_STOCK for a product below its reorder level, or
+ * NEAR_EXPIRY for a batch with stock left that expires soon
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockAlertDTO {
+    private String type;
+    private Long productId;
+    private Long batchId;
+    private Integer quantity;
+    private Integer reorderLevel;
+    private LocalDate expiryDate;
+    private LocalDateTime raisedAt;
+}
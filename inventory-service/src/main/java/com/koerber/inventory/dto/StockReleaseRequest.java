@@ -0,0 +1,23 @@
+package com.koerber.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Stock of a cancelled order to put back. Allocations are the quantities
+ * the reservation took per batch ID; the allocations recorded for the
+ * orderRef take precedence, and without either the release fails.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockReleaseRequest {
+    private Long productId;
+    private Integer quantity;
+    private Map<Long, Integer> allocations;
+    // The order's reference, which its reservation was recorded under
+    private String orderRef;
+}
@@ -0,0 +1,19 @@
+package com.koerber.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Catalog-wide stock figures from the in-memory snapshot
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockSummaryDTO {
+    private Integer products;
+    private Integer batchesInStock;
+    private Long totalQuantity;
+    // Past expiry but not yet written off by the sweeper
+    private Long expiredQuantity;
+}
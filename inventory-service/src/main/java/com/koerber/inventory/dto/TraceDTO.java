@@ -0,0 +1,24 @@
+package com.koerber.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * The part of a trace recorded by this service, with the reason it was
+ * kept: error, slow or sampled
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TraceDTO {
+    private String traceId;
+    private String service;
+    private String name;
+    private Long durationMicros;
+    private String kept;
+    private Integer droppedSpans;
+    private List<SpanDTO> spans;
+}
@@ -0,0 +1,24 @@
+package com.koerber.inventory.entity;
+
+import javax.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Reorder level of a product; products without a row use the default level
+ */
+@Entity
+@Table(name = "inventory_alert_threshold")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AlertThreshold {
+
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+
+    @Column(name = "reorder_level", nullable = false)
+    private Integer reorderLevel;
+}
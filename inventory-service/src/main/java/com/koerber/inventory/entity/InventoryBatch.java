@@ -7,6 +7,10 @@ import lombok.NoArgsConstructor;
 
 import java.time.LocalDate;
 
+/**
+ * Stock of one product with one expiry date; the product's name is in the
+ * product table
+ */
 @Entity
 @Table(name = "inventory_batch")
 @Data
@@ -14,6 +18,9 @@ import java.time.LocalDate;
 @AllArgsConstructor
 public class InventoryBatch {
 
+    // Warehouse of batches created without one
+    public static final String DEFAULT_LOCATION = "MAIN";
+
     @Id
     @Column(name = "batch_id")
     private Long batchId;
@@ -21,13 +28,18 @@ public class InventoryBatch {
     @Column(name = "product_id", nullable = false)
     private Long productId;
 
-    @Column(name = "product_name", nullable = false)
-    private String productName;
-
     @Column(name = "quantity", nullable = false)
     private Integer quantity;
 
     @Column(name = "expiry_date", nullable = false)
     private LocalDate expiryDate;
+
+    // Warehouse holding the batch, e.g. "EAST"
+    @Column(name = "location_code", nullable = false)
+    private String location = DEFAULT_LOCATION;
+
+    public InventoryBatch(Long batchId, Long productId, Integer quantity, LocalDate expiryDate) {
+        this(batchId, productId, quantity, expiryDate, DEFAULT_LOCATION);
+    }
 }
 
@@ -0,0 +1,34 @@
+package com.koerber.inventory.entity;
+
+import javax.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "inventory_hold")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryHold {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "hold_id")
+    private Long holdId;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(name = "quantity", nullable = false)
+    private Integer quantity;
+
+    // Quantity set aside per batch, stored as "batchId:quantity,..."
+    @Column(name = "allocations", nullable = false)
+    private String allocations;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
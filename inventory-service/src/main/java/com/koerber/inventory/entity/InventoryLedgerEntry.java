@@ -0,0 +1,37 @@
+package com.koerber.inventory.entity;
+
+import javax.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * One immutable stock movement on a batch: negative for reservations,
+ * positive for stock put back
+ */
+@Entity
+@Table(name = "inventory_ledger")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryLedgerEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "entry_id")
+    private Long entryId;
+
+    @Column(name = "batch_id", nullable = false)
+    private Long batchId;
+
+    @Column(name = "delta", nullable = false)
+    private Integer delta;
+
+    @Column(name = "order_ref")
+    private String orderRef;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
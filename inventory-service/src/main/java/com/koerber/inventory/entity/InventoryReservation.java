@@ -0,0 +1,41 @@
+package com.koerber.inventory.entity;
+
+import javax.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Stock taken for one order, recorded under the order's reference
+ */
+@Entity
+@Table(name = "inventory_reservation")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryReservation {
+
+    // The order's reference, a UUID given by Order Service
+    @Id
+    @Column(name = "order_ref")
+    private String orderRef;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(name = "quantity", nullable = false)
+    private Integer quantity;
+
+    // Quantity taken per batch, stored as "batchId:quantity,..."
+    @Column(name = "allocations", nullable = false)
+    private String allocations;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    // Set once the stock has been put back, e.g. for a cancelled order
+    @Column(name = "released_at")
+    private LocalDateTime releasedAt;
+}
@@ -0,0 +1,24 @@
+package com.koerber.inventory.entity;
+
+import javax.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Catalog entry of a product; batches refer to it by product ID
+ */
+@Entity
+@Table(name = "product")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Product {
+
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+
+    @Column(name = "product_name", nullable = false)
+    private String productName;
+}
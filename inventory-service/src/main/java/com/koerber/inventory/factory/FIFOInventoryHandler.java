@@ -38,6 +38,28 @@ public class FIFOInventoryHandler implements InventoryHandler {
         return reservedBatchIds;
     }
 
+    /**
+     * Same allocation as {@link #reserveInventory(List, int)} over the
+     * buffer's primitive columns; allocates nothing unless it fails
+     */
+    @Override
+    public void reserve(ReservationBuffer buffer, int quantityNeeded, String location) {
+        int remainingQuantity = quantityNeeded;
+
+        for (int row = 0; row < buffer.size() && remainingQuantity > 0; row++) {
+            int quantity = buffer.quantity(row);
+            if (quantity > 0) {
+                int quantityToReserve = Math.min(quantity, remainingQuantity);
+                buffer.take(row, quantityToReserve);
+                remainingQuantity -= quantityToReserve;
+            }
+        }
+
+        if (remainingQuantity > 0) {
+            throw new IllegalArgumentException("Insufficient inventory. Still need " + remainingQuantity + " units.");
+        }
+    }
+
     @Override
     public String getHandlerType() {
         return "FIFO";
@@ -2,7 +2,9 @@ package com.koerber.inventory.factory;
 
 import com.koerber.inventory.entity.InventoryBatch;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Interface for inventory handling strategies.
@@ -19,6 +21,70 @@ public interface InventoryHandler {
      */
     List<Long> reserveInventory(List<InventoryBatch> batches, int quantityNeeded);
 
+    /**
+     * Reserve inventory for an order shipping near a location. Handlers
+     * that do not tell warehouses apart ignore the location.
+     * @param batches List of available batches sorted by expiry date
+     * @param quantityNeeded Quantity to reserve
+     * @param location Location the order ships to, or null for the default
+     * @return List of batch IDs from which inventory was reserved
+     * @throws IllegalArgumentException if insufficient inventory
+     */
+    default List<Long> reserveInventory(List<InventoryBatch> batches, int quantityNeeded, String location) {
+        return reserveInventory(batches, quantityNeeded);
+    }
+
+    /**
+     * Reserve inventory from the rows of a buffer, recording what is taken
+     * with {@link ReservationBuffer#take}. This is the path InventoryService
+     * uses; handlers on the hot path override it so a reservation works on
+     * primitives only. The default copies the rows into batches and runs
+     * {@link #reserveInventory(List, int, String)}.
+     * @param buffer Available batches, sorted by expiry date
+     * @param quantityNeeded Quantity to reserve
+     * @param location Location the order ships to, or null for the default
+     * @throws IllegalArgumentException if insufficient inventory
+     */
+    default void reserve(ReservationBuffer buffer, int quantityNeeded, String location) {
+        List<InventoryBatch> batches = new ArrayList<>(buffer.size());
+        for (int row = 0; row < buffer.size(); row++) {
+            InventoryBatch batch = new InventoryBatch();
+            batch.setBatchId(buffer.batchId(row));
+            batch.setQuantity(buffer.quantity(row));
+            batch.setLocation(buffer.location(row));
+            batches.add(batch);
+        }
+        for (Long batchId : reserveInventory(batches, quantityNeeded, location)) {
+            for (int row = 0; row < buffer.size(); row++) {
+                if (buffer.batchId(row) == batchId) {
+                    buffer.take(row, buffer.quantity(row) - batches.get(row).getQuantity());
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Whether reservations should lock only the batches at the locations
+     * picked by {@link #selectLocations}
+     * @return true for handlers that allocate by location
+     */
+    default boolean isLocationAware() {
+        return false;
+    }
+
+    /**
+     * Pick the locations a reservation should take stock from, so only
+     * their batches need to be locked
+     * @param stockByLocation Live stock per location
+     * @param quantityNeeded Quantity to reserve
+     * @param location Location the order ships to, or null for the default
+     * @return Locations to lock, or null to take batches from every location
+     */
+    default List<String> selectLocations(Map<String, Integer> stockByLocation, int quantityNeeded, String location) {
+        return null;
+    }
+
     /**
      * Get the handler type name
      * @return Handler type identifier
@@ -1,6 +1,7 @@
 package com.koerber.inventory.factory;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.util.HashMap;
@@ -15,12 +16,15 @@ import java.util.Map;
 public class InventoryHandlerFactory {
 
     private final Map<String, InventoryHandler> handlers = new HashMap<>();
+    private final String defaultType;
 
     @Autowired
-    public InventoryHandlerFactory(List<InventoryHandler> handlerList) {
+    public InventoryHandlerFactory(List<InventoryHandler> handlerList,
+                                   @Value("${inventory.handler:FIFO}") String defaultType) {
         for (InventoryHandler handler : handlerList) {
             handlers.put(handler.getHandlerType(), handler);
         }
+        this.defaultType = defaultType;
     }
 
     /**
@@ -38,11 +42,11 @@ public class InventoryHandlerFactory {
     }
 
     /**
-     * Get the default inventory handler (FIFO)
+     * Get the default inventory handler (inventory.handler, FIFO unless set)
      * @return Default inventory handler
      */
     public InventoryHandler getDefaultHandler() {
-        return handlers.get("FIFO");
+        return getHandler(defaultType);
     }
 }
 
@@ -0,0 +1,157 @@
+package com.koerber.inventory.factory;
+
+import com.koerber.inventory.dto.LocationConfig;
+import com.koerber.inventory.entity.InventoryBatch;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Allocates across warehouses. Locations are ranked by the order's location
+ * and its proximity list (inventory.locations.proximity), then:
+ * - the nearest location that can ship the whole quantity on its own is used;
+ * - otherwise stock is taken from the nearest locations first until the
+ *   quantity is covered.
+ * Within a location batches are taken FIFO by expiry date.
+ */
+@Component
+@RequiredArgsConstructor
+public class LocationAwareInventoryHandler implements InventoryHandler {
+
+    public static final String TYPE = "LOCATION";
+
+    private final LocationConfig locationConfig;
+
+    @Override
+    public List<Long> reserveInventory(List<InventoryBatch> batches, int quantityNeeded) {
+        return reserveInventory(batches, quantityNeeded, null);
+    }
+
+    @Override
+    public List<Long> reserveInventory(List<InventoryBatch> batches, int quantityNeeded, String location) {
+        Map<String, Integer> stockByLocation = new LinkedHashMap<>();
+        for (InventoryBatch batch : batches) {
+            stockByLocation.merge(locationOf(batch), batch.getQuantity(), Integer::sum);
+        }
+
+        List<Long> reservedBatchIds = new ArrayList<>();
+        int remainingQuantity = quantityNeeded;
+        for (String source : selectLocations(stockByLocation, quantityNeeded, location)) {
+            for (InventoryBatch batch : batches) {
+                if (remainingQuantity <= 0) {
+                    break;
+                }
+                if (batch.getQuantity() > 0 && source.equals(locationOf(batch))) {
+                    int quantityToReserve = Math.min(batch.getQuantity(), remainingQuantity);
+                    batch.setQuantity(batch.getQuantity() - quantityToReserve);
+                    remainingQuantity -= quantityToReserve;
+                    reservedBatchIds.add(batch.getBatchId());
+                }
+            }
+        }
+
+        if (remainingQuantity > 0) {
+            throw new IllegalArgumentException("Insufficient inventory. Still need " + remainingQuantity + " units.");
+        }
+
+        return reservedBatchIds;
+    }
+
+    /**
+     * Same allocation over a buffer. Ranking the locations still allocates;
+     * the batches themselves are read and updated as primitives.
+     */
+    @Override
+    public void reserve(ReservationBuffer buffer, int quantityNeeded, String location) {
+        Map<String, Integer> stockByLocation = new LinkedHashMap<>();
+        for (int row = 0; row < buffer.size(); row++) {
+            stockByLocation.merge(locationOf(buffer.location(row)), buffer.quantity(row), Integer::sum);
+        }
+
+        int remainingQuantity = quantityNeeded;
+        for (String source : selectLocations(stockByLocation, quantityNeeded, location)) {
+            for (int row = 0; row < buffer.size() && remainingQuantity > 0; row++) {
+                int quantity = buffer.quantity(row);
+                if (quantity > 0 && source.equals(locationOf(buffer.location(row)))) {
+                    int quantityToReserve = Math.min(quantity, remainingQuantity);
+                    buffer.take(row, quantityToReserve);
+                    remainingQuantity -= quantityToReserve;
+                }
+            }
+        }
+
+        if (remainingQuantity > 0) {
+            throw new IllegalArgumentException("Insufficient inventory. Still need " + remainingQuantity + " units.");
+        }
+    }
+
+    @Override
+    public boolean isLocationAware() {
+        return true;
+    }
+
+    @Override
+    public List<String> selectLocations(Map<String, Integer> stockByLocation, int quantityNeeded, String location) {
+        List<String> ranked = rankLocations(location, stockByLocation.keySet());
+
+        // One shipment, and no locks at any other warehouse
+        for (String candidate : ranked) {
+            if (stockByLocation.getOrDefault(candidate, 0) >= quantityNeeded) {
+                return Collections.singletonList(candidate);
+            }
+        }
+
+        List<String> selected = new ArrayList<>();
+        int covered = 0;
+        for (String candidate : ranked) {
+            int stock = stockByLocation.getOrDefault(candidate, 0);
+            if (stock <= 0) {
+                continue;
+            }
+            selected.add(candidate);
+            covered += stock;
+            if (covered >= quantityNeeded) {
+                break;
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * Locations nearest first: the order's location, its proximity list, then
+     * any other location with stock in name order
+     * @param location Location the order ships to, or null for the default
+     * @param stocked Locations that have stock
+     * @return Ranked locations
+     */
+    public List<String> rankLocations(String location, Collection<String> stocked) {
+        String origin = location != null ? location : locationConfig.getDefaultLocation();
+        Set<String> ranked = new LinkedHashSet<>();
+        ranked.add(origin);
+        ranked.addAll(locationConfig.getProximity().getOrDefault(origin, Collections.emptyList()));
+        ranked.addAll(new TreeSet<>(stocked));
+        return new ArrayList<>(ranked);
+    }
+
+    @Override
+    public String getHandlerType() {
+        return TYPE;
+    }
+
+    private static String locationOf(InventoryBatch batch) {
+        return locationOf(batch.getLocation());
+    }
+
+    private static String locationOf(String location) {
+        return location != null ? location : InventoryBatch.DEFAULT_LOCATION;
+    }
+}
@@ -0,0 +1,133 @@
+package com.koerber.inventory.factory;
+
+import java.util.Arrays;
+
+/**
+ * Reusable working set for one reservation: the candidate batches as
+ * primitive columns, and what the handler took from them. Handlers call
+ * {@link #take} and the buffer records the rows touched, in the order
+ * they were first touched, and the quantity taken from each row.
+ * Rows keep the order they were added in, e.g. FIFO by expiry date.
+ * Reuse one buffer per thread; after warm-up filling it and taking from it
+ * allocate nothing.
+ * Not thread-safe.
+ */
+public class ReservationBuffer {
+
+    private long[] batchIds;
+    private int[] quantities;
+    private String[] locations;
+    private int[] taken;
+    private int[] reservedRows;
+    private int size;
+    private int reservedCount;
+
+    public ReservationBuffer(int capacity) {
+        int initial = Math.max(capacity, 1);
+        this.batchIds = new long[initial];
+        this.quantities = new int[initial];
+        this.locations = new String[initial];
+        this.taken = new int[initial];
+        this.reservedRows = new int[initial];
+    }
+
+    /**
+     * Empty the buffer for the next reservation
+     */
+    public void clear() {
+        Arrays.fill(locations, 0, size, null);
+        size = 0;
+        reservedCount = 0;
+    }
+
+    /**
+     * Add a candidate batch
+     * @param batchId Batch ID
+     * @param quantity Quantity available
+     * @param location Warehouse of the batch, may be null
+     */
+    public void add(long batchId, int quantity, String location) {
+        if (size == batchIds.length) {
+            grow();
+        }
+        batchIds[size] = batchId;
+        quantities[size] = quantity;
+        locations[size] = location;
+        taken[size] = 0;
+        size++;
+    }
+
+    /**
+     * Take stock from a row
+     * @param row Row index
+     * @param quantity Quantity to take, at most the row's quantity
+     */
+    public void take(int row, int quantity) {
+        if (taken[row] == 0) {
+            reservedRows[reservedCount++] = row;
+        }
+        quantities[row] -= quantity;
+        taken[row] += quantity;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long batchId(int row) {
+        return batchIds[row];
+    }
+
+    /**
+     * @return Quantity left in the row
+     */
+    public int quantity(int row) {
+        return quantities[row];
+    }
+
+    public String location(int row) {
+        return locations[row];
+    }
+
+    /**
+     * @return Quantity taken from the row since the buffer was filled
+     */
+    public int taken(int row) {
+        return taken[row];
+    }
+
+    /**
+     * @return Number of rows taken from
+     */
+    public int reservedCount() {
+        return reservedCount;
+    }
+
+    /**
+     * @param index 0 to {@link #reservedCount()} - 1, in the order rows were first taken from
+     * @return Row index
+     */
+    public int reservedRow(int index) {
+        return reservedRows[index];
+    }
+
+    /**
+     * @return Total quantity left in all rows
+     */
+    public int available() {
+        int available = 0;
+        for (int row = 0; row < size; row++) {
+            available += quantities[row];
+        }
+        return available;
+    }
+
+    private void grow() {
+        int capacity = batchIds.length + (batchIds.length >> 1) + 1;
+        batchIds = Arrays.copyOf(batchIds, capacity);
+        quantities = Arrays.copyOf(quantities, capacity);
+        locations = Arrays.copyOf(locations, capacity);
+        taken = Arrays.copyOf(taken, capacity);
+        reservedRows = Arrays.copyOf(reservedRows, capacity);
+    }
+}
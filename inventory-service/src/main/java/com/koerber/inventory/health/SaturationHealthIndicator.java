@@ -0,0 +1,82 @@
+package com.koerber.inventory.health;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Readiness contributor that reports OUT_OF_SERVICE while the connection
+ * pools are saturated, so the load balancer stops sending new requests
+ * until the backlog drains. A pool is saturated when nearly all of its
+ * connections are in use or too many threads are waiting for one.
+ */
+@Component
+public class SaturationHealthIndicator implements HealthIndicator {
+
+    private final ObjectProvider<HikariDataSource> pools;
+    private final double maxPoolUsage;
+    private final int maxPendingConnections;
+
+    // When the current saturation began, or -1 while not saturated
+    private long saturatedSince = -1;
+
+    public SaturationHealthIndicator(ObjectProvider<HikariDataSource> pools,
+                                     @Value("${inventory.health.max-pool-usage:0.9}") double maxPoolUsage,
+                                     @Value("${inventory.health.max-pending-connections:5}") int maxPendingConnections) {
+        this.pools = pools;
+        this.maxPoolUsage = maxPoolUsage;
+        this.maxPendingConnections = maxPendingConnections;
+    }
+
+    @Override
+    public Health health() {
+        Map<String, Object> details = new LinkedHashMap<>();
+        boolean saturated = sample(details);
+        return (saturated ? Health.outOfService() : Health.up()).withDetails(details).build();
+    }
+
+    /**
+     * @return How long the instance has been saturated without a break, or -1 if it is not
+     */
+    public long saturatedForMillis() {
+        sample(new LinkedHashMap<>());
+        synchronized (this) {
+            return saturatedSince < 0 ? -1 : System.currentTimeMillis() - saturatedSince;
+        }
+    }
+
+    private boolean sample(Map<String, Object> details) {
+        boolean saturated = false;
+        for (HikariDataSource pool : pools) {
+            HikariPoolMXBean mxBean = pool.getHikariPoolMXBean();
+            if (mxBean == null) {
+                // Not started yet
+                continue;
+            }
+            int active = mxBean.getActiveConnections();
+            int pending = mxBean.getThreadsAwaitingConnection();
+            double usage = (double) active / pool.getMaximumPoolSize();
+            Map<String, Object> poolDetails = new LinkedHashMap<>();
+            poolDetails.put("active", active);
+            poolDetails.put("max", pool.getMaximumPoolSize());
+            poolDetails.put("pending", pending);
+            details.put(pool.getPoolName(), poolDetails);
+            saturated |= usage >= maxPoolUsage || pending > maxPendingConnections;
+        }
+        synchronized (this) {
+            if (!saturated) {
+                saturatedSince = -1;
+            } else if (saturatedSince < 0) {
+                saturatedSince = System.currentTimeMillis();
+            }
+        }
+        return saturated;
+    }
+}
@@ -0,0 +1,33 @@
+package com.koerber.inventory.health;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Liveness contributor that reports DOWN when the instance has stayed
+ * saturated for longer than the stall timeout. Readiness has taken it out
+ * of rotation by then, so a backlog that still does not drain means the
+ * instance is stuck and should be restarted.
+ */
+@Component
+public class StallHealthIndicator implements HealthIndicator {
+
+    private final SaturationHealthIndicator saturation;
+    private final long stallTimeoutMillis;
+
+    public StallHealthIndicator(SaturationHealthIndicator saturation,
+                                @Value("${inventory.health.stall-timeout-ms:60000}") long stallTimeoutMillis) {
+        this.saturation = saturation;
+        this.stallTimeoutMillis = stallTimeoutMillis;
+    }
+
+    @Override
+    public Health health() {
+        long saturatedFor = saturation.saturatedForMillis();
+        return (saturatedFor > stallTimeoutMillis ? Health.down() : Health.up())
+                .withDetail("saturatedForMs", saturatedFor)
+                .build();
+    }
+}
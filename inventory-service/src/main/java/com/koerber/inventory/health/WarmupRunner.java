@@ -0,0 +1,181 @@
+package com.koerber.inventory.health;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.koerber.inventory.dto.InventoryResponse;
+import com.koerber.inventory.dto.InventoryUpdateRequest;
+import com.koerber.inventory.entity.InventoryBatch;
+import com.koerber.inventory.factory.InventoryHandlerFactory;
+import com.koerber.inventory.factory.ReservationBuffer;
+import com.koerber.inventory.repository.InventoryBatchRepository;
+import com.koerber.inventory.service.InventoryService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exercises the reservation hot path before the instance reports ready.
+ * Runners finish before Spring Boot switches readiness to ACCEPTING_TRAFFIC,
+ * so the load balancer keeps traffic away until the JIT has compiled the
+ * handler, JPA and Jackson code and the connection pool is filled.
+ * Rounds are repeated until the average latency of a round settles.
+ * Reservations run in rolled-back transactions, so no stock is touched.
+ */
+@Component
+@Slf4j
+public class WarmupRunner implements ApplicationRunner {
+
+    private static final String WARMUP_REF = "warmup";
+
+    private final InventoryService inventoryService;
+    private final InventoryBatchRepository inventoryBatchRepository;
+    private final InventoryHandlerFactory handlerFactory;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int threads;
+    private final int iterationsPerRound;
+    private final int minRounds;
+    private final int maxRounds;
+    private final double tolerance;
+    private final long maxDurationMillis;
+
+    public WarmupRunner(InventoryService inventoryService,
+                        InventoryBatchRepository inventoryBatchRepository,
+                        InventoryHandlerFactory handlerFactory,
+                        ObjectMapper objectMapper,
+                        PlatformTransactionManager transactionManager,
+                        @Value("${inventory.warmup.enabled:false}") boolean enabled,
+                        @Value("${inventory.warmup.threads:4}") int threads,
+                        @Value("${inventory.warmup.iterations-per-round:200}") int iterationsPerRound,
+                        @Value("${inventory.warmup.min-rounds:3}") int minRounds,
+                        @Value("${inventory.warmup.max-rounds:50}") int maxRounds,
+                        @Value("${inventory.warmup.tolerance:0.1}") double tolerance,
+                        @Value("${inventory.warmup.max-duration-ms:60000}") long maxDurationMillis) {
+        this.inventoryService = inventoryService;
+        this.inventoryBatchRepository = inventoryBatchRepository;
+        this.handlerFactory = handlerFactory;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.threads = Math.max(threads, 1);
+        this.iterationsPerRound = Math.max(iterationsPerRound, this.threads);
+        this.minRounds = minRounds;
+        this.maxRounds = maxRounds;
+        this.tolerance = tolerance;
+        this.maxDurationMillis = maxDurationMillis;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+        List<Long> productIds = inventoryBatchRepository.findDistinctProductIds();
+        if (productIds.isEmpty()) {
+            productIds = Collections.singletonList(0L);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new CustomizableThreadFactory("warmup-"));
+        try {
+            warmUp(executor, productIds);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void warmUp(ExecutorService executor, List<Long> productIds) {
+        long startNanos = System.nanoTime();
+        long deadlineNanos = startNanos + TimeUnit.MILLISECONDS.toNanos(maxDurationMillis);
+        double previousMicros = Double.NaN;
+        int round = 0;
+        while (round < maxRounds && System.nanoTime() < deadlineNanos) {
+            double micros = runRound(executor, productIds, round);
+            round++;
+            log.debug("Warm-up round {}: {} us per iteration", round, String.format("%.1f", micros));
+            if (round >= minRounds && Math.abs(micros - previousMicros) <= tolerance * previousMicros) {
+                log.info("Warm-up settled after {} rounds in {} ms at {} us per iteration", round,
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos), String.format("%.1f", micros));
+                return;
+            }
+            previousMicros = micros;
+        }
+        log.warn("Warm-up stopped after {} rounds in {} ms without settling", round,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+    }
+
+    /**
+     * @return Average wall-clock microseconds per iteration
+     */
+    private double runRound(ExecutorService executor, List<Long> productIds, int round) {
+        int perThread = iterationsPerRound / threads;
+        long start = System.nanoTime();
+        List<Future<?>> futures = new ArrayList<>(threads);
+        for (int t = 0; t < threads; t++) {
+            int offset = (round * threads + t) * perThread;
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    exercise(productIds.get((offset + i) % productIds.size()));
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Warm-up interrupted", e);
+            } catch (Exception e) {
+                log.warn("Warm-up iteration failed: {}", e.getMessage());
+            }
+        }
+        return (System.nanoTime() - start) / 1000.0 / (perThread * threads);
+    }
+
+    private void exercise(Long productId) throws Exception {
+        // Handler on synthetic batches
+        handlerFactory.getDefaultHandler().reserve(syntheticBatches(), 15, null);
+
+        // Read path and its JSON mapping
+        try {
+            InventoryResponse response = inventoryService.getInventoryByProductId(productId);
+            objectMapper.readValue(objectMapper.writeValueAsBytes(response), InventoryResponse.class);
+        } catch (IllegalArgumentException e) {
+            // Product not found; the query still ran
+        }
+
+        // Reservation path, rolled back
+        InventoryUpdateRequest request = objectMapper.readValue(
+                objectMapper.writeValueAsBytes(new InventoryUpdateRequest(productId, 1, null, WARMUP_REF)),
+                InventoryUpdateRequest.class);
+        transactionTemplate.executeWithoutResult(status -> {
+            status.setRollbackOnly();
+            try {
+                inventoryService.reserveInventory(request.getProductId(), request.getQuantity(), request.getOrderRef());
+            } catch (RuntimeException e) {
+                // Out of stock or fenced; the queries still ran
+                log.debug("Warm-up reservation for product {} failed: {}", productId, e.getMessage());
+            }
+        });
+    }
+
+    private static ReservationBuffer syntheticBatches() {
+        ReservationBuffer buffer = new ReservationBuffer(3);
+        for (int i = 1; i <= 3; i++) {
+            buffer.add(-i, 10, InventoryBatch.DEFAULT_LOCATION);
+        }
+        return buffer;
+    }
+}
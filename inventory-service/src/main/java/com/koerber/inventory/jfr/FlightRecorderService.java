@@ -0,0 +1,118 @@
+package com.koerber.inventory.jfr;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Starts, stops and dumps a Java Flight Recorder recording on demand.
+ * The recording uses the JDK's "default" settings, which are meant for
+ * continuous use in production, plus this service's custom events.
+ */
+@Service
+@Slf4j
+public class FlightRecorderService {
+
+    private final boolean startOnStartup;
+    private final Duration maxAge;
+    private final long maxSizeBytes;
+
+    private Recording recording;
+
+    public FlightRecorderService(@Value("${inventory.jfr.start-on-startup:false}") boolean startOnStartup,
+                                 @Value("${inventory.jfr.max-age-minutes:30}") long maxAgeMinutes,
+                                 @Value("${inventory.jfr.max-size-mb:100}") long maxSizeMb) {
+        this.startOnStartup = startOnStartup;
+        this.maxAge = Duration.ofMinutes(maxAgeMinutes);
+        this.maxSizeBytes = maxSizeMb * 1024 * 1024;
+    }
+
+    @PostConstruct
+    public void init() {
+        if (startOnStartup) {
+            start();
+        }
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+        }
+    }
+
+    /**
+     * Start a recording, unless one is already running
+     * @return Recording status
+     */
+    public synchronized Map<String, Object> start() {
+        if (recording == null || recording.getState() != RecordingState.RUNNING) {
+            try {
+                recording = new Recording(Configuration.getConfiguration("default"));
+            } catch (IOException | ParseException e) {
+                throw new IllegalStateException("Failed to load JFR configuration", e);
+            }
+            recording.setName("inventory-service");
+            recording.setToDisk(true);
+            recording.setMaxAge(maxAge);
+            recording.setMaxSize(maxSizeBytes);
+            recording.enable(ReservationEvent.class);
+            recording.enable(DbFlushEvent.class);
+            recording.start();
+            log.info("Flight recording started");
+        }
+        return status();
+    }
+
+    /**
+     * Stop and discard the current recording
+     * @return Recording status
+     */
+    public synchronized Map<String, Object> stop() {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+            log.info("Flight recording stopped");
+        }
+        return status();
+    }
+
+    /**
+     * Write the data recorded so far to a file, leaving the recording running
+     * @return Path of the .jfr file; the caller deletes it
+     * @throws IllegalArgumentException if no recording is running
+     */
+    public synchronized Path dump() throws IOException {
+        if (recording == null || recording.getState() != RecordingState.RUNNING) {
+            throw new IllegalArgumentException("No flight recording is running");
+        }
+        Path file = Files.createTempFile("inventory-service-", ".jfr");
+        recording.dump(file);
+        return file;
+    }
+
+    public synchronized Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("state", recording == null ? "STOPPED" : recording.getState().name());
+        if (recording != null) {
+            status.put("startTime", recording.getStartTime());
+            status.put("maxAge", recording.getMaxAge());
+            status.put("maxSizeBytes", recording.getMaxSize());
+        }
+        return status;
+    }
+}
@@ -0,0 +1,32 @@
+package com.koerber.inventory.jfr;
+
+import org.hibernate.BaseSessionEventListener;
+
+/**
+ * Emits a {@link DbFlushEvent} for every flush of the session it is attached to.
+ * Registered for all sessions through hibernate.session.events.auto.
+ */
+public class JfrSessionEventListener extends BaseSessionEventListener {
+
+    private DbFlushEvent flushEvent;
+
+    @Override
+    public void flushStart() {
+        DbFlushEvent event = new DbFlushEvent();
+        if (event.isEnabled()) {
+            event.begin();
+            flushEvent = event;
+        }
+    }
+
+    @Override
+    public void flushEnd(int numberOfEntities, int numberOfCollections) {
+        DbFlushEvent event = flushEvent;
+        flushEvent = null;
+        if (event != null) {
+            event.entities = numberOfEntities;
+            event.collections = numberOfCollections;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.koerber.inventory.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One run of an inventory handler over a product's live batches
+ */
+@Name("com.koerber.inventory.Reservation")
+@Label("Inventory Reservation")
+@Category({"Koerber", "Inventory"})
+@Description("Handler reservation against a product's batches")
+@StackTrace(false)
+public class ReservationEvent extends Event {
+
+    @Label("Product ID")
+    public long productId;
+
+    @Label("Quantity")
+    public int quantity;
+
+    @Label("Handler")
+    public String handlerType;
+
+    @Label("Batches Scanned")
+    public int batchesScanned;
+
+    @Label("Batches Touched")
+    public int batchesTouched;
+
+    @Label("Succeeded")
+    public boolean succeeded;
+}
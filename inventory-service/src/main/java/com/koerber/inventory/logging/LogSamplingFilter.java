@@ -0,0 +1,105 @@
+package com.koerber.inventory.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Thins out routine log lines before their message is formatted. For
+ * loggers under loggerPrefix, events below WARN are:
+ * - sampled at sampleRate when the logger is one of sampledLoggers,
+ *   e.g. the per-reservation success lines on the request path;
+ * - limited to maxPerSecond per logger (0 = no limit).
+ * Warnings and errors always pass.
+ */
+public class LogSamplingFilter extends TurboFilter {
+
+    private String loggerPrefix = "com.koerber";
+    private Set<String> sampledLoggers = Collections.emptySet();
+    private double sampleRate = 1.0;
+    private int maxPerSecond;
+
+    private final ConcurrentMap<String, Window> windows = new ConcurrentHashMap<>();
+    private final AtomicLong sampledOut = new AtomicLong();
+    private final AtomicLong rateLimited = new AtomicLong();
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        // format is null for isXxxEnabled() checks
+        if (format == null || level.isGreaterOrEqual(Level.WARN) || !level.isGreaterOrEqual(logger.getEffectiveLevel())
+                || !logger.getName().startsWith(loggerPrefix)) {
+            return FilterReply.NEUTRAL;
+        }
+        if (sampleRate < 1.0 && sampledLoggers.contains(logger.getName())
+                && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            sampledOut.incrementAndGet();
+            return FilterReply.DENY;
+        }
+        if (maxPerSecond > 0
+                && !windows.computeIfAbsent(logger.getName(), name -> new Window()).tryAcquire(maxPerSecond)) {
+            rateLimited.incrementAndGet();
+            return FilterReply.DENY;
+        }
+        return FilterReply.NEUTRAL;
+    }
+
+    public void setLoggerPrefix(String loggerPrefix) {
+        this.loggerPrefix = loggerPrefix;
+    }
+
+    /**
+     * @param sampledLoggers Comma-separated logger names
+     */
+    public void setSampledLoggers(String sampledLoggers) {
+        Set<String> names = new HashSet<>();
+        Arrays.stream(sampledLoggers.split(",")).map(String::trim).filter(name -> !name.isEmpty()).forEach(names::add);
+        this.sampledLoggers = names;
+    }
+
+    public void setSampleRate(double sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+
+    public void setMaxPerSecond(int maxPerSecond) {
+        this.maxPerSecond = maxPerSecond;
+    }
+
+    public long getSampledOut() {
+        return sampledOut.get();
+    }
+
+    public long getRateLimited() {
+        return rateLimited.get();
+    }
+
+    // Events of one logger in the current second
+    private static final class Window {
+        private volatile long second;
+        private final AtomicInteger count = new AtomicInteger();
+
+        boolean tryAcquire(int max) {
+            long now = System.currentTimeMillis() / 1000;
+            if (now != second) {
+                synchronized (this) {
+                    if (now != second) {
+                        count.set(0);
+                        second = now;
+                    }
+                }
+            }
+            return count.incrementAndGet() <= max;
+        }
+    }
+}
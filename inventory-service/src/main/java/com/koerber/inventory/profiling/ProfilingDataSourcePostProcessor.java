@@ -0,0 +1,38 @@
+package com.koerber.inventory.profiling;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.util.DriverDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+/**
+ * Puts a {@link ProfilingDataSource} under every Hikari pool, in place of
+ * the driver the pool would open connections with. The pools stay
+ * HikariDataSource beans, so pool metrics and health checks see them as before.
+ */
+@Slf4j
+public class ProfilingDataSourcePostProcessor implements BeanPostProcessor {
+
+    private final ObjectProvider<SqlProfiler> profiler;
+
+    public ProfilingDataSourcePostProcessor(ObjectProvider<SqlProfiler> profiler) {
+        this.profiler = profiler;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!(bean instanceof HikariDataSource)) {
+            return bean;
+        }
+        HikariDataSource pool = (HikariDataSource) bean;
+        if (pool.getDataSource() != null || pool.getJdbcUrl() == null) {
+            log.warn("SQL profiling skipped for {}: it has no JDBC URL of its own", beanName);
+            return bean;
+        }
+        pool.setDataSource(new ProfilingDataSource(new DriverDataSource(pool.getJdbcUrl(),
+                pool.getDriverClassName(), pool.getDataSourceProperties(), pool.getUsername(), pool.getPassword()),
+                profiler));
+        return bean;
+    }
+}
@@ -0,0 +1,33 @@
+package com.koerber.inventory.profiling;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+@Configuration
+@ConditionalOnProperty(name = "inventory.sql-profiler.enabled", havingValue = "true")
+public class SqlProfilerConfig {
+
+    /**
+     * Static, so the pools are post-processed; the profiler is looked up
+     * when the first connection is opened
+     */
+    @Bean
+    public static ProfilingDataSourcePostProcessor profilingDataSourcePostProcessor(
+            ObjectProvider<SqlProfiler> profiler) {
+        return new ProfilingDataSourcePostProcessor(profiler);
+    }
+
+    /**
+     * Right after tracing, so the request scope covers the other filters
+     */
+    @Bean
+    public FilterRegistrationBean<SqlProfilingFilter> sqlProfilingFilter(SqlProfiler profiler) {
+        FilterRegistrationBean<SqlProfilingFilter> registration = new FilterRegistrationBean<>(new SqlProfilingFilter(profiler));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        return registration;
+    }
+}
@@ -0,0 +1,70 @@
+package com.koerber.inventory.profiling;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Counts the statements of each request, so statements repeated within one
+ * request are reported when it ends. Requests completing asynchronously
+ * are reported when the async request completes.
+ */
+public class SqlProfilingFilter extends OncePerRequestFilter {
+
+    private final SqlProfiler profiler;
+
+    public SqlProfilingFilter(SqlProfiler profiler) {
+        this.profiler = profiler;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return path.startsWith("/actuator") || path.startsWith("/h2-console");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        SqlRequestScope scope = SqlRequestScope.open();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        profiler.endRequest(scope, requestName(request));
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+                });
+            } else {
+                profiler.endRequest(scope, requestName(request));
+            }
+            SqlRequestScope.clear();
+        }
+    }
+
+    private static String requestName(HttpServletRequest request) {
+        Object route = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return request.getMethod() + " " + (route != null ? route : request.getRequestURI());
+    }
+}
@@ -0,0 +1,9 @@
+package com.koerber.inventory.repository;
+
+import com.koerber.inventory.entity.AlertThreshold;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface AlertThresholdRepository extends JpaRepository<AlertThreshold, Long> {
+}
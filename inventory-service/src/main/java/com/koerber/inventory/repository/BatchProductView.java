@@ -0,0 +1,11 @@
+package com.koerber.inventory.repository;
+
+/**
+ * Product a batch belongs to, whether live or archived
+ */
+public interface BatchProductView {
+
+    Long getBatchId();
+
+    Long getProductId();
+}
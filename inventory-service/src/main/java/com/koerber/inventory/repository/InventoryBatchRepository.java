@@ -2,8 +2,15 @@ package com.koerber.inventory.repository;
 
 import com.koerber.inventory.entity.InventoryBatch;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.LockModeType;
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -12,5 +19,99 @@ public interface InventoryBatchRepository extends JpaRepository<InventoryBatch,
     List<InventoryBatch> findByProductIdOrderByExpiryDateAsc(Long productId);
 
     List<InventoryBatch> findByProductIdAndQuantityGreaterThanOrderByExpiryDateAsc(Long productId, Integer quantity);
-}
 
+    /**
+     * Batches that can still be reserved from: in stock and not yet expired.
+     * Served by idx_product_expiry, so no sort is needed for the FIFO order.
+     * Rows are locked until the reservation commits.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM InventoryBatch b WHERE b.productId = :productId " +
+            "AND b.expiryDate >= :today AND b.quantity > 0 ORDER BY b.expiryDate ASC")
+    List<InventoryBatch> findLiveBatches(@Param("productId") Long productId, @Param("today") LocalDate today);
+
+    /**
+     * Live batches of a product at some locations only, so a reservation
+     * locks no rows at the warehouses it does not ship from.
+     * Served by idx_product_location_expiry.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM InventoryBatch b WHERE b.productId = :productId AND b.location IN :locations " +
+            "AND b.expiryDate >= :today AND b.quantity > 0 ORDER BY b.expiryDate ASC")
+    List<InventoryBatch> findLiveBatchesAtLocations(@Param("productId") Long productId,
+                                                    @Param("locations") Collection<String> locations,
+                                                    @Param("today") LocalDate today);
+
+    /**
+     * Live stock of a product per location, read without locking
+     */
+    @Query("SELECT b.location AS location, SUM(b.quantity) AS quantity FROM InventoryBatch b " +
+            "WHERE b.productId = :productId AND b.expiryDate >= :today AND b.quantity > 0 GROUP BY b.location")
+    List<LocationStockView> sumLiveStockByLocation(@Param("productId") Long productId, @Param("today") LocalDate today);
+
+    boolean existsByProductId(Long productId);
+
+    // A product whose batches have all been sold or written off and archived still exists
+    @Query(value = "SELECT EXISTS (SELECT 1 FROM inventory_batch_archive WHERE product_id = :productId)",
+            nativeQuery = true)
+    boolean existsInArchive(@Param("productId") Long productId);
+
+    @Query("SELECT DISTINCT b.productId FROM InventoryBatch b ORDER BY b.productId ASC")
+    List<Long> findDistinctProductIds();
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM InventoryBatch b WHERE b.productId IN :productIds ORDER BY b.batchId ASC")
+    List<InventoryBatch> lockByProductIds(@Param("productIds") Collection<Long> productIds);
+
+    @Modifying
+    @Query("DELETE FROM InventoryBatch b WHERE b.productId IN :productIds")
+    int deleteByProductIds(@Param("productIds") Collection<Long> productIds);
+
+    // The quantity written off is kept, and archived with the batch
+    @Modifying
+    @Query(value = "UPDATE inventory_batch SET written_off_quantity = written_off_quantity + quantity, quantity = 0 " +
+            "WHERE expiry_date < :today AND quantity > 0", nativeQuery = true)
+    int writeOffExpiredBatches(@Param("today") LocalDate today);
+
+    // Locked so a restock cannot land between the copy and the delete
+    @Query(value = "SELECT batch_id FROM inventory_batch WHERE quantity = 0 " +
+            "ORDER BY batch_id ASC LIMIT :limit FOR UPDATE", nativeQuery = true)
+    List<Long> lockExhaustedBatchIds(@Param("limit") int limit);
+
+    @Modifying
+    @Query(value = "INSERT INTO inventory_batch_archive " +
+            "(batch_id, product_id, quantity, expiry_date, location_code, written_off_quantity, archived_at) " +
+            "SELECT batch_id, product_id, quantity, expiry_date, location_code, written_off_quantity, " +
+            "CURRENT_TIMESTAMP " +
+            "FROM inventory_batch WHERE batch_id IN (:batchIds) AND quantity = 0", nativeQuery = true)
+    int copyToArchive(@Param("batchIds") List<Long> batchIds);
+
+    @Modifying
+    @Query("DELETE FROM InventoryBatch b WHERE b.batchId IN :batchIds AND b.quantity = 0")
+    int deleteExhausted(@Param("batchIds") List<Long> batchIds);
+
+    @Modifying
+    @Query("UPDATE InventoryBatch b SET b.quantity = b.quantity + :quantity WHERE b.batchId = :batchId")
+    int restoreQuantity(@Param("batchId") Long batchId, @Param("quantity") Integer quantity);
+
+    @Modifying
+    @Query(value = "INSERT INTO inventory_batch " +
+            "(batch_id, product_id, quantity, expiry_date, location_code, written_off_quantity) " +
+            "SELECT batch_id, product_id, quantity, expiry_date, location_code, written_off_quantity " +
+            "FROM inventory_batch_archive WHERE batch_id = :batchId", nativeQuery = true)
+    int copyFromArchive(@Param("batchId") Long batchId);
+
+    /**
+     * Products of the given batches, looked up in the live and the archive
+     * table, so stock can only be released into a batch of its own product
+     */
+    @Query(value = "SELECT batch_id AS batchId, product_id AS productId FROM inventory_batch " +
+            "WHERE batch_id IN (:batchIds) " +
+            "UNION ALL SELECT batch_id AS batchId, product_id AS productId FROM inventory_batch_archive " +
+            "WHERE batch_id IN (:batchIds)", nativeQuery = true)
+    List<BatchProductView> findBatchProducts(@Param("batchIds") Collection<Long> batchIds);
+
+    @Modifying
+    @Query(value = "DELETE FROM inventory_batch_archive WHERE batch_id = :batchId", nativeQuery = true)
+    int deleteFromArchive(@Param("batchId") Long batchId);
+}
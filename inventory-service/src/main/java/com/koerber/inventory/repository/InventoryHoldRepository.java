@@ -0,0 +1,26 @@
+package com.koerber.inventory.repository;
+
+import com.koerber.inventory.entity.InventoryHold;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.LockModeType;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface InventoryHoldRepository extends JpaRepository<InventoryHold, Long> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT h FROM InventoryHold h WHERE h.holdId IN :holdIds")
+    List<InventoryHold> lockByIds(@Param("holdIds") Collection<Long> holdIds);
+
+    @Query("SELECT DISTINCT h.productId FROM InventoryHold h ORDER BY h.productId ASC")
+    List<Long> findHeldProductIds();
+
+    @Query("SELECT DISTINCT h.productId FROM InventoryHold h WHERE h.productId IN :productIds ORDER BY h.productId ASC")
+    List<Long> findHeldProductIds(@Param("productIds") Collection<Long> productIds);
+}
@@ -0,0 +1,38 @@
+package com.koerber.inventory.repository;
+
+import com.koerber.inventory.entity.InventoryLedgerEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface InventoryLedgerRepository extends JpaRepository<InventoryLedgerEntry, Long> {
+
+    List<InventoryLedgerEntry> findByBatchIdOrderByEntryIdAsc(Long batchId);
+
+    @Query(value = "SELECT last_entry_id FROM inventory_ledger_snapshot WHERE snapshot_id = 1", nativeQuery = true)
+    long findSnapshotEntryId();
+
+    @Query(value = "SELECT COALESCE(MAX(entry_id), 0) FROM inventory_ledger", nativeQuery = true)
+    long findLastEntryId();
+
+    /**
+     * Fold the deltas of entries in (fromEntryId, toEntryId] into the batch quantities
+     */
+    @Modifying
+    @Query(value = "UPDATE inventory_batch b SET quantity = quantity + " +
+            "(SELECT SUM(l.delta) FROM inventory_ledger l WHERE l.batch_id = b.batch_id " +
+            "AND l.entry_id > :fromEntryId AND l.entry_id <= :toEntryId) " +
+            "WHERE b.batch_id IN (SELECT l.batch_id FROM inventory_ledger l " +
+            "WHERE l.entry_id > :fromEntryId AND l.entry_id <= :toEntryId)", nativeQuery = true)
+    int foldIntoBatches(@Param("fromEntryId") long fromEntryId, @Param("toEntryId") long toEntryId);
+
+    @Modifying
+    @Query(value = "UPDATE inventory_ledger_snapshot SET last_entry_id = :entryId, " +
+            "compacted_at = CURRENT_TIMESTAMP WHERE snapshot_id = 1", nativeQuery = true)
+    int updateSnapshotEntryId(@Param("entryId") long entryId);
+}
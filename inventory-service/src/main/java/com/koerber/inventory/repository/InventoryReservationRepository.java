@@ -0,0 +1,52 @@
+package com.koerber.inventory.repository;
+
+import com.koerber.inventory.entity.InventoryReservation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface InventoryReservationRepository extends JpaRepository<InventoryReservation, String> {
+
+    // A plain insert, unlike save(), fails on a reference recorded concurrently
+    @Modifying
+    @Query(value = "INSERT INTO inventory_reservation (order_ref, product_id, quantity, allocations, created_at) " +
+            "VALUES (:orderRef, :productId, :quantity, :allocations, CURRENT_TIMESTAMP)", nativeQuery = true)
+    int insert(@Param("orderRef") String orderRef,
+               @Param("productId") Long productId,
+               @Param("quantity") Integer quantity,
+               @Param("allocations") String allocations);
+
+    // Records a release of stock reserved before reservations were recorded
+    @Modifying
+    @Query(value = "INSERT INTO inventory_reservation " +
+            "(order_ref, product_id, quantity, allocations, created_at, released_at) " +
+            "VALUES (:orderRef, :productId, :quantity, :allocations, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP)",
+            nativeQuery = true)
+    int insertReleased(@Param("orderRef") String orderRef,
+                       @Param("productId") Long productId,
+                       @Param("quantity") Integer quantity,
+                       @Param("allocations") String allocations);
+
+    // Only one of two concurrent releases of a reference updates the row
+    @Modifying
+    @Query("UPDATE InventoryReservation r SET r.releasedAt = CURRENT_TIMESTAMP " +
+            "WHERE r.orderRef = :orderRef AND r.releasedAt IS NULL")
+    int markReleased(@Param("orderRef") String orderRef);
+
+    List<InventoryReservation> findByProductIdIn(Collection<Long> productIds);
+
+    @Modifying
+    @Query("DELETE FROM InventoryReservation r WHERE r.productId IN :productIds")
+    int deleteByProductIds(@Param("productIds") Collection<Long> productIds);
+
+    @Modifying
+    @Query("DELETE FROM InventoryReservation r WHERE r.createdAt < :cutoff")
+    int deleteCreatedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
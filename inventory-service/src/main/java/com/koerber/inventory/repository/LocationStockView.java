@@ -0,0 +1,11 @@
+package com.koerber.inventory.repository;
+
+/**
+ * Live stock of one product at one location
+ */
+public interface LocationStockView {
+
+    String getLocation();
+
+    Long getQuantity();
+}
@@ -0,0 +1,32 @@
+package com.koerber.inventory.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Quantity taken per batch, stored as comma-separated batchId:quantity pairs
+ */
+final class Allocations {
+
+    private Allocations() {
+    }
+
+    static String format(Map<Long, Integer> allocations) {
+        return allocations.entrySet().stream()
+                .map(entry -> entry.getKey() + ":" + entry.getValue())
+                .collect(Collectors.joining(","));
+    }
+
+    static Map<Long, Integer> parse(String allocations) {
+        Map<Long, Integer> result = new LinkedHashMap<>();
+        if (allocations == null || allocations.isEmpty()) {
+            return result;
+        }
+        for (String allocation : allocations.split(",")) {
+            String[] parts = allocation.split(":");
+            result.put(Long.valueOf(parts[0]), Integer.valueOf(parts[1]));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,131 @@
+package com.koerber.inventory.service;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Column-oriented copy of inventory_batch: one primitive array per field,
+ * with product IDs dictionary-encoded to dense codes so per-product totals
+ * can be accumulated into plain arrays. Rows are never removed; a batch
+ * that is gone keeps its row with a quantity of zero until the next rebuild.
+ * Not thread-safe; {@link InventoryAnalyticsService} guards access.
+ */
+class BatchColumns {
+
+    private long[] batchIds;
+    private int[] productCodes;
+    private int[] quantities;
+    private int[] expiryDays;
+    private int size;
+
+    private final Map<Long, Integer> rowByBatchId = new HashMap<>();
+    private final Map<Long, Integer> codeByProductId = new HashMap<>();
+    private long[] productIdByCode = new long[16];
+    private int productCount;
+
+    BatchColumns(int capacity) {
+        int initial = Math.max(capacity, 16);
+        this.batchIds = new long[initial];
+        this.productCodes = new int[initial];
+        this.quantities = new int[initial];
+        this.expiryDays = new int[initial];
+    }
+
+    /**
+     * Insert or overwrite a batch
+     * @param batchId Batch ID
+     * @param productId Product ID
+     * @param quantity Current quantity
+     * @param expiryDay Expiry date as epoch day
+     */
+    void put(long batchId, long productId, int quantity, int expiryDay) {
+        Integer row = rowByBatchId.get(batchId);
+        if (row == null) {
+            if (size == batchIds.length) {
+                grow();
+            }
+            row = size++;
+            rowByBatchId.put(batchId, row);
+            batchIds[row] = batchId;
+        }
+        productCodes[row] = codeOf(productId);
+        quantities[row] = quantity;
+        expiryDays[row] = expiryDay;
+    }
+
+    /**
+     * Zero out the batches of a product that are not in the given set
+     * @param productId Product ID
+     * @param batchIdsToKeep Batches the product still has
+     */
+    void retainProduct(long productId, Set<Long> batchIdsToKeep) {
+        Integer code = codeByProductId.get(productId);
+        if (code == null) {
+            return;
+        }
+        for (int row = 0; row < size; row++) {
+            if (productCodes[row] == code && !batchIdsToKeep.contains(batchIds[row])) {
+                quantities[row] = 0;
+            }
+        }
+    }
+
+    /**
+     * Zero out every batch expiring before a day, as the sweeper does
+     * @param epochDay First day that is not written off
+     */
+    void writeOffBefore(int epochDay) {
+        for (int row = 0; row < size; row++) {
+            if (expiryDays[row] < epochDay) {
+                quantities[row] = 0;
+            }
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    int productCount() {
+        return productCount;
+    }
+
+    long productIdOf(int code) {
+        return productIdByCode[code];
+    }
+
+    int[] productCodes() {
+        return productCodes;
+    }
+
+    int[] quantities() {
+        return quantities;
+    }
+
+    int[] expiryDays() {
+        return expiryDays;
+    }
+
+    private int codeOf(long productId) {
+        Integer code = codeByProductId.get(productId);
+        if (code != null) {
+            return code;
+        }
+        if (productCount == productIdByCode.length) {
+            productIdByCode = Arrays.copyOf(productIdByCode, productCount * 2);
+        }
+        productIdByCode[productCount] = productId;
+        codeByProductId.put(productId, productCount);
+        return productCount++;
+    }
+
+    private void grow() {
+        int capacity = batchIds.length + (batchIds.length >> 1);
+        batchIds = Arrays.copyOf(batchIds, capacity);
+        productCodes = Arrays.copyOf(productCodes, capacity);
+        quantities = Arrays.copyOf(quantities, capacity);
+        expiryDays = Arrays.copyOf(expiryDays, capacity);
+    }
+}
@@ -0,0 +1,114 @@
+package com.koerber.inventory.service;
+
+import com.koerber.inventory.profiling.SqlRequestScope;
+import com.koerber.inventory.tracing.Span;
+import com.koerber.inventory.tracing.Tracing;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * A bounded pool of workers for one class of requests. The worker count is
+ * also the lane's connection quota, since each worker holds at most one
+ * connection at a time. Work that does not fit in the queue is rejected.
+ * The request deadline and trace span are carried over to the worker.
+ */
+public class ExecutionLane {
+
+    private final int queueCapacity;
+    private final ThreadPoolExecutor executor;
+    private final Timer waitTimer;
+    private final Counter rejected;
+
+    /**
+     * @param name Lane name, used for thread names and the lane metric tag
+     * @param workers Worker threads
+     * @param queueCapacity Work that may wait for a worker
+     * @param meterRegistry Registry for the inventory.lane.* metrics
+     */
+    public ExecutionLane(String name, int workers, int queueCapacity, MeterRegistry meterRegistry) {
+        this.queueCapacity = queueCapacity;
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory("lane-" + name + "-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        Gauge.builder("inventory.lane.queue", executor, e -> e.getQueue().size())
+                .description("Requests waiting for a worker")
+                .tag("lane", name)
+                .register(meterRegistry);
+        Gauge.builder("inventory.lane.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Workers busy with a request")
+                .tag("lane", name)
+                .register(meterRegistry);
+        this.waitTimer = Timer.builder("inventory.lane.wait")
+                .description("Time requests waited for a worker")
+                .tag("lane", name)
+                .register(meterRegistry);
+        this.rejected = Counter.builder("inventory.lane.rejected")
+                .description("Requests shed because the lane was full or reads were being shed")
+                .tag("lane", name)
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return Fraction of the queue in use, 0 to 1
+     */
+    public double getQueueUsage() {
+        return (double) executor.getQueue().size() / queueCapacity;
+    }
+
+    /**
+     * Run work on a lane worker
+     * @param work Work to run
+     * @return Result of the work
+     * @throws RejectedExecutionException if the queue is full
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> work) {
+        Long deadline = RequestDeadline.get();
+        Span span = Tracing.current();
+        SqlRequestScope sqlScope = SqlRequestScope.current();
+        long submittedAt = System.nanoTime();
+        CompletableFuture<T> result = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                waitTimer.record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+                RequestDeadline.set(deadline);
+                Tracing.set(span);
+                SqlRequestScope.set(sqlScope);
+                try {
+                    result.complete(work.get());
+                } catch (RuntimeException e) {
+                    result.completeExceptionally(e);
+                } finally {
+                    RequestDeadline.clear();
+                    Tracing.clear();
+                    SqlRequestScope.clear();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw e;
+        }
+        return result;
+    }
+
+    /**
+     * Count a request refused before it reached the queue
+     */
+    public void recordShed() {
+        rejected.increment();
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
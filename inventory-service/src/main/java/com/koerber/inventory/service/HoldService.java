@@ -0,0 +1,191 @@
+package com.koerber.inventory.service;
+
+import com.koerber.inventory.datasource.DataSourceRouting;
+import com.koerber.inventory.dto.HoldRequest;
+import com.koerber.inventory.dto.HoldResponse;
+import com.koerber.inventory.entity.InventoryHold;
+import com.koerber.inventory.repository.InventoryHoldRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Time-limited holds on inventory.
+ * A hold deducts stock from batches straight away, so availability reads
+ * already exclude it. Confirming keeps the deduction; releasing or letting
+ * the hold expire puts the stock back. Expiry is driven by a timing wheel,
+ * and all holds due on a tick are released together in one transaction.
+ */
+@Service
+@Slf4j
+public class HoldService {
+
+    private final InventoryService inventoryService;
+    private final InventoryHoldRepository holdRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final StockAlertService stockAlertService;
+    private final InventoryAnalyticsService inventoryAnalyticsService;
+    private final long defaultTtlSeconds;
+    private final long maxTtlSeconds;
+    private final TimingWheel<Long> timingWheel;
+
+    public HoldService(InventoryService inventoryService,
+                       InventoryHoldRepository holdRepository,
+                       TransactionTemplate transactionTemplate,
+                       StockAlertService stockAlertService,
+                       InventoryAnalyticsService inventoryAnalyticsService,
+                       @Value("${inventory.hold.default-ttl-seconds:900}") long defaultTtlSeconds,
+                       @Value("${inventory.hold.max-ttl-seconds:3600}") long maxTtlSeconds,
+                       @Value("${inventory.hold.tick-ms:100}") long tickMs,
+                       @Value("${inventory.hold.wheel-size:1024}") int wheelSize) {
+        this.inventoryService = inventoryService;
+        this.holdRepository = holdRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.stockAlertService = stockAlertService;
+        this.inventoryAnalyticsService = inventoryAnalyticsService;
+        this.defaultTtlSeconds = defaultTtlSeconds;
+        this.maxTtlSeconds = maxTtlSeconds;
+        this.timingWheel = new TimingWheel<>(tickMs, wheelSize, this::expireHolds);
+    }
+
+    /**
+     * Start the expiry wheel and reschedule the holds that survived a restart
+     */
+    @PostConstruct
+    public void start() {
+        timingWheel.start();
+        LocalDateTime now = LocalDateTime.now();
+        List<InventoryHold> holds = DataSourceRouting.onPrimary(holdRepository::findAll);
+        for (InventoryHold hold : holds) {
+            timingWheel.schedule(hold.getHoldId(), Duration.between(now, hold.getExpiresAt()).toMillis());
+        }
+        log.info("Hold expiry started with {} active holds", holds.size());
+    }
+
+    @PreDestroy
+    public void stop() {
+        timingWheel.stop();
+    }
+
+    /**
+     * Set aside inventory for a limited time
+     * @param request Hold request
+     * @return Hold details
+     * @throws IllegalArgumentException if the request is invalid or stock is insufficient
+     */
+    @Transactional
+    public HoldResponse placeHold(HoldRequest request) {
+        if (request.getQuantity() == null || request.getQuantity() <= 0) {
+            throw new IllegalArgumentException("Quantity must be greater than zero");
+        }
+        long ttlSeconds = request.getTtlSeconds() == null ? defaultTtlSeconds : request.getTtlSeconds();
+        if (ttlSeconds <= 0 || ttlSeconds > maxTtlSeconds) {
+            throw new IllegalArgumentException("TTL must be between 1 and " + maxTtlSeconds + " seconds");
+        }
+
+        Map<Long, Integer> allocations = inventoryService.allocateInventory(request.getProductId(), request.getQuantity(),
+                "hold");
+
+        InventoryHold hold = holdRepository.save(new InventoryHold(null, request.getProductId(),
+                request.getQuantity(), Allocations.format(allocations), LocalDateTime.now().plusSeconds(ttlSeconds)));
+        log.info("Hold {} placed for {} units of product ID: {}", hold.getHoldId(), hold.getQuantity(),
+                hold.getProductId());
+
+        // Schedule only once the hold row is visible to the expiry transaction
+        Long holdId = hold.getHoldId();
+        TransactionHooks.afterCommit(() -> timingWheel.schedule(holdId, TimeUnit.SECONDS.toMillis(ttlSeconds)));
+
+        return toResponse(hold, "Inventory held");
+    }
+
+    /**
+     * Turn a hold into a permanent reservation
+     * @param holdId Hold ID
+     * @return Hold details
+     * @throws IllegalArgumentException if the hold does not exist or has expired
+     */
+    @Transactional
+    public HoldResponse confirmHold(Long holdId) {
+        InventoryHold hold = lockActiveHold(holdId);
+        holdRepository.delete(hold);
+        log.info("Hold {} confirmed", holdId);
+        return toResponse(hold, "Hold confirmed");
+    }
+
+    /**
+     * Cancel a hold and return its stock to the batches
+     * @param holdId Hold ID
+     * @return Hold details
+     * @throws IllegalArgumentException if the hold does not exist or has expired
+     */
+    @Transactional
+    public HoldResponse releaseHold(Long holdId) {
+        InventoryHold hold = lockActiveHold(holdId);
+        inventoryService.restoreStock(Allocations.parse(hold.getAllocations()), "hold-" + holdId);
+        inventoryService.markChanged(hold.getProductId());
+        stockAlertService.refresh(Collections.singletonList(hold.getProductId()));
+        inventoryAnalyticsService.refresh(Collections.singletonList(hold.getProductId()));
+        holdRepository.delete(hold);
+        log.info("Hold {} released", holdId);
+        return toResponse(hold, "Hold released");
+    }
+
+    /**
+     * Release every hold due on a wheel tick in one transaction.
+     * Holds already confirmed or released no longer have a row and are skipped.
+     */
+    private void expireHolds(List<Long> holdIds) {
+        Integer expired = transactionTemplate.execute(status -> {
+            List<InventoryHold> holds = holdRepository.lockByIds(holdIds);
+            if (holds.isEmpty()) {
+                return 0;
+            }
+            Map<Long, Integer> totals = new LinkedHashMap<>();
+            for (InventoryHold hold : holds) {
+                Allocations.parse(hold.getAllocations()).forEach((batchId, quantity) ->
+                        totals.merge(batchId, quantity, Integer::sum));
+            }
+            inventoryService.restoreStock(totals, "hold-expiry");
+            holds.forEach(hold -> inventoryService.markChanged(hold.getProductId()));
+            List<Long> productIds = holds.stream().map(InventoryHold::getProductId).collect(Collectors.toList());
+            stockAlertService.refresh(productIds);
+            inventoryAnalyticsService.refresh(productIds);
+            holdRepository.deleteAllInBatch(holds);
+            return holds.size();
+        });
+        if (expired != null && expired > 0) {
+            log.info("Expired {} holds", expired);
+        }
+    }
+
+    private InventoryHold lockActiveHold(Long holdId) {
+        List<InventoryHold> holds = holdRepository.lockByIds(Collections.singletonList(holdId));
+        if (holds.isEmpty()) {
+            throw new IllegalArgumentException("Hold not found with ID: " + holdId);
+        }
+        InventoryHold hold = holds.get(0);
+        if (hold.getExpiresAt().isBefore(LocalDateTime.now())) {
+            throw new IllegalArgumentException("Hold " + holdId + " has expired");
+        }
+        return hold;
+    }
+
+    private HoldResponse toResponse(InventoryHold hold, String message) {
+        return new HoldResponse(true, message, hold.getHoldId(), hold.getProductId(), hold.getQuantity(),
+                new ArrayList<>(Allocations.parse(hold.getAllocations()).keySet()), hold.getExpiresAt());
+    }
+}
@@ -0,0 +1,16 @@
+package com.koerber.inventory.service;
+
+import java.util.Set;
+
+/**
+ * Implemented by beans whose policy differs for hot products, e.g. to keep
+ * them cached or combine their reservations. Called by
+ * {@link HotProductTracker} whenever the set of hot products changes.
+ */
+public interface HotProductListener {
+
+    /**
+     * @param hotProducts Products that are hot now; an unmodifiable set that replaces the previous one
+     */
+    void onHotProductsChanged(Set<Long> hotProducts);
+}
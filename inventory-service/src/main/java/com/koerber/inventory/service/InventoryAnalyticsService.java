@@ -0,0 +1,372 @@
+package com.koerber.inventory.service;
+
+import com.koerber.inventory.datasource.DataSourceRouting;
+import com.koerber.inventory.dto.ExpiryWeekDTO;
+import com.koerber.inventory.dto.ProductExpiryDTO;
+import com.koerber.inventory.dto.StockSummaryDTO;
+import com.koerber.inventory.entity.InventoryBatch;
+import com.koerber.inventory.repository.InventoryBatchRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Catalog-wide stock and expiry reports from a columnar snapshot of all
+ * batches. The snapshot is read from inventory_batch once at startup (and
+ * again every rebuild interval to drop stale rows); after that committed
+ * reservations, hold releases, handoffs and write-offs update it in place.
+ * Reports split the rows into ranges, total each range into a primitive
+ * array on a fork-join pool and add the arrays up, so they never read the
+ * OLTP tables.
+ */
+@Service
+@Slf4j
+public class InventoryAnalyticsService {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final InventoryBatchRepository inventoryBatchRepository;
+    private final InventoryLedger inventoryLedger;
+    private final ForkJoinPool pool;
+    private final int leafSize;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Guarded by lock
+    private BatchColumns columns = new BatchColumns(0);
+    // Updates made while a rebuild reads the table, replayed onto the new snapshot; null otherwise
+    private List<Consumer<BatchColumns>> pendingUpdates;
+
+    public InventoryAnalyticsService(JdbcTemplate jdbcTemplate,
+                                     InventoryBatchRepository inventoryBatchRepository,
+                                     InventoryLedger inventoryLedger,
+                                     @Value("${inventory.analytics.parallelism:0}") int parallelism,
+                                     @Value("${inventory.analytics.leaf-size:16384}") int leafSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.inventoryBatchRepository = inventoryBatchRepository;
+        this.inventoryLedger = inventoryLedger;
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        this.leafSize = Math.max(leafSize, 1);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        rebuild();
+    }
+
+    @Scheduled(initialDelayString = "${inventory.analytics.rebuild-interval-ms:3600000}",
+            fixedDelayString = "${inventory.analytics.rebuild-interval-ms:3600000}")
+    public void scheduledRebuild() {
+        rebuild();
+    }
+
+    /**
+     * Replace the snapshot with a fresh read of inventory_batch
+     * @return Number of batches in the new snapshot
+     */
+    public synchronized int rebuild() {
+        lock.writeLock().lock();
+        try {
+            pendingUpdates = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        BatchColumns fresh = null;
+        try {
+            if (inventoryLedger.isEnabled()) {
+                // Batch quantities are only current once pending entries are folded in
+                inventoryLedger.compact();
+            }
+            fresh = readAll();
+        } finally {
+            lock.writeLock().lock();
+            try {
+                if (fresh != null) {
+                    for (Consumer<BatchColumns> update : pendingUpdates) {
+                        update.accept(fresh);
+                    }
+                    columns = fresh;
+                }
+                pendingUpdates = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        log.info("Analytics snapshot rebuilt with {} batches of {} products", fresh.size(), fresh.productCount());
+        return fresh.size();
+    }
+
+    /**
+     * Update a product's batches after a reservation. Runs after commit.
+     * @param batches Changed batches, with their new quantities
+     */
+    public void onBatchesChanged(List<InventoryBatch> batches) {
+        // Copy now: the entities may be reused once the transaction is over
+        long[] batchIds = new long[batches.size()];
+        long[] productIds = new long[batches.size()];
+        int[] quantities = new int[batches.size()];
+        int[] expiryDays = new int[batches.size()];
+        for (int i = 0; i < batches.size(); i++) {
+            InventoryBatch batch = batches.get(i);
+            batchIds[i] = batch.getBatchId();
+            productIds[i] = batch.getProductId();
+            quantities[i] = batch.getQuantity();
+            expiryDays[i] = (int) batch.getExpiryDate().toEpochDay();
+        }
+        TransactionHooks.afterCommit(() -> update(snapshot -> {
+            for (int i = 0; i < batchIds.length; i++) {
+                snapshot.put(batchIds[i], productIds[i], quantities[i], expiryDays[i]);
+            }
+        }));
+    }
+
+    /**
+     * Re-read products whose batches changed outside a reservation, e.g. a
+     * released hold or a partition handoff. Runs after commit.
+     * @param productIds Product IDs
+     */
+    public void refresh(Collection<Long> productIds) {
+        Set<Long> distinct = new LinkedHashSet<>(productIds);
+        TransactionHooks.afterCommit(() -> distinct.forEach(this::reload));
+    }
+
+    /**
+     * Zero out batches written off by the sweeper. Runs after commit.
+     * @param today Batches expiring before this date were written off
+     */
+    public void onExpiredWrittenOff(LocalDate today) {
+        int epochDay = (int) today.toEpochDay();
+        TransactionHooks.afterCommit(() -> update(snapshot -> snapshot.writeOffBefore(epochDay)));
+    }
+
+    /**
+     * Stock per product that has not expired yet but will within a number of days
+     * @param days Window length in days, counted from today
+     * @param limit Maximum number of products, largest quantity first
+     * @return Products with stock in the window
+     * @throws IllegalArgumentException if days or limit is not positive
+     */
+    public List<ProductExpiryDTO> getExpiringByProduct(int days, int limit) {
+        if (days <= 0 || limit <= 0) {
+            throw new IllegalArgumentException("Days and limit must be greater than zero");
+        }
+        int from = (int) LocalDate.now().toEpochDay();
+        int to = from + days;
+        lock.readLock().lock();
+        try {
+            BatchColumns snapshot = columns;
+            int[] productCodes = snapshot.productCodes();
+            int[] quantities = snapshot.quantities();
+            int[] expiryDays = snapshot.expiryDays();
+            // Quantity at [2 * code], batch count at [2 * code + 1]
+            long[] totals = scan(snapshot.size(), 2 * snapshot.productCount(), (start, end, acc) -> {
+                for (int row = start; row < end; row++) {
+                    int day = expiryDays[row];
+                    if (quantities[row] > 0 && day >= from && day <= to) {
+                        int slot = productCodes[row] << 1;
+                        acc[slot] += quantities[row];
+                        acc[slot + 1]++;
+                    }
+                }
+            });
+            List<ProductExpiryDTO> result = new ArrayList<>();
+            for (int code = 0; code < snapshot.productCount(); code++) {
+                if (totals[2 * code] > 0) {
+                    result.add(new ProductExpiryDTO(snapshot.productIdOf(code), totals[2 * code],
+                            (int) totals[2 * code + 1]));
+                }
+            }
+            return result.stream()
+                    .sorted(Comparator.comparing(ProductExpiryDTO::getQuantity).reversed())
+                    .limit(limit)
+                    .collect(Collectors.toList());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Unexpired stock bucketed by expiry week, starting with the week from today
+     * @param weeks Number of weeks
+     * @return One entry per week, including empty weeks
+     * @throws IllegalArgumentException if weeks is not positive
+     */
+    public List<ExpiryWeekDTO> getExpiryWeeks(int weeks) {
+        if (weeks <= 0) {
+            throw new IllegalArgumentException("Weeks must be greater than zero");
+        }
+        LocalDate today = LocalDate.now();
+        int from = (int) today.toEpochDay();
+        int to = from + weeks * 7;
+        lock.readLock().lock();
+        try {
+            BatchColumns snapshot = columns;
+            int[] quantities = snapshot.quantities();
+            int[] expiryDays = snapshot.expiryDays();
+            long[] totals = scan(snapshot.size(), 2 * weeks, (start, end, acc) -> {
+                for (int row = start; row < end; row++) {
+                    int day = expiryDays[row];
+                    if (quantities[row] > 0 && day >= from && day < to) {
+                        int slot = ((day - from) / 7) << 1;
+                        acc[slot] += quantities[row];
+                        acc[slot + 1]++;
+                    }
+                }
+            });
+            List<ExpiryWeekDTO> result = new ArrayList<>(weeks);
+            for (int week = 0; week < weeks; week++) {
+                result.add(new ExpiryWeekDTO(today.plusWeeks(week), totals[2 * week], (int) totals[2 * week + 1]));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return Catalog-wide totals
+     */
+    public StockSummaryDTO getSummary() {
+        int today = (int) LocalDate.now().toEpochDay();
+        lock.readLock().lock();
+        try {
+            BatchColumns snapshot = columns;
+            int[] productCodes = snapshot.productCodes();
+            int[] quantities = snapshot.quantities();
+            int[] expiryDays = snapshot.expiryDays();
+            // Batches in stock, total quantity, expired quantity, then batches in stock per product code
+            long[] totals = scan(snapshot.size(), 3 + snapshot.productCount(), (start, end, acc) -> {
+                for (int row = start; row < end; row++) {
+                    int quantity = quantities[row];
+                    if (quantity > 0) {
+                        acc[0]++;
+                        acc[1] += quantity;
+                        if (expiryDays[row] < today) {
+                            acc[2] += quantity;
+                        }
+                        acc[3 + productCodes[row]]++;
+                    }
+                }
+            });
+            int products = 0;
+            for (int code = 0; code < snapshot.productCount(); code++) {
+                if (totals[3 + code] > 0) {
+                    products++;
+                }
+            }
+            return new StockSummaryDTO(products, (int) totals[0], totals[1], totals[2]);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private BatchColumns readAll() {
+        Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM inventory_batch", Integer.class);
+        BatchColumns fresh = new BatchColumns(count == null ? 0 : count);
+        jdbcTemplate.query("SELECT batch_id, product_id, quantity, expiry_date FROM inventory_batch",
+                rs -> {
+                    fresh.put(rs.getLong(1), rs.getLong(2), rs.getInt(3),
+                            (int) rs.getDate(4).toLocalDate().toEpochDay());
+                });
+        return fresh;
+    }
+
+    private void reload(Long productId) {
+        List<InventoryBatch> batches = inventoryLedger.isEnabled()
+                ? inventoryLedger.findBalances(productId)
+                : DataSourceRouting.onPrimary(
+                        () -> inventoryBatchRepository.findByProductIdOrderByExpiryDateAsc(productId));
+        Set<Long> batchIds = new HashSet<>();
+        for (InventoryBatch batch : batches) {
+            batchIds.add(batch.getBatchId());
+        }
+        update(snapshot -> {
+            for (InventoryBatch batch : batches) {
+                snapshot.put(batch.getBatchId(), batch.getProductId(), batch.getQuantity(),
+                        (int) batch.getExpiryDate().toEpochDay());
+            }
+            snapshot.retainProduct(productId, batchIds);
+        });
+    }
+
+    private void update(Consumer<BatchColumns> update) {
+        lock.writeLock().lock();
+        try {
+            update.accept(columns);
+            if (pendingUpdates != null) {
+                pendingUpdates.add(update);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private long[] scan(int rows, int width, RangeAccumulator accumulator) {
+        return pool.invoke(new RangeScan(0, rows, width, leafSize, accumulator));
+    }
+
+    /**
+     * Adds the rows of one range into an array of totals
+     */
+    @FunctionalInterface
+    private interface RangeAccumulator {
+        void accumulate(int start, int end, long[] totals);
+    }
+
+    private static class RangeScan extends RecursiveTask<long[]> {
+        private final int start;
+        private final int end;
+        private final int width;
+        private final int leafSize;
+        private final RangeAccumulator accumulator;
+
+        private RangeScan(int start, int end, int width, int leafSize, RangeAccumulator accumulator) {
+            this.start = start;
+            this.end = end;
+            this.width = width;
+            this.leafSize = leafSize;
+            this.accumulator = accumulator;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (end - start <= leafSize) {
+                long[] totals = new long[width];
+                accumulator.accumulate(start, end, totals);
+                return totals;
+            }
+            int middle = (start + end) >>> 1;
+            RangeScan left = new RangeScan(start, middle, width, leafSize, accumulator);
+            left.fork();
+            long[] totals = new RangeScan(middle, end, width, leafSize, accumulator).compute();
+            long[] leftTotals = left.join();
+            for (int i = 0; i < width; i++) {
+                totals[i] += leftTotals[i];
+            }
+            return totals;
+        }
+    }
+}
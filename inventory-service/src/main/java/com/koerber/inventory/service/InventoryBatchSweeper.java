@@ -0,0 +1,133 @@
+package com.koerber.inventory.service;
+
+import com.koerber.inventory.repository.InventoryBatchRepository;
+import com.koerber.inventory.repository.InventoryReservationRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Background job that keeps inventory_batch limited to live stock.
+ * Expired batches are written off in bulk, and exhausted batches are moved
+ * to inventory_batch_archive in bounded chunks, one transaction per chunk.
+ * In ledger mode each transaction first compacts the ledger and keeps
+ * appends blocked until it commits. Order reservation records past their
+ * retention are deleted as well.
+ */
+@Component
+@ConditionalOnProperty(name = "inventory.sweeper.enabled", havingValue = "true")
+@Slf4j
+public class InventoryBatchSweeper {
+
+    private final InventoryBatchRepository inventoryBatchRepository;
+    private final InventoryService inventoryService;
+    private final InventoryLedger inventoryLedger;
+    private final InventoryAnalyticsService inventoryAnalyticsService;
+    private final InventoryReservationRepository reservationRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final int reservationRetentionDays;
+
+    public InventoryBatchSweeper(InventoryBatchRepository inventoryBatchRepository,
+                                 InventoryService inventoryService,
+                                 InventoryLedger inventoryLedger,
+                                 InventoryAnalyticsService inventoryAnalyticsService,
+                                 InventoryReservationRepository reservationRepository,
+                                 TransactionTemplate transactionTemplate,
+                                 @Value("${inventory.sweeper.chunk-size:500}") int chunkSize,
+                                 @Value("${inventory.sweeper.reservation-retention-days:90}") int reservationRetentionDays) {
+        this.inventoryBatchRepository = inventoryBatchRepository;
+        this.inventoryService = inventoryService;
+        this.inventoryLedger = inventoryLedger;
+        this.inventoryAnalyticsService = inventoryAnalyticsService;
+        this.reservationRepository = reservationRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.chunkSize = chunkSize;
+        this.reservationRetentionDays = reservationRetentionDays;
+    }
+
+    @Scheduled(initialDelayString = "${inventory.sweeper.initial-delay-ms:60000}",
+            fixedDelayString = "${inventory.sweeper.interval-ms:3600000}")
+    public void sweep() {
+        int writtenOff = writeOffExpiredBatches(LocalDate.now());
+        int archived = archiveExhaustedBatches();
+        int purged = purgeReservations(LocalDateTime.now().minusDays(reservationRetentionDays));
+        log.info("Inventory sweep complete: {} expired batches written off, {} exhausted batches archived, "
+                + "{} reservation records purged", writtenOff, archived, purged);
+    }
+
+    /**
+     * Delete order reservation records created before the cutoff; retries
+     * of those orders are no longer recognized
+     * @param cutoff Oldest creation time kept
+     * @return Number of records deleted
+     */
+    public int purgeReservations(LocalDateTime cutoff) {
+        Integer purged = transactionTemplate.execute(status -> reservationRepository.deleteCreatedBefore(cutoff));
+        return purged == null ? 0 : purged;
+    }
+
+    /**
+     * Set the quantity of every expired batch to zero in a single statement
+     * @param today Batches expiring before this date are written off
+     * @return Number of batches written off
+     */
+    public int writeOffExpiredBatches(LocalDate today) {
+        Integer count = transactionTemplate.execute(status -> {
+            compactLedger();
+            int writtenOff = inventoryBatchRepository.writeOffExpiredBatches(today);
+            if (writtenOff > 0) {
+                inventoryService.markAllChanged();
+                inventoryAnalyticsService.onExpiredWrittenOff(today);
+            }
+            return writtenOff;
+        });
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * Move zero-quantity batches to the archive table, chunk by chunk.
+     * Each chunk is locked, copied and deleted in one transaction, so an
+     * interrupted sweep simply resumes with the remaining rows on the next
+     * run. Copy and delete only touch rows still at zero; if they disagree
+     * the chunk is rolled back rather than archiving a restocked batch.
+     * @return Number of batches archived
+     */
+    public int archiveExhaustedBatches() {
+        int total = 0;
+        while (true) {
+            Integer archived = transactionTemplate.execute(status -> {
+                compactLedger();
+                List<Long> batchIds = inventoryBatchRepository.lockExhaustedBatchIds(chunkSize);
+                if (batchIds.isEmpty()) {
+                    return 0;
+                }
+                int copied = inventoryBatchRepository.copyToArchive(batchIds);
+                int deleted = inventoryBatchRepository.deleteExhausted(batchIds);
+                if (copied != deleted) {
+                    throw new IllegalStateException("Archived " + copied + " batches but deleted " + deleted);
+                }
+                inventoryService.markAllChanged();
+                return deleted;
+            });
+            if (archived == null || archived == 0) {
+                return total;
+            }
+            total += archived;
+        }
+    }
+
+    // In ledger mode batch quantities are only current once pending entries are folded in
+    private void compactLedger() {
+        if (inventoryLedger.isEnabled()) {
+            inventoryLedger.compact();
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package com.koerber.inventory.service;
+
+import com.koerber.inventory.dto.LedgerEntryDTO;
+import com.koerber.inventory.entity.InventoryBatch;
+import com.koerber.inventory.repository.InventoryLedgerRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * Ledger storage mode (inventory.storage.mode: ledger).
+ * Reservations append immutable entries to inventory_ledger instead of
+ * updating inventory_batch rows. A batch's balance is its quantity, which
+ * serves as the snapshot, plus the deltas of entries after the snapshot's
+ * last entry. Compaction periodically folds those deltas into the batch
+ * quantities and moves the snapshot forward; entries are kept as the audit trail.
+ *
+ * Reservations on a product are serialized by an in-process lock, which is
+ * valid because each product is owned by one partition. Appends share a
+ * read lock that compaction takes exclusively, so compaction never skips
+ * an entry that is still being committed.
+ */
+@Component
+@Slf4j
+public class InventoryLedger {
+
+    private static final int LOCK_STRIPES = 256;
+
+    private static final String BALANCE_SQL =
+            "SELECT b.batch_id, b.product_id, b.expiry_date, b.location_code, " +
+            "b.quantity + COALESCE(SUM(l.delta), 0) AS balance " +
+            "FROM inventory_batch b LEFT JOIN inventory_ledger l ON l.batch_id = b.batch_id " +
+            "AND l.entry_id > (SELECT last_entry_id FROM inventory_ledger_snapshot WHERE snapshot_id = 1) " +
+            "WHERE b.product_id = ? %s " +
+            "GROUP BY b.batch_id, b.product_id, b.expiry_date, b.location_code, b.quantity %s " +
+            "ORDER BY b.expiry_date ASC";
+
+    private static final RowMapper<InventoryBatch> BALANCE_MAPPER = (rs, rowNum) -> new InventoryBatch(
+            rs.getLong("batch_id"),
+            rs.getLong("product_id"),
+            rs.getInt("balance"),
+            rs.getDate("expiry_date").toLocalDate(),
+            rs.getString("location_code"));
+
+    private final boolean enabled;
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final InventoryLedgerRepository ledgerRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private final ReentrantReadWriteLock compactionLock = new ReentrantReadWriteLock();
+    private final Lock[] productLocks = new Lock[LOCK_STRIPES];
+
+    public InventoryLedger(@Value("${inventory.storage.mode:batch}") String storageMode,
+                           JdbcTemplate jdbcTemplate,
+                           InventoryLedgerRepository ledgerRepository,
+                           TransactionTemplate transactionTemplate) {
+        this.enabled = "ledger".equalsIgnoreCase(storageMode);
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.ledgerRepository = ledgerRepository;
+        this.transactionTemplate = transactionTemplate;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            productLocks[i] = new ReentrantLock();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Serialize reservations on a product until the current transaction completes
+     * @param productId Product ID
+     */
+    public void lockProduct(Long productId) {
+        Lock lock = productLocks[Math.floorMod(productId.hashCode(), LOCK_STRIPES)];
+        lockUntilCompletion(lock);
+    }
+
+    /**
+     * Current balances of all of a product's batches, sorted by expiry date.
+     * The batches are detached copies, so changing them writes nothing.
+     * @param productId Product ID
+     * @return Batches with their balance as quantity
+     */
+    public List<InventoryBatch> findBalances(Long productId) {
+        return jdbcTemplate.query(String.format(BALANCE_SQL, "", ""), BALANCE_MAPPER, productId);
+    }
+
+    /**
+     * Current balances of a product's in-stock, unexpired batches
+     * @param productId Product ID
+     * @param today Batches expiring before this date are left out
+     * @return Batches with their balance as quantity
+     */
+    public List<InventoryBatch> findLiveBalances(Long productId, LocalDate today) {
+        return jdbcTemplate.query(
+                String.format(BALANCE_SQL, "AND b.expiry_date >= ?", "HAVING b.quantity + COALESCE(SUM(l.delta), 0) > 0"),
+                BALANCE_MAPPER, productId, java.sql.Date.valueOf(today));
+    }
+
+    /**
+     * Append one entry per batch in a single JDBC batch, as part of the
+     * current transaction
+     * @param deltas Quantity change per batch ID
+     * @param orderRef Reference of the order or hold, may be null
+     */
+    public void append(Map<Long, Integer> deltas, String orderRef) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        lockUntilCompletion(compactionLock.readLock());
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = deltas.entrySet().stream()
+                .map(entry -> new Object[] {entry.getKey(), entry.getValue(), orderRef, now})
+                .collect(Collectors.toList());
+        // Plain JDBC: Hibernate does not batch inserts into IDENTITY tables
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO inventory_ledger (batch_id, delta, order_ref, created_at) VALUES (?, ?, ?, ?)", rows);
+    }
+
+    /**
+     * Append entries returning stock to batches. Batches no longer in
+     * inventory_batch are skipped and returned, so the caller can restore
+     * them from the archive; the check runs under the append lock, so the
+     * sweeper cannot archive a batch in between.
+     * @param deltas Quantity returned per batch ID
+     * @param ref Reference of the hold, may be null
+     * @return Quantities of the batches that were not found
+     */
+    public Map<Long, Integer> appendExisting(Map<Long, Integer> deltas, String ref) {
+        if (deltas.isEmpty()) {
+            return deltas;
+        }
+        lockUntilCompletion(compactionLock.readLock());
+
+        Set<Long> existing = new HashSet<>(namedJdbcTemplate.queryForList(
+                "SELECT batch_id FROM inventory_batch WHERE batch_id IN (:batchIds)",
+                Collections.singletonMap("batchIds", deltas.keySet()), Long.class));
+        Map<Long, Integer> found = new LinkedHashMap<>();
+        Map<Long, Integer> missing = new LinkedHashMap<>();
+        deltas.forEach((batchId, delta) -> (existing.contains(batchId) ? found : missing).put(batchId, delta));
+        append(found, ref);
+        return missing;
+    }
+
+    /**
+     * Entries recorded for a batch, oldest first
+     * @param batchId Batch ID
+     * @return Ledger entries
+     */
+    public List<LedgerEntryDTO> getEntries(Long batchId) {
+        return ledgerRepository.findByBatchIdOrderByEntryIdAsc(batchId).stream()
+                .map(entry -> new LedgerEntryDTO(entry.getEntryId(), entry.getBatchId(), entry.getDelta(),
+                        entry.getOrderRef(), entry.getCreatedAt()))
+                .collect(Collectors.toList());
+    }
+
+    @Scheduled(initialDelayString = "${inventory.ledger.compaction-interval-ms:60000}",
+            fixedDelayString = "${inventory.ledger.compaction-interval-ms:60000}")
+    public void scheduledCompaction() {
+        if (enabled) {
+            compact();
+        }
+    }
+
+    /**
+     * Fold all committed entries into the batch quantities and move the
+     * snapshot forward. Inside a transaction the fold joins it and appends
+     * stay blocked until it completes, so the caller can act on the folded
+     * quantities.
+     * @return Number of entry IDs the snapshot moved forward by
+     */
+    public long compact() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            lockUntilCompletion(compactionLock.writeLock());
+            return fold();
+        }
+        compactionLock.writeLock().lock();
+        try {
+            Long folded = transactionTemplate.execute(status -> fold());
+            return folded == null ? 0 : folded;
+        } finally {
+            compactionLock.writeLock().unlock();
+        }
+    }
+
+    private long fold() {
+        long fromEntryId = ledgerRepository.findSnapshotEntryId();
+        long toEntryId = ledgerRepository.findLastEntryId();
+        if (toEntryId <= fromEntryId) {
+            return 0;
+        }
+        ledgerRepository.foldIntoBatches(fromEntryId, toEntryId);
+        ledgerRepository.updateSnapshotEntryId(toEntryId);
+        log.info("Ledger compaction moved the snapshot forward by {} entries", toEntryId - fromEntryId);
+        return toEntryId - fromEntryId;
+    }
+
+    /**
+     * @return Number of entries appended since the last compaction
+     */
+    public long getPendingEntries() {
+        return ledgerRepository.findLastEntryId() - ledgerRepository.findSnapshotEntryId();
+    }
+
+    private static void lockUntilCompletion(Lock lock) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Ledger updates must run in a transaction");
+        }
+        lock.lock();
+        TransactionHooks.afterCompletion(lock::unlock);
+    }
+}
@@ -0,0 +1,120 @@
+package com.koerber.inventory.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.koerber.inventory.dto.InventoryResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Serialized inventory responses, one per product, tagged with the inventory
+ * version they were built from. A read whose version matches is served from
+ * the cached bytes without a query or a serialization. Hot products are
+ * pinned: when the cache is full, another product's entry is evicted.
+ */
+@Component
+public class InventoryResponseCache implements HotProductListener {
+
+    private final ObjectMapper jsonMapper;
+    private final ObjectMapper smileMapper;
+    private final int maxEntries;
+    private final ConcurrentMap<Long, Entry> entries = new ConcurrentHashMap<>();
+    private volatile Set<Long> pinned = Collections.emptySet();
+
+    public InventoryResponseCache(ObjectMapper objectMapper,
+                                  Jackson2ObjectMapperBuilder objectMapperBuilder,
+                                  @Value("${inventory.read-cache.max-entries:10000}") int maxEntries) {
+        this.jsonMapper = objectMapper;
+        this.smileMapper = objectMapperBuilder.createXmlMapper(false).factory(new SmileFactory()).build();
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * @param productId Product ID
+     * @param version Current inventory version
+     * @return Cached entry for this version, or null
+     */
+    public Entry get(Long productId, String version) {
+        Entry entry = entries.get(productId);
+        return entry != null && entry.version.equals(version) ? entry : null;
+    }
+
+    /**
+     * Cache a response built from the given version
+     * @param productId Product ID
+     * @param version Inventory version read before the response was loaded
+     * @param response Inventory response
+     * @return The new entry
+     */
+    public Entry put(Long productId, String version, InventoryResponse response) {
+        if (entries.size() >= maxEntries && !entries.containsKey(productId)) {
+            Set<Long> pinnedNow = pinned;
+            Iterator<Long> iterator = entries.keySet().iterator();
+            while (iterator.hasNext()) {
+                Long candidate = iterator.next();
+                if (!pinnedNow.contains(candidate)) {
+                    entries.remove(candidate);
+                    break;
+                }
+            }
+        }
+        Entry entry = new Entry(version, response);
+        entries.put(productId, entry);
+        return entry;
+    }
+
+    @Override
+    public void onHotProductsChanged(Set<Long> hotProducts) {
+        pinned = hotProducts;
+    }
+
+    /**
+     * One product's response with its JSON and Smile bytes, each serialized
+     * on first use
+     */
+    public class Entry {
+        private final String version;
+        private final InventoryResponse response;
+        private volatile byte[] json;
+        private volatile byte[] smile;
+
+        private Entry(String version, InventoryResponse response) {
+            this.version = version;
+            this.response = response;
+        }
+
+        public byte[] getJson() {
+            byte[] bytes = json;
+            if (bytes == null) {
+                bytes = serialize(jsonMapper);
+                json = bytes;
+            }
+            return bytes;
+        }
+
+        public byte[] getSmile() {
+            byte[] bytes = smile;
+            if (bytes == null) {
+                bytes = serialize(smileMapper);
+                smile = bytes;
+            }
+            return bytes;
+        }
+
+        private byte[] serialize(ObjectMapper mapper) {
+            try {
+                return mapper.writeValueAsBytes(response);
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Failed to serialize inventory response", e);
+            }
+        }
+    }
+}
@@ -1,16 +1,40 @@
 package com.koerber.inventory.service;
 
+import com.koerber.inventory.datasource.DataSourceRouting;
 import com.koerber.inventory.dto.*;
 import com.koerber.inventory.entity.InventoryBatch;
 import com.koerber.inventory.factory.InventoryHandler;
 import com.koerber.inventory.factory.InventoryHandlerFactory;
+import com.koerber.inventory.factory.ReservationBuffer;
+import com.koerber.inventory.jfr.ReservationEvent;
+import com.koerber.inventory.entity.InventoryReservation;
+import com.koerber.inventory.repository.BatchProductView;
 import com.koerber.inventory.repository.InventoryBatchRepository;
+import com.koerber.inventory.repository.InventoryReservationRepository;
+import com.koerber.inventory.repository.LocationStockView;
+import com.koerber.inventory.tracing.Span;
+import com.koerber.inventory.tracing.Tracing;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 @Service
@@ -20,30 +44,92 @@ public class InventoryService {
 
     private final InventoryBatchRepository inventoryBatchRepository;
     private final InventoryHandlerFactory handlerFactory;
+    private final InventoryLedger inventoryLedger;
+    private final StockAlertService stockAlertService;
+    private final InventoryAnalyticsService inventoryAnalyticsService;
+    private final ProductCatalog productCatalog;
+    private final InventoryReservationRepository reservationRepository;
+
+    // Products being handed off to another partition; reservations are refused
+    private final Set<Long> fencedProducts = ConcurrentHashMap.newKeySet();
+
+    // Inventory versions, bumped after each committed change. The random
+    // instance ID keeps versions from a previous run from ever matching.
+    private final String instanceId = Long.toHexString(ThreadLocalRandom.current().nextLong());
+    private final AtomicLong globalVersion = new AtomicLong();
+    private final ConcurrentMap<Long, Long> productVersions = new ConcurrentHashMap<>();
+
+    // When changes were committed, so reads can wait for the replica to have them
+    private volatile long globalChangedAt;
+    private final ConcurrentMap<Long, Long> productChangedAt = new ConcurrentHashMap<>();
+
+    // One reservation buffer per worker thread, reused by every reservation it runs
+    private static final ThreadLocal<ReservationBuffer> RESERVATION_BUFFER =
+            ThreadLocal.withInitial(() -> new ReservationBuffer(16));
 
     /**
      * Get inventory batches for a product, sorted by expiry date
      * @param productId Product ID
      * @return Inventory response with batches
      */
+    @Transactional(readOnly = true)
     public InventoryResponse getInventoryByProductId(Long productId) {
         log.info("Fetching inventory for product ID: {}", productId);
 
-        List<InventoryBatch> batches = inventoryBatchRepository.findByProductIdOrderByExpiryDateAsc(productId);
+        // Read-your-writes: a replica may serve this only once it has the product's last change
+        long changedAt = Math.max(globalChangedAt, productChangedAt.getOrDefault(productId, 0L));
+        List<InventoryBatch> batches = DataSourceRouting.readAfter(changedAt, () -> inventoryLedger.isEnabled()
+                ? inventoryLedger.findBalances(productId)
+                : inventoryBatchRepository.findByProductIdOrderByExpiryDateAsc(productId));
 
-        if (batches.isEmpty()) {
+        if (batches.isEmpty() && !productExists(productId)) {
             throw new IllegalArgumentException("Product not found with ID: " + productId);
         }
 
-        String productName = batches.get(0).getProductName();
+        String productName = productCatalog.getName(productId);
 
         List<BatchDTO> batchDTOs = batches.stream()
-                .map(batch -> new BatchDTO(batch.getBatchId(), batch.getQuantity(), batch.getExpiryDate()))
+                .map(batch -> new BatchDTO(batch.getBatchId(), batch.getQuantity(), batch.getExpiryDate(),
+                        batch.getLocation()))
                 .collect(Collectors.toList());
 
         return new InventoryResponse(productId, productName, batchDTOs);
     }
 
+    /**
+     * Get the current version of a product's inventory, usable as an ETag.
+     * Read the version before the inventory: a change committed in between
+     * then only makes the version older than the data, never newer.
+     * @param productId Product ID
+     * @return Version string
+     */
+    public String getInventoryVersion(Long productId) {
+        return instanceId + "-" + globalVersion.get() + "-" + productVersions.getOrDefault(productId, 0L);
+    }
+
+    /**
+     * Record a change to a product's batches. Within a transaction the version
+     * moves on after commit, so it never points at uncommitted data.
+     * @param productId Product ID
+     */
+    public void markChanged(Long productId) {
+        TransactionHooks.afterCommit(() -> {
+            // Timestamp first: whoever sees the new version must also see the new time
+            productChangedAt.put(productId, System.currentTimeMillis());
+            productVersions.merge(productId, 1L, Long::sum);
+        });
+    }
+
+    /**
+     * Record a change that may touch any product, e.g. a bulk write-off
+     */
+    public void markAllChanged() {
+        TransactionHooks.afterCommit(() -> {
+            globalChangedAt = System.currentTimeMillis();
+            globalVersion.incrementAndGet();
+        });
+    }
+
     /**
      * Reserve inventory and return the batch IDs from which inventory was reserved
      * @param productId Product ID
@@ -52,30 +138,348 @@ public class InventoryService {
      */
     @Transactional
     public List<Long> reserveInventory(Long productId, int quantity) {
+        return reserveInventory(productId, quantity, null);
+    }
+
+    /**
+     * Reserve inventory and return the batch IDs from which inventory was reserved
+     * @param productId Product ID
+     * @param quantity Quantity to reserve
+     * @param orderRef Reference recorded on the ledger, may be null
+     * @return List of batch IDs from which inventory was reserved
+     */
+    @Transactional
+    public List<Long> reserveInventory(Long productId, int quantity, String orderRef) {
+        return new ArrayList<>(allocateInventory(productId, quantity, orderRef).keySet());
+    }
+
+    /**
+     * Reserve inventory and return how much was taken from each batch
+     * @param productId Product ID
+     * @param quantity Quantity to reserve
+     * @return Quantity taken per batch ID, in reservation order
+     */
+    @Transactional
+    public Map<Long, Integer> allocateInventory(Long productId, int quantity) {
+        return allocateInventory(productId, quantity, null);
+    }
+
+    /**
+     * Reserve inventory and return how much was taken from each batch
+     * @param productId Product ID
+     * @param quantity Quantity to reserve
+     * @param orderRef Reference recorded on the ledger, may be null
+     * @return Quantity taken per batch ID, in reservation order
+     */
+    @Transactional
+    public Map<Long, Integer> allocateInventory(Long productId, int quantity, String orderRef) {
+        return allocateInventory(productId, quantity, orderRef, null);
+    }
+
+    /**
+     * Reserve inventory for an order shipping near a location and return how
+     * much was taken from each batch
+     * @param productId Product ID
+     * @param quantity Quantity to reserve
+     * @param orderRef Reference recorded on the ledger, may be null
+     * @param location Location the order ships to, or null for the default
+     * @return Quantity taken per batch ID, in reservation order
+     */
+    @Transactional
+    public Map<Long, Integer> allocateInventory(Long productId, int quantity, String orderRef, String location) {
         log.info("Reserving {} units of product ID: {}", quantity, productId);
 
-        List<InventoryBatch> batches = inventoryBatchRepository.findByProductIdOrderByExpiryDateAsc(productId);
+        // Drop the work if the caller has already given up
+        RequestDeadline.check("loading batches");
 
-        if (batches.isEmpty()) {
+        // Use factory to get the appropriate handler (FIFO by default)
+        InventoryHandler handler = handlerFactory.getDefaultHandler();
+
+        // Only in-stock, unexpired batches take part in the reservation
+        List<InventoryBatch> batches = loadLiveBatches(productId, handler, quantity, location);
+        checkNotFenced(productId);
+
+        if (batches.isEmpty() && !productExists(productId)) {
             throw new IllegalArgumentException("Product not found with ID: " + productId);
         }
 
-        // Use factory to get the appropriate handler (FIFO by default)
+        // Reserve inventory using the handler, on primitive copies of the batches
+        ReservationBuffer buffer = fillBuffer(batches);
+        runHandler(handler, productId, buffer, quantity, location);
+
+        // Save updated batches
+        saveReservation(batches, buffer, orderRef);
+
+        // Roll back rather than commit a reservation nobody will see
+        RequestDeadline.check("commit");
+        markChanged(productId);
+        stockAlertService.onBatchesChanged(productId, batches);
+        inventoryAnalyticsService.onBatchesChanged(batches);
+
+        Map<Long, Integer> allocations = new LinkedHashMap<>();
+        for (int i = 0; i < buffer.reservedCount(); i++) {
+            int row = buffer.reservedRow(i);
+            allocations.put(buffer.batchId(row), buffer.taken(row));
+        }
+        log.info("Successfully reserved inventory from batches: {}", allocations.keySet());
+        return allocations;
+    }
+
+    /**
+     * Reserve inventory for several requests on the same product in one pass.
+     * Requests are allocated in order against the same batches, and a request
+     * that cannot be satisfied fails on its own without affecting the others.
+     * Each request gets its own allocations, ledger entries and reservation
+     * record under its order reference, as if it had been reserved alone.
+     * @param productId Product ID
+     * @param requests Requests for the product, in arrival order
+     * @return One response per request, in the same order
+     */
+    @Transactional
+    public List<InventoryUpdateResponse> reserveInventoryGroup(Long productId, List<InventoryUpdateRequest> requests) {
+        log.info("Reserving {} combined requests for product ID: {}", requests.size(), productId);
+
         InventoryHandler handler = handlerFactory.getDefaultHandler();
+        int total = requests.stream().mapToInt(InventoryUpdateRequest::getQuantity).sum();
+        List<InventoryBatch> batches = loadLiveBatches(productId, handler, total, null);
+        checkNotFenced(productId);
+        List<InventoryUpdateResponse> responses = new ArrayList<>(requests.size());
 
-        // Reserve inventory using the handler
-        List<Long> reservedBatchIds = handler.reserveInventory(batches, quantity);
+        if (batches.isEmpty() && !productExists(productId)) {
+            for (int i = 0; i < requests.size(); i++) {
+                responses.add(new InventoryUpdateResponse(false, "Product not found with ID: " + productId));
+            }
+            return responses;
+        }
 
-        // Save updated batches
-        inventoryBatchRepository.saveAll(batches);
+        ReservationBuffer buffer = fillBuffer(batches);
+        int available = buffer.available();
+        int[] takenBefore = new int[buffer.size()];
+        // A reference repeated within the group gets the response of its first request
+        Map<String, InventoryUpdateResponse> byOrderRef = new HashMap<>();
+        List<InventoryUpdateRequest> reserved = new ArrayList<>(requests.size());
+        List<Map<Long, Integer>> reservedAllocations = new ArrayList<>(requests.size());
+
+        for (InventoryUpdateRequest request : requests) {
+            String orderRef = request.getOrderRef();
+            if (orderRef != null && byOrderRef.containsKey(orderRef)) {
+                responses.add(byOrderRef.get(orderRef));
+                continue;
+            }
+            InventoryUpdateResponse response;
+            try {
+                Map<Long, Integer> recorded = findReservation(orderRef, productId, request.getQuantity());
+                if (recorded != null) {
+                    request.setReservedFromBatchIds(new ArrayList<>(recorded.keySet()));
+                    response = new InventoryUpdateResponse(true, "Inventory already reserved", recorded);
+                } else {
+                    Map<Long, Integer> allocations = reserveMember(handler, buffer, takenBefore, available, request);
+                    available -= request.getQuantity();
+                    reserved.add(request);
+                    reservedAllocations.add(allocations);
+                    response = new InventoryUpdateResponse(true, "Inventory updated successfully", allocations);
+                }
+            } catch (IllegalArgumentException e) {
+                response = new InventoryUpdateResponse(false, e.getMessage());
+            }
+            if (orderRef != null) {
+                byOrderRef.put(orderRef, response);
+            }
+            responses.add(response);
+        }
+
+        for (int i = 0; i < buffer.reservedCount(); i++) {
+            int row = buffer.reservedRow(i);
+            batches.get(row).setQuantity(buffer.quantity(row));
+        }
+        if (inventoryLedger.isEnabled()) {
+            // One set of entries per request, so each carries its own order reference
+            for (int i = 0; i < reserved.size(); i++) {
+                Map<Long, Integer> deltas = new LinkedHashMap<>();
+                reservedAllocations.get(i).forEach((batchId, quantity) -> deltas.put(batchId, -quantity));
+                inventoryLedger.append(deltas, reserved.get(i).getOrderRef());
+            }
+        } else {
+            inventoryBatchRepository.saveAll(batches);
+        }
+        for (int i = 0; i < reserved.size(); i++) {
+            InventoryUpdateRequest request = reserved.get(i);
+            recordReservation(request.getOrderRef(), productId, request.getQuantity(), reservedAllocations.get(i));
+        }
+        markChanged(productId);
+        stockAlertService.onBatchesChanged(productId, batches);
+        inventoryAnalyticsService.onBatchesChanged(batches);
 
-        log.info("Successfully reserved inventory from batches: {}", reservedBatchIds);
+        return responses;
+    }
+
+    /**
+     * Reserve one request of a group against the shared buffer
+     * @return Quantity taken per batch ID: what each row gained from this request
+     * @throws IllegalArgumentException if the stock left cannot cover the request
+     */
+    private static Map<Long, Integer> reserveMember(InventoryHandler handler, ReservationBuffer buffer, int[] takenBefore,
+                                                    int available, InventoryUpdateRequest request) {
+        // Check up front so a failing request never leaves batches partly deducted
+        if (request.getQuantity() > available) {
+            throw new IllegalArgumentException(
+                    "Insufficient inventory. Still need " + (request.getQuantity() - available) + " units.");
+        }
+        for (int row = 0; row < buffer.size(); row++) {
+            takenBefore[row] = buffer.taken(row);
+        }
+        runHandler(handler, request.getProductId(), buffer, request.getQuantity(), null);
 
-        return reservedBatchIds;
+        Map<Long, Integer> allocations = new LinkedHashMap<>();
+        for (int i = 0; i < buffer.reservedCount(); i++) {
+            int row = buffer.reservedRow(i);
+            int taken = buffer.taken(row) - takenBefore[row];
+            if (taken > 0) {
+                allocations.put(buffer.batchId(row), taken);
+            }
+        }
+        request.setReservedFromBatchIds(new ArrayList<>(allocations.keySet()));
+        return allocations;
     }
 
     /**
-     * Update inventory (called by Order Service)
+     * Load the batches a reservation may take from. In batch mode the rows
+     * are locked; in ledger mode the product is locked in process and the
+     * batches are detached copies carrying their current balance.
+     * A location-aware handler first picks its locations from an unlocked
+     * read of the stock per location, and only their rows are locked. If the
+     * stock there has gone in the meantime, every location is locked instead.
+     */
+    private List<InventoryBatch> loadLiveBatches(Long productId, InventoryHandler handler,
+                                                 int quantity, String location) {
+        LocalDate today = LocalDate.now();
+        if (inventoryLedger.isEnabled()) {
+            inventoryLedger.lockProduct(productId);
+            return inventoryLedger.findLiveBalances(productId, today);
+        }
+        if (!handler.isLocationAware()) {
+            return inventoryBatchRepository.findLiveBatches(productId, today);
+        }
+
+        Map<String, Integer> stockByLocation = new LinkedHashMap<>();
+        for (LocationStockView stock : inventoryBatchRepository.sumLiveStockByLocation(productId, today)) {
+            stockByLocation.put(stock.getLocation(), stock.getQuantity().intValue());
+        }
+        List<String> locations = handler.selectLocations(stockByLocation, quantity, location);
+        if (locations != null && !locations.isEmpty()) {
+            List<InventoryBatch> batches = inventoryBatchRepository.findLiveBatchesAtLocations(productId, locations, today);
+            if (batches.stream().mapToInt(InventoryBatch::getQuantity).sum() >= quantity) {
+                return batches;
+            }
+        }
+        return inventoryBatchRepository.findLiveBatches(productId, today);
+    }
+
+    /**
+     * Copy the batches into this thread's reservation buffer; row i is batches.get(i)
+     */
+    private static ReservationBuffer fillBuffer(List<InventoryBatch> batches) {
+        ReservationBuffer buffer = RESERVATION_BUFFER.get();
+        buffer.clear();
+        for (InventoryBatch batch : batches) {
+            buffer.add(batch.getBatchId(), batch.getQuantity(), batch.getLocation());
+        }
+        return buffer;
+    }
+
+    /**
+     * Persist the quantities taken: the touched batches get their new
+     * quantity and the rows are updated in place, or in ledger mode one
+     * entry per touched batch is appended
+     */
+    private void saveReservation(List<InventoryBatch> batches, ReservationBuffer buffer, String orderRef) {
+        for (int i = 0; i < buffer.reservedCount(); i++) {
+            int row = buffer.reservedRow(i);
+            batches.get(row).setQuantity(buffer.quantity(row));
+        }
+        if (!inventoryLedger.isEnabled()) {
+            inventoryBatchRepository.saveAll(batches);
+            return;
+        }
+        // Only ledger mode needs the deltas as a map
+        Map<Long, Integer> deltas = new LinkedHashMap<>();
+        for (int i = 0; i < buffer.reservedCount(); i++) {
+            int row = buffer.reservedRow(i);
+            deltas.put(buffer.batchId(row), -buffer.taken(row));
+        }
+        inventoryLedger.append(deltas, orderRef);
+    }
+
+    // Runs the handler inside a ReservationEvent for JFR and a trace span
+    private static void runHandler(InventoryHandler handler, Long productId,
+                                   ReservationBuffer buffer, int quantity, String location) {
+        ReservationEvent event = new ReservationEvent();
+        Span span = Tracing.startSpan("InventoryHandler.reserveInventory")
+                .tag("handler", handler.getHandlerType())
+                .tag("productId", productId)
+                .tag("quantity", quantity)
+                .tag("location", location)
+                .tag("batches.scanned", buffer.size());
+        int touchedBefore = buffer.reservedCount();
+        event.begin();
+        boolean succeeded = false;
+        try {
+            handler.reserve(buffer, quantity, location);
+            succeeded = true;
+        } catch (RuntimeException e) {
+            span.fail(e);
+            throw e;
+        } finally {
+            event.end();
+            int touched = succeeded ? buffer.reservedCount() - touchedBefore : 0;
+            span.tag("batches.touched", touched).end();
+            if (event.shouldCommit()) {
+                event.productId = productId;
+                event.quantity = quantity;
+                event.handlerType = handler.getHandlerType();
+                event.batchesScanned = buffer.size();
+                event.batchesTouched = touched;
+                event.succeeded = succeeded;
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Stop reserving from these products while they move to another partition
+     * @param productIds Product IDs
+     */
+    public void fenceProducts(Collection<Long> productIds) {
+        fencedProducts.addAll(productIds);
+    }
+
+    /**
+     * Allow reservations on these products again
+     * @param productIds Product IDs
+     */
+    public void unfenceProducts(Collection<Long> productIds) {
+        fencedProducts.removeAll(productIds);
+    }
+
+    // A sold-out product may have no live or exhausted batches left, only archived ones
+    private boolean productExists(Long productId) {
+        return inventoryBatchRepository.existsByProductId(productId)
+                || inventoryBatchRepository.existsInArchive(productId);
+    }
+
+    // Checked after the batch rows are locked, so a handoff that fenced the
+    // product cannot miss a reservation that commits after its export
+    private void checkNotFenced(Long productId) {
+        if (fencedProducts.contains(productId)) {
+            throw new IllegalArgumentException("Product " + productId + " is being moved to another partition");
+        }
+    }
+
+    /**
+     * Update inventory (called by Order Service). A request with an order
+     * reference is recorded under it, and repeating it returns the recorded
+     * allocations instead of reserving again, so a caller may safely retry
+     * a reservation whose outcome it never saw.
      * @param request Inventory update request
      * @return Update response
      */
@@ -85,14 +489,224 @@ public class InventoryService {
                 request.getProductId(), request.getQuantity());
 
         try {
-            List<Long> reservedBatchIds = reserveInventory(request.getProductId(), request.getQuantity());
-            request.setReservedFromBatchIds(reservedBatchIds);
+            Map<Long, Integer> recorded = findReservation(request.getOrderRef(), request.getProductId(),
+                    request.getQuantity());
+            if (recorded != null) {
+                log.info("Reservation for {} already made; returning it", request.getOrderRef());
+                request.setReservedFromBatchIds(new ArrayList<>(recorded.keySet()));
+                return new InventoryUpdateResponse(true, "Inventory already reserved", recorded);
+            }
+            Map<Long, Integer> allocations = allocateInventory(request.getProductId(), request.getQuantity(),
+                    request.getOrderRef(), request.getLocation());
+            recordReservation(request.getOrderRef(), request.getProductId(), request.getQuantity(), allocations);
+            request.setReservedFromBatchIds(new ArrayList<>(allocations.keySet()));
 
-            return new InventoryUpdateResponse(true, "Inventory updated successfully");
+            return new InventoryUpdateResponse(true, "Inventory updated successfully", allocations);
         } catch (IllegalArgumentException e) {
             log.error("Failed to update inventory: {}", e.getMessage());
             return new InventoryUpdateResponse(false, e.getMessage());
         }
     }
-}
 
+    /**
+     * @return Allocations recorded for the order reference, or null if it has none
+     * @throws IllegalArgumentException if the reference was used for another reservation
+     */
+    private Map<Long, Integer> findReservation(String orderRef, Long productId, Integer quantity) {
+        if (orderRef == null) {
+            return null;
+        }
+        InventoryReservation reservation = reservationRepository.findById(orderRef).orElse(null);
+        if (reservation == null) {
+            return null;
+        }
+        if (!reservation.getProductId().equals(productId) || !reservation.getQuantity().equals(quantity)) {
+            throw new IllegalArgumentException("Order reference " + orderRef + " was used for "
+                    + reservation.getQuantity() + " units of product " + reservation.getProductId());
+        }
+        return Allocations.parse(reservation.getAllocations());
+    }
+
+    // A concurrent duplicate fails on the primary key and rolls back its reservation
+    private void recordReservation(String orderRef, Long productId, Integer quantity, Map<Long, Integer> allocations) {
+        if (orderRef != null) {
+            reservationRepository.insert(orderRef, productId, quantity, Allocations.format(allocations));
+        }
+    }
+
+    /**
+     * Put back the stock of cancelled orders in one transaction. Quantities
+     * are added up per batch first, so each batch is restored once. A release
+     * is applied once per order reference; repeating it succeeds without
+     * putting the stock back again.
+     * @param requests Releases, e.g. one per cancelled order
+     * @return One response per request, in the same order
+     */
+    @Transactional
+    public List<InventoryUpdateResponse> releaseInventory(List<StockReleaseRequest> requests) {
+        log.info("Releasing stock for {} requests", requests.size());
+
+        Map<String, InventoryReservation> reservations = findReservations(requests);
+        Map<Long, Long> batchProducts = findBatchProducts(requests, reservations);
+        Map<Long, Integer> totals = new LinkedHashMap<>();
+        Set<Long> productIds = new LinkedHashSet<>();
+        List<InventoryUpdateResponse> responses = new ArrayList<>(requests.size());
+        Set<String> released = new HashSet<>();
+        for (StockReleaseRequest request : requests) {
+            String orderRef = request.getOrderRef();
+            InventoryReservation reservation = orderRef != null ? reservations.get(orderRef) : null;
+            try {
+                if (orderRef != null && (released.contains(orderRef)
+                        || (reservation != null && reservation.getReleasedAt() != null))) {
+                    responses.add(new InventoryUpdateResponse(true, "Stock already released"));
+                    continue;
+                }
+                Map<Long, Integer> allocations = releaseAllocations(request, reservation, batchProducts);
+                if (!recordRelease(request, reservation, allocations)) {
+                    responses.add(new InventoryUpdateResponse(true, "Stock already released"));
+                    continue;
+                }
+                if (orderRef != null) {
+                    released.add(orderRef);
+                }
+                allocations.forEach((batchId, quantity) -> totals.merge(batchId, quantity, Integer::sum));
+                productIds.add(request.getProductId());
+                responses.add(new InventoryUpdateResponse(true, "Stock released"));
+            } catch (IllegalArgumentException e) {
+                responses.add(new InventoryUpdateResponse(false, e.getMessage()));
+            }
+        }
+
+        restoreStock(totals, "order-cancel");
+        productIds.forEach(this::markChanged);
+        stockAlertService.refresh(productIds);
+        inventoryAnalyticsService.refresh(productIds);
+        return responses;
+    }
+
+    /**
+     * Mark the order reference released, so a retried release puts nothing back.
+     * A concurrent first release of an unrecorded reference fails on the
+     * primary key and rolls back this call.
+     * @return false if a concurrent release got there first
+     */
+    private boolean recordRelease(StockReleaseRequest request, InventoryReservation reservation,
+                                  Map<Long, Integer> allocations) {
+        if (request.getOrderRef() == null) {
+            return true;
+        }
+        if (reservation != null) {
+            return reservationRepository.markReleased(request.getOrderRef()) > 0;
+        }
+        reservationRepository.insertReleased(request.getOrderRef(), request.getProductId(), request.getQuantity(),
+                Allocations.format(allocations));
+        return true;
+    }
+
+    // Reservations recorded for the releases' order references, by reference
+    private Map<String, InventoryReservation> findReservations(List<StockReleaseRequest> requests) {
+        Set<String> orderRefs = requests.stream()
+                .map(StockReleaseRequest::getOrderRef)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        if (orderRefs.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        return reservationRepository.findAllById(orderRefs).stream()
+                .collect(Collectors.toMap(InventoryReservation::getOrderRef, reservation -> reservation));
+    }
+
+    // Product of every batch the releases may put stock back into, by batch ID
+    private Map<Long, Long> findBatchProducts(List<StockReleaseRequest> requests,
+                                              Map<String, InventoryReservation> reservations) {
+        Set<Long> batchIds = new HashSet<>();
+        for (StockReleaseRequest request : requests) {
+            if (request.getAllocations() != null) {
+                batchIds.addAll(request.getAllocations().keySet());
+            }
+        }
+        reservations.values().forEach(reservation ->
+                batchIds.addAll(Allocations.parse(reservation.getAllocations()).keySet()));
+        if (batchIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<Long, Long> batchProducts = new HashMap<>();
+        for (BatchProductView batch : inventoryBatchRepository.findBatchProducts(batchIds)) {
+            batchProducts.put(batch.getBatchId(), batch.getProductId());
+        }
+        return batchProducts;
+    }
+
+    /**
+     * Work out what a release puts back. The allocations recorded for the
+     * order reference win over the ones in the request; without either,
+     * there is no telling which batches the stock came from and the release fails.
+     * @throws IllegalArgumentException if the release is invalid or names batches of another product
+     */
+    private Map<Long, Integer> releaseAllocations(StockReleaseRequest request, InventoryReservation reservation,
+                                                  Map<Long, Long> batchProducts) {
+        Long productId = request.getProductId();
+        if (request.getQuantity() == null || request.getQuantity() <= 0) {
+            throw new IllegalArgumentException("Quantity must be greater than zero");
+        }
+        checkNotFenced(productId);
+        Map<Long, Integer> allocations = request.getAllocations();
+        if (reservation != null) {
+            if (!reservation.getProductId().equals(productId) || !reservation.getQuantity().equals(request.getQuantity())) {
+                throw new IllegalArgumentException("Order reference " + request.getOrderRef() + " reserved "
+                        + reservation.getQuantity() + " units of product " + reservation.getProductId());
+            }
+            allocations = Allocations.parse(reservation.getAllocations());
+        }
+        if (allocations == null || allocations.isEmpty()) {
+            throw new IllegalArgumentException("No allocations known for " + request.getQuantity()
+                    + " units of product " + productId + "; stock cannot be released");
+        }
+
+        int allocated = 0;
+        for (Map.Entry<Long, Integer> allocation : allocations.entrySet()) {
+            Long batchProduct = batchProducts.get(allocation.getKey());
+            if (batchProduct == null) {
+                throw new IllegalArgumentException("Batch not found with ID: " + allocation.getKey());
+            }
+            if (!batchProduct.equals(productId)) {
+                throw new IllegalArgumentException("Batch " + allocation.getKey() + " belongs to product " + batchProduct
+                        + ", not " + productId);
+            }
+            if (allocation.getValue() == null || allocation.getValue() <= 0) {
+                throw new IllegalArgumentException("Allocation for batch " + allocation.getKey() + " must be greater than zero");
+            }
+            allocated += allocation.getValue();
+        }
+        if (allocated != request.getQuantity()) {
+            throw new IllegalArgumentException("Allocations add up to " + allocated
+                    + ", not the quantity " + request.getQuantity());
+        }
+        return allocations;
+    }
+
+    /**
+     * Add quantities back to batches, as part of the current transaction.
+     * In ledger mode the stock comes back as entries; a batch archived by
+     * the sweeper in the meantime is copied back from the archive.
+     * @param quantities Quantity to add per batch ID
+     * @param ref Reference recorded on the ledger
+     */
+    public void restoreStock(Map<Long, Integer> quantities, String ref) {
+        Map<Long, Integer> remaining = inventoryLedger.isEnabled()
+                ? inventoryLedger.appendExisting(quantities, ref)
+                : quantities;
+        remaining.forEach((batchId, quantity) -> {
+            if (inventoryBatchRepository.restoreQuantity(batchId, quantity) > 0) {
+                return;
+            }
+            // The sweeper may have archived the batch once the reservation emptied it
+            if (inventoryBatchRepository.copyFromArchive(batchId) > 0) {
+                inventoryBatchRepository.deleteFromArchive(batchId);
+                inventoryBatchRepository.restoreQuantity(batchId, quantity);
+            } else {
+                log.warn("Batch {} not found; {} units could not be restored", batchId, quantity);
+            }
+        });
+    }
+}
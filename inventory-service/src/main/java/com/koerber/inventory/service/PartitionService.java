@@ -0,0 +1,162 @@
+package com.koerber.inventory.service;
+
+import com.koerber.inventory.datasource.DataSourceRouting;
+import com.koerber.inventory.dto.PartitionBatchDTO;
+import com.koerber.inventory.dto.PartitionHandoffDTO;
+import com.koerber.inventory.dto.PartitionReservationDTO;
+import com.koerber.inventory.entity.InventoryBatch;
+import com.koerber.inventory.entity.InventoryReservation;
+import com.koerber.inventory.repository.InventoryBatchRepository;
+import com.koerber.inventory.repository.InventoryHoldRepository;
+import com.koerber.inventory.repository.InventoryReservationRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Moves products between inventory partitions.
+ * A handoff is export (fences the products) on the source, import on the
+ * target, then drop on the source once clients route to the target.
+ * Products with active holds are not handed off: hold IDs are only unique
+ * within a partition, so a hold could not be confirmed on the target.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PartitionService {
+
+    private final InventoryBatchRepository inventoryBatchRepository;
+    private final InventoryReservationRepository reservationRepository;
+    private final InventoryHoldRepository holdRepository;
+    private final InventoryService inventoryService;
+    private final InventoryLedger inventoryLedger;
+    private final StockAlertService stockAlertService;
+    private final InventoryAnalyticsService inventoryAnalyticsService;
+    private final ProductCatalog productCatalog;
+
+    /**
+     * Get the IDs of all products held by this partition
+     * @return Product IDs
+     */
+    @Transactional(readOnly = true)
+    public List<Long> getProductIds() {
+        // A product missing from a stale replica would never be handed off
+        return DataSourceRouting.onPrimary(inventoryBatchRepository::findDistinctProductIds);
+    }
+
+    /**
+     * Get the IDs of products with active holds, which cannot be handed off yet
+     * @return Product IDs
+     */
+    @Transactional(readOnly = true)
+    public List<Long> getHeldProductIds() {
+        return DataSourceRouting.onPrimary(() -> holdRepository.findHeldProductIds());
+    }
+
+    /**
+     * Fence products against new reservations and return their batches and
+     * reservation records
+     * @param productIds Product IDs to hand off
+     * @return Handoff of those products
+     * @throws IllegalStateException if any of the products has an active hold
+     */
+    @Transactional
+    public PartitionHandoffDTO exportProducts(List<Long> productIds) {
+        log.info("Exporting {} products for handoff", productIds.size());
+
+        inventoryService.fenceProducts(productIds);
+        try {
+            if (inventoryLedger.isEnabled()) {
+                // Wait for in-flight reservations, then fold their entries into the batches
+                productIds.forEach(inventoryLedger::lockProduct);
+                inventoryLedger.compact();
+            }
+            // Waits for in-flight reservations and holds on these rows to commit
+            List<PartitionBatchDTO> batches = inventoryBatchRepository.lockByProductIds(productIds).stream()
+                    .map(batch -> new PartitionBatchDTO(batch.getBatchId(), batch.getProductId(),
+                            productCatalog.getName(batch.getProductId()), batch.getQuantity(), batch.getExpiryDate(), batch.getLocation()))
+                    .collect(Collectors.toList());
+            List<Long> held = holdRepository.findHeldProductIds(productIds);
+            if (!held.isEmpty()) {
+                throw new IllegalStateException("Products " + held + " have active holds; confirm or release them first");
+            }
+            List<PartitionReservationDTO> reservations = reservationRepository.findByProductIdIn(productIds).stream()
+                    .map(reservation -> new PartitionReservationDTO(reservation.getOrderRef(), reservation.getProductId(),
+                            reservation.getQuantity(), reservation.getAllocations(), reservation.getCreatedAt(),
+                            reservation.getReleasedAt()))
+                    .collect(Collectors.toList());
+            return new PartitionHandoffDTO(productIds, batches, reservations);
+        } catch (RuntimeException e) {
+            inventoryService.unfenceProducts(productIds);
+            throw e;
+        }
+    }
+
+    /**
+     * Store products handed off from another partition. Whatever this
+     * partition held for them before, e.g. its own copy of the seed data, is
+     * replaced: the exporting partition's copy is the one clients reserved from.
+     * @param handoff Handoff to import
+     * @return Number of batches imported
+     */
+    @Transactional
+    public int importProducts(PartitionHandoffDTO handoff) {
+        List<Long> productIds = handoff.getProductIds();
+        List<PartitionBatchDTO> batches = handoff.getBatches();
+        log.info("Importing {} batches of {} products from handoff", batches.size(), productIds.size());
+
+        if (inventoryLedger.isEnabled()) {
+            // Pending entries must not outlive the batches replaced below
+            inventoryLedger.compact();
+        }
+        inventoryBatchRepository.deleteByProductIds(productIds);
+        reservationRepository.deleteByProductIds(productIds);
+
+        // The target may not know these products yet; register each one once
+        Map<Long, String> names = new LinkedHashMap<>();
+        batches.forEach(dto -> names.putIfAbsent(dto.getProductId(), dto.getProductName()));
+        names.forEach(productCatalog::register);
+        List<InventoryBatch> entities = batches.stream()
+                .map(dto -> new InventoryBatch(dto.getBatchId(), dto.getProductId(),
+                        dto.getQuantity(), dto.getExpiryDate(),
+                        dto.getLocation() != null ? dto.getLocation() : InventoryBatch.DEFAULT_LOCATION))
+                .collect(Collectors.toList());
+        inventoryBatchRepository.saveAll(entities);
+        reservationRepository.saveAll(handoff.getReservations().stream()
+                .map(dto -> new InventoryReservation(dto.getOrderRef(), dto.getProductId(), dto.getQuantity(),
+                        dto.getAllocations(), dto.getCreatedAt(), dto.getReleasedAt()))
+                .collect(Collectors.toList()));
+
+        productIds.forEach(inventoryService::markChanged);
+        stockAlertService.refresh(productIds);
+        inventoryAnalyticsService.refresh(productIds);
+        return entities.size();
+    }
+
+    /**
+     * Delete products that now belong to another partition and lift their fence
+     * @param productIds Product IDs
+     * @return Number of batches deleted
+     */
+    @Transactional
+    public int dropProducts(List<Long> productIds) {
+        if (inventoryLedger.isEnabled()) {
+            // Pending entries must not outlive their batches
+            inventoryLedger.compact();
+        }
+        int deleted = inventoryBatchRepository.deleteByProductIds(productIds);
+        reservationRepository.deleteByProductIds(productIds);
+        productIds.forEach(inventoryService::markChanged);
+        stockAlertService.refresh(productIds);
+        inventoryAnalyticsService.refresh(productIds);
+        inventoryService.unfenceProducts(productIds);
+        log.info("Dropped {} batches of {} handed-off products", deleted, productIds.size());
+        return deleted;
+    }
+}
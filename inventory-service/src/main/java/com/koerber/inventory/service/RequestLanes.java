@@ -0,0 +1,79 @@
+package com.koerber.inventory.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Separate execution lanes for stock reads and reservations, so a read
+ * storm cannot hold the workers or connections that reservations need.
+ * Reads are shed first: they are refused as soon as the reservation queue
+ * starts to back up, while reservations are only refused when their own
+ * queue is full. With lanes disabled, work runs on the request thread.
+ */
+@Component
+public class RequestLanes {
+
+    private final boolean enabled;
+    private final double shedReadsAbove;
+    private final ExecutionLane readLane;
+    private final ExecutionLane reservationLane;
+
+    public RequestLanes(MeterRegistry meterRegistry,
+                        @Value("${inventory.lanes.enabled:true}") boolean enabled,
+                        @Value("${inventory.lanes.read.workers:4}") int readWorkers,
+                        @Value("${inventory.lanes.read.queue-capacity:100}") int readQueueCapacity,
+                        @Value("${inventory.lanes.reservation.workers:6}") int reservationWorkers,
+                        @Value("${inventory.lanes.reservation.queue-capacity:500}") int reservationQueueCapacity,
+                        @Value("${inventory.lanes.shed-reads-above:0.5}") double shedReadsAbove) {
+        this.enabled = enabled;
+        this.shedReadsAbove = shedReadsAbove;
+        this.readLane = enabled ? new ExecutionLane("read", readWorkers, readQueueCapacity, meterRegistry) : null;
+        this.reservationLane = enabled
+                ? new ExecutionLane("reservation", reservationWorkers, reservationQueueCapacity, meterRegistry)
+                : null;
+    }
+
+    /**
+     * Run a stock read on the read lane
+     * @param work Read to run
+     * @return Result of the read
+     * @throws RejectedExecutionException if reads are being shed or the read queue is full
+     */
+    public <T> CompletableFuture<T> submitRead(Supplier<T> work) {
+        if (!enabled) {
+            return CompletableFuture.completedFuture(work.get());
+        }
+        if (reservationLane.getQueueUsage() >= shedReadsAbove) {
+            readLane.recordShed();
+            throw new RejectedExecutionException("Reads shed while reservations are queued");
+        }
+        return readLane.submit(work);
+    }
+
+    /**
+     * Run a reservation on the reservation lane
+     * @param work Reservation to run
+     * @return Result of the reservation
+     * @throws RejectedExecutionException if the reservation queue is full
+     */
+    public <T> CompletableFuture<T> submitReservation(Supplier<T> work) {
+        if (!enabled) {
+            return CompletableFuture.completedFuture(work.get());
+        }
+        return reservationLane.submit(work);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (enabled) {
+            readLane.shutdown();
+            reservationLane.shutdown();
+        }
+    }
+}
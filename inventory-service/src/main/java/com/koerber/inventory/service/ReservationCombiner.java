@@ -0,0 +1,223 @@
+package com.koerber.inventory.service;
+
+import com.koerber.inventory.dto.InventoryUpdateRequest;
+import com.koerber.inventory.dto.InventoryUpdateResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Group commit for reservations on the same product.
+ * The first request for a product opens a group, and a reservation lane
+ * worker waits up to the window (or until the group is full) for others to
+ * join, then reserves for the whole group in one transaction. Every caller
+ * gets back its own future, with its own allocations and ledger entries
+ * under its order reference; only the leader's work takes a lane worker, so
+ * a group can grow to max-group-size whatever the lane's worker count.
+ * With hot-products on, reservations for products the
+ * {@link HotProductTracker} reports as hot are combined even while the
+ * combiner is otherwise disabled, so their row locks are taken once per group.
+ */
+@Component
+@Slf4j
+public class ReservationCombiner implements HotProductListener {
+
+    private final InventoryService inventoryService;
+    private final RequestLanes requestLanes;
+    private final boolean enabled;
+    private final boolean hotProducts;
+    private final long windowNanos;
+    private final int maxGroupSize;
+
+    private final ConcurrentMap<Long, Group> openGroups = new ConcurrentHashMap<>();
+    private volatile Set<Long> combinedProducts = Collections.emptySet();
+
+    public ReservationCombiner(InventoryService inventoryService,
+                               RequestLanes requestLanes,
+                               @Value("${inventory.combiner.enabled:false}") boolean enabled,
+                               @Value("${inventory.combiner.hot-products:true}") boolean hotProducts,
+                               @Value("${inventory.combiner.window-ms:2}") long windowMs,
+                               @Value("${inventory.combiner.max-group-size:32}") int maxGroupSize) {
+        this.inventoryService = inventoryService;
+        this.requestLanes = requestLanes;
+        this.enabled = enabled;
+        this.hotProducts = hotProducts;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMs);
+        this.maxGroupSize = maxGroupSize;
+    }
+
+    /**
+     * @param productId Product ID
+     * @return Whether reservations for the product go through the combiner
+     */
+    public boolean appliesTo(Long productId) {
+        return enabled || combinedProducts.contains(productId);
+    }
+
+    @Override
+    public void onHotProductsChanged(Set<Long> hotProducts) {
+        if (this.hotProducts) {
+            combinedProducts = hotProducts;
+        }
+    }
+
+    /**
+     * Reserve inventory, combined with concurrent requests for the same
+     * product. The caller's thread is not held while the group forms.
+     * @param request Inventory update request
+     * @return Update response for this request only; completes with a
+     *         DeadlineExceededException if the request's deadline passed while
+     *         it waited, or a RejectedExecutionException if the lane was full
+     */
+    public CompletableFuture<InventoryUpdateResponse> submit(InventoryUpdateRequest request) {
+        Long productId = request.getProductId();
+        Pending pending = new Pending(request, RequestDeadline.get());
+
+        Group group = join(productId, pending);
+        if (group.leader == pending) {
+            try {
+                requestLanes.submitReservation(() -> {
+                    try {
+                        awaitGroup(productId, group);
+                        execute(productId, group);
+                    } finally {
+                        // No caller may be left waiting, whatever went wrong
+                        fail(productId, group, new IllegalStateException("Combined reservation did not run"));
+                    }
+                    return null;
+                });
+            } catch (RejectedExecutionException e) {
+                fail(productId, group, e);
+            }
+        }
+        return pending.result;
+    }
+
+    private Group join(Long productId, Pending pending) {
+        while (true) {
+            Group group = openGroups.computeIfAbsent(productId, id -> new Group());
+            synchronized (group) {
+                if (group.closed) {
+                    continue;
+                }
+                if (group.members.isEmpty()) {
+                    group.leader = pending;
+                }
+                group.members.add(pending);
+                if (group.members.size() >= maxGroupSize) {
+                    close(productId, group);
+                }
+                return group;
+            }
+        }
+    }
+
+    private void awaitGroup(Long productId, Group group) {
+        long deadline = System.nanoTime() + windowNanos;
+        synchronized (group) {
+            long remaining;
+            while (!group.closed && (remaining = deadline - System.nanoTime()) > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(group, remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            if (!group.closed) {
+                close(productId, group);
+            }
+        }
+    }
+
+    // Close the group and fail every member that has no result yet
+    private void fail(Long productId, Group group, RuntimeException e) {
+        synchronized (group) {
+            if (!group.closed) {
+                close(productId, group);
+            }
+            group.members.forEach(member -> member.result.completeExceptionally(e));
+        }
+    }
+
+    // Caller holds the group's monitor
+    private void close(Long productId, Group group) {
+        group.closed = true;
+        openGroups.remove(productId, group);
+        group.notifyAll();
+    }
+
+    private void execute(Long productId, Group group) {
+        // Members whose callers have given up are dropped before the reservation
+        List<Pending> live = new ArrayList<>(group.members.size());
+        for (Pending member : group.members) {
+            if (RequestDeadline.isExpired(member.deadlineNanos)) {
+                member.result.completeExceptionally(new DeadlineExceededException("Deadline exceeded before reservation"));
+            } else {
+                live.add(member);
+            }
+        }
+        if (live.isEmpty()) {
+            return;
+        }
+
+        List<InventoryUpdateRequest> requests = live.stream()
+                .map(member -> member.request)
+                .collect(Collectors.toList());
+        // The group is reserved as a whole, not under the leader's own deadline
+        Long leaderDeadline = RequestDeadline.get();
+        RequestDeadline.clear();
+        try {
+            List<InventoryUpdateResponse> responses = inventoryService.reserveInventoryGroup(productId, requests);
+            for (int i = 0; i < live.size(); i++) {
+                live.get(i).result.complete(responses.get(i));
+            }
+        } catch (RuntimeException e) {
+            // e.g. one order reference reserved concurrently outside the group; only that request should fail
+            log.warn("Combined reservation for product {} failed, reserving its requests one by one: {}",
+                    productId, e.getMessage());
+            for (Pending member : live) {
+                reserveAlone(member);
+            }
+        } finally {
+            RequestDeadline.set(leaderDeadline);
+        }
+    }
+
+    private void reserveAlone(Pending member) {
+        try {
+            member.result.complete(inventoryService.updateInventory(member.request));
+        } catch (RuntimeException e) {
+            log.error("Reservation for product {} failed: {}", member.request.getProductId(), e.getMessage());
+            member.result.complete(new InventoryUpdateResponse(false, e.getMessage()));
+        }
+    }
+
+    private static class Group {
+        private final List<Pending> members = new ArrayList<>();
+        private Pending leader;
+        private boolean closed;
+    }
+
+    private static class Pending {
+        private final InventoryUpdateRequest request;
+        private final Long deadlineNanos;
+        private final CompletableFuture<InventoryUpdateResponse> result = new CompletableFuture<>();
+
+        private Pending(InventoryUpdateRequest request, Long deadlineNanos) {
+            this.request = request;
+            this.deadlineNanos = deadlineNanos;
+        }
+    }
+}
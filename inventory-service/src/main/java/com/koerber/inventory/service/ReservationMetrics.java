@@ -0,0 +1,41 @@
+package com.koerber.inventory.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+/**
+ * Counts reservation requests by outcome (inventory.reservations metric)
+ */
+@Component
+public class ReservationMetrics {
+
+    private final Counter reserved;
+    private final Counter rejected;
+    private final Counter deadlineExceeded;
+
+    public ReservationMetrics(MeterRegistry meterRegistry) {
+        this.reserved = counter(meterRegistry, "reserved");
+        this.rejected = counter(meterRegistry, "rejected");
+        this.deadlineExceeded = counter(meterRegistry, "deadline_exceeded");
+    }
+
+    public void recordReserved() {
+        reserved.increment();
+    }
+
+    public void recordRejected() {
+        rejected.increment();
+    }
+
+    public void recordDeadlineExceeded() {
+        deadlineExceeded.increment();
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("inventory.reservations")
+                .description("Reservation requests by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
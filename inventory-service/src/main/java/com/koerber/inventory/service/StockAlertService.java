@@ -0,0 +1,385 @@
+package com.koerber.inventory.service;
+
+import com.koerber.inventory.datasource.DataSourceRouting;
+import com.koerber.inventory.dto.AlertEventDTO;
+import com.koerber.inventory.dto.AlertThresholdDTO;
+import com.koerber.inventory.dto.StockAlertDTO;
+import com.koerber.inventory.entity.AlertThreshold;
+import com.koerber.inventory.entity.InventoryBatch;
+import com.koerber.inventory.repository.AlertThresholdRepository;
+import com.koerber.inventory.repository.InventoryBatchRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Low-stock and near-expiry alerts, kept up to date incrementally.
+ * The live batches of every product are loaded once at startup; after that
+ * each committed reservation passes in the product's batches, so alert
+ * state changes without reading inventory_batch again. Live batches are
+ * indexed by expiry date, and the periodic check only visits the dates that
+ * have just passed or just entered the near-expiry window. Listing alerts
+ * is proportional to the number of alerts, not batches.
+ *
+ * Every alert raised or cleared is appended to a bounded feed that
+ * consumers poll with the last sequence they saw.
+ */
+@Service
+@Slf4j
+public class StockAlertService {
+
+    public static final String LOW_STOCK = "LOW_STOCK";
+    public static final String NEAR_EXPIRY = "NEAR_EXPIRY";
+
+    private final InventoryBatchRepository inventoryBatchRepository;
+    private final AlertThresholdRepository thresholdRepository;
+    private final InventoryLedger inventoryLedger;
+    private final int defaultReorderLevel;
+    private final int nearExpiryDays;
+    private final int feedSize;
+
+    // All state below is guarded by this
+    private final Map<Long, Integer> reorderLevels = new HashMap<>();
+    private final Map<Long, Integer> availableByProduct = new HashMap<>();
+    private final Map<Long, Map<Long, LiveBatch>> batchesByProduct = new HashMap<>();
+    private final NavigableMap<LocalDate, Set<Long>> expirySchedule = new TreeMap<>();
+    private final Map<Long, LiveBatch> liveBatches = new HashMap<>();
+    private final Map<String, StockAlertDTO> activeAlerts = new LinkedHashMap<>();
+    private final Deque<AlertEventDTO> feed = new ArrayDeque<>();
+    private long lastSequence;
+    // Last expiry date already covered by the near-expiry window
+    private LocalDate windowEnd;
+
+    public StockAlertService(InventoryBatchRepository inventoryBatchRepository,
+                             AlertThresholdRepository thresholdRepository,
+                             InventoryLedger inventoryLedger,
+                             @Value("${inventory.alerts.default-reorder-level:10}") int defaultReorderLevel,
+                             @Value("${inventory.alerts.near-expiry-days:30}") int nearExpiryDays,
+                             @Value("${inventory.alerts.feed-size:1000}") int feedSize) {
+        this.inventoryBatchRepository = inventoryBatchRepository;
+        this.thresholdRepository = thresholdRepository;
+        this.inventoryLedger = inventoryLedger;
+        this.defaultReorderLevel = defaultReorderLevel;
+        this.nearExpiryDays = nearExpiryDays;
+        this.feedSize = feedSize;
+    }
+
+    /**
+     * Build the alert state from a single read of all batches
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void load() {
+        if (inventoryLedger.isEnabled()) {
+            // Batch quantities are only current once pending entries are folded in
+            inventoryLedger.compact();
+        }
+        // Alerts are only kept current from here on, so the starting point must not be stale
+        for (AlertThreshold threshold : DataSourceRouting.onPrimary(thresholdRepository::findAll)) {
+            reorderLevels.put(threshold.getProductId(), threshold.getReorderLevel());
+        }
+
+        List<InventoryBatch> allBatches = DataSourceRouting.onPrimary(inventoryBatchRepository::findAll);
+        Map<Long, List<InventoryBatch>> batches = allBatches.stream()
+                .collect(Collectors.groupingBy(InventoryBatch::getProductId, LinkedHashMap::new, Collectors.toList()));
+        LocalDate today = LocalDate.now();
+        batches.forEach((productId, productBatches) -> apply(productId, productBatches, today));
+        windowEnd = today.plusDays(nearExpiryDays);
+        log.info("Stock alerts loaded for {} products: {} active alerts", batches.size(), activeAlerts.size());
+    }
+
+    /**
+     * Update a product after a reservation. Within a transaction the update
+     * runs after commit, so alerts never reflect uncommitted stock.
+     * @param productId Product ID
+     * @param batches Batches the reservation read, with their new quantities;
+     *                the product's other batches, e.g. in warehouses the
+     *                reservation did not ship from, are kept as they are
+     */
+    public void onBatchesChanged(Long productId, List<InventoryBatch> batches) {
+        // Copy now: the entities may be reused once the transaction is over
+        List<InventoryBatch> snapshot = batches.stream()
+                .map(batch -> new InventoryBatch(batch.getBatchId(), batch.getProductId(), batch.getQuantity(),
+                        batch.getExpiryDate(), batch.getLocation()))
+                .collect(Collectors.toList());
+        TransactionHooks.afterCommit(() -> merge(productId, snapshot, LocalDate.now()));
+    }
+
+    /**
+     * Re-read products whose stock changed outside a reservation, e.g. a
+     * released hold or a partition handoff. Runs after commit.
+     * @param productIds Product IDs
+     */
+    public void refresh(Collection<Long> productIds) {
+        Set<Long> distinct = new LinkedHashSet<>(productIds);
+        TransactionHooks.afterCommit(() -> distinct.forEach(this::reload));
+    }
+
+    /**
+     * Drop batches that have expired and raise alerts for batches that have
+     * entered the near-expiry window since the last check
+     */
+    @Scheduled(initialDelayString = "${inventory.alerts.check-interval-ms:60000}",
+            fixedDelayString = "${inventory.alerts.check-interval-ms:60000}")
+    public void scheduledCheck() {
+        checkExpiry(LocalDate.now());
+    }
+
+    /**
+     * @param today Batches expiring before this date are no longer live
+     */
+    public synchronized void checkExpiry(LocalDate today) {
+        NavigableMap<LocalDate, Set<Long>> expired = expirySchedule.headMap(today, false);
+        Set<Long> affectedProducts = new LinkedHashSet<>();
+        for (Set<Long> batchIds : expired.values()) {
+            for (Long batchId : batchIds) {
+                LiveBatch batch = liveBatches.remove(batchId);
+                batchesByProduct.get(batch.productId).remove(batchId);
+                clear(NEAR_EXPIRY + ":" + batchId);
+                affectedProducts.add(batch.productId);
+            }
+        }
+        expired.clear();
+        affectedProducts.forEach(this::evaluateLowStock);
+
+        LocalDate horizon = today.plusDays(nearExpiryDays);
+        NavigableMap<LocalDate, Set<Long>> entering = windowEnd == null
+                ? expirySchedule.headMap(horizon, true)
+                : expirySchedule.subMap(windowEnd, false, horizon, true);
+        entering.values().forEach(batchIds -> batchIds.forEach(batchId -> raiseNearExpiry(liveBatches.get(batchId))));
+        windowEnd = horizon;
+    }
+
+    /**
+     * @param type LOW_STOCK, NEAR_EXPIRY or null for all
+     * @return Active alerts
+     */
+    public synchronized List<StockAlertDTO> getAlerts(String type) {
+        return activeAlerts.values().stream()
+                .filter(alert -> type == null || type.equalsIgnoreCase(alert.getType()))
+                .map(StockAlertService::copy)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * @param afterSequence Return events after this sequence
+     * @param limit Maximum number of events
+     * @return Feed events, oldest first
+     */
+    public synchronized List<AlertEventDTO> getFeed(long afterSequence, int limit) {
+        return feed.stream()
+                .filter(event -> event.getSequence() > afterSequence)
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    public synchronized List<AlertThresholdDTO> getThresholds() {
+        return reorderLevels.entrySet().stream()
+                .map(entry -> new AlertThresholdDTO(entry.getKey(), entry.getValue()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Set a product's reorder level and re-evaluate its low-stock alert
+     * @param productId Product ID
+     * @param reorderLevel Alert when available stock is below this; 0 disables
+     * @return Stored threshold
+     * @throws IllegalArgumentException if the level is negative
+     */
+    public AlertThresholdDTO setReorderLevel(Long productId, Integer reorderLevel) {
+        if (reorderLevel == null || reorderLevel < 0) {
+            throw new IllegalArgumentException("Reorder level must be zero or greater");
+        }
+        thresholdRepository.save(new AlertThreshold(productId, reorderLevel));
+        synchronized (this) {
+            reorderLevels.put(productId, reorderLevel);
+            if (availableByProduct.containsKey(productId)) {
+                evaluateLowStock(productId);
+            }
+        }
+        return new AlertThresholdDTO(productId, reorderLevel);
+    }
+
+    private void reload(Long productId) {
+        List<InventoryBatch> batches = inventoryLedger.isEnabled()
+                ? inventoryLedger.findBalances(productId)
+                : DataSourceRouting.onPrimary(
+                        () -> inventoryBatchRepository.findByProductIdOrderByExpiryDateAsc(productId));
+        synchronized (this) {
+            if (batches.isEmpty()) {
+                // The product is gone from this partition
+                forget(productId);
+            } else {
+                apply(productId, batches, LocalDate.now());
+            }
+        }
+    }
+
+    // Replace all of a product's batches
+    private synchronized void apply(Long productId, List<InventoryBatch> batches, LocalDate today) {
+        Map<Long, LiveBatch> previous = batchesByProduct.getOrDefault(productId, Collections.emptyMap());
+        Map<Long, LiveBatch> current = new HashMap<>();
+        for (InventoryBatch batch : batches) {
+            if (isLive(batch, today)) {
+                current.put(batch.getBatchId(), new LiveBatch(batch));
+            }
+        }
+
+        for (LiveBatch batch : previous.values()) {
+            if (!current.containsKey(batch.batchId)) {
+                drop(batch);
+            }
+        }
+        LocalDate horizon = today.plusDays(nearExpiryDays);
+        for (LiveBatch batch : current.values()) {
+            track(batch, previous.containsKey(batch.batchId), horizon);
+        }
+
+        batchesByProduct.put(productId, current);
+        evaluateLowStock(productId);
+    }
+
+    // Update the given batches of a product and keep the others
+    private synchronized void merge(Long productId, List<InventoryBatch> batches, LocalDate today) {
+        Map<Long, LiveBatch> current = new HashMap<>(
+                batchesByProduct.getOrDefault(productId, Collections.emptyMap()));
+        LocalDate horizon = today.plusDays(nearExpiryDays);
+        for (InventoryBatch batch : batches) {
+            LiveBatch known = current.remove(batch.getBatchId());
+            if (isLive(batch, today)) {
+                LiveBatch live = new LiveBatch(batch);
+                current.put(live.batchId, live);
+                track(live, known != null, horizon);
+            } else if (known != null) {
+                drop(known);
+            }
+        }
+
+        batchesByProduct.put(productId, current);
+        evaluateLowStock(productId);
+    }
+
+    private static boolean isLive(InventoryBatch batch, LocalDate today) {
+        return batch.getQuantity() > 0 && !batch.getExpiryDate().isBefore(today);
+    }
+
+    private void track(LiveBatch batch, boolean scheduled, LocalDate horizon) {
+        if (!scheduled) {
+            expirySchedule.computeIfAbsent(batch.expiryDate, date -> new HashSet<>()).add(batch.batchId);
+        }
+        liveBatches.put(batch.batchId, batch);
+        if (!batch.expiryDate.isAfter(horizon)) {
+            raiseNearExpiry(batch);
+        }
+    }
+
+    private void drop(LiveBatch batch) {
+        unschedule(batch);
+        clear(NEAR_EXPIRY + ":" + batch.batchId);
+    }
+
+    private void forget(Long productId) {
+        Map<Long, LiveBatch> batches = batchesByProduct.remove(productId);
+        if (batches != null) {
+            batches.values().forEach(this::drop);
+        }
+        availableByProduct.remove(productId);
+        clear(LOW_STOCK + ":" + productId);
+    }
+
+    private void unschedule(LiveBatch batch) {
+        liveBatches.remove(batch.batchId);
+        Set<Long> batchIds = expirySchedule.get(batch.expiryDate);
+        if (batchIds != null) {
+            batchIds.remove(batch.batchId);
+            if (batchIds.isEmpty()) {
+                expirySchedule.remove(batch.expiryDate);
+            }
+        }
+    }
+
+    private void evaluateLowStock(Long productId) {
+        int available = batchesByProduct.getOrDefault(productId, Collections.emptyMap()).values().stream()
+                .mapToInt(batch -> batch.quantity)
+                .sum();
+        availableByProduct.put(productId, available);
+        int reorderLevel = reorderLevels.getOrDefault(productId, defaultReorderLevel);
+        String key = LOW_STOCK + ":" + productId;
+        if (available < reorderLevel) {
+            raise(key, new StockAlertDTO(LOW_STOCK, productId, null, available, reorderLevel, null, null));
+        } else {
+            clear(key);
+        }
+    }
+
+    private void raiseNearExpiry(LiveBatch batch) {
+        raise(NEAR_EXPIRY + ":" + batch.batchId, new StockAlertDTO(NEAR_EXPIRY, batch.productId, batch.batchId,
+                batch.quantity, null, batch.expiryDate, null));
+    }
+
+    // An alert that is already active only has its figures updated
+    private void raise(String key, StockAlertDTO alert) {
+        StockAlertDTO active = activeAlerts.get(key);
+        if (active != null) {
+            active.setQuantity(alert.getQuantity());
+            active.setReorderLevel(alert.getReorderLevel());
+            return;
+        }
+        alert.setRaisedAt(LocalDateTime.now());
+        activeAlerts.put(key, alert);
+        publish("RAISED", alert);
+    }
+
+    private void clear(String key) {
+        StockAlertDTO alert = activeAlerts.remove(key);
+        if (alert != null) {
+            publish("CLEARED", alert);
+        }
+    }
+
+    private void publish(String action, StockAlertDTO alert) {
+        feed.addLast(new AlertEventDTO(++lastSequence, action, LocalDateTime.now(), copy(alert)));
+        if (feed.size() > feedSize) {
+            feed.removeFirst();
+        }
+    }
+
+    private static StockAlertDTO copy(StockAlertDTO alert) {
+        return new StockAlertDTO(alert.getType(), alert.getProductId(), alert.getBatchId(), alert.getQuantity(),
+                alert.getReorderLevel(), alert.getExpiryDate(), alert.getRaisedAt());
+    }
+
+    private static class LiveBatch {
+        private final Long batchId;
+        private final Long productId;
+        private final int quantity;
+        private final LocalDate expiryDate;
+
+        private LiveBatch(InventoryBatch batch) {
+            this.batchId = batch.getBatchId();
+            this.productId = batch.getProductId();
+            this.quantity = batch.getQuantity();
+            this.expiryDate = batch.getExpiryDate();
+        }
+    }
+}
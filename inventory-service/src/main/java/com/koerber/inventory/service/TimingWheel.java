@@ -0,0 +1,135 @@
+package com.koerber.inventory.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Hashed timing wheel for expiring large numbers of items.
+ * Scheduling is O(1): the item is queued and placed in its bucket by the
+ * ticker thread. On each tick only the current bucket is visited, and every
+ * item due in it is handed to the expiry callback as one list. Items whose
+ * deadline is more than one revolution away carry a round counter.
+ * Cancellation is left to the callback, which ignores items no longer active.
+ * @param <T> Item type
+ */
+@Slf4j
+public class TimingWheel<T> {
+
+    private final long tickNanos;
+    private final int mask;
+    private final List<Queue<Entry<T>>> buckets;
+    private final Queue<Entry<T>> pending = new ConcurrentLinkedQueue<>();
+    private final Consumer<List<T>> onExpiry;
+    private final Thread ticker;
+
+    private volatile long startNanos;
+    private volatile boolean running;
+    private long currentTick;
+
+    /**
+     * @param tickMillis Tick duration, i.e. the expiry resolution
+     * @param wheelSize Number of buckets, rounded up to a power of two
+     * @param onExpiry Called from the ticker thread with the items due on a tick
+     */
+    public TimingWheel(long tickMillis, int wheelSize, Consumer<List<T>> onExpiry) {
+        int size = Integer.highestOneBit(Math.max(wheelSize, 2) - 1) << 1;
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        this.mask = size - 1;
+        this.buckets = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            buckets.add(new ArrayDeque<>());
+        }
+        this.onExpiry = onExpiry;
+        this.ticker = new Thread(this::run, "timing-wheel");
+        this.ticker.setDaemon(true);
+    }
+
+    public void start() {
+        startNanos = System.nanoTime();
+        running = true;
+        ticker.start();
+    }
+
+    public void stop() {
+        running = false;
+        ticker.interrupt();
+    }
+
+    /**
+     * Schedule an item to expire after a delay
+     * @param item Item
+     * @param delayMillis Delay in milliseconds; zero or less expires on the next tick
+     */
+    public void schedule(T item, long delayMillis) {
+        pending.add(new Entry<>(item, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(delayMillis, 0))));
+    }
+
+    private void run() {
+        while (running) {
+            long tickDeadline = startNanos + (currentTick + 1) * tickNanos;
+            long sleepNanos;
+            while ((sleepNanos = tickDeadline - System.nanoTime()) > 0 && running) {
+                LockSupport.parkNanos(sleepNanos);
+            }
+            if (!running) {
+                return;
+            }
+
+            transferPending();
+            List<T> expired = expireCurrentBucket();
+            currentTick++;
+
+            if (!expired.isEmpty()) {
+                try {
+                    onExpiry.accept(expired);
+                } catch (RuntimeException e) {
+                    log.error("Expiry callback failed for {} items: {}", expired.size(), e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void transferPending() {
+        Entry<T> entry;
+        while ((entry = pending.poll()) != null) {
+            long ticks = Math.max((entry.deadlineNanos - startNanos) / tickNanos, currentTick);
+            entry.remainingRounds = (ticks - currentTick) / buckets.size();
+            buckets.get((int) (ticks & mask)).add(entry);
+        }
+    }
+
+    private List<T> expireCurrentBucket() {
+        List<T> expired = new ArrayList<>();
+        Iterator<Entry<T>> iterator = buckets.get((int) (currentTick & mask)).iterator();
+        while (iterator.hasNext()) {
+            Entry<T> entry = iterator.next();
+            if (entry.remainingRounds <= 0) {
+                expired.add(entry.item);
+                iterator.remove();
+            } else {
+                entry.remainingRounds--;
+            }
+        }
+        return expired;
+    }
+
+    private static class Entry<T> {
+        private final T item;
+        private final long deadlineNanos;
+        private long remainingRounds;
+
+        private Entry(T item, long deadlineNanos) {
+            this.item = item;
+            this.deadlineNanos = deadlineNanos;
+        }
+    }
+}
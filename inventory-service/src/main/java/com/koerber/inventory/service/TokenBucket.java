@@ -0,0 +1,59 @@
+package com.koerber.inventory.service;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket refilled continuously at a fixed rate up to its burst size.
+ * Each admitted request takes one token.
+ */
+public class TokenBucket {
+
+    private double tokensPerNano;
+    private double capacity;
+    private double tokens;
+    private long lastRefillNanos;
+
+    /**
+     * @param requestsPerSecond Refill rate
+     * @param burst Bucket size; the bucket starts full
+     * @param nowNanos Current time from {@link System#nanoTime()}
+     */
+    public TokenBucket(double requestsPerSecond, int burst, long nowNanos) {
+        this.tokensPerNano = requestsPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.capacity = burst;
+        this.tokens = burst;
+        this.lastRefillNanos = nowNanos;
+    }
+
+    /**
+     * Take a token if one is available
+     * @param nowNanos Current time from {@link System#nanoTime()}
+     * @return 0 if a token was taken, otherwise nanoseconds until one will be available
+     */
+    public synchronized long tryAcquire(long nowNanos) {
+        refill(nowNanos);
+        if (tokens >= 1) {
+            tokens -= 1;
+            return 0;
+        }
+        return (long) Math.ceil((1 - tokens) / tokensPerNano);
+    }
+
+    /**
+     * Apply a new rate and burst, keeping the tokens already accumulated
+     */
+    public synchronized void reconfigure(double requestsPerSecond, int burst, long nowNanos) {
+        refill(nowNanos);
+        this.tokensPerNano = requestsPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.capacity = burst;
+        this.tokens = Math.min(tokens, capacity);
+    }
+
+    private void refill(long nowNanos) {
+        long elapsed = nowNanos - lastRefillNanos;
+        if (elapsed > 0) {
+            tokens = Math.min(capacity, tokens + elapsed * tokensPerNano);
+            lastRefillNanos = nowNanos;
+        }
+    }
+}
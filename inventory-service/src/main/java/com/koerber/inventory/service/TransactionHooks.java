@@ -0,0 +1,46 @@
+package com.koerber.inventory.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Defers work to the end of the current transaction, e.g. updating in-memory
+ * state only once the rows it mirrors are visible to other transactions
+ */
+final class TransactionHooks {
+
+    private TransactionHooks() {
+    }
+
+    /**
+     * Run an action once the current transaction commits, or right away
+     * outside of one. Nothing runs if the transaction rolls back.
+     * @param action Action to run
+     */
+    static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * Run an action once the current transaction commits or rolls back
+     * @param action Action to run
+     * @throws IllegalStateException if no transaction is active
+     */
+    static void afterCompletion(Runnable action) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                action.run();
+            }
+        });
+    }
+}
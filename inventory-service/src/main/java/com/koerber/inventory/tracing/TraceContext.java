@@ -0,0 +1,83 @@
+package com.koerber.inventory.tracing;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Trace and span ID as carried in the W3C traceparent header,
+ * e.g. 00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01.
+ * Every trace is recorded and sampled when it ends, so the sampled flag
+ * is always sent as set.
+ */
+public final class TraceContext {
+
+    public static final String HEADER = "traceparent";
+
+    private final String traceId;
+    private final String spanId;
+
+    public TraceContext(String traceId, String spanId) {
+        this.traceId = traceId;
+        this.spanId = spanId;
+    }
+
+    public String getTraceId() {
+        return traceId;
+    }
+
+    public String getSpanId() {
+        return spanId;
+    }
+
+    /**
+     * @return Header value naming this span as the parent
+     */
+    public String toTraceparent() {
+        return "00-" + traceId + "-" + spanId + "-01";
+    }
+
+    /**
+     * @param traceparent Header value, may be null
+     * @return Context of the caller's span, or null if the header is missing or malformed
+     */
+    public static TraceContext parse(String traceparent) {
+        if (traceparent == null || traceparent.length() != 55) {
+            return null;
+        }
+        String[] parts = traceparent.split("-");
+        if (parts.length != 4 || parts[0].length() != 2 || "ff".equals(parts[0])
+                || !isHex(parts[1], 32) || !isHex(parts[2], 16)) {
+            return null;
+        }
+        return new TraceContext(parts[1], parts[2]);
+    }
+
+    static String newTraceId() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return toHex(random.nextLong()) + toHex(random.nextLong());
+    }
+
+    static String newSpanId() {
+        return toHex(ThreadLocalRandom.current().nextLong());
+    }
+
+    private static String toHex(long value) {
+        String hex = Long.toHexString(value);
+        return hex.length() == 16 ? hex : "0000000000000000".substring(hex.length()) + hex;
+    }
+
+    // Lower-case hex of the given length, not all zeros
+    private static boolean isHex(String value, int length) {
+        if (value.length() != length) {
+            return false;
+        }
+        boolean nonZero = false;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (!((c >= '0' && c <= '9') || (c >= 'a' && c <= 'f'))) {
+                return false;
+            }
+            nonZero |= c != '0';
+        }
+        return nonZero;
+    }
+}
@@ -0,0 +1,214 @@
+package com.koerber.inventory.tracing;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.koerber.inventory.dto.SpanDTO;
+import com.koerber.inventory.dto.TraceDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Tail sampling and export of finished trace segments. Every request is
+ * recorded in memory, and the decision is made once its root span ends:
+ * failed and slow segments are always kept, the rest only at the sample
+ * rate. Kept segments are written as JSON lines to the export file, or to
+ * the log when no file is set, on a background thread, and the most recent
+ * are held for GET /admin/traces.
+ */
+@Component
+@Slf4j
+public class TraceExporter {
+
+    static final String KEPT_ERROR = "error";
+    static final String KEPT_SLOW = "slow";
+    static final String KEPT_SAMPLED = "sampled";
+
+    private final ObjectMapper objectMapper;
+    private final String service;
+    private final boolean enabled;
+    private final long slowThresholdMicros;
+    private final double sampleRate;
+    private final Path exportFile;
+    private final int recentSize;
+    private final ThreadPoolExecutor writer;
+    private final Deque<TraceDTO> recent = new ArrayDeque<>();
+
+    private final Counter keptError;
+    private final Counter keptSlow;
+    private final Counter keptSampled;
+    private final Counter dropped;
+    private final Counter exportFailed;
+
+    public TraceExporter(ObjectMapper objectMapper,
+                         MeterRegistry meterRegistry,
+                         @Value("${spring.application.name}") String service,
+                         @Value("${inventory.tracing.enabled:false}") boolean enabled,
+                         @Value("${inventory.tracing.slow-threshold-ms:500}") long slowThresholdMillis,
+                         @Value("${inventory.tracing.sample-rate:0.01}") double sampleRate,
+                         @Value("${inventory.tracing.export-file:}") String exportFile,
+                         @Value("${inventory.tracing.recent-size:200}") int recentSize,
+                         @Value("${inventory.tracing.export-queue-capacity:1000}") int exportQueueCapacity) {
+        this.objectMapper = objectMapper;
+        this.service = service;
+        this.enabled = enabled;
+        this.slowThresholdMicros = TimeUnit.MILLISECONDS.toMicros(slowThresholdMillis);
+        this.sampleRate = sampleRate;
+        this.exportFile = exportFile.isEmpty() ? null : Paths.get(exportFile);
+        this.recentSize = recentSize;
+        this.writer = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(exportQueueCapacity),
+                new CustomizableThreadFactory("trace-export-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.keptError = segments(meterRegistry, "kept_error");
+        this.keptSlow = segments(meterRegistry, "kept_slow");
+        this.keptSampled = segments(meterRegistry, "kept_sampled");
+        this.dropped = segments(meterRegistry, "dropped");
+        this.exportFailed = segments(meterRegistry, "export_failed");
+    }
+
+    private static Counter segments(MeterRegistry meterRegistry, String decision) {
+        return Counter.builder("inventory.tracing.segments")
+                .description("Finished trace segments by sampling decision")
+                .tag("decision", decision)
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Decide whether to keep a finished segment, and export it if so
+     * @param segment Segment whose root span has ended
+     */
+    void export(TraceSegment segment) {
+        String kept = decide(segment);
+        if (kept == null) {
+            dropped.increment();
+            return;
+        }
+        TraceDTO trace = toDTO(segment, kept);
+        synchronized (recent) {
+            recent.addFirst(trace);
+            if (recent.size() > recentSize) {
+                recent.removeLast();
+            }
+        }
+        try {
+            writer.execute(() -> write(trace));
+        } catch (RejectedExecutionException e) {
+            // Still listed under /admin/traces
+            exportFailed.increment();
+        }
+    }
+
+    /**
+     * @return Why the segment is kept, or null to drop it
+     */
+    String decide(TraceSegment segment) {
+        if (segment.isFailed()) {
+            keptError.increment();
+            return KEPT_ERROR;
+        }
+        if (segment.getRoot().getDurationMicros() >= slowThresholdMicros) {
+            keptSlow.increment();
+            return KEPT_SLOW;
+        }
+        if (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate) {
+            keptSampled.increment();
+            return KEPT_SAMPLED;
+        }
+        return null;
+    }
+
+    /**
+     * @param limit Maximum number of traces
+     * @return Most recently kept traces, newest first
+     */
+    public List<TraceDTO> getRecent(int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("limit must be positive");
+        }
+        List<TraceDTO> traces = new ArrayList<>(Math.min(limit, recentSize));
+        synchronized (recent) {
+            Iterator<TraceDTO> iterator = recent.iterator();
+            while (iterator.hasNext() && traces.size() < limit) {
+                traces.add(iterator.next());
+            }
+        }
+        return traces;
+    }
+
+    /**
+     * @param traceId Trace ID
+     * @return Kept segments of the trace still held in memory
+     */
+    public List<TraceDTO> getTrace(String traceId) {
+        synchronized (recent) {
+            return recent.stream()
+                    .filter(trace -> trace.getTraceId().equals(traceId))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private TraceDTO toDTO(TraceSegment segment, String kept) {
+        List<SpanDTO> spans = segment.getSpans().stream()
+                .map(span -> new SpanDTO(span.getSpanId(), span.getParentSpanId(), span.getName(),
+                        span.getStartEpochMicros(), span.getDurationMicros(), span.getTags(),
+                        span.getStatements(), span.getError()))
+                .collect(Collectors.toList());
+        Span root = segment.getRoot();
+        return new TraceDTO(segment.getTraceId(), service, root.getName(), root.getDurationMicros(),
+                kept, segment.getDroppedSpans(), spans);
+    }
+
+    private void write(TraceDTO trace) {
+        try {
+            String line = objectMapper.writeValueAsString(trace);
+            if (exportFile == null) {
+                log.info("Trace {}", line);
+                return;
+            }
+            try (Writer out = Files.newBufferedWriter(exportFile, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                out.write(line);
+                out.write('\n');
+            }
+        } catch (JsonProcessingException e) {
+            exportFailed.increment();
+            log.warn("Could not serialize trace {}: {}", trace.getTraceId(), e.getMessage());
+        } catch (IOException e) {
+            exportFailed.increment();
+            log.warn("Could not write trace {} to {}: {}", trace.getTraceId(), exportFile, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        writer.shutdown();
+    }
+}
@@ -0,0 +1,68 @@
+package com.koerber.inventory.tracing;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The spans of one trace recorded in this service for one request. When
+ * the root span ends the segment goes to the exporter, which decides
+ * whether to keep it.
+ */
+public class TraceSegment {
+
+    private static final int MAX_SPANS = 500;
+
+    private final String traceId;
+    private final TraceExporter exporter;
+    private final List<Span> spans = new ArrayList<>();
+    private Span root;
+    private int droppedSpans;
+    private boolean failed;
+
+    TraceSegment(String traceId, TraceExporter exporter) {
+        this.traceId = traceId;
+        this.exporter = exporter;
+    }
+
+    void setRoot(Span root) {
+        this.root = root;
+    }
+
+    // Spans end on the request thread, lane workers and the async listener
+    synchronized void finished(Span span) {
+        failed |= span.getError() != null;
+        if (span != root) {
+            if (spans.size() < MAX_SPANS) {
+                spans.add(span);
+            } else {
+                droppedSpans++;
+            }
+            return;
+        }
+        spans.add(span);
+        exporter.export(this);
+    }
+
+    public String getTraceId() {
+        return traceId;
+    }
+
+    public Span getRoot() {
+        return root;
+    }
+
+    public synchronized List<Span> getSpans() {
+        return new ArrayList<>(spans);
+    }
+
+    public synchronized int getDroppedSpans() {
+        return droppedSpans;
+    }
+
+    /**
+     * @return Whether any span in the segment failed
+     */
+    public synchronized boolean isFailed() {
+        return failed;
+    }
+}
@@ -0,0 +1,82 @@
+package com.koerber.inventory.tracing;
+
+import org.slf4j.MDC;
+
+/**
+ * The span current on this thread. The trace and span IDs are also put in
+ * the logging MDC as traceId and spanId, so log lines of the same request
+ * can be found across services.
+ */
+public final class Tracing {
+
+    public static final String TRACE_ID_MDC = "traceId";
+    public static final String SPAN_ID_MDC = "spanId";
+
+    private static final ThreadLocal<Span> CURRENT = new ThreadLocal<>();
+
+    private Tracing() {
+    }
+
+    /**
+     * Start the local root of a trace and make it current
+     * @param name Span name
+     * @param parent Caller's context from the traceparent header, or null to start a new trace
+     * @param exporter Exporter that samples the segment when the root ends
+     * @return The root span
+     */
+    public static Span startRoot(String name, TraceContext parent, TraceExporter exporter) {
+        if (!exporter.isEnabled()) {
+            return Span.NOOP;
+        }
+        String traceId = parent != null ? parent.getTraceId() : TraceContext.newTraceId();
+        TraceSegment segment = new TraceSegment(traceId, exporter);
+        Span root = new Span(segment, null, name, TraceContext.newSpanId(),
+                parent != null ? parent.getSpanId() : null);
+        segment.setRoot(root);
+        set(root);
+        return root;
+    }
+
+    /**
+     * Start a child of the current span and make it current
+     * @param name Span name
+     * @return The new span, or {@link Span#NOOP} if no trace is active
+     */
+    public static Span startSpan(String name) {
+        Span parent = CURRENT.get();
+        if (parent == null || parent.isNoop()) {
+            return Span.NOOP;
+        }
+        Span span = new Span(parent.getSegment(), parent, name, TraceContext.newSpanId(), parent.getSpanId());
+        set(span);
+        return span;
+    }
+
+    /**
+     * @return The current span, or {@link Span#NOOP} if no trace is active
+     */
+    public static Span current() {
+        Span span = CURRENT.get();
+        return span != null ? span : Span.NOOP;
+    }
+
+    /**
+     * Set or clear the current span, e.g. to hand it over to another thread
+     * @param span Span from {@link #current()}, or null
+     */
+    public static void set(Span span) {
+        if (span == null || span.isNoop()) {
+            clear();
+            return;
+        }
+        CURRENT.set(span);
+        MDC.put(TRACE_ID_MDC, span.getTraceId());
+        MDC.put(SPAN_ID_MDC, span.getSpanId());
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+        MDC.remove(TRACE_ID_MDC);
+        MDC.remove(SPAN_ID_MDC);
+    }
+}
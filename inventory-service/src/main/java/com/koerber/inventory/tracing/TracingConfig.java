@@ -0,0 +1,28 @@
+package com.koerber.inventory.tracing;
+
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+@Configuration
+public class TracingConfig {
+
+    /**
+     * Static, so repository factory beans are post-processed
+     */
+    @Bean
+    public static RepositoryTracingPostProcessor repositoryTracingPostProcessor() {
+        return new RepositoryTracingPostProcessor();
+    }
+
+    /**
+     * First in the chain, so the root span covers every other filter
+     */
+    @Bean
+    public FilterRegistrationBean<TracingFilter> tracingFilter(TraceExporter exporter) {
+        FilterRegistrationBean<TracingFilter> registration = new FilterRegistrationBean<>(new TracingFilter(exporter));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+}
@@ -0,0 +1,94 @@
+package com.koerber.inventory.tracing;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Opens the local root span of each request, continuing the caller's trace
+ * when a traceparent header is present. The trace ID is returned in the
+ * X-Trace-Id header. For requests that complete asynchronously, e.g. on a
+ * request lane, the span ends when the async request completes.
+ * Actuator and H2 console requests are not traced.
+ */
+public class TracingFilter extends OncePerRequestFilter {
+
+    public static final String TRACE_ID_HEADER = "X-Trace-Id";
+
+    private final TraceExporter exporter;
+
+    public TracingFilter(TraceExporter exporter) {
+        this.exporter = exporter;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return path.startsWith("/actuator") || path.startsWith("/h2-console");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        Span span = Tracing.startRoot(request.getMethod() + " " + request.getRequestURI(),
+                TraceContext.parse(request.getHeader(TraceContext.HEADER)), exporter);
+        if (span.isNoop()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        span.tag("http.method", request.getMethod()).tag("http.path", request.getRequestURI());
+        response.setHeader(TRACE_ID_HEADER, span.getTraceId());
+        try {
+            filterChain.doFilter(request, response);
+        } catch (IOException | ServletException | RuntimeException e) {
+            span.fail(e);
+            throw e;
+        } finally {
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        finish(span, request, response);
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                        span.fail("Async request timed out");
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                        span.fail(event.getThrowable());
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+                });
+            } else {
+                finish(span, request, response);
+            }
+            Tracing.clear();
+        }
+    }
+
+    private static void finish(Span span, HttpServletRequest request, HttpServletResponse response) {
+        Object route = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        if (route != null) {
+            span.rename(request.getMethod() + " " + route);
+        }
+        int status = response.getStatus();
+        span.tag("http.status", status);
+        if (status >= 500 && span.getError() == null) {
+            span.fail("HTTP " + status);
+        }
+        span.end();
+    }
+}
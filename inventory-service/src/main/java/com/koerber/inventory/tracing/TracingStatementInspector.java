@@ -0,0 +1,17 @@
+package com.koerber.inventory.tracing;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Records each SQL statement Hibernate prepares on the current span, so a
+ * slow repository call shows the SQL it ran. Registered through
+ * hibernate.session_factory.statement_inspector.
+ */
+public class TracingStatementInspector implements StatementInspector {
+
+    @Override
+    public String inspect(String sql) {
+        Tracing.current().addStatement(sql);
+        return sql;
+    }
+}
@@ -0,0 +1,78 @@
+package com.koerber.inventory;
+
+import com.koerber.inventory.dto.InventoryUpdateRequest;
+import com.koerber.inventory.dto.InventoryUpdateResponse;
+import com.koerber.inventory.entity.InventoryBatch;
+import com.koerber.inventory.repository.InventoryBatchRepository;
+import com.koerber.inventory.service.InventoryBatchSweeper;
+import com.koerber.inventory.service.InventoryService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:sweeperdb",
+        "inventory.sweeper.enabled=true"
+})
+class InventoryBatchSweeperIntegrationTest {
+
+    private static final long PRODUCT_ID = 9500L;
+
+    @Autowired
+    private InventoryBatchSweeper sweeper;
+
+    @Autowired
+    private InventoryBatchRepository inventoryBatchRepository;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void testArchiveExhaustedBatches_KeepsStockedBatches() {
+        // Arrange
+        LocalDate expiry = LocalDate.now().plusDays(30);
+        inventoryBatchRepository.saveAll(Arrays.asList(
+                new InventoryBatch(9501L, PRODUCT_ID, 0, expiry),
+                new InventoryBatch(9502L, PRODUCT_ID, 5, expiry.plusDays(1))));
+
+        // Act
+        int archived = sweeper.archiveExhaustedBatches();
+
+        // Assert
+        assertTrue(archived >= 1);
+        assertFalse(inventoryBatchRepository.existsById(9501L));
+        assertTrue(inventoryBatchRepository.existsById(9502L));
+        assertEquals(0, sweeper.archiveExhaustedBatches());
+    }
+
+    @Test
+    void testSoldOutProduct_KeepsWrittenOffQuantityAndStillExists() {
+        // Arrange: the product's only batch expired with 7 units left
+        inventoryBatchRepository.save(new InventoryBatch(9551L, 9550L, 7, LocalDate.now().minusDays(1)));
+
+        // Act
+        sweeper.writeOffExpiredBatches(LocalDate.now());
+        sweeper.archiveExhaustedBatches();
+
+        // Assert: the archive row records what was written off
+        assertFalse(inventoryBatchRepository.existsById(9551L));
+        assertEquals(7, jdbcTemplate.queryForObject(
+                "SELECT written_off_quantity FROM inventory_batch_archive WHERE batch_id = 9551", Integer.class));
+
+        // Assert: the product is out of stock, not unknown
+        assertTrue(inventoryService.getInventoryByProductId(9550L).getBatches().isEmpty());
+        InventoryUpdateResponse response = inventoryService.updateInventory(new InventoryUpdateRequest(9550L, 1, null));
+        assertFalse(response.isSuccess());
+        assertFalse(response.getMessage().contains("not found"), response.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> inventoryService.getInventoryByProductId(9559L));
+    }
+}
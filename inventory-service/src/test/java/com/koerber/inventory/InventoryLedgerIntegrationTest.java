@@ -0,0 +1,97 @@
+package com.koerber.inventory;
+
+import com.koerber.inventory.dto.BatchDTO;
+import com.koerber.inventory.dto.HoldRequest;
+import com.koerber.inventory.dto.HoldResponse;
+import com.koerber.inventory.dto.InventoryResponse;
+import com.koerber.inventory.dto.InventoryUpdateRequest;
+import com.koerber.inventory.dto.InventoryUpdateResponse;
+import com.koerber.inventory.dto.LedgerEntryDTO;
+import com.koerber.inventory.service.InventoryLedger;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:ledgerdb",
+        "inventory.storage.mode=ledger",
+        "inventory.ledger.compaction-interval-ms=3600000",
+        "inventory.sweeper.enabled=false"
+})
+class InventoryLedgerIntegrationTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private InventoryLedger inventoryLedger;
+
+    private String getBaseUrl() {
+        return "http://localhost:" + port + "/inventory";
+    }
+
+    @Test
+    void testReservationAndCompaction_Integration() {
+        // Arrange: batch 10 is the only unexpired batch of product 1002
+        int before = availableQuantity(1002L);
+
+        // Act
+        InventoryUpdateResponse update = restTemplate.postForObject(getBaseUrl() + "/update",
+                new InventoryUpdateRequest(1002L, 3, null, "order-42"), InventoryUpdateResponse.class);
+        int afterReservation = availableQuantity(1002L);
+        long pendingBeforeCompaction = inventoryLedger.getPendingEntries();
+        ResponseEntity<Long> compacted = restTemplate.postForEntity(getBaseUrl() + "/ledger/compact", null, Long.class);
+        int afterCompaction = availableQuantity(1002L);
+
+        // Assert
+        assertTrue(update.isSuccess());
+        assertEquals(before - 3, afterReservation);
+        assertTrue(pendingBeforeCompaction > 0);
+        assertEquals(HttpStatus.OK, compacted.getStatusCode());
+        assertEquals(0, inventoryLedger.getPendingEntries());
+        assertEquals(afterReservation, afterCompaction);
+        assertTrue(ledgerEntries(10L).stream()
+                .anyMatch(entry -> "order-42".equals(entry.getOrderRef()) && entry.getDelta() == -3));
+    }
+
+    @Test
+    void testHoldRelease_Integration() {
+        // Arrange
+        int before = availableQuantity(1002L);
+
+        // Act
+        HoldResponse hold = restTemplate.postForObject(getBaseUrl() + "/hold",
+                new HoldRequest(1002L, 4, 60L), HoldResponse.class);
+        int whileHeld = availableQuantity(1002L);
+        restTemplate.postForEntity(getBaseUrl() + "/hold/" + hold.getHoldId() + "/release", null, HoldResponse.class);
+
+        // Assert
+        assertEquals(before - 4, whileHeld);
+        assertEquals(before, availableQuantity(1002L));
+        assertTrue(ledgerEntries(hold.getReservedFromBatchIds().get(0)).stream()
+                .anyMatch(entry -> ("hold-" + hold.getHoldId()).equals(entry.getOrderRef()) && entry.getDelta() == 4));
+    }
+
+    private List<LedgerEntryDTO> ledgerEntries(Long batchId) {
+        return restTemplate.exchange(getBaseUrl() + "/ledger/" + batchId, HttpMethod.GET, null,
+                new ParameterizedTypeReference<List<LedgerEntryDTO>>() { }).getBody();
+    }
+
+    private int availableQuantity(Long productId) {
+        InventoryResponse response = restTemplate.getForObject(getBaseUrl() + "/" + productId, InventoryResponse.class);
+        return response.getBatches().stream().mapToInt(BatchDTO::getQuantity).sum();
+    }
+}
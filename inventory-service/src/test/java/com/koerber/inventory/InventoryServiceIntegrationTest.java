@@ -1,21 +1,50 @@
 package com.koerber.inventory;
 
+import com.koerber.inventory.dto.BatchDTO;
+import com.koerber.inventory.dto.HoldRequest;
+import com.koerber.inventory.dto.HoldResponse;
 import com.koerber.inventory.dto.InventoryResponse;
 import com.koerber.inventory.dto.InventoryUpdateRequest;
 import com.koerber.inventory.dto.InventoryUpdateResponse;
+import com.koerber.inventory.dto.ProductExpiryDTO;
+import com.koerber.inventory.dto.SpanDTO;
+import com.koerber.inventory.dto.StockAlertDTO;
+import com.koerber.inventory.dto.StockReleaseRequest;
+import com.koerber.inventory.dto.TraceDTO;
+import com.koerber.inventory.tracing.TraceContext;
+import com.koerber.inventory.tracing.TracingFilter;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
 import static org.junit.jupiter.api.Assertions.*;
 
-@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "inventory.tracing.enabled=true")
 class InventoryServiceIntegrationTest {
 
+    private static final MediaType SMILE = new MediaType("application", "x-jackson-smile");
+
     @LocalServerPort
     private int port;
 
@@ -42,6 +71,28 @@ class InventoryServiceIntegrationTest {
         assertFalse(response.getBody().getBatches().isEmpty());
     }
 
+    @Test
+    void testGetInventory_Smile() {
+        // Arrange
+        HttpHeaders headers = new HttpHeaders();
+        headers.setAccept(Collections.singletonList(SMILE));
+
+        // Act
+        ResponseEntity<InventoryResponse> response = restTemplate.exchange(
+                getBaseUrl() + "/1001",
+                HttpMethod.GET,
+                new HttpEntity<>(headers),
+                InventoryResponse.class
+        );
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(SMILE, response.getHeaders().getContentType());
+        assertNotNull(response.getBody());
+        assertEquals("Laptop", response.getBody().getProductName());
+        assertFalse(response.getBody().getBatches().isEmpty());
+    }
+
     @Test
     void testUpdateInventory_Integration() {
         // Arrange
@@ -60,6 +111,53 @@ class InventoryServiceIntegrationTest {
         assertTrue(response.getBody().isSuccess());
     }
 
+    @Test
+    void testUpdateInventory_RepeatedOrderRefReservesOnce() {
+        // Arrange
+        InventoryUpdateRequest request = new InventoryUpdateRequest(1002L, 2, null, "order-9901");
+        int before = totalStock(1002L);
+
+        // Act
+        ResponseEntity<InventoryUpdateResponse> first = restTemplate.postForEntity(
+                getBaseUrl() + "/update", request, InventoryUpdateResponse.class);
+        ResponseEntity<InventoryUpdateResponse> retry = restTemplate.postForEntity(
+                getBaseUrl() + "/update", request, InventoryUpdateResponse.class);
+
+        // Assert
+        assertTrue(first.getBody().isSuccess());
+        assertTrue(retry.getBody().isSuccess());
+        assertEquals(first.getBody().getAllocations(), retry.getBody().getAllocations());
+        assertEquals(before - 2, totalStock(1002L));
+    }
+
+    private int totalStock(Long productId) {
+        return restTemplate.getForEntity(getBaseUrl() + "/" + productId, InventoryResponse.class)
+                .getBody().getBatches().stream().mapToInt(BatchDTO::getQuantity).sum();
+    }
+
+    @Test
+    void testGetInventory_ConditionalAfterReservation() {
+        // Arrange
+        String etag = restTemplate.getForEntity(getBaseUrl() + "/1002", InventoryResponse.class)
+                .getHeaders().getETag();
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch(etag);
+
+        // Act
+        ResponseEntity<InventoryResponse> unchanged = restTemplate.exchange(getBaseUrl() + "/1002",
+                HttpMethod.GET, new HttpEntity<>(headers), InventoryResponse.class);
+        restTemplate.postForEntity(getBaseUrl() + "/update",
+                new InventoryUpdateRequest(1002L, 1, null), InventoryUpdateResponse.class);
+        ResponseEntity<InventoryResponse> changed = restTemplate.exchange(getBaseUrl() + "/1002",
+                HttpMethod.GET, new HttpEntity<>(headers), InventoryResponse.class);
+
+        // Assert
+        assertNotNull(etag);
+        assertEquals(HttpStatus.NOT_MODIFIED, unchanged.getStatusCode());
+        assertEquals(HttpStatus.OK, changed.getStatusCode());
+        assertNotEquals(etag, changed.getHeaders().getETag());
+    }
+
     @Test
     void testGetInventory_ProductNotFound() {
         // Act
@@ -71,5 +169,191 @@ class InventoryServiceIntegrationTest {
         // Assert
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
     }
-}
 
+    @Test
+    void testHoldConfirm_Integration() {
+        // Arrange
+        int before = availableQuantity(1002L);
+
+        // Act
+        HoldResponse hold = restTemplate.postForObject(getBaseUrl() + "/hold",
+                new HoldRequest(1002L, 4, 60L), HoldResponse.class);
+        ResponseEntity<HoldResponse> confirmed = restTemplate.postForEntity(
+                getBaseUrl() + "/hold/" + hold.getHoldId() + "/confirm", null, HoldResponse.class);
+        ResponseEntity<HoldResponse> releasedAfterConfirm = restTemplate.postForEntity(
+                getBaseUrl() + "/hold/" + hold.getHoldId() + "/release", null, HoldResponse.class);
+
+        // Assert
+        assertTrue(hold.isSuccess());
+        assertEquals(HttpStatus.OK, confirmed.getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, releasedAfterConfirm.getStatusCode());
+        assertEquals(before - 4, availableQuantity(1002L));
+    }
+
+    @Test
+    void testHoldExpiry_Integration() throws Exception {
+        // Arrange
+        int before = availableQuantity(1002L);
+
+        // Act
+        HoldResponse hold = restTemplate.postForObject(getBaseUrl() + "/hold",
+                new HoldRequest(1002L, 6, 1L), HoldResponse.class);
+        int whileHeld = availableQuantity(1002L);
+
+        // Assert: held stock is excluded, then comes back once the hold expires
+        assertTrue(hold.isSuccess());
+        assertEquals(before - 6, whileHeld);
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (availableQuantity(1002L) != before) {
+            assertTrue(System.currentTimeMillis() < deadline, "Hold did not expire");
+            Thread.sleep(100);
+        }
+    }
+
+    @Test
+    void testFlightRecording_Integration() throws Exception {
+        // Arrange
+        String adminUrl = "http://localhost:" + port + "/admin/jfr";
+        restTemplate.postForEntity(adminUrl + "/start", null, String.class);
+
+        // Act
+        restTemplate.postForEntity(getBaseUrl() + "/update",
+                new InventoryUpdateRequest(1002L, 1, null), InventoryUpdateResponse.class);
+        byte[] dump = restTemplate.getForObject(adminUrl + "/dump", byte[].class);
+        restTemplate.postForEntity(adminUrl + "/stop", null, String.class);
+
+        // Assert
+        Path file = Files.createTempFile("recording-", ".jfr");
+        try {
+            Files.write(file, dump);
+            List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+            Set<String> names = events.stream()
+                    .map(event -> event.getEventType().getName())
+                    .collect(Collectors.toSet());
+            assertTrue(names.contains("com.koerber.inventory.Reservation"));
+            assertTrue(names.contains("com.koerber.inventory.DbFlush"));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    void testLowStockAlert_Integration() {
+        // Arrange: every batch of product 1001 has expired
+        String alertsUrl = getBaseUrl() + "/alerts?type=LOW_STOCK";
+
+        // Act
+        List<StockAlertDTO> alerts = restTemplate.exchange(alertsUrl, HttpMethod.GET, null,
+                new ParameterizedTypeReference<List<StockAlertDTO>>() { }).getBody();
+
+        // Assert
+        assertTrue(alerts.stream().anyMatch(alert -> alert.getProductId() == 1001L && alert.getQuantity() == 0));
+        assertTrue(alerts.stream().noneMatch(alert -> alert.getProductId() == 1002L));
+    }
+
+    @Test
+    void testExpiringAnalytics_FollowsReservations() {
+        // Arrange: batch 10 is the only live batch of product 1002
+        String expiringUrl = getBaseUrl() + "/analytics/expiring?days=60";
+        int before = liveQuantity(1002L);
+
+        // Act
+        restTemplate.postForObject(getBaseUrl() + "/update",
+                new InventoryUpdateRequest(1002L, 3, null), InventoryUpdateResponse.class);
+        List<ProductExpiryDTO> expiring = restTemplate.exchange(expiringUrl, HttpMethod.GET, null,
+                new ParameterizedTypeReference<List<ProductExpiryDTO>>() { }).getBody();
+
+        // Assert: the snapshot was updated by the reservation, not re-read
+        ProductExpiryDTO product = expiring.stream()
+                .filter(entry -> entry.getProductId() == 1002L)
+                .findFirst()
+                .get();
+        assertEquals(before - 3, product.getQuantity());
+        assertEquals(liveQuantity(1002L), product.getQuantity().intValue());
+    }
+
+    @Test
+    void testReleaseInventory_RestoresReservedBatches() {
+        // Arrange: batch 10 is the only live batch of product 1002
+        int before = liveQuantity(1002L);
+        InventoryUpdateResponse reserved = restTemplate.postForObject(getBaseUrl() + "/update",
+                new InventoryUpdateRequest(1002L, 4, null, "order-501"), InventoryUpdateResponse.class);
+        assertEquals(Collections.singletonMap(10L, 4), reserved.getAllocations());
+
+        // Act: one call for the order and for an unknown product, then a retry of the order
+        List<InventoryUpdateResponse> released = restTemplate.exchange(getBaseUrl() + "/release", HttpMethod.POST,
+                new HttpEntity<>(Arrays.asList(
+                        new StockReleaseRequest(1002L, 4, reserved.getAllocations(), "order-501"),
+                        new StockReleaseRequest(999999L, 1, null, "order-502"))),
+                new ParameterizedTypeReference<List<InventoryUpdateResponse>>() { }).getBody();
+
+        List<InventoryUpdateResponse> retried = restTemplate.exchange(getBaseUrl() + "/release", HttpMethod.POST,
+                new HttpEntity<>(Collections.singletonList(
+                        new StockReleaseRequest(1002L, 4, reserved.getAllocations(), "order-501"))),
+                new ParameterizedTypeReference<List<InventoryUpdateResponse>>() { }).getBody();
+
+        // Assert: the retry puts nothing back a second time
+        assertTrue(released.get(0).isSuccess());
+        assertFalse(released.get(1).isSuccess());
+        assertTrue(retried.get(0).isSuccess());
+        assertEquals(before, liveQuantity(1002L));
+    }
+
+    @Test
+    void testFailedReservation_TraceKeptWithHandlerAndRepositorySpans() throws Exception {
+        // Arrange: a caller's span, as Order Service sends it
+        String traceId = "4bf92f3577b34da6a3ce929d0e0e4736";
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(TraceContext.HEADER, "00-" + traceId + "-00f067aa0ba902b7-01");
+
+        // Act: more than product 1001 has, so the handler fails
+        ResponseEntity<InventoryUpdateResponse> response = restTemplate.postForEntity(getBaseUrl() + "/update",
+                new HttpEntity<>(new InventoryUpdateRequest(1001L, 1000000, null), headers),
+                InventoryUpdateResponse.class);
+        TraceDTO trace = awaitTrace(traceId);
+
+        // Assert: the failed trace is kept whatever the sample rate
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals(traceId, response.getHeaders().getFirst(TracingFilter.TRACE_ID_HEADER));
+        assertEquals("error", trace.getKept());
+        assertEquals("POST /inventory/update", trace.getName());
+        SpanDTO root = trace.getSpans().stream().filter(span -> span.getName().equals(trace.getName())).findFirst().get();
+        assertEquals("00f067aa0ba902b7", root.getParentSpanId());
+        SpanDTO handler = trace.getSpans().stream()
+                .filter(span -> span.getName().equals("InventoryHandler.reserveInventory"))
+                .findFirst().get();
+        assertNotNull(handler.getError());
+        SpanDTO query = trace.getSpans().stream()
+                .filter(span -> span.getName().equals("InventoryBatchRepository.findLiveBatches"))
+                .findFirst().get();
+        assertEquals(root.getSpanId(), query.getParentSpanId());
+        assertFalse(query.getStatements().isEmpty());
+    }
+
+    // The root span ends when the async request completes, just after the response is sent
+    private TraceDTO awaitTrace(String traceId) throws InterruptedException {
+        String url = "http://localhost:" + port + "/admin/traces/" + traceId;
+        for (int attempt = 0; attempt < 50; attempt++) {
+            ResponseEntity<List<TraceDTO>> response = restTemplate.exchange(url, HttpMethod.GET, null,
+                    new ParameterizedTypeReference<List<TraceDTO>>() { });
+            if (response.getStatusCode() == HttpStatus.OK) {
+                return response.getBody().get(0);
+            }
+            Thread.sleep(50);
+        }
+        throw new AssertionError("Trace " + traceId + " was not kept");
+    }
+
+    private int liveQuantity(Long productId) {
+        InventoryResponse response = restTemplate.getForObject(getBaseUrl() + "/" + productId, InventoryResponse.class);
+        return response.getBatches().stream()
+                .filter(batch -> !batch.getExpiryDate().isBefore(LocalDate.now()))
+                .mapToInt(BatchDTO::getQuantity)
+                .sum();
+    }
+
+    private int availableQuantity(Long productId) {
+        InventoryResponse response = restTemplate.getForObject(getBaseUrl() + "/" + productId, InventoryResponse.class);
+        return response.getBatches().stream().mapToInt(BatchDTO::getQuantity).sum();
+    }
+}
@@ -0,0 +1,101 @@
+package com.koerber.inventory;
+
+import com.koerber.inventory.dto.InventoryUpdateRequest;
+import com.koerber.inventory.dto.InventoryUpdateResponse;
+import com.koerber.inventory.dto.StockAlertDTO;
+import com.koerber.inventory.entity.InventoryBatch;
+import com.koerber.inventory.repository.InventoryBatchRepository;
+import com.koerber.inventory.service.StockAlertService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:locationdb",
+        "inventory.handler=LOCATION",
+        "inventory.sweeper.enabled=false"
+})
+class MultiLocationIntegrationTest {
+
+    private static final long PRODUCT_ID = 9100L;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private InventoryBatchRepository inventoryBatchRepository;
+
+    @Autowired
+    private StockAlertService stockAlertService;
+
+    @Test
+    void testReservation_ShipsFromNearestWarehouses() {
+        // Arrange
+        LocalDate expiry = LocalDate.now().plusDays(30);
+        inventoryBatchRepository.saveAll(Arrays.asList(
+                new InventoryBatch(9101L, PRODUCT_ID, 5, expiry, "EAST"),
+                new InventoryBatch(9102L, PRODUCT_ID, 20, expiry.plusDays(1), "MAIN"),
+                new InventoryBatch(9103L, PRODUCT_ID, 8, expiry.plusDays(2), "WEST")));
+
+        // Act: EAST alone is too small, MAIN can ship all 12
+        InventoryUpdateResponse single = reserve(12, "EAST");
+        // Act: no warehouse has 20 left, so WEST, then MAIN, then EAST
+        InventoryUpdateResponse split = reserve(20, "WEST");
+
+        // Assert
+        assertTrue(single.isSuccess());
+        assertEquals(1, single.getAllocations().size());
+        assertEquals(12, single.getAllocations().get(9102L));
+
+        assertTrue(split.isSuccess());
+        assertEquals(Arrays.asList(9103L, 9102L, 9101L), new ArrayList<>(split.getAllocations().keySet()));
+        assertEquals(8, split.getAllocations().get(9103L));
+        assertEquals(8, split.getAllocations().get(9102L));
+        assertEquals(4, split.getAllocations().get(9101L));
+        assertEquals(1, inventoryBatchRepository.findById(9101L).get().getQuantity());
+    }
+
+    @Test
+    void testReservation_KeepsAlertsOfOtherWarehouses() {
+        // Arrange: 12 units at MAIN, and 8 at EAST that expire within the alert window
+        inventoryBatchRepository.saveAll(Arrays.asList(
+                new InventoryBatch(9201L, 9200L, 12, LocalDate.now().plusDays(90), "MAIN"),
+                new InventoryBatch(9202L, 9200L, 8, LocalDate.now().plusDays(10), "EAST")));
+        stockAlertService.refresh(Collections.singletonList(9200L));
+
+        // Act: MAIN ships the whole order, so only its batch is read
+        InventoryUpdateResponse response = reserve(9200L, 3, "MAIN");
+
+        // Assert: 17 units are left, above the reorder level of 10, and EAST is still near expiry
+        assertTrue(response.isSuccess());
+        assertEquals(Collections.singletonList(9202L), stockAlertService.getAlerts(StockAlertService.NEAR_EXPIRY)
+                .stream().filter(alert -> alert.getProductId() == 9200L)
+                .map(StockAlertDTO::getBatchId).collect(Collectors.toList()));
+        assertTrue(stockAlertService.getAlerts(StockAlertService.LOW_STOCK).stream()
+                .noneMatch(alert -> alert.getProductId() == 9200L));
+    }
+
+    private InventoryUpdateResponse reserve(int quantity, String location) {
+        return reserve(PRODUCT_ID, quantity, location);
+    }
+
+    private InventoryUpdateResponse reserve(Long productId, int quantity, String location) {
+        InventoryUpdateRequest request = new InventoryUpdateRequest(productId, quantity, null);
+        request.setLocation(location);
+        return restTemplate.postForObject("http://localhost:" + port + "/inventory/update", request,
+                InventoryUpdateResponse.class);
+    }
+}
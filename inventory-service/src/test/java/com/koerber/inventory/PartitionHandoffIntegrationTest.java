@@ -0,0 +1,128 @@
+package com.koerber.inventory;
+
+import com.koerber.inventory.dto.HoldRequest;
+import com.koerber.inventory.dto.HoldResponse;
+import com.koerber.inventory.dto.InventoryUpdateRequest;
+import com.koerber.inventory.dto.PartitionBatchDTO;
+import com.koerber.inventory.dto.PartitionHandoffDTO;
+import com.koerber.inventory.dto.PartitionReservationDTO;
+import com.koerber.inventory.entity.InventoryBatch;
+import com.koerber.inventory.repository.InventoryBatchRepository;
+import com.koerber.inventory.repository.InventoryHoldRepository;
+import com.koerber.inventory.repository.InventoryReservationRepository;
+import com.koerber.inventory.repository.ProductRepository;
+import com.koerber.inventory.service.HoldService;
+import com.koerber.inventory.service.InventoryService;
+import com.koerber.inventory.service.PartitionService;
+import com.koerber.inventory.service.ProductCatalog;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:handoffdb")
+class PartitionHandoffIntegrationTest {
+
+    private static final long PRODUCT_ID = 9600L;
+
+    @Autowired
+    private PartitionService partitionService;
+
+    @Autowired
+    private HoldService holdService;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private InventoryBatchRepository inventoryBatchRepository;
+
+    @Autowired
+    private InventoryHoldRepository holdRepository;
+
+    @Autowired
+    private InventoryReservationRepository reservationRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductCatalog productCatalog;
+
+    @Test
+    void testExportProducts_RefusesHeldProducts() {
+        // Arrange
+        inventoryBatchRepository.save(new InventoryBatch(9601L, PRODUCT_ID, 10, LocalDate.now().plusDays(30)));
+        HoldResponse hold = holdService.placeHold(new HoldRequest(PRODUCT_ID, 4, 60L));
+
+        // Act & Assert: the hold is kept and the product stays reservable
+        assertTrue(hold.isSuccess());
+        assertThrows(IllegalStateException.class,
+                () -> partitionService.exportProducts(Collections.singletonList(PRODUCT_ID)));
+        assertTrue(holdRepository.existsById(hold.getHoldId()));
+        assertTrue(inventoryService.updateInventory(new InventoryUpdateRequest(PRODUCT_ID, 1, null)).isSuccess());
+    }
+
+    @Test
+    void testExportProducts_CarriesReservations() {
+        // Arrange
+        inventoryBatchRepository.save(new InventoryBatch(9651L, 9650L, 10, LocalDate.now().plusDays(30)));
+        inventoryService.updateInventory(new InventoryUpdateRequest(9650L, 3, null, "order-9650"));
+
+        // Act
+        PartitionHandoffDTO handoff = partitionService.exportProducts(Collections.singletonList(9650L));
+        partitionService.dropProducts(Collections.singletonList(9650L));
+
+        // Assert
+        assertEquals(1, handoff.getBatches().size());
+        assertEquals(7, handoff.getBatches().get(0).getQuantity());
+        assertEquals(1, handoff.getReservations().size());
+        assertEquals("order-9650", handoff.getReservations().get(0).getOrderRef());
+        assertFalse(reservationRepository.existsById("order-9650"));
+    }
+
+    @Test
+    void testImportProducts_RegistersNewProductOnce() {
+        // Arrange: two batches of a product this partition has never seen
+        LocalDate expiry = LocalDate.now().plusDays(30);
+        PartitionHandoffDTO handoff = new PartitionHandoffDTO(Collections.singletonList(9700L), Arrays.asList(
+                new PartitionBatchDTO(9701L, 9700L, "Drone", 5, expiry, null),
+                new PartitionBatchDTO(9702L, 9700L, "Drone", 7, expiry.plusDays(1), null)),
+                Collections.emptyList());
+
+        // Act
+        int imported = partitionService.importProducts(handoff);
+
+        // Assert
+        assertEquals(2, imported);
+        assertEquals("Drone", productRepository.findById(9700L).get().getProductName());
+        assertEquals("Drone", productCatalog.getName(9700L));
+    }
+
+    @Test
+    void testImportProducts_ReplacesExistingCopy() {
+        // Arrange: this partition still has the seed copy; the exporting partition sold 8 units
+        LocalDate expiry = LocalDate.now().plusDays(30);
+        inventoryBatchRepository.save(new InventoryBatch(9751L, 9750L, 10, expiry));
+        inventoryBatchRepository.save(new InventoryBatch(9752L, 9750L, 10, expiry));
+        LocalDateTime reservedAt = LocalDateTime.now();
+        PartitionHandoffDTO handoff = new PartitionHandoffDTO(Collections.singletonList(9750L),
+                Collections.singletonList(new PartitionBatchDTO(9751L, 9750L, "Lamp", 2, expiry, null)),
+                Collections.singletonList(new PartitionReservationDTO("order-9750", 9750L, 8, "9751:8,9752:10",
+                        reservedAt, null)));
+
+        // Act
+        partitionService.importProducts(handoff);
+
+        // Assert: only the handed-off batch remains, with its quantity, and the record came along
+        assertEquals(2, inventoryBatchRepository.findById(9751L).get().getQuantity());
+        assertFalse(inventoryBatchRepository.findById(9752L).isPresent());
+        assertEquals(8, reservationRepository.findById("order-9750").get().getQuantity());
+    }
+}
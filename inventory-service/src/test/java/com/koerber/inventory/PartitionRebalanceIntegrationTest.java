@@ -0,0 +1,156 @@
+package com.koerber.inventory;
+
+import com.koerber.inventory.dto.InventoryUpdateRequest;
+import com.koerber.inventory.dto.PartitionHandoffDTO;
+import com.koerber.inventory.entity.InventoryBatch;
+import com.koerber.inventory.repository.InventoryBatchRepository;
+import com.koerber.inventory.repository.InventoryReservationRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Two inventory partitions in one JVM: reservations are routed across them
+ * while half of the products are handed off from one to the other
+ */
+@Slf4j
+class PartitionRebalanceIntegrationTest {
+
+    private static final int PRODUCTS = 20;
+    private static final int SEED_QUANTITY = 1000;
+    private static final int THREADS = 8;
+    private static final int RESERVATIONS_PER_PHASE = 400;
+
+    private static ConfigurableApplicationContext partitionA;
+    private static ConfigurableApplicationContext partitionB;
+
+    private final RestTemplate restTemplate = new RestTemplate();
+    private final List<Long> products = LongStream.range(9800, 9800 + PRODUCTS).boxed().collect(Collectors.toList());
+    // Products handed off to partition B
+    private final List<Long> moving = products.stream().filter(id -> id % 2 == 1).collect(Collectors.toList());
+    private volatile boolean switched;
+
+    @BeforeAll
+    static void startPartitions() {
+        partitionA = start("partitiona");
+        partitionB = start("partitionb");
+    }
+
+    @AfterAll
+    static void stopPartitions() {
+        partitionA.close();
+        partitionB.close();
+    }
+
+    @Test
+    void testHandoff_ConservesStockUnderLoad() throws Exception {
+        // Arrange: every instance loads the same seed data, but only A takes reservations
+        for (Long productId : products) {
+            seed(partitionA, productId);
+            seed(partitionB, productId);
+        }
+        AtomicInteger reserved = new AtomicInteger();
+        AtomicInteger reservations = new AtomicInteger();
+
+        // Act: reserve before, during and after the handoff
+        long started = System.nanoTime();
+        reserveConcurrently(reserved, reservations, () -> { });
+        reserveConcurrently(reserved, reservations, this::handOff);
+        reserveConcurrently(reserved, reservations, () -> { });
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        log.info("{} reservations across two partitions in {} ms ({} per second)", reservations.get(),
+                elapsedMillis, reservations.get() * 1000L / Math.max(1, elapsedMillis));
+
+        // Assert: B's seed copies were replaced, and no stock was lost or counted twice
+        int total = stock(partitionA) + stock(partitionB, moving);
+        assertEquals(PRODUCTS * SEED_QUANTITY - reserved.get(), total);
+        assertEquals(0, partitionA.getBean(InventoryBatchRepository.class).findAll().stream()
+                .filter(batch -> moving.contains(batch.getProductId())).count());
+        assertEquals(reservations.get(), partitionA.getBean(InventoryReservationRepository.class).count()
+                + partitionB.getBean(InventoryReservationRepository.class).findByProductIdIn(moving).size());
+        assertTrue(reservations.get() > 0);
+    }
+
+    // Export from the partition the products are routed to, import on the new owner, then drop
+    private void handOff() {
+        PartitionHandoffDTO handoff = restTemplate.postForObject(url(partitionA, "/inventory/partition/export"),
+                moving, PartitionHandoffDTO.class);
+        restTemplate.postForObject(url(partitionB, "/inventory/partition/import"), handoff, Integer.class);
+        switched = true;
+        restTemplate.postForObject(url(partitionA, "/inventory/partition/drop"), moving, Integer.class);
+    }
+
+    private void reserveConcurrently(AtomicInteger reserved, AtomicInteger reservations, Runnable during)
+            throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        for (int i = 0; i < RESERVATIONS_PER_PHASE; i++) {
+            executor.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                Long productId = products.get(random.nextInt(PRODUCTS));
+                int quantity = random.nextInt(1, 4);
+                ConfigurableApplicationContext partition = switched && moving.contains(productId)
+                        ? partitionB : partitionA;
+                InventoryUpdateRequest request = new InventoryUpdateRequest(productId, quantity, null,
+                        UUID.randomUUID().toString());
+                try {
+                    restTemplate.postForObject(url(partition, "/inventory/update"), request, String.class);
+                    reserved.addAndGet(quantity);
+                    reservations.incrementAndGet();
+                } catch (HttpStatusCodeException e) {
+                    // Fenced or already dropped while being handed off; nothing was reserved
+                }
+            });
+        }
+        during.run();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(60, TimeUnit.SECONDS));
+    }
+
+    private static ConfigurableApplicationContext start(String database) {
+        // Arguments, as default properties would lose to application.yml
+        return new SpringApplicationBuilder(InventoryServiceApplication.class)
+                .run("--server.port=0", "--spring.datasource.url=jdbc:h2:mem:" + database);
+    }
+
+    private static void seed(ConfigurableApplicationContext partition, Long productId) {
+        partition.getBean(InventoryBatchRepository.class).save(
+                new InventoryBatch(productId, productId, SEED_QUANTITY, LocalDate.now().plusDays(60)));
+    }
+
+    private static int stock(ConfigurableApplicationContext partition) {
+        return partition.getBean(InventoryBatchRepository.class).findAll().stream()
+                .filter(batch -> batch.getProductId() >= 9800)
+                .mapToInt(InventoryBatch::getQuantity).sum();
+    }
+
+    private static int stock(ConfigurableApplicationContext partition, List<Long> productIds) {
+        return partition.getBean(InventoryBatchRepository.class).findAll().stream()
+                .filter(batch -> productIds.contains(batch.getProductId()))
+                .mapToInt(InventoryBatch::getQuantity).sum();
+    }
+
+    private static String url(ConfigurableApplicationContext partition, String path) {
+        int port = ((WebServerApplicationContext) partition).getWebServer().getPort();
+        return "http://localhost:" + port + path;
+    }
+}
@@ -0,0 +1,89 @@
+package com.koerber.inventory;
+
+import com.koerber.inventory.dto.BatchDTO;
+import com.koerber.inventory.dto.InventoryResponse;
+import com.koerber.inventory.dto.InventoryUpdateRequest;
+import com.koerber.inventory.dto.InventoryUpdateResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Two H2 databases kept in sync by the local synchronizer. The copy runs
+ * once at startup only, so any later write leaves the replica behind.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:routingprimarydb",
+        "inventory.replica.enabled=true",
+        "inventory.replica.url=jdbc:h2:mem:routingreplicadb",
+        "inventory.replica.max-staleness-ms=600000",
+        "inventory.replica.local-sync.enabled=true",
+        "inventory.replica.local-sync.interval-ms=600000",
+        "inventory.sweeper.enabled=false"
+})
+class ReplicaRoutingIntegrationTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private String getBaseUrl() {
+        return "http://localhost:" + port + "/inventory";
+    }
+
+    @Test
+    void testReadsRoutedToReplicaUntilProductChanges() {
+        // Arrange
+        double replicaBefore = routed("replica");
+
+        // Act: product 1002 is read from the replica, then changed
+        int before = availableQuantity(1002L);
+        double replicaAfterRead = routed("replica");
+        InventoryUpdateResponse update = restTemplate.postForObject(getBaseUrl() + "/update",
+                new InventoryUpdateRequest(1002L, 2, null), InventoryUpdateResponse.class);
+        double staleBefore = routed("replica_stale");
+        int after = availableQuantity(1002L);
+
+        // Assert: the replica has not caught up, so the read goes to the primary and sees the write
+        assertTrue(replicaAfterRead > replicaBefore);
+        assertTrue(update.isSuccess());
+        assertEquals(before - 2, after);
+        assertTrue(routed("replica_stale") > staleBefore);
+    }
+
+    @Test
+    void testUnchangedProductServedFromReplica() {
+        // Arrange
+        double replicaBefore = routed("replica");
+
+        // Act
+        ResponseEntity<InventoryResponse> response = restTemplate.getForEntity(getBaseUrl() + "/1003",
+                InventoryResponse.class);
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(2, response.getBody().getBatches().size());
+        assertTrue(routed("replica") > replicaBefore);
+    }
+
+    private double routed(String route) {
+        return meterRegistry.get("datasource.routing").tag("route", route).functionCounter().count();
+    }
+
+    private int availableQuantity(Long productId) {
+        InventoryResponse response = restTemplate.getForObject(getBaseUrl() + "/" + productId, InventoryResponse.class);
+        return response.getBatches().stream().mapToInt(BatchDTO::getQuantity).sum();
+    }
+}
@@ -0,0 +1,118 @@
+package com.koerber.inventory;
+
+import com.koerber.inventory.dto.InventoryUpdateRequest;
+import com.koerber.inventory.dto.InventoryUpdateResponse;
+import com.koerber.inventory.dto.SqlStatementStatsDTO;
+import com.koerber.inventory.entity.InventoryBatch;
+import com.koerber.inventory.profiling.SqlProfiler;
+import com.koerber.inventory.profiling.SqlRequestScope;
+import com.koerber.inventory.repository.InventoryBatchRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:sqlprofilerdb",
+        "inventory.sweeper.enabled=false",
+        "inventory.sql-profiler.enabled=true",
+        "inventory.sql-profiler.slow-threshold-ms=0",
+        "inventory.sql-profiler.repeat-threshold=3"
+})
+class SqlProfilerIntegrationTest {
+
+    private static final long PRODUCT_ID = 9300L;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private InventoryBatchRepository inventoryBatchRepository;
+
+    @Autowired
+    private SqlProfiler sqlProfiler;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Test
+    void testReservation_ProfilesStatementsWithPlans() {
+        // Arrange
+        LocalDate expiry = LocalDate.now().plusDays(30);
+        inventoryBatchRepository.saveAll(Arrays.asList(
+                new InventoryBatch(9301L, PRODUCT_ID, 5, expiry),
+                new InventoryBatch(9302L, PRODUCT_ID, 20, expiry.plusDays(1))));
+        restTemplate.delete(url("/admin/sql-stats"));
+
+        // Act
+        InventoryUpdateResponse response = restTemplate.postForObject(url("/inventory/update"),
+                new InventoryUpdateRequest(PRODUCT_ID, 8, null), InventoryUpdateResponse.class);
+        SqlStatementStatsDTO[] statistics = restTemplate.getForObject(url("/admin/sql-stats?sort=count"),
+                SqlStatementStatsDTO[].class);
+
+        // Assert: the locking read of live batches, with its plan and the rows it returned
+        assertTrue(response.isSuccess());
+        assertTrue(dataSource instanceof HikariDataSource, "the pool keeps its type");
+        SqlStatementStatsDTO liveBatches = Arrays.stream(statistics)
+                .filter(stats -> stats.getSql().startsWith("select") && stats.getSql().contains("for update"))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("live batch query not profiled"));
+        assertEquals(1, liveBatches.getCount());
+        assertEquals(2, liveBatches.getRows());
+        assertNotNull(liveBatches.getPlan());
+        assertFalse(liveBatches.getPlan().startsWith("Plan unavailable"), liveBatches.getPlan());
+        assertTrue(Arrays.stream(statistics).anyMatch(stats -> stats.getSql().startsWith("update inventory_batch")
+                && stats.getRows() == 2));
+    }
+
+    @Test
+    void testRepeatedLookupsInOneRequest_AreCountedAsNPlusOne() {
+        // Arrange
+        inventoryBatchRepository.save(new InventoryBatch(9311L, PRODUCT_ID + 1, 5,
+                LocalDate.now().plusDays(30)));
+        sqlProfiler.reset();
+        SqlRequestScope scope = SqlRequestScope.open();
+
+        // Act: one transaction per lookup, so each one goes to the database
+        try {
+            for (int i = 0; i < 3; i++) {
+                inventoryBatchRepository.findById(9311L);
+            }
+            sqlProfiler.endRequest(scope, "GET /test");
+        } finally {
+            SqlRequestScope.clear();
+        }
+
+        // Assert
+        SqlStatementStatsDTO repeated = sqlProfiler.getStatistics("repeated", 1).get(0);
+        assertEquals(1, repeated.getRepeatedRequests());
+        assertEquals(3, repeated.getMaxPerRequest());
+        assertTrue(repeated.getSql().contains("inventory_batch"));
+    }
+
+    @Test
+    void testStatistics_RejectsUnknownSort() {
+        ResponseEntity<String> response = restTemplate.exchange(url("/admin/sql-stats?sort=slowest"),
+                HttpMethod.GET, null, String.class);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+
+    private String url(String path) {
+        return "http://localhost:" + port + path;
+    }
+}
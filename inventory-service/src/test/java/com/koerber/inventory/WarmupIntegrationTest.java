@@ -0,0 +1,56 @@
+package com.koerber.inventory;
+
+import com.koerber.inventory.repository.InventoryBatchRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Warm-up runs before readiness is reported; its reservations are rolled back.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:warmupdb",
+        "inventory.warmup.enabled=true",
+        "inventory.warmup.threads=2",
+        "inventory.warmup.iterations-per-round=20",
+        "inventory.warmup.max-rounds=5",
+        "inventory.sweeper.enabled=false"
+})
+class WarmupIntegrationTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private InventoryBatchRepository inventoryBatchRepository;
+
+    @Test
+    void testWarmupLeavesStockUntouched() {
+        // Assert: batch 10 is the only live batch of product 1002 and was reserved from during warm-up
+        assertEquals(83, inventoryBatchRepository.findById(10L).get().getQuantity());
+    }
+
+    @Test
+    void testProbesUpAfterWarmup() {
+        // Act
+        ResponseEntity<String> readiness = restTemplate.getForEntity(
+                "http://localhost:" + port + "/actuator/health/readiness", String.class);
+        ResponseEntity<String> liveness = restTemplate.getForEntity(
+                "http://localhost:" + port + "/actuator/health/liveness", String.class);
+
+        // Assert
+        assertEquals(HttpStatus.OK, readiness.getStatusCode());
+        assertTrue(readiness.getBody().contains("\"saturation\""));
+        assertEquals(HttpStatus.OK, liveness.getStatusCode());
+        assertTrue(liveness.getBody().contains("\"stall\""));
+    }
+}
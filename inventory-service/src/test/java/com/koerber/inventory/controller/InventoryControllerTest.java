@@ -4,25 +4,43 @@ import com.koerber.inventory.dto.BatchDTO;
 import com.koerber.inventory.dto.InventoryResponse;
 import com.koerber.inventory.dto.InventoryUpdateRequest;
 import com.koerber.inventory.dto.InventoryUpdateResponse;
+import com.koerber.inventory.service.DeadlineExceededException;
+import com.koerber.inventory.service.HotProductTracker;
+import com.koerber.inventory.service.InventoryResponseCache;
 import com.koerber.inventory.service.InventoryService;
+import com.koerber.inventory.service.RateLimiter;
+import com.koerber.inventory.service.RequestDeadline;
+import com.koerber.inventory.service.RequestLanes;
+import com.koerber.inventory.service.ReservationCombiner;
+import com.koerber.inventory.service.ReservationMetrics;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 
 import java.time.LocalDate;
 import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(InventoryController.class)
+@Import({InventoryResponseCache.class, RequestLanes.class, SimpleMeterRegistry.class})
 class InventoryControllerTest {
 
     @Autowired
@@ -34,6 +52,18 @@ class InventoryControllerTest {
     @MockBean
     private InventoryService inventoryService;
 
+    @MockBean
+    private ReservationCombiner reservationCombiner;
+
+    @MockBean
+    private RateLimiter rateLimiter;
+
+    @MockBean
+    private ReservationMetrics reservationMetrics;
+
+    @MockBean
+    private HotProductTracker hotProductTracker;
+
     @Test
     void testGetInventory_Success() throws Exception {
         // Arrange
@@ -45,27 +75,63 @@ class InventoryControllerTest {
                         new BatchDTO(2L, 30, LocalDate.of(2026, 9, 15))
                 )
         );
+        when(inventoryService.getInventoryVersion(1001L)).thenReturn("a-0-1");
         when(inventoryService.getInventoryByProductId(1001L)).thenReturn(response);
 
         // Act & Assert
-        mockMvc.perform(get("/inventory/1001"))
+        performAsync(get("/inventory/1001"))
                 .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"a-0-1\""))
                 .andExpect(jsonPath("$.productId").value(1001))
                 .andExpect(jsonPath("$.productName").value("Laptop"))
                 .andExpect(jsonPath("$.batches.length()").value(2));
     }
 
+    @Test
+    void testGetInventory_NotModifiedAndCached() throws Exception {
+        // Arrange
+        InventoryResponse response = new InventoryResponse(1001L, "Laptop",
+                Arrays.asList(new BatchDTO(1L, 50, LocalDate.of(2026, 6, 25))));
+        when(inventoryService.getInventoryVersion(1001L)).thenReturn("b-0-7");
+        when(inventoryService.getInventoryByProductId(1001L)).thenReturn(response);
+
+        // Act & Assert: the second read is served from cached bytes, the third is a 304
+        performAsync(get("/inventory/1001")).andExpect(status().isOk());
+        performAsync(get("/inventory/1001"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.productName").value("Laptop"));
+        performAsync(get("/inventory/1001").header("If-None-Match", "\"b-0-7\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"b-0-7\""));
+
+        verify(inventoryService, times(1)).getInventoryByProductId(1001L);
+    }
+
     @Test
     void testGetInventory_NotFound() throws Exception {
         // Arrange
+        when(inventoryService.getInventoryVersion(9999L)).thenReturn("a-0-0");
         when(inventoryService.getInventoryByProductId(9999L))
                 .thenThrow(new IllegalArgumentException("Product not found"));
 
         // Act & Assert
-        mockMvc.perform(get("/inventory/9999"))
+        performAsync(get("/inventory/9999"))
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    void testGetInventory_RateLimited() throws Exception {
+        // Arrange
+        when(rateLimiter.tryAcquire("noisy-client")).thenReturn(3L);
+
+        // Act & Assert
+        performAsync(get("/inventory/1001").header(RateLimiter.CLIENT_ID_HEADER, "noisy-client"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "3"));
+
+        verify(inventoryService, never()).getInventoryByProductId(anyLong());
+    }
+
     @Test
     void testUpdateInventory_Success() throws Exception {
         // Arrange
@@ -74,7 +140,7 @@ class InventoryControllerTest {
         when(inventoryService.updateInventory(any(InventoryUpdateRequest.class))).thenReturn(response);
 
         // Act & Assert
-        mockMvc.perform(post("/inventory/update")
+        performAsync(post("/inventory/update")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(request)))
                 .andExpect(status().isOk())
@@ -90,11 +156,53 @@ class InventoryControllerTest {
         when(inventoryService.updateInventory(any(InventoryUpdateRequest.class))).thenReturn(response);
 
         // Act & Assert
-        mockMvc.perform(post("/inventory/update")
+        performAsync(post("/inventory/update")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(request)))
                 .andExpect(status().isBadRequest())
                 .andExpect(jsonPath("$.success").value(false));
     }
-}
 
+    @Test
+    void testUpdateInventory_Combined() throws Exception {
+        // Arrange
+        InventoryUpdateRequest request = new InventoryUpdateRequest(1001L, 20, null);
+        InventoryUpdateResponse response = new InventoryUpdateResponse(true, "Inventory updated successfully");
+        when(reservationCombiner.appliesTo(1001L)).thenReturn(true);
+        when(reservationCombiner.submit(any(InventoryUpdateRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(response));
+
+        // Act & Assert
+        performAsync(post("/inventory/update")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true));
+
+        verify(inventoryService, never()).updateInventory(any());
+    }
+
+    @Test
+    void testUpdateInventory_DeadlineExceeded() throws Exception {
+        // Arrange
+        InventoryUpdateRequest request = new InventoryUpdateRequest(1001L, 20, null);
+        when(inventoryService.updateInventory(any(InventoryUpdateRequest.class)))
+                .thenThrow(new DeadlineExceededException("Deadline exceeded before loading batches"));
+
+        // Act & Assert
+        performAsync(post("/inventory/update")
+                        .header(RequestDeadline.HEADER, "50")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isGatewayTimeout())
+                .andExpect(jsonPath("$.success").value(false));
+
+        verify(reservationMetrics).recordDeadlineExceeded();
+    }
+
+    // Handlers return a CompletableFuture, so the result comes from the async dispatch
+    private ResultActions performAsync(MockHttpServletRequestBuilder requestBuilder) throws Exception {
+        MvcResult result = mockMvc.perform(requestBuilder).andExpect(request().asyncStarted()).andReturn();
+        return mockMvc.perform(asyncDispatch(result));
+    }
+}
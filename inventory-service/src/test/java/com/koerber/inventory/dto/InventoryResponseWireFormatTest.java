@@ -0,0 +1,95 @@
+package com.koerber.inventory.dto;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Compares the JSON and Smile encodings of InventoryResponse by bytes on
+ * the wire and by CPU time to write and read, for a product with many batches
+ */
+@Slf4j
+class InventoryResponseWireFormatTest {
+
+    private static final int BATCH_COUNT = 500;
+    private static final int WARMUP_ITERATIONS = 2000;
+    private static final int MEASURED_ITERATIONS = 2000;
+    // Generous, so a busy build machine does not fail the check; Smile is usually the cheaper of the two
+    private static final double CPU_TOLERANCE = 2.0;
+
+    // Same mapper configurations Spring MVC uses for each media type
+    private final ObjectMapper jsonMapper = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+    private final ObjectMapper smileMapper = Jackson2ObjectMapperBuilder.smile().build();
+
+    private InventoryResponse response;
+
+    @BeforeEach
+    void setUp() {
+        List<BatchDTO> batches = new ArrayList<>();
+        LocalDate expiry = LocalDate.of(2026, 1, 1);
+        for (int i = 0; i < BATCH_COUNT; i++) {
+            batches.add(new BatchDTO((long) i + 1, 10 + i % 90, expiry.plusDays(i)));
+        }
+        response = new InventoryResponse(1001L, "Laptop", batches);
+    }
+
+    @Test
+    void testSmileRoundTrip() throws Exception {
+        byte[] bytes = smileMapper.writeValueAsBytes(response);
+
+        assertEquals(response, smileMapper.readValue(bytes, InventoryResponse.class));
+    }
+
+    @Test
+    void testSmileSmallerThanJson() throws Exception {
+        int jsonBytes = jsonMapper.writeValueAsBytes(response).length;
+        int smileBytes = smileMapper.writeValueAsBytes(response).length;
+
+        assertTrue(smileBytes < jsonBytes * 0.6,
+                "Smile should be well under the JSON size: smile=" + smileBytes + ", json=" + jsonBytes);
+    }
+
+    @Test
+    void testSmileCpuTimeComparableToJson() throws Exception {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isCurrentThreadCpuTimeSupported(), "Thread CPU time is not available on this JVM");
+
+        roundTrips(jsonMapper, WARMUP_ITERATIONS);
+        roundTrips(smileMapper, WARMUP_ITERATIONS);
+        long jsonNanos = cpuTime(threads, jsonMapper);
+        long smileNanos = cpuTime(threads, smileMapper);
+
+        log.info("CPU per write and read of {} batches: json={} us, smile={} us", BATCH_COUNT,
+                jsonNanos / MEASURED_ITERATIONS / 1000, smileNanos / MEASURED_ITERATIONS / 1000);
+        assertTrue(smileNanos < jsonNanos * CPU_TOLERANCE,
+                "Smile should cost no more CPU than JSON, within the tolerance: smile=" + smileNanos
+                        + " ns, json=" + jsonNanos + " ns");
+    }
+
+    private long cpuTime(ThreadMXBean threads, ObjectMapper mapper) throws Exception {
+        long start = threads.getCurrentThreadCpuTime();
+        roundTrips(mapper, MEASURED_ITERATIONS);
+        return threads.getCurrentThreadCpuTime() - start;
+    }
+
+    private void roundTrips(ObjectMapper mapper, int iterations) throws Exception {
+        for (int i = 0; i < iterations; i++) {
+            byte[] bytes = mapper.writeValueAsBytes(response);
+            assertEquals(BATCH_COUNT, mapper.readValue(bytes, InventoryResponse.class).getBatches().size());
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.koerber.inventory.factory;
+
+import com.koerber.inventory.entity.InventoryBatch;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FIFOInventoryHandlerTest {
+
+    private final FIFOInventoryHandler handler = new FIFOInventoryHandler();
+
+    @Test
+    void testReserve_TakesFifoAndRecordsRows() {
+        // Arrange
+        ReservationBuffer buffer = new ReservationBuffer(1);
+        buffer.add(1L, 0, null);
+        buffer.add(2L, 30, null);
+        buffer.add(3L, 50, null);
+
+        // Act: two reservations against the same rows
+        handler.reserve(buffer, 20, null);
+        handler.reserve(buffer, 20, null);
+
+        // Assert
+        assertEquals(2, buffer.reservedCount());
+        assertEquals(1, buffer.reservedRow(0));
+        assertEquals(2, buffer.reservedRow(1));
+        assertEquals(30, buffer.taken(1));
+        assertEquals(10, buffer.taken(2));
+        assertEquals(0, buffer.quantity(1));
+        assertEquals(40, buffer.quantity(2));
+    }
+
+    @Test
+    void testReserve_InsufficientInventory() {
+        // Arrange
+        ReservationBuffer buffer = new ReservationBuffer(2);
+        buffer.add(1L, 10, null);
+
+        // Act & Assert
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> handler.reserve(buffer, 15, null));
+        assertEquals("Insufficient inventory. Still need 5 units.", exception.getMessage());
+    }
+
+    @Test
+    void testDefaultReserve_MapsListHandlerResultsOntoBuffer() {
+        // Arrange: a handler that only implements the list API, taking newest first
+        InventoryHandler lifo = new InventoryHandler() {
+            @Override
+            public List<Long> reserveInventory(List<InventoryBatch> batches, int quantityNeeded) {
+                List<Long> reserved = new ArrayList<>();
+                for (int i = batches.size() - 1; i >= 0 && quantityNeeded > 0; i--) {
+                    InventoryBatch batch = batches.get(i);
+                    int taken = Math.min(batch.getQuantity(), quantityNeeded);
+                    batch.setQuantity(batch.getQuantity() - taken);
+                    quantityNeeded -= taken;
+                    reserved.add(batch.getBatchId());
+                }
+                return reserved;
+            }
+
+            @Override
+            public String getHandlerType() {
+                return "LIFO";
+            }
+        };
+        ReservationBuffer buffer = new ReservationBuffer(2);
+        buffer.add(1L, 10, null);
+        buffer.add(2L, 10, null);
+
+        // Act
+        lifo.reserve(buffer, 15, null);
+
+        // Assert
+        assertEquals(1, buffer.reservedRow(0));
+        assertEquals(0, buffer.reservedRow(1));
+        assertEquals(10, buffer.taken(1));
+        assertEquals(5, buffer.taken(0));
+    }
+}
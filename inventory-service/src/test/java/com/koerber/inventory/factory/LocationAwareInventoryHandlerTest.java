@@ -0,0 +1,92 @@
+package com.koerber.inventory.factory;
+
+import com.koerber.inventory.dto.LocationConfig;
+import com.koerber.inventory.entity.InventoryBatch;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocationAwareInventoryHandlerTest {
+
+    private LocationAwareInventoryHandler handler;
+
+    @BeforeEach
+    void setUp() {
+        Map<String, List<String>> proximity = new LinkedHashMap<>();
+        proximity.put("EAST", Arrays.asList("EAST", "MAIN", "WEST"));
+        proximity.put("WEST", Arrays.asList("WEST", "MAIN", "EAST"));
+        handler = new LocationAwareInventoryHandler(new LocationConfig("MAIN", proximity));
+    }
+
+    @Test
+    void testReserveInventory_NearestLocationThatCoversTheOrder() {
+        // Arrange: EAST is nearest but too small, MAIN can ship it all
+        List<InventoryBatch> batches = Arrays.asList(
+                batch(1L, 10, 1, "EAST"),
+                batch(2L, 30, 2, "MAIN"),
+                batch(3L, 50, 3, "WEST"));
+
+        // Act
+        List<Long> reserved = handler.reserveInventory(batches, 20, "EAST");
+
+        // Assert
+        assertEquals(Collections.singletonList(2L), reserved);
+        assertEquals(10, batches.get(0).getQuantity());
+        assertEquals(10, batches.get(1).getQuantity());
+    }
+
+    @Test
+    void testReserveInventory_SplitsNearestFirstWhenNoLocationCoversTheOrder() {
+        // Arrange
+        List<InventoryBatch> batches = Arrays.asList(
+                batch(1L, 10, 1, "EAST"),
+                batch(2L, 10, 2, "MAIN"),
+                batch(3L, 10, 3, "WEST"),
+                batch(4L, 10, 4, "WEST"));
+
+        // Act
+        List<Long> reserved = handler.reserveInventory(batches, 25, "WEST");
+
+        // Assert: both WEST batches, then MAIN
+        assertEquals(Arrays.asList(3L, 4L, 2L), reserved);
+        assertEquals(10, batches.get(0).getQuantity());
+        assertEquals(5, batches.get(1).getQuantity());
+    }
+
+    @Test
+    void testReserveInventory_InsufficientInventory() {
+        // Arrange
+        List<InventoryBatch> batches = Arrays.asList(batch(1L, 10, 1, "EAST"), batch(2L, 5, 2, "MAIN"));
+
+        // Act & Assert
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> handler.reserveInventory(batches, 20, "EAST"));
+        assertTrue(e.getMessage().contains("Still need 5 units"));
+    }
+
+    @Test
+    void testSelectLocations_UnknownLocationFallsBackToStockedLocations() {
+        // Arrange
+        Map<String, Integer> stock = new LinkedHashMap<>();
+        stock.put("WEST", 8);
+        stock.put("EAST", 8);
+
+        // Act
+        List<String> locations = handler.selectLocations(stock, 12, "NORTH");
+
+        // Assert
+        assertEquals(Arrays.asList("EAST", "WEST"), locations);
+    }
+
+    private static InventoryBatch batch(Long batchId, int quantity, int expiresInDays, String location) {
+        return new InventoryBatch(batchId, 1001L, quantity, LocalDate.now().plusDays(expiresInDays), location);
+    }
+}
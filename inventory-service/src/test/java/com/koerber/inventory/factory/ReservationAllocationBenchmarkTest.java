@@ -0,0 +1,92 @@
+package com.koerber.inventory.factory;
+
+import com.koerber.inventory.entity.InventoryBatch;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Measures the heap allocated per reservation on the calling thread, the
+ * figure JMH's gc profiler reports as gc.alloc.rate.norm, for the list API
+ * and for the handler's primitive buffer path. This covers the handler step
+ * only, not the allocations map InventoryService returns. The counter also
+ * picks up JIT and profiling noise, so the buffer path is held to a small
+ * tolerance rather than exactly 0 B.
+ */
+@Slf4j
+class ReservationAllocationBenchmarkTest {
+
+    private static final int BATCHES = 8;
+    private static final int WARMUP_RESERVATIONS = 50_000;
+    private static final int MEASURED_RESERVATIONS = 100_000;
+    // Well below one object per reservation; the list path allocates hundreds of bytes
+    private static final long BUFFER_TOLERANCE_BYTES = 8;
+
+    private final FIFOInventoryHandler handler = new FIFOInventoryHandler();
+
+    @Test
+    void testBufferPathAllocatesAlmostNothingPerReservation() {
+        ReservationBuffer buffer = new ReservationBuffer(BATCHES);
+        for (int i = 0; i < WARMUP_RESERVATIONS; i++) {
+            reserveFromBuffer(buffer);
+        }
+        long listBytes = bytesPerReservation(this::reserveFromList);
+
+        long before = allocatedBytes();
+        for (int i = 0; i < MEASURED_RESERVATIONS; i++) {
+            reserveFromBuffer(buffer);
+        }
+        long bufferBytes = (allocatedBytes() - before - measurementOverhead()) / MEASURED_RESERVATIONS;
+
+        log.info("Allocated per reservation: list={} B, buffer={} B", listBytes, bufferBytes);
+
+        assertTrue(bufferBytes <= BUFFER_TOLERANCE_BYTES, "buffer path allocated " + bufferBytes + " B per reservation");
+        assertTrue(listBytes > 10 * BUFFER_TOLERANCE_BYTES, "list path allocated only " + listBytes + " B per reservation");
+    }
+
+    // Same batches each time, as InventoryService fills the buffer from the locked rows
+    private void reserveFromBuffer(ReservationBuffer buffer) {
+        buffer.clear();
+        for (int i = 0; i < BATCHES; i++) {
+            buffer.add(i, 10, InventoryBatch.DEFAULT_LOCATION);
+        }
+        handler.reserve(buffer, 25, null);
+    }
+
+    private void reserveFromList() {
+        LocalDate expiry = LocalDate.of(2030, 1, 1);
+        List<InventoryBatch> batches = new ArrayList<>(BATCHES);
+        for (int i = 0; i < BATCHES; i++) {
+            batches.add(new InventoryBatch((long) i, 1001L, 10, expiry));
+        }
+        handler.reserveInventory(batches, 25);
+    }
+
+    private long bytesPerReservation(Runnable reservation) {
+        for (int i = 0; i < WARMUP_RESERVATIONS; i++) {
+            reservation.run();
+        }
+        long before = allocatedBytes();
+        for (int i = 0; i < MEASURED_RESERVATIONS; i++) {
+            reservation.run();
+        }
+        return (allocatedBytes() - before - measurementOverhead()) / MEASURED_RESERVATIONS;
+    }
+
+    // Bytes reported between two back-to-back reads of the counter
+    private static long measurementOverhead() {
+        long before = allocatedBytes();
+        return allocatedBytes() - before;
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
@@ -0,0 +1,75 @@
+package com.koerber.inventory.health;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.health.Status;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SaturationHealthIndicatorTest {
+
+    @Mock
+    private ObjectProvider<HikariDataSource> pools;
+
+    @Mock
+    private HikariDataSource pool;
+
+    @Mock
+    private HikariPoolMXBean mxBean;
+
+    private SaturationHealthIndicator saturation;
+
+    @BeforeEach
+    void setUp() {
+        when(pools.iterator()).thenAnswer(invocation -> Collections.singletonList(pool).iterator());
+        when(pool.getHikariPoolMXBean()).thenReturn(mxBean);
+        when(pool.getMaximumPoolSize()).thenReturn(10);
+        when(pool.getPoolName()).thenReturn("inventory-primary");
+        saturation = new SaturationHealthIndicator(pools, 0.9, 5);
+    }
+
+    @Test
+    void testUpBelowThresholds() {
+        // Arrange
+        when(mxBean.getActiveConnections()).thenReturn(5);
+        when(mxBean.getThreadsAwaitingConnection()).thenReturn(0);
+
+        // Act & Assert
+        assertEquals(Status.UP, saturation.health().getStatus());
+        assertEquals(-1, saturation.saturatedForMillis());
+    }
+
+    @Test
+    void testOutOfServiceWhenPoolExhausted() {
+        // Arrange
+        when(mxBean.getActiveConnections()).thenReturn(10);
+        when(mxBean.getThreadsAwaitingConnection()).thenReturn(0);
+
+        // Act & Assert
+        assertEquals(Status.OUT_OF_SERVICE, saturation.health().getStatus());
+    }
+
+    @Test
+    void testOutOfServiceWhenTooManyWaiters() {
+        // Arrange
+        when(mxBean.getActiveConnections()).thenReturn(3);
+        when(mxBean.getThreadsAwaitingConnection()).thenReturn(6);
+
+        // Act
+        saturation.health();
+
+        // Assert: liveness only goes down once saturation outlasts the stall timeout
+        assertEquals(Status.UP, new StallHealthIndicator(saturation, 60000).health().getStatus());
+        assertEquals(Status.DOWN, new StallHealthIndicator(saturation, -1).health().getStatus());
+    }
+}
@@ -0,0 +1,75 @@
+package com.koerber.inventory.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.core.spi.FilterReply;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogSamplingFilterTest {
+
+    private static final String INVENTORY_SERVICE = "com.koerber.inventory.service.InventoryService";
+
+    private LoggerContext context;
+    private LogSamplingFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        context = new LoggerContext();
+        context.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME).setLevel(Level.INFO);
+        filter = new LogSamplingFilter();
+        filter.setSampledLoggers(INVENTORY_SERVICE);
+    }
+
+    @Test
+    void testSampling_DropsRoutineLinesButKeepsWarnings() {
+        // Arrange
+        filter.setSampleRate(0.0);
+        Logger logger = context.getLogger(INVENTORY_SERVICE);
+
+        // Act & Assert
+        assertEquals(FilterReply.DENY, decide(logger, Level.INFO));
+        assertEquals(FilterReply.NEUTRAL, decide(logger, Level.WARN));
+        assertEquals(FilterReply.NEUTRAL, decide(context.getLogger("com.koerber.inventory.service.HoldService"), Level.INFO));
+        assertEquals(1, filter.getSampledOut());
+    }
+
+    @Test
+    void testRateLimit_PerLoggerAndOnlyForApplicationLoggers() {
+        // Arrange
+        filter.setMaxPerSecond(3);
+        Logger sweeper = context.getLogger("com.koerber.inventory.service.InventoryBatchSweeper");
+        Logger hibernate = context.getLogger("org.hibernate.SQL_SLOW");
+
+        // Act
+        int passed = 0;
+        for (int i = 0; i < 10; i++) {
+            if (decide(sweeper, Level.INFO) == FilterReply.NEUTRAL) {
+                passed++;
+            }
+        }
+
+        // Assert: a new second may start mid-loop and let a few more through
+        assertTrue(passed >= 3 && passed <= 6);
+        assertEquals(FilterReply.NEUTRAL, decide(context.getLogger(INVENTORY_SERVICE), Level.INFO));
+        assertEquals(FilterReply.NEUTRAL, decide(hibernate, Level.INFO));
+        assertEquals(10 - passed, filter.getRateLimited());
+    }
+
+    @Test
+    void testDisabledLevel_LeftToTheLogger() {
+        // Arrange
+        filter.setSampleRate(0.0);
+
+        // Act & Assert: DEBUG is off, so no sampling or rate limit is spent on it
+        assertEquals(FilterReply.NEUTRAL, decide(context.getLogger(INVENTORY_SERVICE), Level.DEBUG));
+        assertEquals(0, filter.getSampledOut());
+    }
+
+    private FilterReply decide(Logger logger, Level level) {
+        return filter.decide(null, logger, level, "Reserving {} units", new Object[]{1}, null);
+    }
+}
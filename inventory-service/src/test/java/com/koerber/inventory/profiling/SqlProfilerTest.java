@@ -0,0 +1,115 @@
+package com.koerber.inventory.profiling;
+
+import com.koerber.inventory.dto.SqlStatementStatsDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SqlProfilerTest {
+
+    private final SqlProfiler profiler = new SqlProfiler(100, 3, true, 2);
+
+    @AfterEach
+    void tearDown() {
+        SqlRequestScope.clear();
+    }
+
+    @Test
+    void testNormalize_ReplacesLiteralsAndCollapsesInLists() {
+        assertEquals("select b.batch_id from inventory_batch b where b.product_id in (?...) and b.location_code = ?",
+                SqlProfiler.normalize("select b.batch_id from inventory_batch b\n    where b.product_id in (?, ?, ?)"
+                        + " and b.location_code = 'It''s'"));
+        assertEquals("update inventory_batch set quantity=? where batch_id=?",
+                SqlProfiler.normalize("update inventory_batch set quantity=5 where batch_id=?"));
+        // Digits inside identifiers stay
+        assertEquals("select inventoryb0_.quantity as quantity4_0_ from inventory_batch inventoryb0_",
+                SqlProfiler.normalize("select inventoryb0_.quantity as quantity4_0_ from inventory_batch inventoryb0_"));
+    }
+
+    @Test
+    void testGetStatistics_AggregatesPerNormalizedStatement() {
+        // Arrange
+        StatementStats first = profiler.statsFor("select * from orders where order_id in (?, ?)");
+        StatementStats second = profiler.statsFor("select * from orders where order_id in (?, ?, ?)");
+        StatementStats update = profiler.statsFor("update orders set status=? where order_id=?");
+
+        // Act
+        profiler.record(first, 2_000_000, 0);
+        first.addRows(2);
+        profiler.record(second, 4_000_000, 0);
+        second.addRows(3);
+        profiler.record(update, 1_000_000, 1);
+        List<SqlStatementStatsDTO> statistics = profiler.getStatistics("total", 10);
+
+        // Assert
+        assertSame(first, second);
+        assertEquals(2, statistics.size());
+        SqlStatementStatsDTO select = statistics.get(0);
+        assertEquals("select * from orders where order_id in (?...)", select.getSql());
+        assertEquals(2, select.getCount());
+        assertEquals(6.0, select.getTotalMs(), 0.001);
+        assertEquals(3.0, select.getMeanMs(), 0.001);
+        assertEquals(4.0, select.getMaxMs(), 0.001);
+        assertEquals(5, select.getRows());
+        assertEquals("update orders set status=? where order_id=?", profiler.getStatistics("count", 2).get(1).getSql());
+    }
+
+    @Test
+    void testGetStatistics_AddsUpStatementsPastTheLimit() {
+        // Arrange: room for two statements
+        profiler.record(profiler.statsFor("select 1 from a"), 1_000_000, 0);
+        profiler.record(profiler.statsFor("select 1 from b"), 1_000_000, 0);
+
+        // Act
+        profiler.record(profiler.statsFor("select 1 from c"), 5_000_000, 0);
+        profiler.record(profiler.statsFor("select 1 from d"), 5_000_000, 0);
+
+        // Assert
+        SqlStatementStatsDTO top = profiler.getStatistics("total", 1).get(0);
+        assertEquals(SqlProfiler.OTHER_STATEMENTS, top.getSql());
+        assertEquals(2, top.getCount());
+    }
+
+    @Test
+    void testEndRequest_CountsStatementsRepeatedInOneRequest() {
+        // Arrange
+        StatementStats lookup = profiler.statsFor("select * from inventory_batch where batch_id=?");
+        StatementStats once = profiler.statsFor("select * from orders where order_id=?");
+        SqlRequestScope scope = SqlRequestScope.open();
+
+        // Act
+        for (int i = 0; i < 4; i++) {
+            profiler.record(lookup, 1_000, 1);
+        }
+        profiler.record(once, 1_000, 1);
+        profiler.endRequest(scope, "GET /order/{id}");
+
+        // Assert
+        SqlStatementStatsDTO repeated = profiler.getStatistics("repeated", 1).get(0);
+        assertEquals(lookup.getSql(), repeated.getSql());
+        assertEquals(1, repeated.getRepeatedRequests());
+        assertEquals(4, repeated.getMaxPerRequest());
+        assertEquals(0, once.getRepeatedRequests());
+    }
+
+    @Test
+    void testShouldCapturePlan_OnlySlowQueriesAndAgainWhenTwiceAsSlow() {
+        StatementStats select = profiler.statsFor("select * from orders where order_id=?");
+        StatementStats insert = profiler.statsFor("insert into orders values (?)");
+
+        assertFalse(profiler.shouldCapturePlan(select, 50_000_000));
+        assertTrue(profiler.shouldCapturePlan(select, 150_000_000));
+        assertFalse(profiler.shouldCapturePlan(select, 200_000_000));
+        assertTrue(profiler.shouldCapturePlan(select, 300_000_000));
+        assertFalse(profiler.shouldCapturePlan(insert, 500_000_000));
+    }
+
+    @Test
+    void testGetStatistics_RejectsUnknownSort() {
+        assertThrows(IllegalArgumentException.class, () -> profiler.getStatistics("slowest", 10));
+        assertThrows(IllegalArgumentException.class, () -> profiler.getStatistics("total", 0));
+    }
+}
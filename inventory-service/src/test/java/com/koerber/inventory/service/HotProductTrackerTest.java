@@ -0,0 +1,92 @@
+package com.koerber.inventory.service;
+
+import com.koerber.inventory.dto.HotProductDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class HotProductTrackerTest {
+
+    @Mock
+    private ObjectProvider<HotProductListener> listeners;
+
+    @Mock
+    private HotProductListener listener;
+
+    private HotProductTracker tracker;
+
+    @BeforeEach
+    void setUp() {
+        // Window of 3 slices; hot from 50 requests and 10% of the window
+        tracker = new HotProductTracker(listeners, new SimpleMeterRegistry(), true, 3, 4, 256, 8, 50, 0.1);
+    }
+
+    @Test
+    void testSkewedTraffic_HotProductDetected() {
+        // Arrange: product 1001 takes a fifth of the requests, spread over a catalog far larger than the sketch
+        when(listeners.orderedStream()).thenAnswer(invocation -> Stream.of(listener));
+        for (int i = 0; i < 10000; i++) {
+            tracker.record(i % 5 == 0 ? 1001L : 100000L + i);
+        }
+
+        // Act
+        tracker.rotate();
+
+        // Assert
+        assertTrue(tracker.isHot(1001L));
+        assertEquals(1, tracker.getHotProducts().size());
+        verify(listener).onHotProductsChanged(Collections.singleton(1001L));
+        List<HotProductDTO> top = tracker.getTopProducts(3);
+        assertEquals(1001L, top.get(0).getProductId());
+        assertTrue(top.get(0).getRequests() >= 2000);
+        assertTrue(top.get(0).getHot());
+    }
+
+    @Test
+    void testUniformTraffic_NoHotProducts() {
+        // Arrange
+        for (int i = 0; i < 10000; i++) {
+            tracker.record((long) (i % 500));
+        }
+
+        // Act
+        tracker.rotate();
+
+        // Assert: listeners are only called when the hot set changes
+        assertTrue(tracker.getHotProducts().isEmpty());
+        verify(listeners, never()).orderedStream();
+    }
+
+    @Test
+    void testHotProduct_CooledOnceItLeavesTheWindow() {
+        // Arrange
+        when(listeners.orderedStream()).thenAnswer(invocation -> Stream.of(listener));
+        for (int i = 0; i < 100; i++) {
+            tracker.record(1001L);
+        }
+        tracker.rotate();
+        assertTrue(tracker.isHot(1001L));
+
+        // Act: the slice holding the requests is reused after a full window
+        tracker.rotate();
+        tracker.rotate();
+        tracker.rotate();
+
+        // Assert
+        assertFalse(tracker.isHot(1001L));
+        verify(listener).onHotProductsChanged(Collections.emptySet());
+        assertTrue(tracker.getTopProducts(10).isEmpty());
+    }
+}
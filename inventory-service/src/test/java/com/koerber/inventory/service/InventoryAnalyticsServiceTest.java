@@ -0,0 +1,121 @@
+package com.koerber.inventory.service;
+
+import com.koerber.inventory.dto.ExpiryWeekDTO;
+import com.koerber.inventory.dto.ProductExpiryDTO;
+import com.koerber.inventory.dto.StockSummaryDTO;
+import com.koerber.inventory.entity.InventoryBatch;
+import com.koerber.inventory.repository.InventoryBatchRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class InventoryAnalyticsServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private InventoryBatchRepository inventoryBatchRepository;
+
+    @Mock
+    private InventoryLedger inventoryLedger;
+
+    private InventoryAnalyticsService analyticsService;
+
+    private final LocalDate today = LocalDate.now();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        List<InventoryBatch> batches = Arrays.asList(
+                new InventoryBatch(1L, 1001L, 10, today.minusDays(1)),
+                new InventoryBatch(2L, 1001L, 20, today.plusDays(3)),
+                new InventoryBatch(3L, 1002L, 30, today.plusDays(10)),
+                new InventoryBatch(4L, 1002L, 40, today.plusDays(90)),
+                new InventoryBatch(5L, 1003L, 0, today.plusDays(5)));
+        when(jdbcTemplate.queryForObject(anyString(), eq(Integer.class))).thenReturn(batches.size());
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (InventoryBatch batch : batches) {
+                ResultSet rs = mock(ResultSet.class);
+                when(rs.getLong(1)).thenReturn(batch.getBatchId());
+                when(rs.getLong(2)).thenReturn(batch.getProductId());
+                when(rs.getInt(3)).thenReturn(batch.getQuantity());
+                when(rs.getDate(4)).thenReturn(Date.valueOf(batch.getExpiryDate()));
+                handler.processRow(rs);
+            }
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class));
+
+        // A leaf size of one makes every row its own fork-join task
+        analyticsService = new InventoryAnalyticsService(jdbcTemplate, inventoryBatchRepository, inventoryLedger, 2, 1);
+        analyticsService.rebuild();
+    }
+
+    @AfterEach
+    void tearDown() {
+        analyticsService.shutdown();
+    }
+
+    @Test
+    void testExpiringByProduct() {
+        // Act
+        List<ProductExpiryDTO> expiring = analyticsService.getExpiringByProduct(30, 10);
+
+        // Assert: expired, empty and out-of-window batches are left out; largest first
+        assertEquals(2, expiring.size());
+        assertEquals(new ProductExpiryDTO(1002L, 30L, 1), expiring.get(0));
+        assertEquals(new ProductExpiryDTO(1001L, 20L, 1), expiring.get(1));
+    }
+
+    @Test
+    void testExpiryWeeks() {
+        // Act
+        List<ExpiryWeekDTO> weeks = analyticsService.getExpiryWeeks(2);
+
+        // Assert
+        assertEquals(new ExpiryWeekDTO(today, 20L, 1), weeks.get(0));
+        assertEquals(new ExpiryWeekDTO(today.plusWeeks(1), 30L, 1), weeks.get(1));
+    }
+
+    @Test
+    void testSummaryFollowsIncrementalUpdates() {
+        // Act: a reservation empties batch 2, and product 1002 loses batch 4
+        analyticsService.onBatchesChanged(Collections.singletonList(
+                new InventoryBatch(2L, 1001L, 0, today.plusDays(3))));
+        when(inventoryBatchRepository.findByProductIdOrderByExpiryDateAsc(1002L)).thenReturn(
+                Collections.singletonList(new InventoryBatch(3L, 1002L, 30, today.plusDays(10))));
+        analyticsService.refresh(Collections.singletonList(1002L));
+        StockSummaryDTO summary = analyticsService.getSummary();
+
+        // Assert
+        assertEquals(new StockSummaryDTO(2, 2, 40L, 10L), summary);
+    }
+
+    @Test
+    void testInvalidWindowRejected() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> analyticsService.getExpiringByProduct(0, 10));
+        assertThrows(IllegalArgumentException.class, () -> analyticsService.getExpiryWeeks(-1));
+    }
+}
@@ -3,10 +3,14 @@ package com.koerber.inventory.service;
 import com.koerber.inventory.dto.InventoryResponse;
 import com.koerber.inventory.dto.InventoryUpdateRequest;
 import com.koerber.inventory.dto.InventoryUpdateResponse;
+import com.koerber.inventory.dto.StockReleaseRequest;
 import com.koerber.inventory.entity.InventoryBatch;
+import com.koerber.inventory.entity.InventoryReservation;
 import com.koerber.inventory.factory.InventoryHandlerFactory;
 import com.koerber.inventory.factory.FIFOInventoryHandler;
+import com.koerber.inventory.repository.BatchProductView;
 import com.koerber.inventory.repository.InventoryBatchRepository;
+import com.koerber.inventory.repository.InventoryReservationRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -15,13 +19,18 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -33,6 +42,21 @@ class InventoryServiceTest {
     @Mock
     private InventoryHandlerFactory handlerFactory;
 
+    @Mock
+    private InventoryLedger inventoryLedger;
+
+    @Mock
+    private StockAlertService stockAlertService;
+
+    @Mock
+    private InventoryAnalyticsService inventoryAnalyticsService;
+
+    @Mock
+    private ProductCatalog productCatalog;
+
+    @Mock
+    private InventoryReservationRepository reservationRepository;
+
     @InjectMocks
     private InventoryService inventoryService;
 
@@ -41,8 +65,8 @@ class InventoryServiceTest {
     @BeforeEach
     void setUp() {
         testBatches = Arrays.asList(
-                new InventoryBatch(1L, 1001L, "Laptop", 50, LocalDate.of(2026, 6, 25)),
-                new InventoryBatch(2L, 1001L, "Laptop", 30, LocalDate.of(2026, 9, 15))
+                new InventoryBatch(1L, 1001L, 50, LocalDate.of(2026, 6, 25)),
+                new InventoryBatch(2L, 1001L, 30, LocalDate.of(2026, 9, 15))
         );
     }
 
@@ -51,6 +75,7 @@ class InventoryServiceTest {
         // Arrange
         when(inventoryBatchRepository.findByProductIdOrderByExpiryDateAsc(1001L))
                 .thenReturn(testBatches);
+        when(productCatalog.getName(1001L)).thenReturn("Laptop");
 
         // Act
         InventoryResponse response = inventoryService.getInventoryByProductId(1001L);
@@ -78,7 +103,7 @@ class InventoryServiceTest {
     @Test
     void testReserveInventory_Success() {
         // Arrange
-        when(inventoryBatchRepository.findByProductIdOrderByExpiryDateAsc(1001L))
+        when(inventoryBatchRepository.findLiveBatches(eq(1001L), any(LocalDate.class)))
                 .thenReturn(testBatches);
         when(handlerFactory.getDefaultHandler()).thenReturn(new FIFOInventoryHandler());
         when(inventoryBatchRepository.saveAll(any())).thenReturn(testBatches);
@@ -92,12 +117,33 @@ class InventoryServiceTest {
         assertTrue(reservedBatchIds.contains(1L));
         assertTrue(reservedBatchIds.contains(2L));
         verify(inventoryBatchRepository, times(1)).saveAll(any());
+        verify(stockAlertService).onBatchesChanged(1001L, testBatches);
+    }
+
+    @Test
+    void testReserveInventory_LedgerMode() {
+        // Arrange
+        when(inventoryLedger.isEnabled()).thenReturn(true);
+        when(inventoryLedger.findLiveBalances(eq(1001L), any(LocalDate.class))).thenReturn(testBatches);
+        when(handlerFactory.getDefaultHandler()).thenReturn(new FIFOInventoryHandler());
+
+        // Act
+        List<Long> reservedBatchIds = inventoryService.reserveInventory(1001L, 60, "order-7");
+
+        // Assert
+        Map<Long, Integer> expectedDeltas = new LinkedHashMap<>();
+        expectedDeltas.put(1L, -50);
+        expectedDeltas.put(2L, -10);
+        assertEquals(Arrays.asList(1L, 2L), reservedBatchIds);
+        verify(inventoryLedger).lockProduct(1001L);
+        verify(inventoryLedger).append(expectedDeltas, "order-7");
+        verify(inventoryBatchRepository, never()).saveAll(any());
     }
 
     @Test
     void testReserveInventory_InsufficientStock() {
         // Arrange
-        when(inventoryBatchRepository.findByProductIdOrderByExpiryDateAsc(1001L))
+        when(inventoryBatchRepository.findLiveBatches(eq(1001L), any(LocalDate.class)))
                 .thenReturn(testBatches);
         when(handlerFactory.getDefaultHandler()).thenReturn(new FIFOInventoryHandler());
 
@@ -107,11 +153,110 @@ class InventoryServiceTest {
         });
     }
 
+    @Test
+    void testReserveInventory_NoLiveBatches() {
+        // Arrange
+        when(inventoryBatchRepository.findLiveBatches(eq(1001L), any(LocalDate.class)))
+                .thenReturn(Collections.emptyList());
+        when(inventoryBatchRepository.existsByProductId(1001L)).thenReturn(true);
+        when(handlerFactory.getDefaultHandler()).thenReturn(new FIFOInventoryHandler());
+
+        // Act & Assert
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> {
+            inventoryService.reserveInventory(1001L, 10);
+        });
+        assertTrue(e.getMessage().contains("Insufficient inventory"));
+        verify(inventoryBatchRepository, never()).findByProductIdOrderByExpiryDateAsc(anyLong());
+    }
+
+    @Test
+    void testReserveInventory_DeadlineExceeded() {
+        // Arrange: a zero budget has already run out
+        RequestDeadline.start(0);
+
+        // Act & Assert
+        try {
+            assertThrows(DeadlineExceededException.class, () -> inventoryService.reserveInventory(1001L, 10));
+        } finally {
+            RequestDeadline.clear();
+        }
+        verify(inventoryBatchRepository, never()).findLiveBatches(anyLong(), any());
+        verify(inventoryBatchRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void testReserveInventory_ProductNotFound() {
+        // Arrange
+        when(inventoryBatchRepository.findLiveBatches(eq(9999L), any(LocalDate.class)))
+                .thenReturn(Collections.emptyList());
+        when(inventoryBatchRepository.existsByProductId(9999L)).thenReturn(false);
+        when(handlerFactory.getDefaultHandler()).thenReturn(new FIFOInventoryHandler());
+
+        // Act & Assert
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> {
+            inventoryService.reserveInventory(9999L, 10);
+        });
+        assertTrue(e.getMessage().contains("Product not found"));
+    }
+
+    @Test
+    void testReserveInventoryGroup_PartialFailure() {
+        // Arrange
+        when(inventoryBatchRepository.findLiveBatches(eq(1001L), any(LocalDate.class)))
+                .thenReturn(testBatches);
+        when(handlerFactory.getDefaultHandler()).thenReturn(new FIFOInventoryHandler());
+
+        // Act
+        List<InventoryUpdateResponse> responses = inventoryService.reserveInventoryGroup(1001L, Arrays.asList(
+                new InventoryUpdateRequest(1001L, 40, null, "order-1"),
+                new InventoryUpdateRequest(1001L, 50, null, "order-2"),
+                new InventoryUpdateRequest(1001L, 30, null, "order-3")));
+
+        // Assert: each request gets only its own allocations
+        assertEquals(3, responses.size());
+        assertTrue(responses.get(0).isSuccess());
+        assertEquals(Collections.singletonMap(1L, 40), responses.get(0).getAllocations());
+        assertFalse(responses.get(1).isSuccess());
+        assertTrue(responses.get(1).getMessage().contains("Insufficient inventory"));
+        assertTrue(responses.get(2).isSuccess());
+        Map<Long, Integer> third = new LinkedHashMap<>();
+        third.put(1L, 10);
+        third.put(2L, 20);
+        assertEquals(third, responses.get(2).getAllocations());
+        assertEquals(0, testBatches.get(0).getQuantity());
+        assertEquals(10, testBatches.get(1).getQuantity());
+        verify(inventoryBatchRepository, times(1)).saveAll(testBatches);
+        verify(reservationRepository).insert("order-1", 1001L, 40, "1:40");
+        verify(reservationRepository).insert("order-3", 1001L, 30, "1:10,2:20");
+        verify(reservationRepository, never()).insert(eq("order-2"), any(), any(), any());
+    }
+
+    @Test
+    void testReserveInventoryGroup_LedgerEntriesPerOrderRef() {
+        // Arrange
+        when(inventoryLedger.isEnabled()).thenReturn(true);
+        when(inventoryLedger.findLiveBalances(eq(1001L), any(LocalDate.class))).thenReturn(testBatches);
+        when(handlerFactory.getDefaultHandler()).thenReturn(new FIFOInventoryHandler());
+
+        // Act
+        inventoryService.reserveInventoryGroup(1001L, Arrays.asList(
+                new InventoryUpdateRequest(1001L, 40, null, "order-1"),
+                new InventoryUpdateRequest(1001L, 20, null, "order-2")));
+
+        // Assert
+        Map<Long, Integer> second = new LinkedHashMap<>();
+        second.put(1L, -10);
+        second.put(2L, -10);
+        verify(inventoryLedger).append(Collections.singletonMap(1L, -40), "order-1");
+        verify(inventoryLedger).append(second, "order-2");
+        verify(inventoryBatchRepository, never()).saveAll(any());
+    }
+
     @Test
     void testUpdateInventory_Success() {
         // Arrange
         InventoryUpdateRequest request = new InventoryUpdateRequest(1001L, 20, null);
-        when(inventoryBatchRepository.findByProductIdOrderByExpiryDateAsc(1001L))
+        when(inventoryBatchRepository.findLiveBatches(eq(1001L), any(LocalDate.class)))
                 .thenReturn(testBatches);
         when(handlerFactory.getDefaultHandler()).thenReturn(new FIFOInventoryHandler());
         when(inventoryBatchRepository.saveAll(any())).thenReturn(testBatches);
@@ -128,7 +273,7 @@ class InventoryServiceTest {
     void testUpdateInventory_Failure() {
         // Arrange
         InventoryUpdateRequest request = new InventoryUpdateRequest(1001L, 200, null);
-        when(inventoryBatchRepository.findByProductIdOrderByExpiryDateAsc(1001L))
+        when(inventoryBatchRepository.findLiveBatches(eq(1001L), any(LocalDate.class)))
                 .thenReturn(testBatches);
         when(handlerFactory.getDefaultHandler()).thenReturn(new FIFOInventoryHandler());
 
@@ -139,5 +284,145 @@ class InventoryServiceTest {
         assertFalse(response.isSuccess());
         assertTrue(response.getMessage().contains("Insufficient inventory"));
     }
-}
 
+    @Test
+    void testUpdateInventory_RecordsOrderReservation() {
+        // Arrange
+        InventoryUpdateRequest request = new InventoryUpdateRequest(1001L, 60, null, "order-7");
+        when(reservationRepository.findById("order-7")).thenReturn(Optional.empty());
+        when(inventoryBatchRepository.findLiveBatches(eq(1001L), any(LocalDate.class)))
+                .thenReturn(testBatches);
+        when(handlerFactory.getDefaultHandler()).thenReturn(new FIFOInventoryHandler());
+
+        // Act
+        InventoryUpdateResponse response = inventoryService.updateInventory(request);
+
+        // Assert
+        assertTrue(response.isSuccess());
+        verify(reservationRepository).insert("order-7", 1001L, 60, "1:50,2:10");
+    }
+
+    @Test
+    void testUpdateInventory_RepeatedOrderRefReturnsRecordedReservation() {
+        // Arrange
+        InventoryUpdateRequest request = new InventoryUpdateRequest(1001L, 60, null, "order-7");
+        when(reservationRepository.findById("order-7")).thenReturn(Optional.of(
+                new InventoryReservation("order-7", 1001L, 60, "1:50,2:10", LocalDateTime.now(), null)));
+
+        // Act
+        InventoryUpdateResponse response = inventoryService.updateInventory(request);
+
+        // Assert
+        Map<Long, Integer> expected = new LinkedHashMap<>();
+        expected.put(1L, 50);
+        expected.put(2L, 10);
+        assertTrue(response.isSuccess());
+        assertEquals(expected, response.getAllocations());
+        verify(inventoryBatchRepository, never()).findLiveBatches(anyLong(), any());
+        verify(reservationRepository, never()).insert(any(), any(), any(), any());
+    }
+
+    @Test
+    void testUpdateInventory_OrderRefReusedForOtherProduct() {
+        // Arrange
+        InventoryUpdateRequest request = new InventoryUpdateRequest(1002L, 60, null, "order-7");
+        when(reservationRepository.findById("order-7")).thenReturn(Optional.of(
+                new InventoryReservation("order-7", 1001L, 60, "1:50,2:10", LocalDateTime.now(), null)));
+
+        // Act
+        InventoryUpdateResponse response = inventoryService.updateInventory(request);
+
+        // Assert
+        assertFalse(response.isSuccess());
+        assertTrue(response.getMessage().contains("order-7"));
+    }
+
+    @Test
+    void testReleaseInventory_PrefersRecordedAllocations() {
+        // Arrange: the request names another batch than the reservation took from
+        when(reservationRepository.findAllById(any())).thenReturn(Collections.singletonList(
+                new InventoryReservation("order-7", 1001L, 5, "1:5", LocalDateTime.now(), null)));
+        when(inventoryBatchRepository.findBatchProducts(any())).thenReturn(Arrays.asList(
+                batchProduct(1L, 1001L), batchProduct(2L, 1001L)));
+        when(reservationRepository.markReleased("order-7")).thenReturn(1);
+        when(inventoryBatchRepository.restoreQuantity(1L, 5)).thenReturn(1);
+
+        // Act
+        List<InventoryUpdateResponse> responses = inventoryService.releaseInventory(Collections.singletonList(
+                new StockReleaseRequest(1001L, 5, Collections.singletonMap(2L, 5), "order-7")));
+
+        // Assert
+        assertTrue(responses.get(0).isSuccess());
+        verify(inventoryBatchRepository).restoreQuantity(1L, 5);
+        verify(inventoryBatchRepository, never()).restoreQuantity(eq(2L), any());
+    }
+
+    @Test
+    void testReleaseInventory_RepeatedOrderRefReleasesOnce() {
+        // Arrange: order-7 was released before; order-8 has no record and is released twice in one call
+        when(reservationRepository.findAllById(any())).thenReturn(Collections.singletonList(
+                new InventoryReservation("order-7", 1001L, 5, "1:5", LocalDateTime.now(), LocalDateTime.now())));
+        when(inventoryBatchRepository.findBatchProducts(any())).thenReturn(Arrays.asList(
+                batchProduct(1L, 1001L), batchProduct(2L, 1001L)));
+        when(inventoryBatchRepository.restoreQuantity(2L, 3)).thenReturn(1);
+
+        // Act
+        List<InventoryUpdateResponse> responses = inventoryService.releaseInventory(Arrays.asList(
+                new StockReleaseRequest(1001L, 5, Collections.singletonMap(1L, 5), "order-7"),
+                new StockReleaseRequest(1001L, 3, Collections.singletonMap(2L, 3), "order-8"),
+                new StockReleaseRequest(1001L, 3, Collections.singletonMap(2L, 3), "order-8")));
+
+        // Assert
+        assertTrue(responses.stream().allMatch(InventoryUpdateResponse::isSuccess));
+        assertEquals("Stock already released", responses.get(0).getMessage());
+        assertEquals("Stock already released", responses.get(2).getMessage());
+        verify(inventoryBatchRepository, never()).restoreQuantity(eq(1L), any());
+        verify(inventoryBatchRepository, times(1)).restoreQuantity(2L, 3);
+        verify(reservationRepository).insertReleased("order-8", 1001L, 3, "2:3");
+    }
+
+    @Test
+    void testReleaseInventory_RejectsBatchOfAnotherProduct() {
+        // Arrange
+        when(inventoryBatchRepository.findBatchProducts(any())).thenReturn(Collections.singletonList(
+                batchProduct(3L, 1002L)));
+
+        // Act
+        List<InventoryUpdateResponse> responses = inventoryService.releaseInventory(Arrays.asList(
+                new StockReleaseRequest(1001L, 5, Collections.singletonMap(3L, 5), null),
+                new StockReleaseRequest(1001L, 5, Collections.singletonMap(99L, 5), null)));
+
+        // Assert
+        assertFalse(responses.get(0).isSuccess());
+        assertTrue(responses.get(0).getMessage().contains("belongs to product 1002"));
+        assertFalse(responses.get(1).isSuccess());
+        assertTrue(responses.get(1).getMessage().contains("Batch not found"));
+        verify(inventoryBatchRepository, never()).restoreQuantity(any(), any());
+    }
+
+    @Test
+    void testReleaseInventory_FailsWithoutAllocations() {
+        // Act
+        List<InventoryUpdateResponse> responses = inventoryService.releaseInventory(Collections.singletonList(
+                new StockReleaseRequest(1001L, 5, null, "order-8")));
+
+        // Assert
+        assertFalse(responses.get(0).isSuccess());
+        assertTrue(responses.get(0).getMessage().contains("No allocations known"));
+        verify(inventoryBatchRepository, never()).restoreQuantity(any(), any());
+    }
+
+    private static BatchProductView batchProduct(Long batchId, Long productId) {
+        return new BatchProductView() {
+            @Override
+            public Long getBatchId() {
+                return batchId;
+            }
+
+            @Override
+            public Long getProductId() {
+                return productId;
+            }
+        };
+    }
+}
@@ -0,0 +1,94 @@
+package com.koerber.inventory.service;
+
+import com.koerber.inventory.entity.Product;
+import com.koerber.inventory.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductCatalogTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @InjectMocks
+    private ProductCatalog productCatalog;
+
+    @BeforeEach
+    void setUp() {
+        when(productRepository.findAll()).thenReturn(Arrays.asList(
+                new Product(1001L, new String("Laptop")),
+                new Product(1002L, new String("Laptop"))));
+        productCatalog.load();
+    }
+
+    @Test
+    void testLoad_ResolvesNamesFromMemory() {
+        // Act
+        String first = productCatalog.getName(1001L);
+        String second = productCatalog.getName(1002L);
+
+        // Assert
+        assertEquals("Laptop", first);
+        assertSame(first, second);
+        assertEquals(2, productCatalog.size());
+        verify(productRepository, never()).findById(any());
+    }
+
+    @Test
+    void testGetName_CachesProductLoadedOnMiss() {
+        // Arrange
+        when(productRepository.findById(1003L)).thenReturn(Optional.of(new Product(1003L, new String("Laptop"))));
+
+        // Act
+        String name = productCatalog.getName(1003L);
+        productCatalog.getName(1003L);
+
+        // Assert
+        assertSame(productCatalog.getName(1001L), name);
+        verify(productRepository, times(1)).findById(1003L);
+    }
+
+    @Test
+    void testGetName_UnknownProduct() {
+        // Arrange
+        when(productRepository.findById(9999L)).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertNull(productCatalog.getName(9999L));
+    }
+
+    @Test
+    void testRegister_SavesOnlyNewOrChangedNames() {
+        // Act
+        productCatalog.register(1001L, "Laptop");
+        productCatalog.register(1001L, "Laptop Pro");
+        productCatalog.register(1001L, " ");
+
+        // Assert
+        verify(productRepository, times(1)).upsert(1001L, "Laptop Pro");
+        assertEquals("Laptop Pro", productCatalog.getName(1001L));
+    }
+
+    @Test
+    void testRegister_FailedWriteIsOnlyLogged() {
+        // Arrange
+        when(productRepository.upsert(1003L, "Tablet")).thenThrow(new IllegalStateException("Database unavailable"));
+        when(productRepository.findById(1003L)).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertDoesNotThrow(() -> productCatalog.register(1003L, "Tablet"));
+        assertNull(productCatalog.getName(1003L));
+    }
+}
@@ -0,0 +1,99 @@
+package com.koerber.inventory.service;
+
+import com.koerber.inventory.dto.ClientRateLimitStats;
+import com.koerber.inventory.dto.RateLimitConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimiterTest {
+
+    private RateLimiter rateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        rateLimiter = new RateLimiter(config(1, 2, 0.001, 3));
+    }
+
+    @Test
+    void testClientsHaveSeparateBuckets() {
+        // Act
+        long first = rateLimiter.tryAcquire("a");
+        long second = rateLimiter.tryAcquire("a");
+        long third = rateLimiter.tryAcquire("a");
+        long otherClient = rateLimiter.tryAcquire("b");
+
+        // Assert
+        assertEquals(0, first);
+        assertEquals(0, second);
+        assertTrue(third >= 1);
+        assertEquals(0, otherClient);
+    }
+
+    @Test
+    void testNamedClientGetsItsTier() {
+        // Act: the premium tier has a burst of 3 but refills very slowly
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, rateLimiter.tryAcquire("vip"));
+        }
+        long retryAfter = rateLimiter.tryAcquire("vip");
+
+        // Assert
+        assertTrue(retryAfter > 60);
+        List<ClientRateLimitStats> stats = rateLimiter.getClientStats();
+        assertEquals(new ClientRateLimitStats("vip", "premium", 3, 1), stats.get(0));
+    }
+
+    @Test
+    void testReloadAppliesNewLimitsAndKeepsCounts() {
+        // Arrange
+        rateLimiter.tryAcquire("a");
+        rateLimiter.tryAcquire("a");
+        assertTrue(rateLimiter.tryAcquire("a") > 0);
+
+        // Act: make the standard tier effectively unlimited
+        rateLimiter.reload(config(1_000_000, 10, 0.001, 3));
+        long afterReload = rateLimiter.tryAcquire("a");
+
+        // Assert
+        assertEquals(0, afterReload);
+        assertEquals(new ClientRateLimitStats("a", "standard", 3, 1), rateLimiter.getClientStats().get(0));
+    }
+
+    @Test
+    void testReloadRejectsUndefinedTier() {
+        // Arrange
+        RateLimitConfig invalid = config(1, 2, 1, 1);
+        invalid.getClients().put("x", "gold");
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> rateLimiter.reload(invalid));
+    }
+
+    @Test
+    void testDisabledAdmitsEverything() {
+        // Arrange
+        RateLimitConfig disabled = config(1, 1, 1, 1);
+        disabled.setEnabled(false);
+        rateLimiter.reload(disabled);
+
+        // Act & Assert
+        for (int i = 0; i < 10; i++) {
+            assertEquals(0, rateLimiter.tryAcquire("a"));
+        }
+    }
+
+    private static RateLimitConfig config(double standardRate, int standardBurst, double premiumRate, int premiumBurst) {
+        Map<String, RateLimitConfig.Tier> tiers = new LinkedHashMap<>();
+        tiers.put("standard", new RateLimitConfig.Tier(standardRate, standardBurst));
+        tiers.put("premium", new RateLimitConfig.Tier(premiumRate, premiumBurst));
+        Map<String, String> clients = new LinkedHashMap<>();
+        clients.put("vip", "premium");
+        return new RateLimitConfig(true, "standard", tiers, clients);
+    }
+}
@@ -0,0 +1,83 @@
+package com.koerber.inventory.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestLanesTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private RequestLanes lanes;
+
+    @BeforeEach
+    void setUp() {
+        // One worker per lane; reads are shed once half the reservation queue is used
+        lanes = new RequestLanes(meterRegistry, true, 1, 4, 1, 2, 0.5);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        lanes.shutdown();
+    }
+
+    @Test
+    void testReadsShedBeforeReservations() throws Exception {
+        // Arrange: the reservation worker is busy and one reservation is queued
+        CountDownLatch started = new CountDownLatch(1);
+        lanes.submitReservation(() -> {
+            started.countDown();
+            return await();
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Boolean> queued = lanes.submitReservation(() -> true);
+
+        // Act & Assert: reads are refused while reservations still fit
+        assertThrows(RejectedExecutionException.class, () -> lanes.submitRead(() -> true));
+        CompletableFuture<Boolean> second = lanes.submitReservation(() -> true);
+        assertThrows(RejectedExecutionException.class, () -> lanes.submitReservation(() -> true));
+
+        release.countDown();
+        assertTrue(queued.get(5, TimeUnit.SECONDS));
+        assertTrue(second.get(5, TimeUnit.SECONDS));
+        assertEquals(1.0, meterRegistry.get("inventory.lane.rejected").tag("lane", "read").counter().count());
+        assertEquals(1.0, meterRegistry.get("inventory.lane.rejected").tag("lane", "reservation").counter().count());
+    }
+
+    @Test
+    void testDeadlineCarriedToWorker() throws Exception {
+        // Arrange
+        RequestDeadline.start(10000);
+        Long deadline = RequestDeadline.get();
+
+        // Act
+        CompletableFuture<Long> seen;
+        try {
+            seen = lanes.submitReservation(RequestDeadline::get);
+        } finally {
+            RequestDeadline.clear();
+        }
+
+        // Assert
+        assertEquals(deadline, seen.get(5, TimeUnit.SECONDS));
+    }
+
+    private boolean await() {
+        try {
+            return release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
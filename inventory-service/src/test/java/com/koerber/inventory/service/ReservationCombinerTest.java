@@ -0,0 +1,94 @@
+package com.koerber.inventory.service;
+
+import com.koerber.inventory.dto.InventoryUpdateRequest;
+import com.koerber.inventory.dto.InventoryUpdateResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReservationCombinerTest {
+
+    @Mock
+    private InventoryService inventoryService;
+
+    @Test
+    void testGroupLargerThanLaneWorkers() throws Exception {
+        // Arrange: one reservation worker and a long window, so the group only
+        // closes once all 4 requests joined; followers must not need a worker
+        RequestLanes lanes = new RequestLanes(new SimpleMeterRegistry(), true, 1, 10, 1, 10, 0.5);
+        ReservationCombiner combiner = new ReservationCombiner(inventoryService, lanes, true, false, 10_000, 4);
+        when(inventoryService.reserveInventoryGroup(eq(1001L), anyList())).thenAnswer(invocation -> {
+            List<InventoryUpdateRequest> requests = invocation.getArgument(1);
+            return requests.stream()
+                    .map(request -> new InventoryUpdateResponse(request.getQuantity() < 100, "quantity " + request.getQuantity()))
+                    .collect(Collectors.toList());
+        });
+        List<CompletableFuture<InventoryUpdateResponse>> results = new ArrayList<>();
+
+        // Act
+        for (Integer quantity : Arrays.asList(10, 20, 200, 30)) {
+            results.add(combiner.submit(new InventoryUpdateRequest(1001L, quantity, null)));
+        }
+
+        // Assert
+        List<String> messages = new ArrayList<>();
+        for (CompletableFuture<InventoryUpdateResponse> result : results) {
+            InventoryUpdateResponse response = result.get(5, TimeUnit.SECONDS);
+            assertEquals(!response.getMessage().equals("quantity 200"), response.isSuccess());
+            messages.add(response.getMessage());
+        }
+        assertEquals(Arrays.asList("quantity 10", "quantity 20", "quantity 200", "quantity 30"), messages);
+        verify(inventoryService, times(1)).reserveInventoryGroup(eq(1001L), anyList());
+        lanes.shutdown();
+    }
+
+    @Test
+    void testSingleRequestRunsAfterWindow() throws Exception {
+        // Arrange
+        RequestLanes lanes = new RequestLanes(new SimpleMeterRegistry(), false, 1, 10, 1, 10, 0.5);
+        ReservationCombiner combiner = new ReservationCombiner(inventoryService, lanes, true, false, 1, 32);
+        InventoryUpdateRequest request = new InventoryUpdateRequest(1001L, 5, null);
+        when(inventoryService.reserveInventoryGroup(1001L, Arrays.asList(request)))
+                .thenReturn(Arrays.asList(new InventoryUpdateResponse(true, "Inventory updated successfully")));
+
+        // Act
+        InventoryUpdateResponse response = combiner.submit(request).get(5, TimeUnit.SECONDS);
+
+        // Assert
+        assertTrue(response.isSuccess());
+    }
+
+    @Test
+    void testFailedGroupReservesRequestsAlone() throws Exception {
+        // Arrange: the group rolls back, e.g. on an order reference reserved concurrently
+        RequestLanes lanes = new RequestLanes(new SimpleMeterRegistry(), false, 1, 10, 1, 10, 0.5);
+        ReservationCombiner combiner = new ReservationCombiner(inventoryService, lanes, true, false, 1, 32);
+        InventoryUpdateRequest request = new InventoryUpdateRequest(1001L, 5, null, "order-1");
+        when(inventoryService.reserveInventoryGroup(1001L, Arrays.asList(request)))
+                .thenThrow(new IllegalStateException("duplicate key"));
+        when(inventoryService.updateInventory(request))
+                .thenReturn(new InventoryUpdateResponse(true, "Inventory already reserved"));
+
+        // Act
+        InventoryUpdateResponse response = combiner.submit(request).get(5, TimeUnit.SECONDS);
+
+        // Assert
+        assertTrue(response.isSuccess());
+        assertEquals("Inventory already reserved", response.getMessage());
+    }
+}
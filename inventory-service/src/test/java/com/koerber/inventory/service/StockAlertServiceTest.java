@@ -0,0 +1,120 @@
+package com.koerber.inventory.service;
+
+import com.koerber.inventory.dto.AlertEventDTO;
+import com.koerber.inventory.dto.StockAlertDTO;
+import com.koerber.inventory.entity.AlertThreshold;
+import com.koerber.inventory.entity.InventoryBatch;
+import com.koerber.inventory.repository.AlertThresholdRepository;
+import com.koerber.inventory.repository.InventoryBatchRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StockAlertServiceTest {
+
+    @Mock
+    private InventoryBatchRepository inventoryBatchRepository;
+
+    @Mock
+    private AlertThresholdRepository thresholdRepository;
+
+    @Mock
+    private InventoryLedger inventoryLedger;
+
+    private StockAlertService stockAlertService;
+
+    private final LocalDate today = LocalDate.now();
+
+    @BeforeEach
+    void setUp() {
+        stockAlertService = new StockAlertService(inventoryBatchRepository, thresholdRepository, inventoryLedger,
+                10, 30, 100);
+    }
+
+    @Test
+    void testReservation_RaisesAndClearsLowStock() {
+        // Arrange
+        when(thresholdRepository.findAll()).thenReturn(Collections.singletonList(new AlertThreshold(1001L, 20)));
+        when(inventoryBatchRepository.findAll()).thenReturn(Collections.singletonList(
+                new InventoryBatch(1L, 1001L, 50, today.plusDays(90))));
+        stockAlertService.load();
+
+        // Act
+        stockAlertService.onBatchesChanged(1001L, Collections.singletonList(
+                new InventoryBatch(1L, 1001L, 15, today.plusDays(90))));
+        List<StockAlertDTO> lowStock = stockAlertService.getAlerts(StockAlertService.LOW_STOCK);
+        stockAlertService.onBatchesChanged(1001L, Collections.singletonList(
+                new InventoryBatch(1L, 1001L, 25, today.plusDays(90))));
+
+        // Assert
+        assertEquals(1, lowStock.size());
+        assertEquals(15, lowStock.get(0).getQuantity());
+        assertEquals(20, lowStock.get(0).getReorderLevel());
+        assertTrue(stockAlertService.getAlerts(null).isEmpty());
+        List<AlertEventDTO> feed = stockAlertService.getFeed(0, 10);
+        assertEquals(Arrays.asList("RAISED", "CLEARED"),
+                Arrays.asList(feed.get(0).getAction(), feed.get(1).getAction()));
+        verify(inventoryBatchRepository, times(1)).findAll();
+    }
+
+    @Test
+    void testReservation_KeepsBatchesItDidNotRead() {
+        // Arrange: MAIN and EAST stock, the EAST batch close to expiry
+        when(inventoryBatchRepository.findAll()).thenReturn(Arrays.asList(
+                new InventoryBatch(1L, 1001L, 12, today.plusDays(90), "MAIN"),
+                new InventoryBatch(2L, 1001L, 8, today.plusDays(10), "EAST")));
+        stockAlertService.load();
+
+        // Act: a reservation that only read the MAIN batch
+        stockAlertService.onBatchesChanged(1001L, Collections.singletonList(
+                new InventoryBatch(1L, 1001L, 9, today.plusDays(90), "MAIN")));
+
+        // Assert: 17 units left in total, and the EAST batch is still tracked
+        List<StockAlertDTO> nearExpiry = stockAlertService.getAlerts(StockAlertService.NEAR_EXPIRY);
+        assertEquals(1, nearExpiry.size());
+        assertEquals(2L, nearExpiry.get(0).getBatchId());
+        assertTrue(stockAlertService.getAlerts(StockAlertService.LOW_STOCK).isEmpty());
+        stockAlertService.checkExpiry(today.plusDays(11));
+        assertTrue(stockAlertService.getAlerts(StockAlertService.NEAR_EXPIRY).isEmpty());
+        assertEquals(1, stockAlertService.getAlerts(StockAlertService.LOW_STOCK).size());
+    }
+
+    @Test
+    void testCheckExpiry_WindowAndExpiredBatches() {
+        // Arrange
+        when(inventoryBatchRepository.findAll()).thenReturn(Arrays.asList(
+                new InventoryBatch(1L, 1001L, 40, today.plusDays(35)),
+                new InventoryBatch(2L, 1001L, 30, today.plusDays(90))));
+        stockAlertService.load();
+        assertTrue(stockAlertService.getAlerts(null).isEmpty());
+
+        // Act: batch 1 enters the 30-day window, then expires
+        stockAlertService.checkExpiry(today.plusDays(5));
+        List<StockAlertDTO> nearExpiry = stockAlertService.getAlerts(StockAlertService.NEAR_EXPIRY);
+        stockAlertService.checkExpiry(today.plusDays(36));
+
+        // Assert
+        assertEquals(1, nearExpiry.size());
+        assertEquals(1L, nearExpiry.get(0).getBatchId());
+        assertTrue(stockAlertService.getAlerts(StockAlertService.NEAR_EXPIRY).isEmpty());
+        assertTrue(stockAlertService.getAlerts(StockAlertService.LOW_STOCK).isEmpty());
+    }
+
+    @Test
+    void testSetReorderLevel_Negative() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> stockAlertService.setReorderLevel(1001L, -1));
+        verify(thresholdRepository, never()).save(any());
+    }
+}
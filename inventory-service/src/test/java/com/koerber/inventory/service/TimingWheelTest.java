@@ -0,0 +1,72 @@
+package com.koerber.inventory.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimingWheelTest {
+
+    private TimingWheel<Integer> timingWheel;
+
+    @AfterEach
+    void tearDown() {
+        timingWheel.stop();
+    }
+
+    @Test
+    void testItemsExpireInBulkAfterDeadline() throws Exception {
+        // Arrange: a small wheel so the 300 ms items need several rounds
+        Queue<Long> expiryTimes = new ConcurrentLinkedQueue<>();
+        AtomicInteger callbacks = new AtomicInteger();
+        timingWheel = new TimingWheel<>(10, 8, items -> {
+            callbacks.incrementAndGet();
+            for (Integer ignored : items) {
+                expiryTimes.add(System.nanoTime());
+            }
+        });
+        timingWheel.start();
+        long scheduledAt = System.nanoTime();
+
+        // Act
+        for (int i = 0; i < 10_000; i++) {
+            timingWheel.schedule(i, 300);
+        }
+        waitFor(() -> expiryTimes.size() == 10_000, 5_000);
+
+        // Assert
+        for (long expiredAt : expiryTimes) {
+            assertTrue(TimeUnit.NANOSECONDS.toMillis(expiredAt - scheduledAt) >= 300);
+        }
+        assertTrue(callbacks.get() < 50, "Expected bulk expiry, got " + callbacks.get() + " callbacks");
+    }
+
+    @Test
+    void testPastDeadlineExpiresOnNextTick() throws Exception {
+        // Arrange
+        Queue<List<Integer>> expired = new ConcurrentLinkedQueue<>();
+        timingWheel = new TimingWheel<>(10, 64, expired::add);
+        timingWheel.start();
+
+        // Act
+        timingWheel.schedule(1, -1_000);
+        waitFor(() -> !expired.isEmpty(), 1_000);
+
+        // Assert
+        assertEquals(1, expired.peek().get(0));
+    }
+
+    private static void waitFor(java.util.function.BooleanSupplier condition, long timeoutMillis) throws Exception {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "Timed out");
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.koerber.inventory.tracing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.koerber.inventory.dto.TraceDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TraceExporterTest {
+
+    private TraceExporter exporter;
+
+    @AfterEach
+    void tearDown() {
+        Tracing.clear();
+        if (exporter != null) {
+            exporter.shutdown();
+        }
+    }
+
+    private TraceExporter exporter(long slowThresholdMillis, double sampleRate) {
+        exporter = new TraceExporter(new ObjectMapper(), new SimpleMeterRegistry(), "inventory-service",
+                true, slowThresholdMillis, sampleRate, "", 10, 10);
+        return exporter;
+    }
+
+    @Test
+    void testFastTrace_DroppedWithoutSampling() {
+        // Arrange
+        TraceExporter exporter = exporter(60000, 0);
+
+        // Act
+        Span root = Tracing.startRoot("GET /inventory/{productId}", null, exporter);
+        Tracing.startSpan("InventoryBatchRepository.findByProductId").end();
+        root.end();
+
+        // Assert
+        assertTrue(exporter.getRecent(10).isEmpty());
+    }
+
+    @Test
+    void testFailedChildSpan_KeepsTrace() {
+        // Arrange
+        TraceExporter exporter = exporter(60000, 0);
+        TraceContext caller = TraceContext.parse("00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01");
+
+        // Act
+        Span root = Tracing.startRoot("POST /inventory/update", caller, exporter);
+        Span handler = Tracing.startSpan("InventoryHandler.reserveInventory");
+        handler.fail(new IllegalArgumentException("Insufficient inventory"));
+        handler.end();
+        root.end();
+
+        // Assert: continued the caller's trace, and the root became current again in between
+        List<TraceDTO> traces = exporter.getTrace("4bf92f3577b34da6a3ce929d0e0e4736");
+        assertEquals(1, traces.size());
+        assertEquals(TraceExporter.KEPT_ERROR, traces.get(0).getKept());
+        assertEquals(2, traces.get(0).getSpans().size());
+        assertEquals("00f067aa0ba902b7", root.getParentSpanId());
+        assertEquals(root.getSpanId(), handler.getParentSpanId());
+        assertTrue(Tracing.current().isNoop());
+    }
+
+    @Test
+    void testSlowTrace_Kept() {
+        // Arrange: every trace counts as slow
+        TraceExporter exporter = exporter(0, 0);
+
+        // Act
+        Tracing.startRoot("GET /inventory/{productId}", null, exporter).end();
+
+        // Assert
+        assertEquals(TraceExporter.KEPT_SLOW, exporter.getRecent(10).get(0).getKept());
+    }
+
+    @Test
+    void testNoTrace_SpansAreNoop() {
+        // Act
+        Span span = Tracing.startSpan("InventoryHandler.reserveInventory").tag("productId", 1001L);
+        span.end();
+
+        // Assert
+        assertTrue(span.isNoop());
+        assertNull(span.context());
+    }
+
+    @Test
+    void testTraceparent_RejectsMalformedHeaders() {
+        // Assert
+        assertNull(TraceContext.parse(null));
+        assertNull(TraceContext.parse("00-00000000000000000000000000000000-00f067aa0ba902b7-01"));
+        assertNull(TraceContext.parse("00-4BF92F3577B34DA6A3CE929D0E0E4736-00f067aa0ba902b7-01"));
+        TraceContext context = TraceContext.parse("00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01");
+        assertEquals("00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01", context.toTraceparent());
+    }
+}
@@ -1,11 +1,23 @@
 package com.koerber.order;
 
+import com.koerber.order.client.DeadlineRequestFactory;
+import com.koerber.order.dto.RateLimitConfig;
+import com.koerber.order.jfr.InventoryCallInterceptor;
+import com.koerber.order.service.DeadlineExceededException;
+import com.koerber.order.service.RateLimiter;
+import com.koerber.order.service.RequestDeadline;
+import com.koerber.order.tracing.TracingClientInterceptor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
 import org.springframework.web.client.RestTemplate;
 
 @SpringBootApplication
+@EnableScheduling
 public class OrderServiceApplication {
 
     public static void main(String[] args) {
@@ -13,8 +25,38 @@ public class OrderServiceApplication {
     }
 
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public RestTemplate restTemplate(@Value("${inventory.service.wire-format:smile}") String wireFormat,
+                                     @Value("${spring.application.name}") String clientId,
+                                     @Value("${inventory.service.connect-timeout-ms:1000}") int connectTimeoutMs,
+                                     @Value("${inventory.service.read-timeout-ms:5000}") int readTimeoutMs) {
+        RestTemplate restTemplate = new RestTemplate(new DeadlineRequestFactory(connectTimeoutMs, readTimeoutMs));
+        // Identify ourselves so Inventory Service applies our rate limit tier,
+        // and pass on what is left of the request deadline
+        restTemplate.getInterceptors().add((request, body, execution) -> {
+            request.getHeaders().set(RateLimiter.CLIENT_ID_HEADER, clientId);
+            Long remainingMillis = RequestDeadline.remainingMillis();
+            if (remainingMillis != null) {
+                if (remainingMillis <= 0) {
+                    throw new DeadlineExceededException("Deadline exceeded before calling " + request.getURI());
+                }
+                request.getHeaders().set(RequestDeadline.HEADER, String.valueOf(remainingMillis));
+            }
+            return execution.execute(request, body);
+        });
+        restTemplate.getInterceptors().add(new InventoryCallInterceptor());
+        restTemplate.getInterceptors().add(new TracingClientInterceptor());
+        if ("smile".equalsIgnoreCase(wireFormat)) {
+            // Put Smile first so request bodies are sent as Smile and the Accept
+            // header lists application/x-jackson-smile ahead of application/json
+            restTemplate.getMessageConverters().removeIf(c -> c instanceof MappingJackson2SmileHttpMessageConverter);
+            restTemplate.getMessageConverters().add(0, new MappingJackson2SmileHttpMessageConverter());
+        }
+        return restTemplate;
     }
-}
 
+    @Bean
+    @ConfigurationProperties(prefix = "rate-limit")
+    public RateLimitConfig rateLimitConfig() {
+        return new RateLimitConfig();
+    }
+}
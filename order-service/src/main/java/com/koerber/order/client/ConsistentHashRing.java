@@ -0,0 +1,99 @@
+package com.koerber.order.client;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Immutable consistent-hash ring mapping product IDs to inventory partitions.
+ * Each partition is placed on the ring at several virtual points so products
+ * spread evenly, and adding or removing a partition only moves the products
+ * between it and its neighbours.
+ */
+public final class ConsistentHashRing {
+
+    private final int virtualNodes;
+    private final List<String> nodes;
+    private final NavigableMap<Long, String> ring;
+
+    public ConsistentHashRing(Collection<String> nodes, int virtualNodes) {
+        this.virtualNodes = virtualNodes;
+        this.nodes = Collections.unmodifiableList(new ArrayList<>(nodes));
+        this.ring = new TreeMap<>();
+        for (String node : this.nodes) {
+            for (int i = 0; i < virtualNodes; i++) {
+                ring.put(hash(node + "#" + i), node);
+            }
+        }
+    }
+
+    /**
+     * Get the partition owning a product
+     * @param productId Product ID
+     * @return Base URL of the owning partition
+     */
+    public String nodeFor(Long productId) {
+        if (ring.isEmpty()) {
+            throw new IllegalStateException("No inventory partitions configured");
+        }
+        Map.Entry<Long, String> entry = ring.ceilingEntry(mix(productId));
+        return entry != null ? entry.getValue() : ring.firstEntry().getValue();
+    }
+
+    public List<String> getNodes() {
+        return nodes;
+    }
+
+    /**
+     * @param nodes Partitions of the new ring
+     * @return Ring over the given partitions with the same number of virtual points
+     */
+    public ConsistentHashRing withNodes(Collection<String> nodes) {
+        return new ConsistentHashRing(nodes, virtualNodes);
+    }
+
+    public ConsistentHashRing withNode(String node) {
+        if (nodes.contains(node)) {
+            return this;
+        }
+        List<String> updated = new ArrayList<>(nodes);
+        updated.add(node);
+        return new ConsistentHashRing(updated, virtualNodes);
+    }
+
+    public ConsistentHashRing withoutNode(String node) {
+        List<String> updated = new ArrayList<>(nodes);
+        updated.remove(node);
+        return new ConsistentHashRing(updated, virtualNodes);
+    }
+
+    // MurmurHash3 64-bit finalizer: spreads sequential product IDs over the ring
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+
+    private static long hash(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(key.getBytes(StandardCharsets.UTF_8));
+            long value = 0;
+            for (int i = 0; i < 8; i++) {
+                value = (value << 8) | (digest[i] & 0xff);
+            }
+            return value;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 not available", e);
+        }
+    }
+}
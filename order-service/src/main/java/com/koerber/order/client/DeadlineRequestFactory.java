@@ -0,0 +1,44 @@
+package com.koerber.order.client;
+
+import com.koerber.order.service.RequestDeadline;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+
+/**
+ * Opens inventory connections with fixed connect and read timeouts, cut
+ * down to what is left of the current request's deadline. A call can then
+ * never outlive the request that made it, and calls made without a deadline
+ * (e.g. background releases) still give up on an unresponsive partition.
+ */
+public class DeadlineRequestFactory extends SimpleClientHttpRequestFactory {
+
+    private final int connectTimeoutMillis;
+    private final int readTimeoutMillis;
+
+    public DeadlineRequestFactory(int connectTimeoutMillis, int readTimeoutMillis) {
+        this.connectTimeoutMillis = connectTimeoutMillis;
+        this.readTimeoutMillis = readTimeoutMillis;
+    }
+
+    @Override
+    protected void prepareConnection(HttpURLConnection connection, String httpMethod) throws IOException {
+        super.prepareConnection(connection, httpMethod);
+        // Runs on the calling thread, where the deadline is set
+        connection.setConnectTimeout(bound(connectTimeoutMillis, RequestDeadline.remainingMillis()));
+        connection.setReadTimeout(bound(readTimeoutMillis, RequestDeadline.remainingMillis()));
+    }
+
+    /**
+     * @param timeoutMillis Configured timeout
+     * @param remainingMillis Time left before the deadline, or null without one
+     * @return The shorter of the two; at least 1 ms, as 0 means no timeout
+     */
+    static int bound(int timeoutMillis, Long remainingMillis) {
+        if (remainingMillis == null) {
+            return timeoutMillis;
+        }
+        return (int) Math.max(1, Math.min(timeoutMillis, remainingMillis));
+    }
+}
@@ -3,59 +3,258 @@ package com.koerber.order.client;
 import com.koerber.order.dto.InventoryResponse;
 import com.koerber.order.dto.InventoryUpdateRequest;
 import com.koerber.order.dto.InventoryUpdateResponse;
+import com.koerber.order.dto.PartitionHandoffDTO;
+import com.koerber.order.dto.StockReleaseRequest;
+import com.koerber.order.service.DeadlineExceededException;
+import com.koerber.order.service.HotProductListener;
+import com.koerber.order.service.RequestDeadline;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
+
 /**
- * Client for communicating with Inventory Service
+ * Client for communicating with Inventory Service.
+ * Products are partitioned across inventory instances with a consistent-hash
+ * ring, and every call is routed to the instance owning the product.
+ * Inventory reads are revalidated with the last ETag, so an unchanged product
+ * comes back as a bodyless 304. The cached responses are bounded; hot
+ * products are pinned, so a full cache evicts another product's entry.
  */
 @Component
 @Slf4j
-public class InventoryClient {
+public class InventoryClient implements HotProductListener {
 
     private final RestTemplate restTemplate;
-    private final String inventoryServiceUrl;
+    private volatile ConsistentHashRing ring;
+    private final ConcurrentMap<Long, CachedInventory> inventoryCache = new ConcurrentHashMap<>();
+    private final int cacheMaxEntries;
+    private volatile Set<Long> pinned = Collections.emptySet();
 
     public InventoryClient(RestTemplate restTemplate,
-                          @Value("${inventory.service.url}") String inventoryServiceUrl) {
+                          @Value("${inventory.service.urls:${inventory.service.url}}") String[] inventoryServiceUrls,
+                          @Value("${inventory.service.virtual-nodes:128}") int virtualNodes,
+                          @Value("${inventory.service.cache-max-entries:10000}") int cacheMaxEntries) {
         this.restTemplate = restTemplate;
-        this.inventoryServiceUrl = inventoryServiceUrl;
+        this.ring = new ConsistentHashRing(Arrays.asList(inventoryServiceUrls), virtualNodes);
+        this.cacheMaxEntries = cacheMaxEntries;
     }
 
     /**
      * Check inventory availability for a product
      * @param productId Product ID
      * @return Inventory response
+     * @throws DeadlineExceededException if the request deadline has passed
      */
     public InventoryResponse checkInventory(Long productId) {
-        String url = inventoryServiceUrl + "/inventory/" + productId;
+        RequestDeadline.check("checking inventory");
+        String url = ring.nodeFor(productId) + "/inventory/" + productId;
         log.info("Checking inventory for product {} at {}", productId, url);
 
+        CachedInventory cached = inventoryCache.get(productId);
+        HttpHeaders headers = new HttpHeaders();
+        if (cached != null) {
+            headers.setIfNoneMatch(cached.etag);
+        }
+
         try {
-            return restTemplate.getForObject(url, InventoryResponse.class);
+            ResponseEntity<InventoryResponse> response = restTemplate.exchange(
+                    url, HttpMethod.GET, new HttpEntity<>(headers), InventoryResponse.class);
+            if (response.getStatusCode() == HttpStatus.NOT_MODIFIED && cached != null) {
+                return cached.response;
+            }
+            String etag = response.getHeaders().getETag();
+            if (etag != null && response.getBody() != null) {
+                cache(productId, new CachedInventory(etag, response.getBody()));
+            }
+            return response.getBody();
         } catch (Exception e) {
+            inventoryCache.remove(productId);
             log.error("Failed to check inventory: {}", e.getMessage());
             throw new RuntimeException("Failed to communicate with Inventory Service", e);
         }
     }
 
+    private void cache(Long productId, CachedInventory entry) {
+        if (inventoryCache.size() >= cacheMaxEntries && !inventoryCache.containsKey(productId)) {
+            Set<Long> pinnedNow = pinned;
+            Iterator<Long> iterator = inventoryCache.keySet().iterator();
+            while (iterator.hasNext()) {
+                Long candidate = iterator.next();
+                if (!pinnedNow.contains(candidate)) {
+                    inventoryCache.remove(candidate);
+                    break;
+                }
+            }
+        }
+        inventoryCache.put(productId, entry);
+    }
+
+    @Override
+    public void onHotProductsChanged(Set<Long> hotProducts) {
+        pinned = hotProducts;
+    }
+
     /**
      * Update inventory after placing an order
      * @param request Inventory update request
      * @return Inventory update response
+     * @throws DeadlineExceededException if the request deadline passed before or during the update
      */
     public InventoryUpdateResponse updateInventory(InventoryUpdateRequest request) {
-        String url = inventoryServiceUrl + "/inventory/update";
+        RequestDeadline.check("updating inventory");
+        String url = ring.nodeFor(request.getProductId()) + "/inventory/update";
         log.info("Updating inventory at {}", url);
 
         try {
             return restTemplate.postForObject(url, request, InventoryUpdateResponse.class);
+        } catch (HttpServerErrorException.GatewayTimeout e) {
+            // Inventory Service dropped the reservation because the deadline passed
+            throw new DeadlineExceededException("Deadline exceeded during inventory update");
+        } catch (DeadlineExceededException e) {
+            throw e;
+        } catch (ResourceAccessException e) {
+            if (RequestDeadline.isExpired(RequestDeadline.get())) {
+                // The read timeout was cut to the deadline; the reservation is idempotent on its orderRef
+                throw new DeadlineExceededException("Deadline exceeded during inventory update");
+            }
+            log.error("Failed to update inventory: {}", e.getMessage());
+            throw new RuntimeException("Failed to communicate with Inventory Service", e);
         } catch (Exception e) {
             log.error("Failed to update inventory: {}", e.getMessage());
             throw new RuntimeException("Failed to communicate with Inventory Service", e);
         }
     }
-}
 
+    /**
+     * Put back the stock of cancelled orders, with one call per inventory
+     * partition. A partition that cannot be reached fails only its own releases.
+     * @param requests Releases, e.g. one per cancelled order
+     * @return One response per request, in the same order
+     */
+    public List<InventoryUpdateResponse> releaseInventory(List<StockReleaseRequest> requests) {
+        Map<String, List<Integer>> indexesByNode = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            indexesByNode.computeIfAbsent(ring.nodeFor(requests.get(i).getProductId()), node -> new ArrayList<>()).add(i);
+        }
+
+        InventoryUpdateResponse[] responses = new InventoryUpdateResponse[requests.size()];
+        indexesByNode.forEach((node, indexes) -> {
+            List<StockReleaseRequest> nodeRequests = indexes.stream().map(requests::get).collect(Collectors.toList());
+            log.info("Releasing stock for {} orders at {}", nodeRequests.size(), node);
+            List<InventoryUpdateResponse> nodeResponses;
+            try {
+                nodeResponses = restTemplate.exchange(node + "/inventory/release", HttpMethod.POST,
+                        new HttpEntity<>(nodeRequests),
+                        new ParameterizedTypeReference<List<InventoryUpdateResponse>>() { }).getBody();
+            } catch (Exception e) {
+                log.error("Failed to release stock at {}: {}", node, e.getMessage());
+                nodeResponses = null;
+            }
+            for (int i = 0; i < indexes.size(); i++) {
+                responses[indexes.get(i)] = nodeResponses != null && i < nodeResponses.size()
+                        ? nodeResponses.get(i)
+                        : new InventoryUpdateResponse(false, "Inventory Service unavailable", null, null, null, null);
+            }
+        });
+        return Arrays.asList(responses);
+    }
+
+    public ConsistentHashRing getRing() {
+        return ring;
+    }
+
+    /**
+     * Switch routing to a new ring, e.g. once a handoff has completed
+     * @param ring New ring
+     */
+    public void setRing(ConsistentHashRing ring) {
+        this.ring = ring;
+    }
+
+    /**
+     * List the products held by one partition
+     * @param baseUrl Partition base URL
+     * @return Product IDs
+     */
+    public List<Long> getPartitionProducts(String baseUrl) {
+        return restTemplate.exchange(baseUrl + "/inventory/partition/products", HttpMethod.GET, null,
+                new ParameterizedTypeReference<List<Long>>() { }).getBody();
+    }
+
+    /**
+     * List the products with active holds on one partition
+     * @param baseUrl Partition base URL
+     * @return Product IDs
+     */
+    public List<Long> getPartitionHeldProducts(String baseUrl) {
+        return restTemplate.exchange(baseUrl + "/inventory/partition/held-products", HttpMethod.GET, null,
+                new ParameterizedTypeReference<List<Long>>() { }).getBody();
+    }
+
+    /**
+     * Fence products on a partition and fetch their batches and reservation records
+     * @param baseUrl Partition base URL
+     * @param productIds Product IDs
+     * @return Handoff of the products
+     * @throws IllegalStateException if a product got an active hold in the meantime
+     */
+    public PartitionHandoffDTO exportPartitionProducts(String baseUrl, List<Long> productIds) {
+        try {
+            return restTemplate.postForObject(baseUrl + "/inventory/partition/export", productIds,
+                    PartitionHandoffDTO.class);
+        } catch (HttpClientErrorException.Conflict e) {
+            throw new IllegalStateException("Products on " + baseUrl + " have active holds; run the rebalance again "
+                    + "once they are confirmed or released", e);
+        }
+    }
+
+    /**
+     * Store handed-off products on a partition, replacing what it held for them
+     * @param baseUrl Partition base URL
+     * @param handoff Handoff to import
+     */
+    public void importPartitionProducts(String baseUrl, PartitionHandoffDTO handoff) {
+        restTemplate.postForObject(baseUrl + "/inventory/partition/import", handoff, Integer.class);
+    }
+
+    /**
+     * Delete handed-off products from a partition
+     * @param baseUrl Partition base URL
+     * @param productIds Product IDs
+     */
+    public void dropPartitionProducts(String baseUrl, List<Long> productIds) {
+        restTemplate.postForObject(baseUrl + "/inventory/partition/drop", productIds, Integer.class);
+    }
+
+    private static class CachedInventory {
+        private final String etag;
+        private final InventoryResponse response;
+
+        private CachedInventory(String etag, InventoryResponse response) {
+            this.etag = etag;
+            this.response = response;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.koerber.order.controller;
+
+import com.koerber.order.jfr.FlightRecorderService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * Control the Java Flight Recorder recording
+ */
+@RestController
+@RequestMapping("/admin/jfr")
+@RequiredArgsConstructor
+public class FlightRecorderController {
+
+    private final FlightRecorderService flightRecorderService;
+
+    @GetMapping
+    public Map<String, Object> status() {
+        return flightRecorderService.status();
+    }
+
+    @PostMapping("/start")
+    public Map<String, Object> start() {
+        return flightRecorderService.start();
+    }
+
+    @PostMapping("/stop")
+    public Map<String, Object> stop() {
+        return flightRecorderService.stop();
+    }
+
+    /**
+     * Download a snapshot of the running recording as a .jfr file
+     */
+    @GetMapping("/dump")
+    public ResponseEntity<StreamingResponseBody> dump() throws IOException {
+        Path file;
+        try {
+            file = flightRecorderService.dump();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        StreamingResponseBody body = out -> {
+            try {
+                Files.copy(file, out);
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"order-service.jfr\"")
+                .body(body);
+    }
+}
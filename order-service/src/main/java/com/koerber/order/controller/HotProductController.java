@@ -0,0 +1,29 @@
+package com.koerber.order.controller;
+
+import com.koerber.order.dto.HotProductDTO;
+import com.koerber.order.service.HotProductTracker;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * The most requested products over the sliding window
+ */
+@RestController
+@RequestMapping("/admin/hot-products")
+@RequiredArgsConstructor
+public class HotProductController {
+
+    private final HotProductTracker hotProductTracker;
+
+    @GetMapping
+    public ResponseEntity<List<HotProductDTO>> getTopProducts(@RequestParam(defaultValue = "10") int limit) {
+        try {
+            return ResponseEntity.ok(hotProductTracker.getTopProducts(limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+}
@@ -1,12 +1,35 @@
 package com.koerber.order.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.koerber.order.datasource.DataSourceRouting;
 import com.koerber.order.dto.OrderRequest;
 import com.koerber.order.dto.OrderResponse;
+import com.koerber.order.dto.StatusTransitionRequest;
+import com.koerber.order.dto.StatusTransitionResult;
+import com.koerber.order.entity.Order;
+import com.koerber.order.service.AsyncOrderProcessor;
+import com.koerber.order.service.DeadlineExceededException;
+import com.koerber.order.service.HotProductTracker;
+import com.koerber.order.service.OrderMetrics;
 import com.koerber.order.service.OrderService;
+import com.koerber.order.service.OrderStatusService;
+import com.koerber.order.service.RateLimiter;
+import com.koerber.order.service.RequestDeadline;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/order")
@@ -14,23 +37,161 @@ import org.springframework.web.bind.annotation.*;
 public class OrderController {
 
     private final OrderService orderService;
+    private final AsyncOrderProcessor asyncOrderProcessor;
+    private final RateLimiter rateLimiter;
+    private final OrderMetrics orderMetrics;
+    private final HotProductTracker hotProductTracker;
+    private final OrderStatusService orderStatusService;
+    private final ObjectMapper objectMapper;
+
+    // Used when the client does not send its own X-Request-Timeout-Ms
+    @Value("${order.deadline.default-timeout-ms:10000}")
+    private long defaultTimeoutMillis;
 
     @PostMapping
-    public ResponseEntity<OrderResponse> placeOrder(@RequestBody OrderRequest request) {
+    public ResponseEntity<OrderResponse> placeOrder(
+            @RequestBody OrderRequest request,
+            @RequestHeader(value = RequestDeadline.HEADER, required = false) Long timeoutMillis,
+            HttpServletRequest httpRequest) {
+        hotProductTracker.record(request.getProductId());
+        long retryAfterSeconds = rateLimiter.tryAcquire(RateLimiter.clientIdOf(httpRequest));
+        if (retryAfterSeconds > 0) {
+            return tooManyRequests("Rate limit exceeded. Please retry later.", retryAfterSeconds);
+        }
+        if (asyncOrderProcessor.isEnabled()) {
+            return acceptOrder(request);
+        }
+
+        // The deadline travels with the inventory calls made for this request
+        RequestDeadline.start(timeoutMillis != null ? timeoutMillis : defaultTimeoutMillis);
         try {
             OrderResponse response = orderService.placeOrder(request);
-            return ResponseEntity.status(HttpStatus.CREATED).body(response);
+            orderMetrics.recordPlaced();
+            return ResponseEntity.status(HttpStatus.CREATED)
+                    .header(DataSourceRouting.READ_AFTER_HEADER, committedAt())
+                    .body(response);
+        } catch (DeadlineExceededException e) {
+            // The client has given up; no order was saved and no stock reserved
+            orderMetrics.recordDeadlineExceeded();
+            OrderResponse errorResponse = new OrderResponse();
+            errorResponse.setMessage(e.getMessage());
+            return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).body(errorResponse);
         } catch (IllegalArgumentException e) {
             // Insufficient inventory or validation error
+            orderMetrics.recordRejected();
             OrderResponse errorResponse = new OrderResponse();
             errorResponse.setMessage(e.getMessage());
             return ResponseEntity.badRequest().body(errorResponse);
         } catch (Exception e) {
             // Service unavailable or other errors
+            orderMetrics.recordFailed();
             OrderResponse errorResponse = new OrderResponse();
             errorResponse.setMessage("Failed to place order: " + e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
+        } finally {
+            RequestDeadline.clear();
         }
     }
-}
 
+    @GetMapping("/{orderId}")
+    public ResponseEntity<OrderResponse> getOrder(
+            @PathVariable Long orderId,
+            @RequestHeader(value = DataSourceRouting.READ_AFTER_HEADER, defaultValue = "0") long readAfter) {
+        try {
+            return ResponseEntity.ok(DataSourceRouting.readAfter(readAfter, () -> orderService.getOrder(orderId)));
+        } catch (IllegalArgumentException e) {
+            // A client polling a new order without X-Read-After may be ahead of the replica
+        }
+        try {
+            return ResponseEntity.ok(DataSourceRouting.onPrimary(() -> orderService.getOrder(orderId)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @GetMapping
+    public ResponseEntity<List<OrderResponse>> getOrdersByProduct(
+            @RequestParam Long productId,
+            @RequestParam(defaultValue = "false") boolean includeArchived,
+            @RequestHeader(value = DataSourceRouting.READ_AFTER_HEADER, defaultValue = "0") long readAfter) {
+        return ResponseEntity.ok(DataSourceRouting.readAfter(readAfter,
+                () -> orderService.getOrdersByProduct(productId, includeArchived)));
+    }
+
+    /**
+     * Apply many status changes at once. Results are streamed as one JSON
+     * object per line, each chunk as soon as it has committed.
+     */
+    @PostMapping(value = "/status-transitions", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> transitionStatuses(@RequestBody List<StatusTransitionRequest> requests) {
+        StreamingResponseBody body = out -> orderStatusService.applyTransitions(requests, results -> {
+            try {
+                for (StatusTransitionResult result : results) {
+                    out.write(objectMapper.writeValueAsBytes(result));
+                    out.write('\n');
+                }
+                out.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    /**
+     * Asynchronous mode: validate, queue and return 202 with the order ID
+     */
+    private ResponseEntity<OrderResponse> acceptOrder(OrderRequest request) {
+        if (!asyncOrderProcessor.hasCapacity()) {
+            return queueFull();
+        }
+
+        Order order;
+        try {
+            order = orderService.acceptOrder(request);
+        } catch (IllegalArgumentException e) {
+            OrderResponse errorResponse = new OrderResponse();
+            errorResponse.setMessage(e.getMessage());
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+
+        try {
+            asyncOrderProcessor.submit(order.getOrderId());
+        } catch (RejectedExecutionException e) {
+            // Lost the race for the last queue slot
+            orderService.failOrder(order.getOrderId(), "Rejected: order queue is full");
+            return queueFull();
+        }
+
+        OrderResponse response = new OrderResponse(
+                order.getOrderId(),
+                order.getProductId(),
+                null,
+                order.getQuantity(),
+                order.getStatus().name(),
+                null,
+                "Order accepted. Poll /order/" + order.getOrderId() + " for status."
+        );
+        return ResponseEntity.accepted()
+                .location(URI.create("/order/" + order.getOrderId()))
+                .header(DataSourceRouting.READ_AFTER_HEADER, committedAt())
+                .body(response);
+    }
+
+    // The service call has returned, so its transaction committed before now
+    private static String committedAt() {
+        return String.valueOf(System.currentTimeMillis());
+    }
+
+    private ResponseEntity<OrderResponse> queueFull() {
+        return tooManyRequests("Order queue is full. Please retry later.", asyncOrderProcessor.getRetryAfterSeconds());
+    }
+
+    private ResponseEntity<OrderResponse> tooManyRequests(String message, long retryAfterSeconds) {
+        OrderResponse errorResponse = new OrderResponse();
+        errorResponse.setMessage(message);
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .body(errorResponse);
+    }
+}
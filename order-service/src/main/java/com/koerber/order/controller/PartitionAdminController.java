@@ -0,0 +1,56 @@
+package com.koerber.order.controller;
+
+import com.koerber.order.dto.RebalanceResponse;
+import com.koerber.order.service.PartitionRebalancer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Manage the inventory partitions that InventoryClient routes to
+ */
+@RestController
+@RequestMapping("/admin/partitions")
+@RequiredArgsConstructor
+public class PartitionAdminController {
+
+    private final PartitionRebalancer partitionRebalancer;
+
+    @GetMapping
+    public ResponseEntity<List<String>> getPartitions() {
+        return ResponseEntity.ok(partitionRebalancer.getPartitions());
+    }
+
+    @PostMapping
+    public ResponseEntity<RebalanceResponse> addPartition(@RequestParam String url) {
+        try {
+            return ResponseEntity.ok(partitionRebalancer.addPartition(url));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+
+    @DeleteMapping
+    public ResponseEntity<RebalanceResponse> removePartition(@RequestParam String url) {
+        try {
+            return ResponseEntity.ok(partitionRebalancer.removePartition(url));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+
+    @PostMapping("/rebalance")
+    public ResponseEntity<RebalanceResponse> rebalance() {
+        try {
+            return ResponseEntity.ok(partitionRebalancer.rebalance());
+        } catch (IllegalStateException e) {
+            // A product to move has an active hold
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+}
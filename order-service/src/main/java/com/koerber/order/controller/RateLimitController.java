@@ -0,0 +1,41 @@
+package com.koerber.order.controller;
+
+import com.koerber.order.dto.ClientRateLimitStats;
+import com.koerber.order.dto.RateLimitConfig;
+import com.koerber.order.service.RateLimiter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Inspect and reload the per-client rate limits
+ */
+@RestController
+@RequestMapping("/admin/rate-limits")
+@RequiredArgsConstructor
+public class RateLimitController {
+
+    private final RateLimiter rateLimiter;
+
+    @GetMapping
+    public RateLimitConfig getConfig() {
+        return rateLimiter.getConfig();
+    }
+
+    @PutMapping
+    public ResponseEntity<?> reload(@RequestBody RateLimitConfig config) {
+        try {
+            rateLimiter.reload(config);
+            return ResponseEntity.ok(rateLimiter.getConfig());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/clients")
+    public List<ClientRateLimitStats> getClientStats() {
+        return rateLimiter.getClientStats();
+    }
+}
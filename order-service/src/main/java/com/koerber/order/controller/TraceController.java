@@ -0,0 +1,38 @@
+package com.koerber.order.controller;
+
+import com.koerber.order.dto.TraceDTO;
+import com.koerber.order.tracing.TraceExporter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Browse the traces kept by tail sampling
+ */
+@RestController
+@RequestMapping("/admin/traces")
+@RequiredArgsConstructor
+public class TraceController {
+
+    private final TraceExporter traceExporter;
+
+    @GetMapping
+    public ResponseEntity<List<TraceDTO>> getRecent(@RequestParam(defaultValue = "20") int limit) {
+        try {
+            return ResponseEntity.ok(traceExporter.getRecent(limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/{traceId}")
+    public ResponseEntity<List<TraceDTO>> getTrace(@PathVariable String traceId) {
+        List<TraceDTO> segments = traceExporter.getTrace(traceId);
+        if (segments.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(segments);
+    }
+}
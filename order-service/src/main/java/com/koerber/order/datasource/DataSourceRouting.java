@@ -0,0 +1,75 @@
+package com.koerber.order.datasource;
+
+import java.util.function.Supplier;
+
+/**
+ * Routing hints for the work done on the current thread.
+ * Read-only transactions go to the replica only when it is fresh enough;
+ * these hints let callers demand that it has caught up with a given write,
+ * or skip it altogether. Without a replica configured they have no effect.
+ */
+public final class DataSourceRouting {
+
+    /**
+     * Response header carrying the commit time of the client's write; sent
+     * back on later reads so they see it
+     */
+    public static final String READ_AFTER_HEADER = "X-Read-After";
+
+    private static final ThreadLocal<Long> READ_AFTER = new ThreadLocal<>();
+    private static final ThreadLocal<Boolean> PRIMARY_ONLY = new ThreadLocal<>();
+
+    private DataSourceRouting() {
+    }
+
+    /**
+     * Run reads that must see every write committed up to a point in time
+     * @param commitMillis Wall-clock time of the last write that must be visible; 0 for none
+     * @param work Work to run
+     * @return Result of the work
+     */
+    public static <T> T readAfter(long commitMillis, Supplier<T> work) {
+        Long previous = READ_AFTER.get();
+        READ_AFTER.set(previous == null ? commitMillis : Math.max(previous, commitMillis));
+        try {
+            return work.get();
+        } finally {
+            restore(READ_AFTER, previous);
+        }
+    }
+
+    /**
+     * Run work against the primary, e.g. reads that seed in-memory state
+     * @param work Work to run
+     * @return Result of the work
+     */
+    public static <T> T onPrimary(Supplier<T> work) {
+        Boolean previous = PRIMARY_ONLY.get();
+        PRIMARY_ONLY.set(Boolean.TRUE);
+        try {
+            return work.get();
+        } finally {
+            restore(PRIMARY_ONLY, previous);
+        }
+    }
+
+    /**
+     * @return Time the replica must have caught up to, or 0
+     */
+    static long getReadAfter() {
+        Long readAfter = READ_AFTER.get();
+        return readAfter == null ? 0 : readAfter;
+    }
+
+    static boolean isPrimaryOnly() {
+        return Boolean.TRUE.equals(PRIMARY_ONLY.get());
+    }
+
+    private static <V> void restore(ThreadLocal<V> holder, V previous) {
+        if (previous == null) {
+            holder.remove();
+        } else {
+            holder.set(previous);
+        }
+    }
+}
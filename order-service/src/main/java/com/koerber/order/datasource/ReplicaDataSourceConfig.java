@@ -0,0 +1,80 @@
+package com.koerber.order.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Primary and replica connection pools behind a routing DataSource
+ * (order.replica.enabled). The primary is configured by
+ * spring.datasource.*, the replica by order.replica.*. Both pools are
+ * beans, so Actuator reports hikaricp.* metrics and health for each.
+ */
+@Configuration
+@ConditionalOnProperty(name = "order.replica.enabled", havingValue = "true")
+public class ReplicaDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("order-primary");
+        return dataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("order.replica.hikari")
+    public HikariDataSource replicaDataSource(@Value("${order.replica.url}") String url,
+                                              @Value("${order.replica.username:sa}") String username,
+                                              @Value("${order.replica.password:}") String password) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername(username);
+        dataSource.setPassword(password);
+        dataSource.setPoolName("order-replica");
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicaMonitor replicaMonitor(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                                         @Qualifier("replicaDataSource") DataSource replicaDataSource,
+                                         @Value("${order.replica.max-staleness-ms:5000}") long maxStalenessMillis) {
+        return new ReplicaMonitor(primaryDataSource, replicaDataSource, maxStalenessMillis);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                                 @Qualifier("replicaDataSource") DataSource replicaDataSource,
+                                 ReplicaMonitor replicaMonitor) {
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(ReadWriteRoutingDataSource.PRIMARY, primaryDataSource);
+        targets.put(ReadWriteRoutingDataSource.REPLICA, replicaDataSource);
+
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(replicaMonitor);
+        routing.setTargetDataSources(targets);
+        routing.setDefaultTargetDataSource(primaryDataSource);
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "order.replica.local-sync.enabled", havingValue = "true")
+    public LocalReplicaSynchronizer localReplicaSynchronizer(
+            @Qualifier("primaryDataSource") DataSource primaryDataSource,
+            @Qualifier("replicaDataSource") DataSource replicaDataSource,
+            ReplicaMonitor replicaMonitor) {
+        return new LocalReplicaSynchronizer(primaryDataSource, replicaDataSource, replicaMonitor);
+    }
+}
@@ -0,0 +1,15 @@
+package com.koerber.order.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClientRateLimitStats {
+    private String clientId;
+    private String tier;
+    private long accepted;
+    private long rejected;
+}
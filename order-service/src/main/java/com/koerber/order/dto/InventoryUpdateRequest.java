@@ -13,5 +13,13 @@ public class InventoryUpdateRequest {
     private Long productId;
     private Integer quantity;
     private List<Long> reservedFromBatchIds;
+    // The order's reference, a UUID; recorded on the inventory ledger
+    private String orderRef;
+
+    public InventoryUpdateRequest(Long productId, Integer quantity, List<Long> reservedFromBatchIds) {
+        this.productId = productId;
+        this.quantity = quantity;
+        this.reservedFromBatchIds = reservedFromBatchIds;
+    }
 }
 
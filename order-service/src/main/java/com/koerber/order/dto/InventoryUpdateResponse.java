@@ -13,5 +13,7 @@ public class InventoryUpdateResponse {
     private Long productId;
     private Integer quantity;
     private java.util.List<Long> reservedFromBatchIds;
+    // Quantity taken per batch ID, for a successful reservation
+    private java.util.Map<Long, Integer> allocations;
 }
 
@@ -0,0 +1,17 @@
+package com.koerber.order.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RebalanceResponse {
+    private List<String> partitions;
+    private Long epoch;
+    private Integer movedProducts;
+    private Integer droppedProducts;
+}
@@ -0,0 +1,17 @@
+package com.koerber.order.dto;
+
+import com.koerber.order.entity.OrderStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Move one order to a new status, e.g. SHIPPED on a shipment confirmation
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatusTransitionRequest {
+    private Long orderId;
+    private OrderStatus status;
+}
@@ -0,0 +1,18 @@
+package com.koerber.order.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of one transition in a bulk request, with the order's status afterwards
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatusTransitionResult {
+    private Long orderId;
+    private String status;
+    private boolean success;
+    private String message;
+}
@@ -0,0 +1,23 @@
+package com.koerber.order.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Stock of a cancelled order to put back. Allocations are the quantities
+ * the reservation took per batch ID; Inventory Service prefers the ones it
+ * recorded for the orderRef, and fails a release that has neither.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockReleaseRequest {
+    private Long productId;
+    private Integer quantity;
+    private Map<Long, Integer> allocations;
+    // The order's reference, which its reservation was recorded under
+    private String orderRef;
+}
@@ -0,0 +1,49 @@
+package com.koerber.order.entity;
+
+import javax.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Read-only view of an order moved to the cold orders_archive table
+ */
+@Entity
+@Table(name = "orders_archive")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArchivedOrder {
+
+    @Id
+    @Column(name = "order_id")
+    private Long orderId;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(name = "quantity", nullable = false)
+    private Integer quantity;
+
+    @Column(name = "status", nullable = false)
+    @Enumerated(EnumType.STRING)
+    private OrderStatus status;
+
+    @Column(name = "order_date", nullable = false)
+    private LocalDate orderDate;
+
+    @Column(name = "reserved_from_batch_ids")
+    private String reservedFromBatchIds;
+
+    @Column(name = "failure_reason")
+    private String failureReason;
+
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+
+    @Column(name = "order_ref")
+    private String orderRef;
+}
@@ -14,6 +14,8 @@ import java.time.LocalDate;
 @AllArgsConstructor
 public class Order {
 
+    public static final int FAILURE_REASON_LENGTH = 500;
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     @Column(name = "order_id")
@@ -22,9 +24,6 @@ public class Order {
     @Column(name = "product_id", nullable = false)
     private Long productId;
 
-    @Column(name = "product_name")
-    private String productName;
-
     @Column(name = "quantity", nullable = false)
     private Integer quantity;
 
@@ -37,5 +36,16 @@ public class Order {
 
     @Column(name = "reserved_from_batch_ids")
     private String reservedFromBatchIds;
+
+    @Column(name = "failure_reason", length = FAILURE_REASON_LENGTH)
+    private String failureReason;
+
+    // batchId:quantity pairs, comma-separated
+    @Column(name = "reserved_allocations")
+    private String reservedAllocations;
+
+    // Reservation reference sent to Inventory Service, a UUID given when the order is accepted
+    @Column(name = "order_ref", nullable = false, unique = true, updatable = false)
+    private String orderRef;
 }
 
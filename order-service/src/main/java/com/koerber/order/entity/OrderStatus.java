@@ -1,9 +1,27 @@
 package com.koerber.order.entity;
 
 public enum OrderStatus {
+    PENDING,
     PLACED,
     SHIPPED,
     DELIVERED,
-    CANCELLED
-}
+    CANCELLED,
+    FAILED;
 
+    /**
+     * Placed orders ship or are cancelled, and shipped orders are delivered.
+     * Pending orders are left to the async worker; the other states are final.
+     * @param target Status to move to
+     * @return Whether an order may move from this status to the target
+     */
+    public boolean canTransitionTo(OrderStatus target) {
+        switch (this) {
+            case PLACED:
+                return target == SHIPPED || target == CANCELLED;
+            case SHIPPED:
+                return target == DELIVERED;
+            default:
+                return false;
+        }
+    }
+}
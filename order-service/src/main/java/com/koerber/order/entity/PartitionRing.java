@@ -0,0 +1,35 @@
+package com.koerber.order.entity;
+
+import javax.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Inventory partitions routing has switched to, and how many handoffs led there
+ */
+@Entity
+@Table(name = "partition_ring")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PartitionRing {
+
+    public static final Long CURRENT = 1L;
+
+    @Id
+    @Column(name = "ring_id")
+    private Long ringId;
+
+    @Column(name = "epoch", nullable = false)
+    private Long epoch;
+
+    // Comma-separated base URLs, in ring order
+    @Column(name = "partitions", nullable = false, length = 4000)
+    private String partitions;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,99 @@
+package com.koerber.order.health;
+
+import com.koerber.order.service.AsyncOrderProcessor;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Readiness contributor that reports OUT_OF_SERVICE while the connection
+ * pools or the asynchronous order queue are saturated, so the load balancer
+ * stops sending new orders until the backlog drains. A pool is saturated
+ * when nearly all of its connections are in use or too many threads are
+ * waiting for one.
+ */
+@Component
+public class SaturationHealthIndicator implements HealthIndicator {
+
+    private final ObjectProvider<HikariDataSource> pools;
+    private final AsyncOrderProcessor asyncOrderProcessor;
+    private final double maxPoolUsage;
+    private final int maxPendingConnections;
+    private final double maxQueueUsage;
+
+    // When the current saturation began, or -1 while not saturated
+    private long saturatedSince = -1;
+
+    public SaturationHealthIndicator(ObjectProvider<HikariDataSource> pools,
+                                     AsyncOrderProcessor asyncOrderProcessor,
+                                     @Value("${order.health.max-pool-usage:0.9}") double maxPoolUsage,
+                                     @Value("${order.health.max-pending-connections:5}") int maxPendingConnections,
+                                     @Value("${order.health.max-queue-usage:0.8}") double maxQueueUsage) {
+        this.pools = pools;
+        this.asyncOrderProcessor = asyncOrderProcessor;
+        this.maxPoolUsage = maxPoolUsage;
+        this.maxPendingConnections = maxPendingConnections;
+        this.maxQueueUsage = maxQueueUsage;
+    }
+
+    @Override
+    public Health health() {
+        Map<String, Object> details = new LinkedHashMap<>();
+        boolean saturated = sample(details);
+        return (saturated ? Health.outOfService() : Health.up()).withDetails(details).build();
+    }
+
+    /**
+     * @return How long the instance has been saturated without a break, or -1 if it is not
+     */
+    public long saturatedForMillis() {
+        sample(new LinkedHashMap<>());
+        synchronized (this) {
+            return saturatedSince < 0 ? -1 : System.currentTimeMillis() - saturatedSince;
+        }
+    }
+
+    private boolean sample(Map<String, Object> details) {
+        boolean saturated = false;
+        for (HikariDataSource pool : pools) {
+            HikariPoolMXBean mxBean = pool.getHikariPoolMXBean();
+            if (mxBean == null) {
+                // Not started yet
+                continue;
+            }
+            int active = mxBean.getActiveConnections();
+            int pending = mxBean.getThreadsAwaitingConnection();
+            double usage = (double) active / pool.getMaximumPoolSize();
+            Map<String, Object> poolDetails = new LinkedHashMap<>();
+            poolDetails.put("active", active);
+            poolDetails.put("max", pool.getMaximumPoolSize());
+            poolDetails.put("pending", pending);
+            details.put(pool.getPoolName(), poolDetails);
+            saturated |= usage >= maxPoolUsage || pending > maxPendingConnections;
+        }
+        if (asyncOrderProcessor.isEnabled()) {
+            int depth = asyncOrderProcessor.getQueueDepth();
+            int capacity = asyncOrderProcessor.getQueueCapacity();
+            Map<String, Object> queueDetails = new LinkedHashMap<>();
+            queueDetails.put("depth", depth);
+            queueDetails.put("capacity", capacity);
+            details.put("orderQueue", queueDetails);
+            saturated |= depth >= maxQueueUsage * capacity;
+        }
+        synchronized (this) {
+            if (!saturated) {
+                saturatedSince = -1;
+            } else if (saturatedSince < 0) {
+                saturatedSince = System.currentTimeMillis();
+            }
+        }
+        return saturated;
+    }
+}
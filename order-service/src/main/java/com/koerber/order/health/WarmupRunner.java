@@ -0,0 +1,161 @@
+package com.koerber.order.health;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.koerber.order.client.InventoryClient;
+import com.koerber.order.dto.InventoryUpdateRequest;
+import com.koerber.order.dto.OrderRequest;
+import com.koerber.order.dto.OrderResponse;
+import com.koerber.order.service.OrderService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exercises the order hot path before the instance reports ready.
+ * Runners finish before Spring Boot switches readiness to ACCEPTING_TRAFFIC,
+ * so the load balancer keeps traffic away until the JIT has compiled the
+ * InventoryClient, JPA and Jackson code and the connection pools are filled.
+ * Rounds are repeated until the average latency of a round settles.
+ * Only reads are made: no order is saved and no stock is reserved.
+ */
+@Component
+@Slf4j
+public class WarmupRunner implements ApplicationRunner {
+
+    private final OrderService orderService;
+    private final InventoryClient inventoryClient;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final List<Long> productIds;
+    private final int threads;
+    private final int iterationsPerRound;
+    private final int minRounds;
+    private final int maxRounds;
+    private final double tolerance;
+    private final long maxDurationMillis;
+
+    // Cleared on the first failed call, e.g. while Inventory Service is still starting
+    private volatile boolean inventoryReachable = true;
+
+    public WarmupRunner(OrderService orderService,
+                        InventoryClient inventoryClient,
+                        ObjectMapper objectMapper,
+                        @Value("${order.warmup.enabled:false}") boolean enabled,
+                        @Value("${order.warmup.product-ids:1001}") List<Long> productIds,
+                        @Value("${order.warmup.threads:4}") int threads,
+                        @Value("${order.warmup.iterations-per-round:200}") int iterationsPerRound,
+                        @Value("${order.warmup.min-rounds:3}") int minRounds,
+                        @Value("${order.warmup.max-rounds:50}") int maxRounds,
+                        @Value("${order.warmup.tolerance:0.1}") double tolerance,
+                        @Value("${order.warmup.max-duration-ms:60000}") long maxDurationMillis) {
+        this.orderService = orderService;
+        this.inventoryClient = inventoryClient;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.productIds = productIds;
+        this.threads = Math.max(threads, 1);
+        this.iterationsPerRound = Math.max(iterationsPerRound, this.threads);
+        this.minRounds = minRounds;
+        this.maxRounds = maxRounds;
+        this.tolerance = tolerance;
+        this.maxDurationMillis = maxDurationMillis;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new CustomizableThreadFactory("warmup-"));
+        try {
+            warmUp(executor, productIds);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    private void warmUp(ExecutorService executor, List<Long> productIds) {
+        long startNanos = System.nanoTime();
+        long deadlineNanos = startNanos + TimeUnit.MILLISECONDS.toNanos(maxDurationMillis);
+        double previousMicros = Double.NaN;
+        int round = 0;
+        while (round < maxRounds && System.nanoTime() < deadlineNanos) {
+            double micros = runRound(executor, productIds, round);
+            round++;
+            log.debug("Warm-up round {}: {} us per iteration", round, String.format("%.1f", micros));
+            if (round >= minRounds && Math.abs(micros - previousMicros) <= tolerance * previousMicros) {
+                log.info("Warm-up settled after {} rounds in {} ms at {} us per iteration", round,
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos), String.format("%.1f", micros));
+                return;
+            }
+            previousMicros = micros;
+        }
+        log.warn("Warm-up stopped after {} rounds in {} ms without settling", round,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+    }
+
+    /**
+     * @return Average wall-clock microseconds per iteration
+     */
+    private double runRound(ExecutorService executor, List<Long> productIds, int round) {
+        int perThread = iterationsPerRound / threads;
+        long start = System.nanoTime();
+        List<Future<?>> futures = new ArrayList<>(threads);
+        for (int t = 0; t < threads; t++) {
+            int offset = (round * threads + t) * perThread;
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    exercise(productIds.get((offset + i) % productIds.size()));
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Warm-up interrupted", e);
+            } catch (Exception e) {
+                log.warn("Warm-up iteration failed: {}", e.getMessage());
+            }
+        }
+        return (System.nanoTime() - start) / 1000.0 / (perThread * threads);
+    }
+
+    private void exercise(Long productId) throws Exception {
+        // Request and response mappings
+        OrderRequest request = objectMapper.readValue(
+                objectMapper.writeValueAsBytes(new OrderRequest(productId, 1)), OrderRequest.class);
+        objectMapper.writeValueAsBytes(new InventoryUpdateRequest(request.getProductId(), request.getQuantity(), null));
+
+        // Inventory lookup over HTTP, revalidated with the cached ETag after the first call
+        if (inventoryReachable) {
+            try {
+                inventoryClient.checkInventory(request.getProductId());
+            } catch (RuntimeException e) {
+                inventoryReachable = false;
+                log.warn("Inventory Service unreachable, warming up without it: {}", e.getMessage());
+            }
+        }
+
+        // Order queries
+        for (OrderResponse order : orderService.getOrdersByProduct(request.getProductId(), true)) {
+            objectMapper.writeValueAsBytes(order);
+        }
+        try {
+            orderService.getOrder(-productId);
+        } catch (IllegalArgumentException e) {
+            // Not found in either table; both queries still ran
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.koerber.order.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One Hibernate session flush
+ */
+@Name("com.koerber.order.DbFlush")
+@Label("DB Flush")
+@Category({"Koerber", "Database"})
+@Description("Hibernate flush of pending entity changes")
+@StackTrace(false)
+public class DbFlushEvent extends Event {
+
+    @Label("Entities")
+    public int entities;
+
+    @Label("Collections")
+    public int collections;
+}
@@ -0,0 +1,28 @@
+package com.koerber.order.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One HTTP call to Inventory Service
+ */
+@Name("com.koerber.order.InventoryCall")
+@Label("Inventory Call")
+@Category({"Koerber", "Order"})
+@Description("HTTP call made through the inventory RestTemplate")
+@StackTrace(false)
+public class InventoryCallEvent extends Event {
+
+    @Label("Method")
+    public String method;
+
+    @Label("URL")
+    public String url;
+
+    @Label("Status")
+    public int status;
+}
@@ -0,0 +1,40 @@
+package com.koerber.order.jfr;
+
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+
+/**
+ * Records an {@link InventoryCallEvent} around each RestTemplate call.
+ * A call that fails without a response is recorded with status 0.
+ */
+public class InventoryCallInterceptor implements ClientHttpRequestInterceptor {
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body,
+                                        ClientHttpRequestExecution execution) throws IOException {
+        InventoryCallEvent event = new InventoryCallEvent();
+        if (!event.isEnabled()) {
+            return execution.execute(request, body);
+        }
+
+        event.begin();
+        int status = 0;
+        try {
+            ClientHttpResponse response = execution.execute(request, body);
+            status = response.getRawStatusCode();
+            return response;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.method = String.valueOf(request.getMethod());
+                event.url = request.getURI().toString();
+                event.status = status;
+                event.commit();
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.koerber.order.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Placement of one order, with the time spent in each step
+ */
+@Name("com.koerber.order.OrderPlaced")
+@Label("Order Placed")
+@Category({"Koerber", "Order"})
+@Description("Order placement with per-step durations")
+@StackTrace(false)
+public class OrderPlacedEvent extends Event {
+
+    @Label("Order ID")
+    public long orderId;
+
+    @Label("Product ID")
+    public long productId;
+
+    @Label("Quantity")
+    public int quantity;
+
+    @Label("Outcome")
+    public String outcome;
+
+    @Label("Inventory Check")
+    @Timespan(Timespan.NANOSECONDS)
+    public long inventoryCheckDuration;
+
+    @Label("Inventory Update")
+    @Timespan(Timespan.NANOSECONDS)
+    public long inventoryUpdateDuration;
+
+    @Label("Save")
+    @Timespan(Timespan.NANOSECONDS)
+    public long saveDuration;
+}
@@ -0,0 +1,53 @@
+package com.koerber.order.logging;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.Appender;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.ILoggerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Publishes what the production logging mode drops: lines sampled out or
+ * rate limited by {@link LogSamplingFilter} (order.logging.dropped), and
+ * the free space in the async appender queue (order.logging.queue.remaining).
+ * Registers nothing when the mode is off.
+ */
+@Component
+public class LoggingMetrics {
+
+    static final String ASYNC_APPENDER = "ASYNC";
+
+    public LoggingMetrics(MeterRegistry meterRegistry) {
+        ILoggerFactory factory = LoggerFactory.getILoggerFactory();
+        if (!(factory instanceof LoggerContext)) {
+            return;
+        }
+        LoggerContext context = (LoggerContext) factory;
+        for (TurboFilter filter : context.getTurboFilterList()) {
+            if (filter instanceof LogSamplingFilter) {
+                LogSamplingFilter sampling = (LogSamplingFilter) filter;
+                FunctionCounter.builder("order.logging.dropped", sampling, LogSamplingFilter::getSampledOut)
+                        .description("Log lines dropped before formatting")
+                        .tag("reason", "sampled")
+                        .register(meterRegistry);
+                FunctionCounter.builder("order.logging.dropped", sampling, LogSamplingFilter::getRateLimited)
+                        .description("Log lines dropped before formatting")
+                        .tag("reason", "rate_limited")
+                        .register(meterRegistry);
+            }
+        }
+        Appender<ILoggingEvent> appender = context.getLogger(Logger.ROOT_LOGGER_NAME).getAppender(ASYNC_APPENDER);
+        if (appender instanceof AsyncAppender) {
+            Gauge.builder("order.logging.queue.remaining", (AsyncAppender) appender, AsyncAppender::getRemainingCapacity)
+                    .description("Free slots in the async log queue; lines below WARN are dropped when it runs low")
+                    .register(meterRegistry);
+        }
+    }
+}
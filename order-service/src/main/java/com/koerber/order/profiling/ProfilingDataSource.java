@@ -0,0 +1,276 @@
+package com.koerber.order.profiling;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Driver-level DataSource that times every statement run on its
+ * connections and reports it to the {@link SqlProfiler}. It sits under the
+ * connection pool, so pooled connections are wrapped once when the pool
+ * opens them. Query rows are counted as the result set is read; the plan
+ * of a slow statement is captured on the same connection with the same
+ * parameters, and is not itself profiled.
+ */
+@Slf4j
+public class ProfilingDataSource extends DelegatingDataSource {
+
+    private final ObjectProvider<SqlProfiler> profiler;
+
+    public ProfilingDataSource(DataSource target, ObjectProvider<SqlProfiler> profiler) {
+        super(target);
+        this.profiler = profiler;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(super.getConnection(username, password));
+    }
+
+    private Connection wrap(Connection connection) {
+        return proxy(Connection.class, new ConnectionHandler(connection, profiler.getObject()));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(ProfilingDataSource.class.getClassLoader(), new Class<?>[] {type}, handler);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    // equals, hashCode and toString of a proxy; null for any other method
+    private static Object objectMethod(Object proxy, Object target, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "equals":
+                return args != null && args.length == 1 ? proxy == args[0] : null;
+            case "hashCode":
+                return args == null ? System.identityHashCode(proxy) : null;
+            case "toString":
+                return args == null ? target.toString() : null;
+            default:
+                return null;
+        }
+    }
+
+    private static class ConnectionHandler implements InvocationHandler {
+
+        private final Connection target;
+        private final SqlProfiler profiler;
+
+        ConnectionHandler(Connection target, SqlProfiler profiler) {
+            this.target = target;
+            this.profiler = profiler;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object objectResult = objectMethod(proxy, target, method, args);
+            if (objectResult != null) {
+                return objectResult;
+            }
+            Object result = ProfilingDataSource.invoke(target, method, args);
+            if (!(result instanceof Statement)) {
+                return result;
+            }
+            // prepareStatement and prepareCall carry their SQL; createStatement passes it on execute
+            String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : null;
+            StatementHandler handler = new StatementHandler((Statement) result, sql, target, profiler);
+            if (result instanceof CallableStatement) {
+                return proxy(CallableStatement.class, handler);
+            }
+            if (result instanceof PreparedStatement) {
+                return proxy(PreparedStatement.class, handler);
+            }
+            return proxy(Statement.class, handler);
+        }
+    }
+
+    private static class StatementHandler implements InvocationHandler {
+
+        private final Statement target;
+        private final String sql;
+        private final Connection connection;
+        private final SqlProfiler profiler;
+        // Parameter setters by index, replayed to explain the statement
+        private final Map<Integer, Object[]> bindings;
+        private String batchSql;
+        private StatementStats lastStats;
+
+        StatementHandler(Statement target, String sql, Connection connection, SqlProfiler profiler) {
+            this.target = target;
+            this.sql = sql;
+            this.connection = connection;
+            this.profiler = profiler;
+            this.bindings = sql != null && profiler.isCapturingPlans() ? new TreeMap<>() : null;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object objectResult = objectMethod(proxy, target, method, args);
+            if (objectResult != null) {
+                return objectResult;
+            }
+            String name = method.getName();
+            if (name.startsWith("execute")) {
+                return execute(method, args);
+            }
+            if (bindings != null && name.startsWith("set") && args != null && args.length >= 2
+                    && args[0] instanceof Integer && method.getDeclaringClass() != Statement.class) {
+                bindings.put((Integer) args[0], new Object[] {method, args});
+            } else if (bindings != null && "clearParameters".equals(name)) {
+                bindings.clear();
+            } else if ("addBatch".equals(name) && args != null && batchSql == null) {
+                batchSql = (String) args[0];
+            }
+            Object result = ProfilingDataSource.invoke(target, method, args);
+            if (result instanceof ResultSet && "getResultSet".equals(name) && lastStats != null) {
+                return proxy(ResultSet.class, new ResultSetHandler((ResultSet) result, lastStats));
+            }
+            return result;
+        }
+
+        private Object execute(Method method, Object[] args) throws Throwable {
+            String statementSql = args != null && args.length > 0 && args[0] instanceof String
+                    ? (String) args[0]
+                    : sql != null ? sql : batchSql;
+            boolean batch = "executeBatch".equals(method.getName()) || "executeLargeBatch".equals(method.getName());
+            if (batch && sql == null) {
+                batchSql = null;
+            }
+            if (statementSql == null) {
+                return ProfilingDataSource.invoke(target, method, args);
+            }
+
+            StatementStats stats = profiler.statsFor(statementSql);
+            lastStats = stats;
+            long start = System.nanoTime();
+            Object result;
+            try {
+                result = ProfilingDataSource.invoke(target, method, args);
+            } catch (Throwable e) {
+                profiler.record(stats, System.nanoTime() - start, 0);
+                throw e;
+            }
+            long elapsed = System.nanoTime() - start;
+            profiler.record(stats, elapsed, updatedRows(result));
+
+            // Batches keep only the last row's parameters
+            if (!batch && profiler.shouldCapturePlan(stats, elapsed)) {
+                stats.setPlan(explain(statementSql));
+            }
+            if (result instanceof ResultSet) {
+                return proxy(ResultSet.class, new ResultSetHandler((ResultSet) result, stats));
+            }
+            return result;
+        }
+
+        private long updatedRows(Object result) throws SQLException {
+            if (result instanceof Number) {
+                return Math.max(((Number) result).longValue(), 0);
+            }
+            if (result instanceof int[]) {
+                long rows = 0;
+                for (int count : (int[]) result) {
+                    rows += Math.max(count, 0);
+                }
+                return rows;
+            }
+            if (result instanceof long[]) {
+                long rows = 0;
+                for (long count : (long[]) result) {
+                    rows += Math.max(count, 0);
+                }
+                return rows;
+            }
+            if (Boolean.FALSE.equals(result)) {
+                return Math.max(target.getUpdateCount(), 0);
+            }
+            return 0;
+        }
+
+        private String explain(String statementSql) {
+            try (PreparedStatement explain = connection.prepareStatement("EXPLAIN " + statementSql)) {
+                if (bindings != null) {
+                    for (Object[] binding : bindings.values()) {
+                        ((Method) binding[0]).invoke(explain, (Object[]) binding[1]);
+                    }
+                }
+                StringBuilder plan = new StringBuilder();
+                try (ResultSet rows = explain.executeQuery()) {
+                    int columns = rows.getMetaData().getColumnCount();
+                    while (rows.next()) {
+                        if (plan.length() > 0) {
+                            plan.append('\n');
+                        }
+                        for (int column = 1; column <= columns; column++) {
+                            if (column > 1) {
+                                plan.append(" | ");
+                            }
+                            plan.append(rows.getString(column));
+                        }
+                    }
+                }
+                return plan.toString();
+            } catch (SQLException | ReflectiveOperationException | IllegalArgumentException e) {
+                log.debug("Could not explain {}: {}", statementSql, e.getMessage());
+                return "Plan unavailable: " + e.getMessage();
+            }
+        }
+    }
+
+    private static class ResultSetHandler implements InvocationHandler {
+
+        private final ResultSet target;
+        private final StatementStats stats;
+        private long rows;
+        private boolean closed;
+
+        ResultSetHandler(ResultSet target, StatementStats stats) {
+            this.target = target;
+            this.stats = stats;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object objectResult = objectMethod(proxy, target, method, args);
+            if (objectResult != null) {
+                return objectResult;
+            }
+            String name = method.getName();
+            if ("close".equals(name) && !closed) {
+                closed = true;
+                stats.addRows(rows);
+            }
+            Object result = ProfilingDataSource.invoke(target, method, args);
+            if ("next".equals(name) && Boolean.TRUE.equals(result)) {
+                rows++;
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.koerber.order.profiling;
+
+import com.koerber.order.dto.SqlStatementStatsDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Statistics per normalized SQL statement, fed by the JDBC connections of
+ * {@link ProfilingDataSource}. Literals are replaced by ? and IN lists
+ * collapsed, so e.g. every findAllById call lands on one entry whatever
+ * the number of IDs. Statements run at least repeat-threshold times in one
+ * request are reported as N+1 suspects; slow statements get their plan
+ * captured with EXPLAIN.
+ */
+@Component
+@Slf4j
+public class SqlProfiler {
+
+    // Statements beyond max-statements are added up here
+    static final String OTHER_STATEMENTS = "(other statements)";
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("(?<![\\w.])\\d+(?:\\.\\d+)?(?![\\w.])");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern IN_LIST = Pattern.compile("(?i)\\bin \\( ?\\?(?: ?, ?\\?)* ?\\)");
+
+    private final long slowThresholdNanos;
+    private final int repeatThreshold;
+    private final boolean capturePlans;
+    private final int maxStatements;
+
+    private final ConcurrentMap<String, StatementStats> statements = new ConcurrentHashMap<>();
+    // Raw SQL to its entry, so a statement is normalized once
+    private final ConcurrentMap<String, StatementStats> rawStatements = new ConcurrentHashMap<>();
+    private volatile StatementStats other = new StatementStats(OTHER_STATEMENTS);
+
+    public SqlProfiler(@Value("${order.sql-profiler.slow-threshold-ms:100}") long slowThresholdMillis,
+                       @Value("${order.sql-profiler.repeat-threshold:10}") int repeatThreshold,
+                       @Value("${order.sql-profiler.capture-plans:true}") boolean capturePlans,
+                       @Value("${order.sql-profiler.max-statements:500}") int maxStatements) {
+        this.slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowThresholdMillis);
+        this.repeatThreshold = Math.max(repeatThreshold, 2);
+        this.capturePlans = capturePlans;
+        this.maxStatements = Math.max(maxStatements, 1);
+    }
+
+    /**
+     * @param sql SQL as sent to the driver
+     * @return Entry of the normalized statement
+     */
+    StatementStats statsFor(String sql) {
+        StatementStats stats = rawStatements.get(sql);
+        if (stats != null) {
+            return stats;
+        }
+        String normalized = normalize(sql);
+        stats = statements.get(normalized);
+        if (stats == null) {
+            stats = statements.size() < maxStatements
+                    ? statements.computeIfAbsent(normalized, StatementStats::new)
+                    : other;
+        }
+        // IN lists of every size map to one entry; keep the cache bounded all the same
+        if (stats != other && rawStatements.size() < maxStatements * 4) {
+            rawStatements.putIfAbsent(sql, stats);
+        }
+        return stats;
+    }
+
+    /**
+     * Record one execution, also on the current request's scope
+     * @param stats Entry from {@link #statsFor}
+     * @param nanos Execution time
+     * @param rows Rows updated; query rows are added as they are read
+     */
+    void record(StatementStats stats, long nanos, long rows) {
+        stats.record(nanos, rows);
+        SqlRequestScope scope = SqlRequestScope.current();
+        if (scope != null) {
+            scope.record(stats);
+        }
+    }
+
+    boolean isCapturingPlans() {
+        return capturePlans;
+    }
+
+    /**
+     * @return Whether the caller should EXPLAIN this execution
+     */
+    boolean shouldCapturePlan(StatementStats stats, long nanos) {
+        return capturePlans && nanos >= slowThresholdNanos && stats.isExplainable() && stats.claimPlan(nanos);
+    }
+
+    /**
+     * Report the statements a finished request ran repeat-threshold times or more
+     * @param scope Scope of the request
+     * @param request Request name, e.g. GET /order/{orderId}
+     */
+    public void endRequest(SqlRequestScope scope, String request) {
+        for (Map.Entry<StatementStats, AtomicInteger> entry : scope.getExecutions().entrySet()) {
+            int executions = entry.getValue().get();
+            if (executions < repeatThreshold) {
+                continue;
+            }
+            StatementStats stats = entry.getKey();
+            if (stats.recordRepeated(executions)) {
+                log.warn("Possible N+1: statement ran {} times in {}: {}", executions, request, stats.getSql());
+            } else {
+                log.debug("Statement ran {} times in {}: {}", executions, request, stats.getSql());
+            }
+        }
+    }
+
+    /**
+     * Get statement statistics, highest first
+     * @param sort total, mean, max, count, rows or repeated
+     * @param limit Maximum number of statements
+     * @return Statistics per normalized statement
+     */
+    public List<SqlStatementStatsDTO> getStatistics(String sort, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be greater than zero");
+        }
+        Comparator<StatementStats> order = comparator(sort);
+        return allStatements().stream()
+                .filter(stats -> stats.getCount() > 0)
+                .sorted(order.reversed())
+                .limit(limit)
+                .map(StatementStats::toDTO)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Forget all statistics and captured plans
+     */
+    public void reset() {
+        rawStatements.clear();
+        statements.clear();
+        other = new StatementStats(OTHER_STATEMENTS);
+    }
+
+    private List<StatementStats> allStatements() {
+        List<StatementStats> all = new ArrayList<>(statements.values());
+        all.add(other);
+        return all;
+    }
+
+    private static Comparator<StatementStats> comparator(String sort) {
+        switch (sort) {
+            case "total":
+                return Comparator.comparingLong(StatementStats::getTotalNanos);
+            case "mean":
+                return Comparator.comparingDouble(StatementStats::getMeanNanos);
+            case "max":
+                return Comparator.comparingLong(StatementStats::getMaxNanos);
+            case "count":
+                return Comparator.comparingLong(StatementStats::getCount);
+            case "rows":
+                return Comparator.comparingLong(StatementStats::getRows);
+            case "repeated":
+                return Comparator.comparingLong(StatementStats::getRepeatedRequests);
+            default:
+                throw new IllegalArgumentException("Unknown sort: " + sort);
+        }
+    }
+
+    /**
+     * Replace literals with ?, collapse IN lists and whitespace
+     * @param sql SQL as sent to the driver
+     * @return Normalized statement
+     */
+    static String normalize(String sql) {
+        String normalized = STRING_LITERAL.matcher(sql).replaceAll("?");
+        normalized = NUMBER_LITERAL.matcher(normalized).replaceAll("?");
+        normalized = WHITESPACE.matcher(normalized).replaceAll(" ").trim();
+        return IN_LIST.matcher(normalized).replaceAll("in (?...)");
+    }
+}
@@ -0,0 +1,58 @@
+package com.koerber.order.profiling;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Statements run by the request being handled on the current thread, counted
+ * per normalized statement so N+1 patterns show up when the request ends
+ */
+public final class SqlRequestScope {
+
+    private static final ThreadLocal<SqlRequestScope> CURRENT = new ThreadLocal<>();
+
+    // Written by whichever thread works on the request, e.g. a request lane
+    private final Map<StatementStats, AtomicInteger> executions = new ConcurrentHashMap<>();
+
+    /**
+     * Start counting for a new request on the current thread
+     * @return The new scope
+     */
+    public static SqlRequestScope open() {
+        SqlRequestScope scope = new SqlRequestScope();
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    /**
+     * @return Scope of the current request, or null outside of one
+     */
+    public static SqlRequestScope current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Set or clear the scope, e.g. to hand it over to another thread
+     * @param scope Scope from {@link #current()}, or null
+     */
+    public static void set(SqlRequestScope scope) {
+        if (scope == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(scope);
+        }
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    void record(StatementStats stats) {
+        executions.computeIfAbsent(stats, s -> new AtomicInteger()).incrementAndGet();
+    }
+
+    Map<StatementStats, AtomicInteger> getExecutions() {
+        return executions;
+    }
+}
@@ -0,0 +1,126 @@
+package com.koerber.order.profiling;
+
+import com.koerber.order.dto.SqlStatementStatsDTO;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Running totals for one normalized statement
+ */
+class StatementStats {
+
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    private final String sql;
+    private final boolean explainable;
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+    private final LongAdder rows = new LongAdder();
+    private final AtomicLong repeatedRequests = new AtomicLong();
+    private final LongAccumulator maxPerRequest = new LongAccumulator(Math::max, 0);
+
+    private volatile String plan;
+    private long planNanos;
+
+    StatementStats(String sql) {
+        this.sql = sql;
+        String lower = sql.toLowerCase(Locale.ROOT);
+        this.explainable = lower.startsWith("select ") || lower.startsWith("with ")
+                || lower.startsWith("update ") || lower.startsWith("delete ");
+    }
+
+    String getSql() {
+        return sql;
+    }
+
+    boolean isExplainable() {
+        return explainable;
+    }
+
+    void record(long nanos, long rowCount) {
+        count.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+        rows.add(rowCount);
+    }
+
+    void addRows(long rowCount) {
+        rows.add(rowCount);
+    }
+
+    /**
+     * Count a request that ran the statement many times
+     * @param executions Times it ran in that request
+     * @return Whether this is the first such request
+     */
+    boolean recordRepeated(int executions) {
+        maxPerRequest.accumulate(executions);
+        return repeatedRequests.incrementAndGet() == 1;
+    }
+
+    /**
+     * Claim the plan capture for a slow execution: the first one, and again
+     * whenever an execution takes twice as long as the one last explained
+     * @param nanos Time of the slow execution
+     * @return Whether the caller should capture the plan
+     */
+    synchronized boolean claimPlan(long nanos) {
+        if (planNanos != 0 && nanos < 2 * planNanos) {
+            return false;
+        }
+        planNanos = nanos;
+        return true;
+    }
+
+    void setPlan(String plan) {
+        this.plan = plan;
+    }
+
+    long getCount() {
+        return count.sum();
+    }
+
+    long getTotalNanos() {
+        return totalNanos.sum();
+    }
+
+    long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    long getRows() {
+        return rows.sum();
+    }
+
+    long getRepeatedRequests() {
+        return repeatedRequests.get();
+    }
+
+    double getMeanNanos() {
+        long executions = count.sum();
+        return executions == 0 ? 0 : (double) totalNanos.sum() / executions;
+    }
+
+    SqlStatementStatsDTO toDTO() {
+        long executions = count.sum();
+        String capturedPlan = plan;
+        Double capturedMs;
+        synchronized (this) {
+            capturedMs = capturedPlan != null ? planNanos / NANOS_PER_MILLI : null;
+        }
+        return new SqlStatementStatsDTO(sql, executions,
+                totalNanos.sum() / NANOS_PER_MILLI,
+                getMeanNanos() / NANOS_PER_MILLI,
+                maxNanos.get() / NANOS_PER_MILLI,
+                rows.sum(),
+                executions == 0 ? 0 : (double) rows.sum() / executions,
+                repeatedRequests.get(),
+                maxPerRequest.get(),
+                capturedPlan,
+                capturedMs);
+    }
+}
@@ -0,0 +1,13 @@
+package com.koerber.order.repository;
+
+import com.koerber.order.entity.ArchivedOrder;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ArchivedOrderRepository extends JpaRepository<ArchivedOrder, Long> {
+
+    List<ArchivedOrder> findByProductId(Long productId);
+}
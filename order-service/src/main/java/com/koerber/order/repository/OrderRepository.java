@@ -1,14 +1,69 @@
 package com.koerber.order.repository;
 
 import com.koerber.order.entity.Order;
+import com.koerber.order.entity.OrderStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.LockModeType;
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
 
     List<Order> findByProductId(Long productId);
-}
 
+    List<Order> findByStatus(OrderStatus status);
+
+    /**
+     * Lock a chunk of orders for a bulk status change
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o.orderId AS orderId, o.status AS status, o.productId AS productId, o.quantity AS quantity, " +
+            "o.reservedAllocations AS reservedAllocations, o.orderRef AS orderRef " +
+            "FROM Order o WHERE o.orderId IN :orderIds")
+    List<OrderStatusView> lockStatusViews(@Param("orderIds") Collection<Long> orderIds);
+
+    @Modifying
+    @Query("UPDATE Order o SET o.status = :to WHERE o.orderId IN :orderIds AND o.status = :from")
+    int updateStatus(@Param("orderIds") Collection<Long> orderIds,
+                     @Param("from") OrderStatus from,
+                     @Param("to") OrderStatus to);
+
+    /**
+     * Record the outcome of processing a pending order, in a transaction of its own
+     * @return 0 if the order is no longer pending
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Order o SET o.status = :to, o.reservedFromBatchIds = :batchIds, " +
+            "o.reservedAllocations = :allocations, o.failureReason = :failureReason " +
+            "WHERE o.orderId = :orderId AND o.status = :from")
+    int completePending(@Param("orderId") Long orderId,
+                        @Param("from") OrderStatus from,
+                        @Param("to") OrderStatus to,
+                        @Param("batchIds") String batchIds,
+                        @Param("allocations") String allocations,
+                        @Param("failureReason") String failureReason);
+
+    @Query("SELECT o.orderId FROM Order o WHERE o.status IN :statuses AND o.orderDate < :cutoff ORDER BY o.orderId ASC")
+    List<Long> findArchivableOrderIds(@Param("statuses") Collection<OrderStatus> statuses,
+                                      @Param("cutoff") LocalDate cutoff,
+                                      Pageable pageable);
+
+    @Modifying
+    @Query(value = "INSERT INTO orders_archive (order_id, product_id, quantity, status, " +
+            "order_date, reserved_from_batch_ids, failure_reason, archived_at, order_ref) " +
+            "SELECT order_id, product_id, quantity, status, " +
+            "order_date, reserved_from_batch_ids, failure_reason, CURRENT_TIMESTAMP, order_ref " +
+            "FROM orders WHERE order_id IN (:orderIds)", nativeQuery = true)
+    int copyToArchive(@Param("orderIds") List<Long> orderIds);
+}
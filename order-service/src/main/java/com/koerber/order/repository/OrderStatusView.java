@@ -0,0 +1,21 @@
+package com.koerber.order.repository;
+
+import com.koerber.order.entity.OrderStatus;
+
+/**
+ * The columns a status transition needs, read without loading the entity
+ */
+public interface OrderStatusView {
+
+    Long getOrderId();
+
+    OrderStatus getStatus();
+
+    Long getProductId();
+
+    Integer getQuantity();
+
+    String getReservedAllocations();
+
+    String getOrderRef();
+}
@@ -0,0 +1,9 @@
+package com.koerber.order.repository;
+
+import com.koerber.order.entity.PartitionRing;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface PartitionRingRepository extends JpaRepository<PartitionRing, Long> {
+}
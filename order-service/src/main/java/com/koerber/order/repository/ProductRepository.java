@@ -0,0 +1,21 @@
+package com.koerber.order.repository;
+
+import com.koerber.order.entity.Product;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface ProductRepository extends JpaRepository<Product, Long> {
+
+    // Insert or overwrite in one statement, in its own transaction, so concurrent writers of a new product never clash
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Modifying
+    @Query(value = "MERGE INTO product (product_id, product_name) KEY (product_id) VALUES (:productId, :productName)",
+            nativeQuery = true)
+    int upsert(@Param("productId") Long productId, @Param("productName") String productName);
+}
@@ -0,0 +1,163 @@
+package com.koerber.order.service;
+
+import com.koerber.order.entity.Order;
+import com.koerber.order.entity.OrderStatus;
+import com.koerber.order.repository.OrderRepository;
+import com.koerber.order.tracing.Span;
+import com.koerber.order.tracing.TraceContext;
+import com.koerber.order.tracing.TraceExporter;
+import com.koerber.order.tracing.Tracing;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drains accepted orders from a bounded queue with a fixed pool of workers.
+ * When the queue is full new orders are rejected instead of being buffered,
+ * and an optional rate cap paces how fast orders are sent to Inventory Service.
+ * Each order is processed under its own trace segment, continuing the trace
+ * of the request that accepted it.
+ */
+@Component
+@Slf4j
+public class AsyncOrderProcessor {
+
+    private final OrderService orderService;
+    private final OrderRepository orderRepository;
+    private final TraceExporter traceExporter;
+    private final boolean enabled;
+    private final long retryAfterSeconds;
+    private final long intervalNanos;
+    private final int queueCapacity;
+    private final ThreadPoolExecutor executor;
+
+    private long nextPermitNanos = System.nanoTime();
+
+    public AsyncOrderProcessor(OrderService orderService,
+                               OrderRepository orderRepository,
+                               TraceExporter traceExporter,
+                               @Value("${order.async.enabled:false}") boolean enabled,
+                               @Value("${order.async.workers:4}") int workers,
+                               @Value("${order.async.queue-capacity:200}") int queueCapacity,
+                               @Value("${order.async.max-orders-per-second:0}") int maxOrdersPerSecond,
+                               @Value("${order.async.retry-after-seconds:2}") long retryAfterSeconds) {
+        this.orderService = orderService;
+        this.orderRepository = orderRepository;
+        this.traceExporter = traceExporter;
+        this.enabled = enabled;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.intervalNanos = maxOrdersPerSecond > 0 ? TimeUnit.SECONDS.toNanos(1) / maxOrdersPerSecond : 0;
+        this.queueCapacity = queueCapacity;
+        this.executor = enabled
+                ? new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                        new ArrayBlockingQueue<>(queueCapacity),
+                        new CustomizableThreadFactory("order-worker-"),
+                        new ThreadPoolExecutor.AbortPolicy())
+                : null;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    /**
+     * Cheap pre-check so a full queue rejects before anything is written
+     * @return true if the queue has room for another order
+     */
+    public boolean hasCapacity() {
+        return executor != null && executor.getQueue().remainingCapacity() > 0;
+    }
+
+    public int getQueueDepth() {
+        return executor == null ? 0 : executor.getQueue().size();
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    /**
+     * Queue a pending order for processing
+     * @param orderId Order ID
+     * @throws RejectedExecutionException if the queue is full
+     */
+    public void submit(Long orderId) {
+        if (executor == null) {
+            throw new RejectedExecutionException("Asynchronous order processing is disabled");
+        }
+        TraceContext acceptedIn = Tracing.current().context();
+        executor.execute(() -> process(orderId, acceptedIn));
+    }
+
+    /**
+     * Re-queue orders left PENDING by a previous run. An order may have been
+     * reserved before the run ended; Inventory Service recognizes its order
+     * reference and returns that reservation rather than taking stock again.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumePendingOrders() {
+        if (!enabled) {
+            return;
+        }
+        for (Order order : orderRepository.findByStatus(OrderStatus.PENDING)) {
+            try {
+                submit(order.getOrderId());
+            } catch (RejectedExecutionException e) {
+                log.warn("Queue full while resuming pending orders; order {} stays pending", order.getOrderId());
+                return;
+            }
+        }
+    }
+
+    private void process(Long orderId, TraceContext acceptedIn) {
+        awaitPermit();
+        Span span = Tracing.startRoot("AsyncOrderProcessor.process", acceptedIn, traceExporter)
+                .tag("orderId", orderId);
+        try {
+            orderService.processPendingOrder(orderId);
+        } catch (Exception e) {
+            span.fail(e);
+            log.error("Unexpected error processing order {}: {}", orderId, e.getMessage());
+        } finally {
+            span.end();
+            Tracing.clear();
+        }
+    }
+
+    // Spaces order processing evenly when a rate cap is configured
+    private void awaitPermit() {
+        if (intervalNanos == 0) {
+            return;
+        }
+        long permitAt;
+        synchronized (this) {
+            permitAt = Math.max(nextPermitNanos, System.nanoTime());
+            nextPermitNanos = permitAt + intervalNanos;
+        }
+        long waitNanos = permitAt - System.nanoTime();
+        if (waitNanos > 0) {
+            LockSupport.parkNanos(waitNanos);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+}
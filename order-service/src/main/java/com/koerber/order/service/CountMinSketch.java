@@ -0,0 +1,75 @@
+package com.koerber.order.service;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Count-Min sketch over long keys: depth rows of width counters, one hash
+ * per row. An estimate is the smallest of the key's counters, so it never
+ * undercounts, and overcounts by at most total / width with high probability.
+ * Increments are lock-free.
+ */
+class CountMinSketch {
+
+    private static final long[] SEEDS = {
+            0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0xD6E8FEB86659FD93L,
+            0xFF51AFD7ED558CCDL, 0xC4CEB9FE1A85EC53L, 0x27D4EB2F165667C5L, 0x85EBCA77C2B2AE63L
+    };
+
+    private final int depth;
+    private final int mask;
+    private final AtomicLongArray counters;
+
+    /**
+     * @param depth Rows, 1 to 8
+     * @param width Counters per row, rounded up to a power of two
+     */
+    CountMinSketch(int depth, int width) {
+        if (depth < 1 || depth > SEEDS.length) {
+            throw new IllegalArgumentException("depth must be between 1 and " + SEEDS.length);
+        }
+        int rowWidth = Integer.highestOneBit(Math.max(width, 2) - 1) << 1;
+        this.depth = depth;
+        this.mask = rowWidth - 1;
+        this.counters = new AtomicLongArray(depth * rowWidth);
+    }
+
+    /**
+     * Count one occurrence of a key
+     * @param key Key
+     * @return Estimated occurrences of the key, including this one
+     */
+    long add(long key) {
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters.incrementAndGet(index(row, key)));
+        }
+        return estimate;
+    }
+
+    /**
+     * @param key Key
+     * @return Estimated occurrences of the key
+     */
+    long estimate(long key) {
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters.get(index(row, key)));
+        }
+        return estimate;
+    }
+
+    void clear() {
+        for (int i = 0; i < counters.length(); i++) {
+            counters.lazySet(i, 0);
+        }
+    }
+
+    private int index(int row, long key) {
+        // MurmurHash3 finalizer, seeded per row
+        long h = key ^ SEEDS[row];
+        h = (h ^ (h >>> 33)) * 0xFF51AFD7ED558CCDL;
+        h = (h ^ (h >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return row * (mask + 1) + ((int) h & mask);
+    }
+}
@@ -0,0 +1,11 @@
+package com.koerber.order.service;
+
+/**
+ * Thrown when a request's deadline passes before its work is done
+ */
+public class DeadlineExceededException extends RuntimeException {
+
+    public DeadlineExceededException(String message) {
+        super(message);
+    }
+}
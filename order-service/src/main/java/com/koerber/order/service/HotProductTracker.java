@@ -0,0 +1,214 @@
+package com.koerber.order.service;
+
+import com.koerber.order.dto.HotProductDTO;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Finds the products receiving a large share of requests, in memory that
+ * does not grow with the catalog. The sliding window is a ring of slices;
+ * each slice counts requests in a Count-Min sketch and keeps the few
+ * products with the highest estimates as heavy-hitter candidates. Every
+ * slice-ms the oldest slice is cleared and reused, and the products above
+ * min-requests and min-share over the window become the hot set, which is
+ * passed to every {@link HotProductListener}.
+ */
+@Component
+@Slf4j
+public class HotProductTracker {
+
+    private final ObjectProvider<HotProductListener> listeners;
+    private final boolean enabled;
+    private final long minRequests;
+    private final double minShare;
+    private final Slice[] slices;
+
+    private int currentIndex;
+    private volatile Slice current;
+    private volatile Set<Long> hotProducts = Collections.emptySet();
+
+    public HotProductTracker(ObjectProvider<HotProductListener> listeners,
+                             MeterRegistry meterRegistry,
+                             @Value("${order.hot-products.enabled:false}") boolean enabled,
+                             @Value("${order.hot-products.slices:6}") int slices,
+                             @Value("${order.hot-products.depth:4}") int depth,
+                             @Value("${order.hot-products.width:2048}") int width,
+                             @Value("${order.hot-products.candidates:64}") int candidates,
+                             @Value("${order.hot-products.min-requests:100}") long minRequests,
+                             @Value("${order.hot-products.min-share:0.05}") double minShare) {
+        this.listeners = listeners;
+        this.enabled = enabled;
+        this.minRequests = minRequests;
+        this.minShare = minShare;
+        this.slices = new Slice[Math.max(slices, 1)];
+        for (int i = 0; i < this.slices.length; i++) {
+            this.slices[i] = new Slice(depth, width, candidates);
+        }
+        this.current = this.slices[0];
+        Gauge.builder("order.hot-products", this, tracker -> tracker.hotProducts.size())
+                .description("Products currently treated as hot")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Count a request for a product
+     * @param productId Product ID
+     */
+    public void record(Long productId) {
+        if (enabled && productId != null) {
+            current.record(productId);
+        }
+    }
+
+    /**
+     * @param productId Product ID
+     * @return Whether the product was hot at the last slice rotation
+     */
+    public boolean isHot(Long productId) {
+        return hotProducts.contains(productId);
+    }
+
+    public Set<Long> getHotProducts() {
+        return hotProducts;
+    }
+
+    /**
+     * @param limit Maximum number of products
+     * @return Products with the most requests over the window, busiest first
+     */
+    public List<HotProductDTO> getTopProducts(int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("limit must be positive");
+        }
+        long total = windowTotal();
+        Set<Long> hot = hotProducts;
+        List<HotProductDTO> top = new ArrayList<>();
+        for (Long productId : windowCandidates()) {
+            long requests = windowEstimate(productId);
+            top.add(new HotProductDTO(productId, requests, total == 0 ? 0.0 : (double) requests / total,
+                    hot.contains(productId)));
+        }
+        top.sort((a, b) -> Long.compare(b.getRequests(), a.getRequests()));
+        return top.size() > limit ? new ArrayList<>(top.subList(0, limit)) : top;
+    }
+
+    /**
+     * Recompute the hot set over the window, then start a new slice in place of the oldest
+     */
+    @Scheduled(fixedRateString = "${order.hot-products.slice-ms:10000}",
+            initialDelayString = "${order.hot-products.slice-ms:10000}")
+    public synchronized void rotate() {
+        if (!enabled) {
+            return;
+        }
+        long total = windowTotal();
+        long threshold = Math.max(minRequests, (long) Math.ceil(minShare * total));
+        Set<Long> hot = new HashSet<>();
+        for (Long productId : windowCandidates()) {
+            if (windowEstimate(productId) >= threshold) {
+                hot.add(productId);
+            }
+        }
+
+        currentIndex = (currentIndex + 1) % slices.length;
+        Slice next = slices[currentIndex];
+        next.clear();
+        current = next;
+
+        if (!hot.equals(hotProducts)) {
+            Set<Long> published = Collections.unmodifiableSet(hot);
+            log.info("Hot products: {}", published);
+            hotProducts = published;
+            listeners.orderedStream().forEach(listener -> listener.onHotProductsChanged(published));
+        }
+    }
+
+    private long windowTotal() {
+        long total = 0;
+        for (Slice slice : slices) {
+            total += slice.total.sum();
+        }
+        return total;
+    }
+
+    private long windowEstimate(long productId) {
+        long estimate = 0;
+        for (Slice slice : slices) {
+            estimate += slice.sketch.estimate(productId);
+        }
+        return estimate;
+    }
+
+    private Set<Long> windowCandidates() {
+        Set<Long> candidates = new HashSet<>();
+        for (Slice slice : slices) {
+            candidates.addAll(slice.candidates.keySet());
+        }
+        return candidates;
+    }
+
+    /**
+     * Counts for one period of the window. Candidates already tracked are
+     * updated without locking; a new product only takes the lock when its
+     * estimate beats the smallest candidate, which it then replaces.
+     */
+    private static class Slice {
+
+        private final CountMinSketch sketch;
+        private final int capacity;
+        private final Map<Long, Long> candidates = new ConcurrentHashMap<>();
+        private final LongAdder total = new LongAdder();
+        private volatile long floor;
+
+        Slice(int depth, int width, int capacity) {
+            this.sketch = new CountMinSketch(depth, width);
+            this.capacity = Math.max(capacity, 1);
+        }
+
+        void record(long productId) {
+            total.increment();
+            long estimate = sketch.add(productId);
+            if (candidates.computeIfPresent(productId, (id, count) -> Math.max(count, estimate)) == null
+                    && (estimate > floor || candidates.size() < capacity)) {
+                admit(productId, estimate);
+            }
+        }
+
+        private synchronized void admit(long productId, long estimate) {
+            candidates.merge(productId, estimate, Math::max);
+            while (candidates.size() > capacity) {
+                Long smallest = null;
+                long smallestCount = Long.MAX_VALUE;
+                for (Map.Entry<Long, Long> entry : candidates.entrySet()) {
+                    if (entry.getValue() < smallestCount) {
+                        smallest = entry.getKey();
+                        smallestCount = entry.getValue();
+                    }
+                }
+                candidates.remove(smallest);
+                floor = smallestCount;
+            }
+        }
+
+        synchronized void clear() {
+            sketch.clear();
+            candidates.clear();
+            total.reset();
+            floor = 0;
+        }
+    }
+}
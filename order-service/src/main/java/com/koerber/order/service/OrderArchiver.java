@@ -0,0 +1,79 @@
+package com.koerber.order.service;
+
+import com.koerber.order.entity.OrderStatus;
+import com.koerber.order.repository.OrderRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Background job that keeps the orders table limited to recent and in-flight
+ * orders. Delivered and cancelled orders older than the retention period are
+ * moved to orders_archive in bounded chunks, one transaction per chunk.
+ */
+@Component
+@ConditionalOnProperty(name = "order.archive.enabled", havingValue = "true")
+@Slf4j
+public class OrderArchiver {
+
+    static final Set<OrderStatus> TERMINAL_STATUSES = EnumSet.of(OrderStatus.DELIVERED, OrderStatus.CANCELLED);
+
+    private final OrderRepository orderRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int retentionDays;
+    private final int chunkSize;
+
+    public OrderArchiver(OrderRepository orderRepository,
+                         TransactionTemplate transactionTemplate,
+                         @Value("${order.archive.retention-days:90}") int retentionDays,
+                         @Value("${order.archive.chunk-size:500}") int chunkSize) {
+        this.orderRepository = orderRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.retentionDays = retentionDays;
+        this.chunkSize = chunkSize;
+    }
+
+    @Scheduled(initialDelayString = "${order.archive.initial-delay-ms:60000}",
+            fixedDelayString = "${order.archive.interval-ms:3600000}")
+    public void archive() {
+        LocalDate cutoff = LocalDate.now().minusDays(retentionDays);
+        int archived = archiveOrdersBefore(cutoff);
+        log.info("Order archival complete: {} orders dated before {} archived", archived, cutoff);
+    }
+
+    /**
+     * Move delivered and cancelled orders to the archive table, chunk by chunk.
+     * Each chunk is copied and deleted in one transaction, so an interrupted
+     * run simply resumes with the remaining rows on the next run.
+     * @param cutoff Orders dated before this date are archived
+     * @return Number of orders archived
+     */
+    public int archiveOrdersBefore(LocalDate cutoff) {
+        int total = 0;
+        while (true) {
+            Integer archived = transactionTemplate.execute(status -> {
+                List<Long> orderIds = orderRepository.findArchivableOrderIds(
+                        TERMINAL_STATUSES, cutoff, PageRequest.of(0, chunkSize));
+                if (orderIds.isEmpty()) {
+                    return 0;
+                }
+                orderRepository.copyToArchive(orderIds);
+                orderRepository.deleteAllByIdInBatch(orderIds);
+                return orderIds.size();
+            });
+            if (archived == null || archived == 0) {
+                return total;
+            }
+            total += archived;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.koerber.order.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+/**
+ * Counts synchronous order requests by outcome (orders.placed metric)
+ */
+@Component
+public class OrderMetrics {
+
+    private final Counter placed;
+    private final Counter rejected;
+    private final Counter failed;
+    private final Counter deadlineExceeded;
+
+    public OrderMetrics(MeterRegistry meterRegistry) {
+        this.placed = counter(meterRegistry, "placed");
+        this.rejected = counter(meterRegistry, "rejected");
+        this.failed = counter(meterRegistry, "failed");
+        this.deadlineExceeded = counter(meterRegistry, "deadline_exceeded");
+    }
+
+    public void recordPlaced() {
+        placed.increment();
+    }
+
+    public void recordRejected() {
+        rejected.increment();
+    }
+
+    public void recordFailed() {
+        failed.increment();
+    }
+
+    public void recordDeadlineExceeded() {
+        deadlineExceeded.increment();
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("orders.placed")
+                .description("Synchronous order requests by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
@@ -1,9 +1,13 @@
 package com.koerber.order.service;
 
 import com.koerber.order.client.InventoryClient;
+import com.koerber.order.datasource.DataSourceRouting;
 import com.koerber.order.dto.*;
+import com.koerber.order.entity.ArchivedOrder;
 import com.koerber.order.entity.Order;
 import com.koerber.order.entity.OrderStatus;
+import com.koerber.order.jfr.OrderPlacedEvent;
+import com.koerber.order.repository.ArchivedOrderRepository;
 import com.koerber.order.repository.OrderRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -11,6 +15,13 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 @Service
@@ -19,7 +30,9 @@ import java.util.stream.Collectors;
 public class OrderService {
 
     private final OrderRepository orderRepository;
+    private final ArchivedOrderRepository archivedOrderRepository;
     private final InventoryClient inventoryClient;
+    private final ProductCatalog productCatalog;
 
     /**
      * Place a new order
@@ -31,74 +44,319 @@ public class OrderService {
         log.info("Placing order for product ID: {} with quantity: {}",
                 request.getProductId(), request.getQuantity());
 
+        OrderPlacedEvent event = beginEvent(request.getProductId(), request.getQuantity());
+        try {
+            // Steps 1-3: Check availability and reserve stock
+            String orderRef = newOrderRef();
+            Reservation reservation = reserveInventory(request.getProductId(), request.getQuantity(), orderRef, event);
+
+            // Step 4: Create order
+            Order order = new Order();
+            order.setOrderRef(orderRef);
+            order.setProductId(request.getProductId());
+            order.setQuantity(request.getQuantity());
+            order.setStatus(OrderStatus.PLACED);
+            order.setOrderDate(LocalDate.now());
+            order.setReservedFromBatchIds(joinBatchIds(reservation.batchIds));
+            order.setReservedAllocations(formatAllocations(reservation.allocations));
+
+            long saveStart = System.nanoTime();
+            Order savedOrder = orderRepository.save(order);
+            event.saveDuration = System.nanoTime() - saveStart;
+            event.orderId = savedOrder.getOrderId();
+            event.outcome = savedOrder.getStatus().name();
+            log.info("Order created successfully with ID: {}", savedOrder.getOrderId());
+
+            // Step 5: Return response
+            return new OrderResponse(
+                    savedOrder.getOrderId(),
+                    savedOrder.getProductId(),
+                    reservation.productName,
+                    savedOrder.getQuantity(),
+                    savedOrder.getStatus().name(),
+                    reservation.batchIds,
+                    "Order placed. Inventory reserved."
+            );
+        } finally {
+            commitEvent(event);
+        }
+    }
+
+    /**
+     * Validate an order and record it as PENDING without touching inventory.
+     * The reservation is done later by {@link #processPendingOrder(Long)}.
+     * @param request Order request
+     * @return The saved pending order
+     * @throws IllegalArgumentException if the request is invalid
+     */
+    @Transactional
+    public Order acceptOrder(OrderRequest request) {
+        if (request.getProductId() == null) {
+            throw new IllegalArgumentException("Product ID is required");
+        }
+        if (request.getQuantity() == null || request.getQuantity() <= 0) {
+            throw new IllegalArgumentException("Quantity must be greater than zero");
+        }
+
+        Order order = new Order();
+        order.setOrderRef(newOrderRef());
+        order.setProductId(request.getProductId());
+        order.setQuantity(request.getQuantity());
+        order.setStatus(OrderStatus.PENDING);
+        order.setOrderDate(LocalDate.now());
+
+        Order savedOrder = orderRepository.save(order);
+        log.info("Order {} accepted for asynchronous processing", savedOrder.getOrderId());
+        return savedOrder;
+    }
+
+    /**
+     * Reserve inventory for a pending order and move it to PLACED, or to FAILED
+     * with the reason when the reservation cannot be made. The reservation is
+     * made under the order's reference, so running this again after a failed
+     * commit gets back the same allocations instead of reserving twice.
+     * No transaction is open during the calls to Inventory Service; the
+     * outcome is written afterwards in one short update.
+     * @param orderId Order ID
+     */
+    public void processPendingOrder(Long orderId) {
+        Order order = DataSourceRouting.onPrimary(() -> orderRepository.findById(orderId)).orElse(null);
+        if (order == null || order.getStatus() != OrderStatus.PENDING) {
+            log.warn("Skipping order {}: not pending", orderId);
+            return;
+        }
+
+        OrderPlacedEvent event = beginEvent(order.getProductId(), order.getQuantity());
+        event.orderId = orderId;
+        try {
+            Reservation reservation = reserveInventory(order.getProductId(), order.getQuantity(),
+                    order.getOrderRef(), event);
+            order.setReservedFromBatchIds(joinBatchIds(reservation.batchIds));
+            order.setReservedAllocations(formatAllocations(reservation.allocations));
+            order.setStatus(OrderStatus.PLACED);
+            log.info("Order {} placed", orderId);
+        } catch (RuntimeException e) {
+            order.setStatus(OrderStatus.FAILED);
+            order.setFailureReason(failureReason(e.getMessage()));
+            log.error("Order {} failed: {}", orderId, e.getMessage());
+        }
+        long saveStart = System.nanoTime();
+        int updated = orderRepository.completePending(orderId, OrderStatus.PENDING, order.getStatus(),
+                order.getReservedFromBatchIds(), order.getReservedAllocations(), order.getFailureReason());
+        event.saveDuration = System.nanoTime() - saveStart;
+        if (updated == 0) {
+            log.warn("Order {} was no longer pending; its {} outcome was not recorded", orderId, order.getStatus());
+        }
+        event.outcome = order.getStatus().name();
+        commitEvent(event);
+    }
+
+    /**
+     * Mark an accepted order as FAILED without processing it
+     * @param orderId Order ID
+     * @param reason Failure reason
+     */
+    @Transactional
+    public void failOrder(Long orderId, String reason) {
+        orderRepository.findById(orderId).ifPresent(order -> {
+            order.setStatus(OrderStatus.FAILED);
+            order.setFailureReason(failureReason(reason));
+            orderRepository.save(order);
+        });
+    }
+
+    /**
+     * Get the current state of an order, looking in the archive if it has
+     * already been moved out of the orders table
+     * @param orderId Order ID
+     * @return Order response
+     * @throws IllegalArgumentException if the order does not exist
+     */
+    @Transactional(readOnly = true)
+    public OrderResponse getOrder(Long orderId) {
+        return orderRepository.findById(orderId)
+                .map(this::toResponse)
+                .orElseGet(() -> archivedOrderRepository.findById(orderId)
+                        .map(this::toResponse)
+                        .orElseThrow(() -> new IllegalArgumentException("Order not found with ID: " + orderId)));
+    }
+
+    /**
+     * Get the orders for a product
+     * @param productId Product ID
+     * @param includeArchived Also return orders from the archive table
+     * @return Orders sorted by order ID
+     */
+    @Transactional(readOnly = true)
+    public List<OrderResponse> getOrdersByProduct(Long productId, boolean includeArchived) {
+        List<OrderResponse> orders = new ArrayList<>();
+        orderRepository.findByProductId(productId).forEach(order -> orders.add(toResponse(order)));
+        if (includeArchived) {
+            archivedOrderRepository.findByProductId(productId).forEach(order -> orders.add(toResponse(order)));
+        }
+        orders.sort(Comparator.comparing(OrderResponse::getOrderId));
+        return orders;
+    }
+
+    private OrderResponse toResponse(Order order) {
+        return new OrderResponse(
+                order.getOrderId(),
+                order.getProductId(),
+                productCatalog.getName(order.getProductId()),
+                order.getQuantity(),
+                order.getStatus().name(),
+                splitBatchIds(order.getReservedFromBatchIds()),
+                order.getFailureReason()
+        );
+    }
+
+    private OrderResponse toResponse(ArchivedOrder order) {
+        return new OrderResponse(
+                order.getOrderId(),
+                order.getProductId(),
+                productCatalog.getName(order.getProductId()),
+                order.getQuantity(),
+                order.getStatus().name(),
+                splitBatchIds(order.getReservedFromBatchIds()),
+                order.getFailureReason()
+        );
+    }
+
+    /**
+     * Check availability with Inventory Service and reserve the stock,
+     * recording the time of each call on the event. Inventory Service records
+     * the reservation under the order reference.
+     */
+    private Reservation reserveInventory(Long productId, Integer quantity, String orderRef, OrderPlacedEvent event) {
         // Step 1: Check inventory availability
         InventoryResponse inventoryResponse;
+        long checkStart = System.nanoTime();
         try {
-            inventoryResponse = inventoryClient.checkInventory(request.getProductId());
+            inventoryResponse = inventoryClient.checkInventory(productId);
+        } catch (DeadlineExceededException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Failed to check inventory: {}", e.getMessage());
             throw new RuntimeException("Product not found or inventory service unavailable");
+        } finally {
+            event.inventoryCheckDuration = System.nanoTime() - checkStart;
         }
 
+        // Keep the name for this product's order responses
+        productCatalog.register(productId, inventoryResponse.getProductName());
+
         // Step 2: Calculate total available quantity
         int totalAvailable = inventoryResponse.getBatches().stream()
                 .mapToInt(BatchDTO::getQuantity)
                 .sum();
 
-        if (totalAvailable < request.getQuantity()) {
+        if (totalAvailable < quantity) {
             throw new IllegalArgumentException(
                     "Insufficient inventory. Available: " + totalAvailable +
-                    ", Requested: " + request.getQuantity());
+                    ", Requested: " + quantity);
         }
 
         // Step 3: Update inventory (reserve stock)
-        InventoryUpdateRequest updateRequest = new InventoryUpdateRequest(
-                request.getProductId(),
-                request.getQuantity(),
-                null
-        );
+        InventoryUpdateRequest updateRequest = new InventoryUpdateRequest(productId, quantity, null, orderRef);
 
         InventoryUpdateResponse updateResponse;
+        long updateStart = System.nanoTime();
         try {
             updateResponse = inventoryClient.updateInventory(updateRequest);
+        } catch (DeadlineExceededException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Failed to update inventory: {}", e.getMessage());
             throw new RuntimeException("Failed to reserve inventory");
+        } finally {
+            event.inventoryUpdateDuration = System.nanoTime() - updateStart;
         }
 
         if (!updateResponse.isSuccess()) {
             throw new RuntimeException("Failed to reserve inventory: " + updateResponse.getMessage());
         }
 
-        // Step 4: Create order
-        Order order = new Order();
-        order.setProductId(request.getProductId());
-        order.setProductName(inventoryResponse.getProductName());
-        order.setQuantity(request.getQuantity());
-        order.setStatus(OrderStatus.PLACED);
-        order.setOrderDate(LocalDate.now());
+        Map<Long, Integer> allocations = updateResponse.getAllocations();
+        List<Long> batchIds = updateResponse.getReservedFromBatchIds();
+        if (batchIds == null && allocations != null) {
+            batchIds = new ArrayList<>(allocations.keySet());
+        }
+        return new Reservation(inventoryResponse.getProductName(), batchIds, allocations);
+    }
+
+    private static OrderPlacedEvent beginEvent(Long productId, Integer quantity) {
+        OrderPlacedEvent event = new OrderPlacedEvent();
+        event.begin();
+        event.productId = productId == null ? 0 : productId;
+        event.quantity = quantity == null ? 0 : quantity;
+        event.outcome = OrderStatus.FAILED.name();
+        return event;
+    }
 
-        // Store batch IDs as comma-separated string
-        if (updateResponse.getReservedFromBatchIds() != null) {
-            String batchIds = updateResponse.getReservedFromBatchIds().stream()
-                    .map(String::valueOf)
-                    .collect(Collectors.joining(","));
-            order.setReservedFromBatchIds(batchIds);
+    private static void commitEvent(OrderPlacedEvent event) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.commit();
         }
+    }
 
-        Order savedOrder = orderRepository.save(order);
-        log.info("Order created successfully with ID: {}", savedOrder.getOrderId());
+    private static String newOrderRef() {
+        return UUID.randomUUID().toString();
+    }
 
-        // Step 5: Return response
-        return new OrderResponse(
-                savedOrder.getOrderId(),
-                savedOrder.getProductId(),
-                savedOrder.getProductName(),
-                savedOrder.getQuantity(),
-                savedOrder.getStatus().name(),
-                updateResponse.getReservedFromBatchIds(),
-                "Order placed. Inventory reserved."
-        );
+    // Cut to the failure_reason column, e.g. for a long error body from Inventory Service
+    static String failureReason(String reason) {
+        if (reason == null || reason.length() <= Order.FAILURE_REASON_LENGTH) {
+            return reason;
+        }
+        return reason.substring(0, Order.FAILURE_REASON_LENGTH);
+    }
+
+    // Batch IDs are stored as a comma-separated string
+    private static String joinBatchIds(List<Long> batchIds) {
+        if (batchIds == null) {
+            return null;
+        }
+        return batchIds.stream()
+                .map(String::valueOf)
+                .collect(Collectors.joining(","));
+    }
+
+    private static List<Long> splitBatchIds(String batchIds) {
+        if (batchIds == null || batchIds.isEmpty()) {
+            return null;
+        }
+        return Arrays.stream(batchIds.split(","))
+                .map(Long::valueOf)
+                .collect(Collectors.toList());
+    }
+
+    // Allocations are stored as comma-separated batchId:quantity pairs
+    static String formatAllocations(Map<Long, Integer> allocations) {
+        if (allocations == null || allocations.isEmpty()) {
+            return null;
+        }
+        return allocations.entrySet().stream()
+                .map(entry -> entry.getKey() + ":" + entry.getValue())
+                .collect(Collectors.joining(","));
     }
-}
 
+    static Map<Long, Integer> parseAllocations(String allocations) {
+        if (allocations == null || allocations.isEmpty()) {
+            return null;
+        }
+        Map<Long, Integer> result = new LinkedHashMap<>();
+        for (String allocation : allocations.split(",")) {
+            String[] parts = allocation.split(":");
+            result.put(Long.valueOf(parts[0]), Integer.valueOf(parts[1]));
+        }
+        return result;
+    }
+
+    @RequiredArgsConstructor
+    private static class Reservation {
+        private final String productName;
+        private final List<Long> batchIds;
+        private final Map<Long, Integer> allocations;
+    }
+}
@@ -0,0 +1,201 @@
+package com.koerber.order.service;
+
+import com.koerber.order.client.InventoryClient;
+import com.koerber.order.dto.InventoryUpdateResponse;
+import com.koerber.order.dto.StatusTransitionRequest;
+import com.koerber.order.dto.StatusTransitionResult;
+import com.koerber.order.dto.StockReleaseRequest;
+import com.koerber.order.entity.OrderStatus;
+import com.koerber.order.repository.OrderRepository;
+import com.koerber.order.repository.OrderStatusView;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Applies status changes to many orders at once. Requests are handled in
+ * chunks, one transaction per chunk: the chunk's orders are locked and read
+ * with a single query, each transition is checked against
+ * {@link OrderStatus#canTransitionTo}, and the valid ones are written with
+ * one UPDATE per (from, to) pair. Cancelled orders give their stock back to
+ * inventory with one release call per inventory partition, made after the
+ * chunk has committed so no locks are held during the call and an inventory
+ * outage cannot roll back the chunk's other transitions. An order whose stock
+ * could not be released is put back to PLACED; CANCELLED is final, so nothing
+ * else can have changed it in the meantime.
+ */
+@Service
+@Slf4j
+public class OrderStatusService {
+
+    private final OrderRepository orderRepository;
+    private final InventoryClient inventoryClient;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+
+    public OrderStatusService(OrderRepository orderRepository,
+                              InventoryClient inventoryClient,
+                              TransactionTemplate transactionTemplate,
+                              @Value("${order.status-transitions.chunk-size:1000}") int chunkSize) {
+        this.orderRepository = orderRepository;
+        this.inventoryClient = inventoryClient;
+        this.transactionTemplate = transactionTemplate;
+        this.chunkSize = Math.max(chunkSize, 1);
+    }
+
+    /**
+     * Apply status transitions chunk by chunk. Results are handed to the sink
+     * once their chunk has committed, in request order.
+     * @param requests Transitions to apply
+     * @param sink Receives the results of each committed chunk
+     */
+    public void applyTransitions(List<StatusTransitionRequest> requests, Consumer<List<StatusTransitionResult>> sink) {
+        Set<Long> seen = new HashSet<>();
+        for (int start = 0; start < requests.size(); start += chunkSize) {
+            List<StatusTransitionRequest> chunk = requests.subList(start, Math.min(start + chunkSize, requests.size()));
+            ChunkResult result = transactionTemplate.execute(status -> applyChunk(chunk, seen));
+            releaseStock(result);
+            sink.accept(Arrays.asList(result.results));
+        }
+    }
+
+    private ChunkResult applyChunk(List<StatusTransitionRequest> chunk, Set<Long> seen) {
+        StatusTransitionResult[] results = new StatusTransitionResult[chunk.size()];
+
+        // Validate the request itself before touching the database
+        List<Long> orderIds = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            StatusTransitionRequest request = chunk.get(i);
+            if (request.getOrderId() == null || request.getStatus() == null) {
+                results[i] = failure(request, "Order ID and status are required");
+            } else if (!seen.add(request.getOrderId())) {
+                results[i] = failure(request, "Duplicate transition for order " + request.getOrderId());
+            } else {
+                orderIds.add(request.getOrderId());
+            }
+        }
+
+        Map<Long, OrderStatusView> orders = orderIds.isEmpty()
+                ? new LinkedHashMap<>()
+                : orderRepository.lockStatusViews(orderIds).stream()
+                        .collect(Collectors.toMap(OrderStatusView::getOrderId, Function.identity()));
+
+        // Check each transition against the locked current status
+        Map<OrderStatus, Map<OrderStatus, List<Long>>> updates = new EnumMap<>(OrderStatus.class);
+        List<Integer> cancellations = new ArrayList<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            if (results[i] != null) {
+                continue;
+            }
+            StatusTransitionRequest request = chunk.get(i);
+            OrderStatusView order = orders.get(request.getOrderId());
+            if (order == null) {
+                results[i] = failure(request, "Order not found with ID: " + request.getOrderId());
+            } else if (order.getStatus() == request.getStatus()) {
+                results[i] = new StatusTransitionResult(order.getOrderId(), order.getStatus().name(), true,
+                        "Already " + order.getStatus());
+            } else if (!order.getStatus().canTransitionTo(request.getStatus())) {
+                results[i] = new StatusTransitionResult(order.getOrderId(), order.getStatus().name(), false,
+                        "Cannot change status from " + order.getStatus() + " to " + request.getStatus());
+            } else {
+                if (request.getStatus() == OrderStatus.CANCELLED) {
+                    cancellations.add(i);
+                }
+                addUpdate(updates, order, request.getStatus());
+                results[i] = success(order, request.getStatus());
+            }
+        }
+
+        updates.forEach((from, byTarget) -> byTarget.forEach((to, ids) -> {
+            int updated = orderRepository.updateStatus(ids, from, to);
+            log.info("Changed status of {} orders from {} to {}", updated, from, to);
+        }));
+        return new ChunkResult(chunk, results, orders, cancellations);
+    }
+
+    /**
+     * Release the stock of the chunk's cancelled orders, once the chunk has
+     * committed, and put those whose release failed back to their previous
+     * status. Inventory Service applies a release once per order reference,
+     * so retrying a cancellation whose response was lost does not put the
+     * stock back twice.
+     */
+    private void releaseStock(ChunkResult chunk) {
+        if (chunk.cancellations.isEmpty()) {
+            return;
+        }
+        List<StockReleaseRequest> releases = new ArrayList<>(chunk.cancellations.size());
+        for (Integer i : chunk.cancellations) {
+            OrderStatusView order = chunk.orders.get(chunk.requests.get(i).getOrderId());
+            releases.add(new StockReleaseRequest(order.getProductId(), order.getQuantity(),
+                    OrderService.parseAllocations(order.getReservedAllocations()), order.getOrderRef()));
+        }
+
+        List<InventoryUpdateResponse> responses;
+        try {
+            responses = inventoryClient.releaseInventory(releases);
+        } catch (RuntimeException e) {
+            log.error("Failed to release stock of {} cancelled orders: {}", releases.size(), e.getMessage());
+            responses = Collections.nCopies(releases.size(),
+                    new InventoryUpdateResponse(false, e.getMessage(), null, null, null, null));
+        }
+
+        Map<OrderStatus, List<Long>> reverts = new EnumMap<>(OrderStatus.class);
+        for (int j = 0; j < chunk.cancellations.size(); j++) {
+            int i = chunk.cancellations.get(j);
+            OrderStatusView order = chunk.orders.get(chunk.requests.get(i).getOrderId());
+            InventoryUpdateResponse response = j < responses.size() ? responses.get(j) : null;
+            if (response == null || !response.isSuccess()) {
+                reverts.computeIfAbsent(order.getStatus(), from -> new ArrayList<>()).add(order.getOrderId());
+                chunk.results[i] = new StatusTransitionResult(order.getOrderId(),
+                        order.getStatus().name(), false,
+                        "Stock release failed: " + (response != null ? response.getMessage() : "no response"));
+            }
+        }
+        if (!reverts.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status -> reverts.forEach((to, ids) -> {
+                int reverted = orderRepository.updateStatus(ids, OrderStatus.CANCELLED, to);
+                log.warn("Put {} orders back to {}: their stock could not be released", reverted, to);
+            }));
+        }
+    }
+
+    private static void addUpdate(Map<OrderStatus, Map<OrderStatus, List<Long>>> updates,
+                                  OrderStatusView order, OrderStatus to) {
+        updates.computeIfAbsent(order.getStatus(), from -> new EnumMap<>(OrderStatus.class))
+                .computeIfAbsent(to, target -> new ArrayList<>())
+                .add(order.getOrderId());
+    }
+
+    private static StatusTransitionResult success(OrderStatusView order, OrderStatus to) {
+        return new StatusTransitionResult(order.getOrderId(), to.name(), true, null);
+    }
+
+    private static StatusTransitionResult failure(StatusTransitionRequest request, String message) {
+        return new StatusTransitionResult(request.getOrderId(), null, false, message);
+    }
+
+    // A committed chunk: its requests and results, and the indexes of the cancellations
+    @RequiredArgsConstructor
+    private static class ChunkResult {
+        private final List<StatusTransitionRequest> requests;
+        private final StatusTransitionResult[] results;
+        private final Map<Long, OrderStatusView> orders;
+        private final List<Integer> cancellations;
+    }
+}
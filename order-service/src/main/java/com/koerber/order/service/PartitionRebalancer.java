@@ -0,0 +1,183 @@
+package com.koerber.order.service;
+
+import com.koerber.order.client.ConsistentHashRing;
+import com.koerber.order.client.InventoryClient;
+import com.koerber.order.datasource.DataSourceRouting;
+import com.koerber.order.dto.PartitionHandoffDTO;
+import com.koerber.order.dto.RebalanceResponse;
+import com.koerber.order.entity.PartitionRing;
+import com.koerber.order.repository.PartitionRingRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Adds and removes inventory partitions and hands products off between them.
+ * Every product the target ring assigns to another partition is exported
+ * from the partition the current ring routes it to (which fences it),
+ * imported on its new owner, replacing any copy the owner already had, and
+ * dropped from every other partition once routing has switched to the new
+ * ring. Reservation records travel with the batches; products with active
+ * holds are not moved. A failed run can simply be repeated: imports
+ * overwrite and exports re-fence.
+ * <p>
+ * Every routing switch is stored with an increasing epoch in the
+ * partition_ring table, and the stored ring replaces the configured URLs on
+ * startup, so a restart keeps routing to the partitions products were
+ * handed off to.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PartitionRebalancer {
+
+    private final InventoryClient inventoryClient;
+    private final PartitionRingRepository partitionRingRepository;
+
+    private long epoch;
+
+    /**
+     * Route to the partitions stored by the last handoff, if there was one
+     */
+    @PostConstruct
+    public synchronized void restoreRing() {
+        Optional<PartitionRing> stored = DataSourceRouting.onPrimary(
+                () -> partitionRingRepository.findById(PartitionRing.CURRENT));
+        if (!stored.isPresent()) {
+            log.info("No stored partition ring; routing to the configured partitions");
+            return;
+        }
+        List<String> partitions = Arrays.asList(stored.get().getPartitions().split(","));
+        inventoryClient.setRing(inventoryClient.getRing().withNodes(partitions));
+        epoch = stored.get().getEpoch();
+        log.info("Restored partition ring epoch {}: {}", epoch, partitions);
+    }
+
+    public long getEpoch() {
+        return epoch;
+    }
+
+    public List<String> getPartitions() {
+        return inventoryClient.getRing().getNodes();
+    }
+
+    public synchronized RebalanceResponse addPartition(String baseUrl) {
+        return rebalance(inventoryClient.getRing().withNode(baseUrl));
+    }
+
+    public synchronized RebalanceResponse removePartition(String baseUrl) {
+        ConsistentHashRing target = inventoryClient.getRing().withoutNode(baseUrl);
+        if (target.getNodes().isEmpty()) {
+            throw new IllegalArgumentException("Cannot remove the last inventory partition");
+        }
+        return rebalance(target);
+    }
+
+    /**
+     * Re-run the handoff for the current ring, e.g. after a failed run or when
+     * several partitions started with the same seed data
+     * @return Summary of the handoff
+     */
+    public synchronized RebalanceResponse rebalance() {
+        return rebalance(inventoryClient.getRing());
+    }
+
+    /**
+     * Move every product to the partition the target ring assigns it to.
+     * Every instance starts with the same seed data, so a product can be held
+     * by several partitions; only the copy on the partition the current ring
+     * routes it to has seen its reservations, and that copy is handed off.
+     * @param target Ring to switch to
+     * @return Summary of the handoff
+     * @throws IllegalStateException if a product to hand off or drop has an active hold
+     */
+    public synchronized RebalanceResponse rebalance(ConsistentHashRing target) {
+        ConsistentHashRing current = inventoryClient.getRing();
+        Set<String> partitions = new LinkedHashSet<>(current.getNodes());
+        partitions.addAll(target.getNodes());
+
+        Map<Long, List<String>> holders = new TreeMap<>();
+        for (String partition : partitions) {
+            for (Long productId : inventoryClient.getPartitionProducts(partition)) {
+                holders.computeIfAbsent(productId, key -> new ArrayList<>()).add(partition);
+            }
+        }
+
+        Map<String, Map<String, List<Long>>> toMove = new LinkedHashMap<>();
+        Map<String, List<Long>> toDrop = new LinkedHashMap<>();
+        for (Map.Entry<Long, List<String>> entry : holders.entrySet()) {
+            Long productId = entry.getKey();
+            String owner = target.nodeFor(productId);
+            String source = sourceOf(productId, entry.getValue(), current, owner);
+            if (!source.equals(owner)) {
+                toMove.computeIfAbsent(source, key -> new LinkedHashMap<>())
+                        .computeIfAbsent(owner, key -> new ArrayList<>()).add(productId);
+            }
+            for (String holder : entry.getValue()) {
+                if (!holder.equals(owner)) {
+                    toDrop.computeIfAbsent(holder, key -> new ArrayList<>()).add(productId);
+                }
+            }
+        }
+
+        // Hold IDs are only unique within a partition, so held products stay where they are
+        for (Map.Entry<String, List<Long>> drop : toDrop.entrySet()) {
+            List<Long> held = new ArrayList<>(inventoryClient.getPartitionHeldProducts(drop.getKey()));
+            held.retainAll(drop.getValue());
+            if (!held.isEmpty()) {
+                throw new IllegalStateException("Products " + held + " have active holds on " + drop.getKey()
+                        + "; confirm or release them before rebalancing");
+            }
+        }
+
+        int moved = 0;
+        for (Map.Entry<String, Map<String, List<Long>>> fromSource : toMove.entrySet()) {
+            String source = fromSource.getKey();
+            for (Map.Entry<String, List<Long>> move : fromSource.getValue().entrySet()) {
+                PartitionHandoffDTO handoff = inventoryClient.exportPartitionProducts(source, move.getValue());
+                inventoryClient.importPartitionProducts(move.getKey(), handoff);
+                moved += move.getValue().size();
+                log.info("Handed off {} products from {} to {}", move.getValue().size(), source, move.getKey());
+            }
+        }
+
+        // Store the ring before routing to it, so a restart never goes back to partitions that are being dropped
+        partitionRingRepository.save(new PartitionRing(PartitionRing.CURRENT, epoch + 1,
+                String.join(",", target.getNodes()), LocalDateTime.now()));
+        epoch++;
+        inventoryClient.setRing(target);
+        log.info("Inventory routing switched to partitions {} (epoch {})", target.getNodes(), epoch);
+
+        int dropped = 0;
+        for (Map.Entry<String, List<Long>> drop : toDrop.entrySet()) {
+            inventoryClient.dropPartitionProducts(drop.getKey(), drop.getValue());
+            dropped += drop.getValue().size();
+        }
+
+        return new RebalanceResponse(target.getNodes(), epoch, moved, dropped);
+    }
+
+    /**
+     * The partition whose copy of a product is handed off: the one clients
+     * reserve it from today, else the new owner if it already holds it
+     */
+    private String sourceOf(Long productId, List<String> holders, ConsistentHashRing current, String owner) {
+        String routed = current.nodeFor(productId);
+        if (holders.contains(routed)) {
+            return routed;
+        }
+        return holders.contains(owner) ? owner : holders.get(0);
+    }
+}
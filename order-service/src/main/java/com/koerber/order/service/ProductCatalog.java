@@ -0,0 +1,99 @@
+package com.koerber.order.service;
+
+import com.koerber.order.datasource.DataSourceRouting;
+import com.koerber.order.entity.Product;
+import com.koerber.order.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * In-memory copy of the product table, so order responses get product
+ * names without reading the database or calling Inventory Service. Names
+ * are learned from the inventory checks orders already make. They are
+ * interned: products sharing a name share one String, and each name is
+ * held once however many orders or responses refer to it.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProductCatalog {
+
+    private final ProductRepository productRepository;
+
+    private final ConcurrentMap<Long, String> names = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, String> namePool = new ConcurrentHashMap<>();
+
+    /**
+     * Load every product once, so lookups after startup stay in memory
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        for (Product product : DataSourceRouting.onPrimary(productRepository::findAll)) {
+            names.put(product.getProductId(), intern(product.getProductName()));
+        }
+        log.info("Product catalog loaded: {} products, {} distinct names", names.size(), namePool.size());
+    }
+
+    /**
+     * Get a product's name, reading the product table only on a cache miss
+     * @param productId Product ID
+     * @return Product name, or null for an unknown product
+     */
+    public String getName(Long productId) {
+        String name = names.get(productId);
+        if (name != null) {
+            return name;
+        }
+        Optional<Product> product = productRepository.findById(productId);
+        if (!product.isPresent()) {
+            return null;
+        }
+        name = intern(product.get().getProductName());
+        String existing = names.putIfAbsent(productId, name);
+        return existing != null ? existing : name;
+    }
+
+    /**
+     * Store a product's name if it is new or changed. The name is written
+     * once the caller's transaction commits, in a transaction of its own, so
+     * a failed or racing catalog write can never fail or roll back the
+     * caller's work; it is only logged.
+     * @param productId Product ID
+     * @param productName Product name; null or blank names are ignored
+     */
+    public void register(Long productId, String productName) {
+        if (productName == null || productName.trim().isEmpty() || productName.equals(getName(productId))) {
+            return;
+        }
+        String name = intern(productName);
+        TransactionHooks.afterCommit(() -> store(productId, name));
+    }
+
+    private void store(Long productId, String name) {
+        try {
+            productRepository.upsert(productId, name);
+            names.put(productId, name);
+        } catch (RuntimeException e) {
+            log.warn("Could not store the name of product {}: {}", productId, e.getMessage());
+        }
+    }
+
+    /**
+     * @return Number of cached products
+     */
+    public int size() {
+        return names.size();
+    }
+
+    private String intern(String name) {
+        String existing = namePool.putIfAbsent(name, name);
+        return existing != null ? existing : name;
+    }
+}
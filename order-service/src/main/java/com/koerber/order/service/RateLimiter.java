@@ -0,0 +1,162 @@
+package com.koerber.order.service;
+
+import com.koerber.order.dto.ClientRateLimitStats;
+import com.koerber.order.dto.RateLimitConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Per-client admission control with one token bucket per client.
+ * Clients identify themselves with the X-Client-Id header; requests without
+ * it are limited per remote address. Limits can be replaced at runtime.
+ */
+@Component
+@Slf4j
+public class RateLimiter {
+
+    public static final String CLIENT_ID_HEADER = "X-Client-Id";
+
+    // Idle clients are forgotten once this many are tracked
+    private static final int MAX_TRACKED_CLIENTS = 10_000;
+    private static final long IDLE_NANOS = TimeUnit.MINUTES.toNanos(10);
+
+    private final ConcurrentMap<String, ClientState> clients = new ConcurrentHashMap<>();
+    private volatile RateLimitConfig config;
+
+    public RateLimiter(RateLimitConfig rateLimitConfig) {
+        validate(rateLimitConfig);
+        this.config = rateLimitConfig;
+    }
+
+    /**
+     * Identify the client of a request
+     * @param request HTTP request
+     * @return Client ID from the header, or "ip:" and the remote address
+     */
+    public static String clientIdOf(HttpServletRequest request) {
+        String clientId = request.getHeader(CLIENT_ID_HEADER);
+        if (clientId != null && !clientId.trim().isEmpty()) {
+            return clientId.trim();
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    /**
+     * Admit a request from a client if its bucket has a token
+     * @param clientId Client ID
+     * @return 0 if admitted, otherwise the seconds to wait before retrying
+     */
+    public long tryAcquire(String clientId) {
+        RateLimitConfig current = config;
+        if (!current.isEnabled()) {
+            return 0;
+        }
+
+        long now = System.nanoTime();
+        if (clients.size() >= MAX_TRACKED_CLIENTS) {
+            evictIdleClients(now);
+        }
+        ClientState state = clients.computeIfAbsent(clientId, id -> newClientState(id, current, now));
+        state.lastSeenNanos = now;
+
+        long waitNanos = state.bucket.tryAcquire(now);
+        if (waitNanos == 0) {
+            state.accepted.incrementAndGet();
+            return 0;
+        }
+        state.rejected.incrementAndGet();
+        return Math.max(1, (long) Math.ceil(waitNanos / (double) TimeUnit.SECONDS.toNanos(1)));
+    }
+
+    public RateLimitConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * Replace the limits. Known clients keep their counts and accumulated tokens.
+     * @param newConfig New settings
+     * @throws IllegalArgumentException if the settings are inconsistent
+     */
+    public void reload(RateLimitConfig newConfig) {
+        validate(newConfig);
+        this.config = newConfig;
+        long now = System.nanoTime();
+        for (ClientState state : clients.values()) {
+            state.tier = tierNameOf(state.clientId, newConfig);
+            RateLimitConfig.Tier tier = newConfig.getTiers().get(state.tier);
+            state.bucket.reconfigure(tier.getRequestsPerSecond(), tier.getBurst(), now);
+        }
+        log.info("Rate limits reloaded: {} tiers, {} named clients, enabled={}",
+                newConfig.getTiers().size(), newConfig.getClients().size(), newConfig.isEnabled());
+    }
+
+    /**
+     * @return Accepted and rejected counts per client
+     */
+    public List<ClientRateLimitStats> getClientStats() {
+        return clients.values().stream()
+                .map(state -> new ClientRateLimitStats(state.clientId, state.tier,
+                        state.accepted.get(), state.rejected.get()))
+                .sorted(Comparator.comparing(ClientRateLimitStats::getClientId))
+                .collect(Collectors.toList());
+    }
+
+    private ClientState newClientState(String clientId, RateLimitConfig current, long now) {
+        String tierName = tierNameOf(clientId, current);
+        RateLimitConfig.Tier tier = current.getTiers().get(tierName);
+        return new ClientState(clientId, tierName, new TokenBucket(tier.getRequestsPerSecond(), tier.getBurst(), now));
+    }
+
+    private static String tierNameOf(String clientId, RateLimitConfig current) {
+        return current.getClients().getOrDefault(clientId, current.getDefaultTier());
+    }
+
+    private void evictIdleClients(long now) {
+        clients.values().removeIf(state -> now - state.lastSeenNanos > IDLE_NANOS);
+    }
+
+    private static void validate(RateLimitConfig config) {
+        Map<String, RateLimitConfig.Tier> tiers = config.getTiers();
+        if (tiers == null || !tiers.containsKey(config.getDefaultTier())) {
+            throw new IllegalArgumentException("Default tier is not defined: " + config.getDefaultTier());
+        }
+        tiers.forEach((name, tier) -> {
+            if (tier.getRequestsPerSecond() <= 0 || tier.getBurst() < 1) {
+                throw new IllegalArgumentException("Tier " + name + " needs a positive rate and a burst of at least 1");
+            }
+        });
+        if (config.getClients() == null) {
+            throw new IllegalArgumentException("Client tier map is required");
+        }
+        config.getClients().forEach((client, tier) -> {
+            if (!tiers.containsKey(tier)) {
+                throw new IllegalArgumentException("Client " + client + " uses undefined tier " + tier);
+            }
+        });
+    }
+
+    private static class ClientState {
+        private final String clientId;
+        private final TokenBucket bucket;
+        private final AtomicLong accepted = new AtomicLong();
+        private final AtomicLong rejected = new AtomicLong();
+        private volatile String tier;
+        private volatile long lastSeenNanos;
+
+        private ClientState(String clientId, String tier, TokenBucket bucket) {
+            this.clientId = clientId;
+            this.tier = tier;
+            this.bucket = bucket;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.koerber.order.service;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deadline of the request being handled on the current thread.
+ * The remaining time budget is passed on to Inventory Service in the
+ * X-Request-Timeout-Ms header, so the deadline does not depend on clocks
+ * being in sync across services.
+ */
+public final class RequestDeadline {
+
+    public static final String HEADER = "X-Request-Timeout-Ms";
+
+    private static final ThreadLocal<Long> DEADLINE_NANOS = new ThreadLocal<>();
+
+    private RequestDeadline() {
+    }
+
+    /**
+     * Start a deadline for the current thread
+     * @param timeoutMillis Time budget from now, in milliseconds
+     */
+    public static void start(long timeoutMillis) {
+        DEADLINE_NANOS.set(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis));
+    }
+
+    /**
+     * @return Deadline in {@link System#nanoTime()} terms, or null if none is set
+     */
+    public static Long get() {
+        return DEADLINE_NANOS.get();
+    }
+
+    /**
+     * Set or clear the deadline, e.g. to hand it over to another thread
+     * @param deadlineNanos Deadline from {@link #get()}, or null
+     */
+    public static void set(Long deadlineNanos) {
+        if (deadlineNanos == null) {
+            DEADLINE_NANOS.remove();
+        } else {
+            DEADLINE_NANOS.set(deadlineNanos);
+        }
+    }
+
+    public static void clear() {
+        DEADLINE_NANOS.remove();
+    }
+
+    /**
+     * @return Milliseconds left before the current deadline (negative once it
+     * has passed), or null if none is set
+     */
+    public static Long remainingMillis() {
+        Long deadlineNanos = DEADLINE_NANOS.get();
+        if (deadlineNanos == null) {
+            return null;
+        }
+        return TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime());
+    }
+
+    /**
+     * @param deadlineNanos Deadline from {@link #get()}, or null
+     * @return Whether the deadline has passed; never true without a deadline
+     */
+    public static boolean isExpired(Long deadlineNanos) {
+        return deadlineNanos != null && System.nanoTime() - deadlineNanos >= 0;
+    }
+
+    /**
+     * Drop the current request if its deadline has passed
+     * @param stage What was about to be done, for the error message
+     * @throws DeadlineExceededException if the deadline has passed
+     */
+    public static void check(String stage) {
+        if (isExpired(DEADLINE_NANOS.get())) {
+            throw new DeadlineExceededException("Deadline exceeded before " + stage);
+        }
+    }
+}
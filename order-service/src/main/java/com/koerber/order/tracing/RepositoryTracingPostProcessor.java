@@ -0,0 +1,47 @@
+package com.koerber.order.tracing;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+
+/**
+ * Adds a span around every Spring Data repository call, named after the
+ * repository interface and method, e.g. OrderRepository.findByProductId
+ */
+public class RepositoryTracingPostProcessor implements BeanPostProcessor {
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        // Runs before the factory bean creates its repository proxy
+        if (bean instanceof RepositoryFactoryBeanSupport) {
+            ((RepositoryFactoryBeanSupport<?, ?, ?>) bean).addRepositoryFactoryCustomizer(factory ->
+                    factory.addRepositoryProxyPostProcessor((proxyFactory, repositoryInformation) ->
+                            proxyFactory.addAdvice(new RepositorySpanInterceptor(
+                                    repositoryInformation.getRepositoryInterface().getSimpleName()))));
+        }
+        return bean;
+    }
+
+    private static class RepositorySpanInterceptor implements MethodInterceptor {
+
+        private final String repositoryName;
+
+        RepositorySpanInterceptor(String repositoryName) {
+            this.repositoryName = repositoryName;
+        }
+
+        @Override
+        public Object invoke(MethodInvocation invocation) throws Throwable {
+            Span span = Tracing.startSpan(repositoryName + "." + invocation.getMethod().getName());
+            try {
+                return invocation.proceed();
+            } catch (Throwable e) {
+                span.fail(e);
+                throw e;
+            } finally {
+                span.end();
+            }
+        }
+    }
+}
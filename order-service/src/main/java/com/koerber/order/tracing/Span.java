@@ -0,0 +1,153 @@
+package com.koerber.order.tracing;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A timed operation within a trace. A span is used by one thread at a
+ * time; it may be handed to another thread, e.g. an order worker, but not
+ * shared. Outside a trace {@link #NOOP} is used, which records nothing.
+ */
+public class Span {
+
+    /** Stand-in when no trace is active */
+    public static final Span NOOP = new Span(null, null, "noop", null, null);
+
+    private static final int MAX_STATEMENTS = 20;
+    private static final int MAX_STATEMENT_LENGTH = 1000;
+
+    private final TraceSegment segment;
+    private final Span parent;
+    private final String spanId;
+    private final String parentSpanId;
+    private final long startEpochMicros;
+    private final long startNanos;
+    private String name;
+    private long durationMicros = -1;
+    private final Map<String, String> tags = new LinkedHashMap<>();
+    private List<String> statements;
+    private String error;
+
+    Span(TraceSegment segment, Span parent, String name, String spanId, String parentSpanId) {
+        this.segment = segment;
+        this.parent = parent;
+        this.name = name;
+        this.spanId = spanId;
+        this.parentSpanId = parentSpanId;
+        this.startEpochMicros = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+        this.startNanos = System.nanoTime();
+    }
+
+    public boolean isNoop() {
+        return segment == null;
+    }
+
+    /**
+     * @return Context to pass on to a downstream call, or null for {@link #NOOP}
+     */
+    public TraceContext context() {
+        return isNoop() ? null : new TraceContext(segment.getTraceId(), spanId);
+    }
+
+    public Span tag(String key, Object value) {
+        if (!isNoop()) {
+            tags.put(key, String.valueOf(value));
+        }
+        return this;
+    }
+
+    public void rename(String name) {
+        if (!isNoop()) {
+            this.name = name;
+        }
+    }
+
+    /**
+     * Record a SQL statement run while this span was current
+     * @param sql Statement text
+     */
+    public void addStatement(String sql) {
+        if (isNoop()) {
+            return;
+        }
+        if (statements == null) {
+            statements = new ArrayList<>();
+        }
+        if (statements.size() < MAX_STATEMENTS) {
+            statements.add(sql.length() > MAX_STATEMENT_LENGTH ? sql.substring(0, MAX_STATEMENT_LENGTH) : sql);
+        }
+    }
+
+    /**
+     * Mark the span as failed; a failed span keeps its whole trace
+     * @param message What went wrong
+     */
+    public void fail(String message) {
+        if (!isNoop()) {
+            this.error = message;
+        }
+    }
+
+    public void fail(Throwable e) {
+        fail(e.getClass().getSimpleName() + ": " + e.getMessage());
+    }
+
+    /**
+     * Stop timing and hand the span to its segment. If the span is current,
+     * its parent becomes current again.
+     */
+    public void end() {
+        if (isNoop() || durationMicros >= 0) {
+            return;
+        }
+        durationMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos);
+        if (Tracing.current() == this) {
+            Tracing.set(parent);
+        }
+        segment.finished(this);
+    }
+
+    TraceSegment getSegment() {
+        return segment;
+    }
+
+    public String getTraceId() {
+        return isNoop() ? null : segment.getTraceId();
+    }
+
+    public String getSpanId() {
+        return spanId;
+    }
+
+    public String getParentSpanId() {
+        return parentSpanId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getStartEpochMicros() {
+        return startEpochMicros;
+    }
+
+    public long getDurationMicros() {
+        return durationMicros;
+    }
+
+    public Map<String, String> getTags() {
+        return tags;
+    }
+
+    public List<String> getStatements() {
+        return statements == null ? Collections.emptyList() : statements;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
@@ -0,0 +1,41 @@
+package com.koerber.order.tracing;
+
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+
+/**
+ * Records a client span around each RestTemplate call and passes it to
+ * Inventory Service as the parent in the traceparent header. A call that
+ * fails without a response or gets a 5xx fails the span.
+ */
+public class TracingClientInterceptor implements ClientHttpRequestInterceptor {
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body,
+                                        ClientHttpRequestExecution execution) throws IOException {
+        Span span = Tracing.startSpan("InventoryClient " + request.getMethod() + " " + request.getURI().getPath());
+        if (span.isNoop()) {
+            return execution.execute(request, body);
+        }
+        span.tag("http.url", request.getURI());
+        request.getHeaders().set(TraceContext.HEADER, span.context().toTraceparent());
+        try {
+            ClientHttpResponse response = execution.execute(request, body);
+            int status = response.getRawStatusCode();
+            span.tag("http.status", status);
+            if (status >= 500) {
+                span.fail("HTTP " + status);
+            }
+            return response;
+        } catch (IOException | RuntimeException e) {
+            span.fail(e);
+            throw e;
+        } finally {
+            span.end();
+        }
+    }
+}
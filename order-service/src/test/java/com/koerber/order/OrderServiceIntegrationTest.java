@@ -1,14 +1,104 @@
 package com.koerber.order;
 
+import com.koerber.order.dto.OrderRequest;
+import com.koerber.order.dto.OrderResponse;
+import com.koerber.order.entity.Order;
+import com.koerber.order.entity.OrderStatus;
+import com.koerber.order.repository.ArchivedOrderRepository;
+import com.koerber.order.repository.OrderRepository;
+import com.koerber.order.service.OrderArchiver;
+import com.koerber.order.service.OrderService;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+import java.time.LocalDate;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "order.archive.enabled=true")
 class OrderServiceIntegrationTest {
 
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ArchivedOrderRepository archivedOrderRepository;
+
+    @Autowired
+    private OrderArchiver orderArchiver;
+
+    @Autowired
+    private OrderService orderService;
+
     @Test
     void contextLoads() {
         // This test ensures that the Spring application context loads successfully
     }
-}
 
+    @Test
+    void testArchiveOldDeliveredOrders() {
+        // Arrange
+        LocalDate longAgo = LocalDate.now().minusYears(1);
+        Order delivered = orderRepository.save(
+                new Order(null, 9001L, 1, OrderStatus.DELIVERED, longAgo, "1", null, null, UUID.randomUUID().toString()));
+        Order placed = orderRepository.save(
+                new Order(null, 9001L, 1, OrderStatus.PLACED, longAgo, "2", null, null, UUID.randomUUID().toString()));
+
+        // Act
+        int archived = orderArchiver.archiveOrdersBefore(LocalDate.now().minusDays(90));
+
+        // Assert
+        assertTrue(archived >= 1);
+        assertFalse(orderRepository.existsById(delivered.getOrderId()));
+        assertEquals(delivered.getOrderRef(),
+                archivedOrderRepository.findById(delivered.getOrderId()).get().getOrderRef());
+        assertTrue(orderRepository.existsById(placed.getOrderId()));
+
+        OrderResponse fromArchive = orderService.getOrder(delivered.getOrderId());
+        assertEquals("DELIVERED", fromArchive.getStatus());
+        assertEquals(1, orderService.getOrdersByProduct(9001L, false).size());
+        assertEquals(2, orderService.getOrdersByProduct(9001L, true).size());
+    }
+
+    @Test
+    void testGetOrder_NameFromBackfilledCatalog() {
+        // Act
+        OrderResponse order = orderService.getOrder(1L);
+
+        // Assert
+        assertEquals(1005L, order.getProductId());
+        assertEquals("Smartwatch", order.getProductName());
+    }
+
+    @Test
+    void testCompletePending_OnlyUpdatesPendingOrders() {
+        // Arrange
+        Order pending = orderService.acceptOrder(new OrderRequest(9002L, 1));
+
+        // Act
+        int placed = orderRepository.completePending(pending.getOrderId(), OrderStatus.PENDING, OrderStatus.PLACED,
+                "3", "3:1", null);
+        int again = orderRepository.completePending(pending.getOrderId(), OrderStatus.PENDING, OrderStatus.FAILED,
+                null, null, "Duplicate");
+
+        // Assert
+        assertEquals(1, placed);
+        assertEquals(0, again);
+        Order stored = orderRepository.findById(pending.getOrderId()).get();
+        assertEquals(OrderStatus.PLACED, stored.getStatus());
+        assertEquals("3:1", stored.getReservedAllocations());
+        assertEquals(pending.getOrderRef(), stored.getOrderRef());
+    }
+
+    @Test
+    void testSeedOrders_KeepTheirLegacyOrderRef() {
+        // Act: the seed order may already have been archived
+        String orderRef = orderRepository.findById(1L).map(Order::getOrderRef)
+                .orElseGet(() -> archivedOrderRepository.findById(1L).get().getOrderRef());
+
+        // Assert: reservations made before the column existed were recorded as order-{id}
+        assertEquals("order-1", orderRef);
+    }
+}
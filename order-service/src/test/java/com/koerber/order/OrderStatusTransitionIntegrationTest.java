@@ -0,0 +1,141 @@
+package com.koerber.order;
+
+import com.koerber.order.client.InventoryClient;
+import com.koerber.order.dto.InventoryUpdateResponse;
+import com.koerber.order.dto.StatusTransitionRequest;
+import com.koerber.order.dto.StatusTransitionResult;
+import com.koerber.order.dto.StockReleaseRequest;
+import com.koerber.order.entity.Order;
+import com.koerber.order.entity.OrderStatus;
+import com.koerber.order.repository.OrderRepository;
+import com.koerber.order.service.OrderStatusService;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest(properties = "order.status-transitions.chunk-size=2")
+class OrderStatusTransitionIntegrationTest {
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderStatusService orderStatusService;
+
+    @MockBean
+    private InventoryClient inventoryClient;
+
+    @Test
+    void testApplyTransitions_UpdatesValidOrdersAndReleasesCancelledStock() {
+        // Arrange
+        Order toShip = orderRepository.save(placed(7001L, 5, null));
+        Order toDeliver = orderRepository.save(new Order(null, 7001L, 2, OrderStatus.SHIPPED,
+                LocalDate.now(), "1", null, "1:2", UUID.randomUUID().toString()));
+        Order toCancel = orderRepository.save(placed(7002L, 3, "4:1,5:2"));
+        Order releaseFails = orderRepository.save(placed(7003L, 1, "6:1"));
+        when(inventoryClient.releaseInventory(anyList())).thenReturn(Arrays.asList(
+                new InventoryUpdateResponse(true, "Stock released", null, null, null, null),
+                new InventoryUpdateResponse(false, "Product 7003 is being moved", null, null, null, null)));
+        List<StatusTransitionRequest> requests = Arrays.asList(
+                new StatusTransitionRequest(toShip.getOrderId(), OrderStatus.SHIPPED),
+                new StatusTransitionRequest(toDeliver.getOrderId(), OrderStatus.DELIVERED),
+                new StatusTransitionRequest(toShip.getOrderId(), OrderStatus.CANCELLED),
+                new StatusTransitionRequest(toDeliver.getOrderId() + 10_000, OrderStatus.SHIPPED),
+                new StatusTransitionRequest(toCancel.getOrderId(), OrderStatus.CANCELLED),
+                new StatusTransitionRequest(releaseFails.getOrderId(), OrderStatus.CANCELLED));
+        List<List<StatusTransitionResult>> chunks = new ArrayList<>();
+
+        // Act
+        orderStatusService.applyTransitions(requests, chunks::add);
+
+        // Assert
+        assertEquals(3, chunks.size());
+        List<StatusTransitionResult> results = new ArrayList<>();
+        chunks.forEach(results::addAll);
+        assertTrue(results.get(0).isSuccess());
+        assertTrue(results.get(1).isSuccess());
+        assertFalse(results.get(2).isSuccess(), "duplicate order in one request");
+        assertFalse(results.get(3).isSuccess(), "unknown order");
+        assertTrue(results.get(4).isSuccess());
+        assertFalse(results.get(5).isSuccess());
+        assertEquals("PLACED", results.get(5).getStatus());
+
+        assertEquals(OrderStatus.SHIPPED, orderRepository.findById(toShip.getOrderId()).get().getStatus());
+        assertEquals(OrderStatus.DELIVERED, orderRepository.findById(toDeliver.getOrderId()).get().getStatus());
+        assertEquals(OrderStatus.CANCELLED, orderRepository.findById(toCancel.getOrderId()).get().getStatus());
+        assertEquals(OrderStatus.PLACED, orderRepository.findById(releaseFails.getOrderId()).get().getStatus());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<StockReleaseRequest>> releases = ArgumentCaptor.forClass(List.class);
+        verify(inventoryClient, times(1)).releaseInventory(releases.capture());
+        StockReleaseRequest release = releases.getValue().get(0);
+        assertEquals(7002L, release.getProductId());
+        assertEquals(2, release.getAllocations().get(5L));
+        assertEquals(toCancel.getOrderRef(), release.getOrderRef());
+    }
+
+    @Test
+    void testApplyTransitions_KeepsOtherTransitionsWhenInventoryIsDown() {
+        // Arrange: a cancellation shares its chunk with a shipment, and another chunk follows
+        Order toShip = orderRepository.save(placed(7005L, 1, null));
+        Order toCancel = orderRepository.save(placed(7006L, 2, "7:2"));
+        Order nextChunk = orderRepository.save(placed(7007L, 1, null));
+        when(inventoryClient.releaseInventory(anyList()))
+                .thenThrow(new IllegalStateException("No inventory partitions configured"));
+        List<List<StatusTransitionResult>> chunks = new ArrayList<>();
+
+        // Act
+        orderStatusService.applyTransitions(Arrays.asList(
+                new StatusTransitionRequest(toShip.getOrderId(), OrderStatus.SHIPPED),
+                new StatusTransitionRequest(toCancel.getOrderId(), OrderStatus.CANCELLED),
+                new StatusTransitionRequest(nextChunk.getOrderId(), OrderStatus.SHIPPED)), chunks::add);
+
+        // Assert: only the cancellation failed, and the stream went on to the next chunk
+        assertEquals(2, chunks.size());
+        assertTrue(chunks.get(0).get(0).isSuccess());
+        assertFalse(chunks.get(0).get(1).isSuccess());
+        assertEquals("PLACED", chunks.get(0).get(1).getStatus());
+        assertTrue(chunks.get(1).get(0).isSuccess());
+        assertEquals(OrderStatus.SHIPPED, orderRepository.findById(toShip.getOrderId()).get().getStatus());
+        assertEquals(OrderStatus.PLACED, orderRepository.findById(toCancel.getOrderId()).get().getStatus());
+        assertEquals(OrderStatus.SHIPPED, orderRepository.findById(nextChunk.getOrderId()).get().getStatus());
+    }
+
+    @Test
+    void testApplyTransitions_RejectsIllegalTransition() {
+        // Arrange
+        Order delivered = orderRepository.save(new Order(null, 7004L, 1, OrderStatus.DELIVERED,
+                LocalDate.now(), "1", null, null, UUID.randomUUID().toString()));
+        List<StatusTransitionResult> results = new ArrayList<>();
+
+        // Act
+        orderStatusService.applyTransitions(
+                Collections.singletonList(new StatusTransitionRequest(delivered.getOrderId(), OrderStatus.CANCELLED)),
+                results::addAll);
+
+        // Assert
+        assertFalse(results.get(0).isSuccess());
+        assertEquals("DELIVERED", results.get(0).getStatus());
+        assertEquals(OrderStatus.DELIVERED, orderRepository.findById(delivered.getOrderId()).get().getStatus());
+    }
+
+    private static Order placed(Long productId, int quantity, String allocations) {
+        return new Order(null, productId, quantity, OrderStatus.PLACED, LocalDate.now(), "1", null,
+                allocations, UUID.randomUUID().toString());
+    }
+}
@@ -0,0 +1,91 @@
+package com.koerber.order;
+
+import com.koerber.order.dto.SqlStatementStatsDTO;
+import com.koerber.order.entity.Order;
+import com.koerber.order.entity.OrderStatus;
+import com.koerber.order.profiling.SqlProfiler;
+import com.koerber.order.profiling.SqlRequestScope;
+import com.koerber.order.repository.OrderRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "order.sql-profiler.enabled=true",
+        "order.sql-profiler.slow-threshold-ms=0",
+        "order.sql-profiler.repeat-threshold=3"
+})
+class SqlProfilerIntegrationTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private SqlProfiler sqlProfiler;
+
+    @Test
+    void testGetOrder_ProfilesStatementWithPlan() {
+        // Arrange
+        Order order = orderRepository.save(new Order(null, 9401L, 1, OrderStatus.PLACED,
+                LocalDate.now(), "1", null, null, UUID.randomUUID().toString()));
+        restTemplate.delete(url("/admin/sql-stats"));
+
+        // Act
+        restTemplate.getForObject(url("/order/" + order.getOrderId()), String.class);
+        SqlStatementStatsDTO[] statistics = restTemplate.getForObject(url("/admin/sql-stats"),
+                SqlStatementStatsDTO[].class);
+
+        // Assert
+        SqlStatementStatsDTO lookup = Arrays.stream(statistics)
+                .filter(stats -> stats.getSql().startsWith("select") && stats.getSql().contains("orders"))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("order lookup not profiled"));
+        assertEquals(1, lookup.getCount());
+        assertEquals(1, lookup.getRows());
+        assertNotNull(lookup.getPlan());
+        assertFalse(lookup.getPlan().startsWith("Plan unavailable"), lookup.getPlan());
+    }
+
+    @Test
+    void testRepeatedLookupsInOneRequest_AreCountedAsNPlusOne() {
+        // Arrange
+        Order order = orderRepository.save(new Order(null, 9402L, 1, OrderStatus.PLACED,
+                LocalDate.now(), "1", null, null, UUID.randomUUID().toString()));
+        sqlProfiler.reset();
+        SqlRequestScope scope = SqlRequestScope.open();
+
+        // Act: one transaction per lookup, so each one goes to the database
+        try {
+            for (int i = 0; i < 3; i++) {
+                orderRepository.findById(order.getOrderId());
+            }
+            sqlProfiler.endRequest(scope, "GET /test");
+        } finally {
+            SqlRequestScope.clear();
+        }
+
+        // Assert
+        SqlStatementStatsDTO repeated = sqlProfiler.getStatistics("repeated", 1).get(0);
+        assertEquals(1, repeated.getRepeatedRequests());
+        assertEquals(3, repeated.getMaxPerRequest());
+        assertTrue(repeated.getSql().contains("orders"));
+    }
+
+    private String url(String path) {
+        return "http://localhost:" + port + path;
+    }
+}
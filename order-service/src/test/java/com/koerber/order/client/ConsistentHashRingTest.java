@@ -0,0 +1,63 @@
+package com.koerber.order.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConsistentHashRingTest {
+
+    private static final int PRODUCTS = 100_000;
+
+    @Test
+    void testProductsSpreadEvenly() {
+        // Arrange
+        ConsistentHashRing ring = new ConsistentHashRing(
+                Arrays.asList("http://a:8081", "http://b:8081", "http://c:8081", "http://d:8081"), 128);
+
+        // Act
+        Map<String, Integer> counts = new HashMap<>();
+        for (long productId = 1; productId <= PRODUCTS; productId++) {
+            counts.merge(ring.nodeFor(productId), 1, Integer::sum);
+        }
+
+        // Assert: every partition within 20% of its fair share
+        assertEquals(4, counts.size());
+        for (int count : counts.values()) {
+            assertTrue(Math.abs(count - PRODUCTS / 4) < PRODUCTS / 4 * 0.2, "Uneven share: " + counts);
+        }
+    }
+
+    @Test
+    void testAddingPartitionOnlyMovesProductsToIt() {
+        // Arrange
+        ConsistentHashRing ring = new ConsistentHashRing(
+                Arrays.asList("http://a:8081", "http://b:8081", "http://c:8081"), 128);
+        ConsistentHashRing grown = ring.withNode("http://d:8081");
+
+        // Act
+        int moved = 0;
+        for (long productId = 1; productId <= PRODUCTS; productId++) {
+            String before = ring.nodeFor(productId);
+            String after = grown.nodeFor(productId);
+            if (!before.equals(after)) {
+                assertEquals("http://d:8081", after);
+                moved++;
+            }
+        }
+
+        // Assert: roughly a quarter of the products move
+        assertTrue(moved > PRODUCTS * 0.2 && moved < PRODUCTS * 0.3, "Moved " + moved);
+    }
+
+    @Test
+    void testEmptyRing() {
+        ConsistentHashRing ring = new ConsistentHashRing(Arrays.asList("http://a:8081"), 16)
+                .withoutNode("http://a:8081");
+
+        assertThrows(IllegalStateException.class, () -> ring.nodeFor(1001L));
+    }
+}
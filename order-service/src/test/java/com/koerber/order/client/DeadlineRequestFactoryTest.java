@@ -0,0 +1,28 @@
+package com.koerber.order.client;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeadlineRequestFactoryTest {
+
+    @Test
+    void testBound_UsesConfiguredTimeoutWithoutDeadline() {
+        // Act & Assert
+        assertEquals(5000, DeadlineRequestFactory.bound(5000, null));
+    }
+
+    @Test
+    void testBound_CutsTimeoutToDeadline() {
+        // Act & Assert
+        assertEquals(300, DeadlineRequestFactory.bound(5000, 300L));
+        assertEquals(5000, DeadlineRequestFactory.bound(5000, 60_000L));
+    }
+
+    @Test
+    void testBound_NeverDisablesTimeout() {
+        // Act & Assert: 0 would mean waiting forever
+        assertEquals(1, DeadlineRequestFactory.bound(5000, 0L));
+        assertEquals(1, DeadlineRequestFactory.bound(5000, -20L));
+    }
+}
@@ -0,0 +1,148 @@
+package com.koerber.order.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.koerber.order.dto.InventoryResponse;
+import com.koerber.order.dto.InventoryUpdateRequest;
+import com.koerber.order.dto.SpanDTO;
+import com.koerber.order.service.DeadlineExceededException;
+import com.koerber.order.service.RequestDeadline;
+import com.koerber.order.tracing.Span;
+import com.koerber.order.tracing.TraceContext;
+import com.koerber.order.tracing.TraceExporter;
+import com.koerber.order.tracing.Tracing;
+import com.koerber.order.tracing.TracingClientInterceptor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.SocketTimeoutException;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.*;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+class InventoryClientTest {
+
+    private static final String BODY =
+            "{\"productId\":1001,\"productName\":\"Laptop\",\"batches\":[{\"batchId\":1,\"quantity\":50,\"expiryDate\":\"2026-12-25\"}]}";
+
+    private RestTemplate restTemplate;
+    private MockRestServiceServer server;
+    private InventoryClient inventoryClient;
+
+    @BeforeEach
+    void setUp() {
+        restTemplate = new RestTemplate();
+        server = MockRestServiceServer.bindTo(restTemplate).build();
+        inventoryClient = new InventoryClient(restTemplate, new String[] {"http://inventory"}, 16, 1);
+    }
+
+    @Test
+    void testCheckInventory_RevalidatesWithETag() {
+        // Arrange
+        HttpHeaders etag = new HttpHeaders();
+        etag.setETag("\"v1\"");
+        server.expect(requestTo("http://inventory/inventory/1001"))
+                .andExpect(method(HttpMethod.GET))
+                .andExpect(headerDoesNotExist(HttpHeaders.IF_NONE_MATCH))
+                .andRespond(withSuccess(BODY, MediaType.APPLICATION_JSON).headers(etag));
+        server.expect(requestTo("http://inventory/inventory/1001"))
+                .andExpect(header(HttpHeaders.IF_NONE_MATCH, "\"v1\""))
+                .andRespond(withStatus(HttpStatus.NOT_MODIFIED).headers(etag));
+
+        // Act
+        InventoryResponse first = inventoryClient.checkInventory(1001L);
+        InventoryResponse second = inventoryClient.checkInventory(1001L);
+
+        // Assert
+        server.verify();
+        assertEquals("Laptop", first.getProductName());
+        assertSame(first, second);
+    }
+
+    @Test
+    void testCheckInventory_HotProductStaysCached() {
+        // Arrange: room for one entry, held by hot product 1001
+        inventoryClient.onHotProductsChanged(Collections.singleton(1001L));
+        HttpHeaders etag = new HttpHeaders();
+        etag.setETag("\"v1\"");
+        server.expect(requestTo("http://inventory/inventory/1001"))
+                .andRespond(withSuccess(BODY, MediaType.APPLICATION_JSON).headers(etag));
+        server.expect(requestTo("http://inventory/inventory/1002"))
+                .andRespond(withSuccess(BODY.replace("1001", "1002"), MediaType.APPLICATION_JSON).headers(etag));
+        server.expect(requestTo("http://inventory/inventory/1001"))
+                .andExpect(header(HttpHeaders.IF_NONE_MATCH, "\"v1\""))
+                .andRespond(withStatus(HttpStatus.NOT_MODIFIED).headers(etag));
+
+        // Act
+        InventoryResponse first = inventoryClient.checkInventory(1001L);
+        inventoryClient.checkInventory(1002L);
+        InventoryResponse again = inventoryClient.checkInventory(1001L);
+
+        // Assert: 1002 did not displace the pinned entry
+        server.verify();
+        assertSame(first, again);
+    }
+
+    @Test
+    void testCheckInventory_PassesTraceToInventoryService() {
+        // Arrange: a trace started for POST /order
+        restTemplate.getInterceptors().add(new TracingClientInterceptor());
+        TraceExporter exporter = new TraceExporter(new ObjectMapper(), new SimpleMeterRegistry(), "order-service",
+                true, 0, 0, "", 10, 10);
+        Span root = Tracing.startRoot("POST /order", null, exporter);
+        server.expect(requestTo("http://inventory/inventory/1001"))
+                .andExpect(header(TraceContext.HEADER, startsWith("00-" + root.getTraceId() + "-")))
+                .andRespond(withSuccess(BODY, MediaType.APPLICATION_JSON));
+
+        // Act
+        try {
+            inventoryClient.checkInventory(1001L);
+        } finally {
+            root.end();
+            exporter.shutdown();
+        }
+
+        // Assert: the client span is the parent Inventory Service continues from
+        server.verify();
+        List<SpanDTO> spans = exporter.getTrace(root.getTraceId()).get(0).getSpans();
+        SpanDTO client = spans.stream()
+                .filter(span -> span.getName().equals("InventoryClient GET /inventory/1001"))
+                .findFirst().get();
+        assertEquals(root.getSpanId(), client.getParentSpanId());
+        assertEquals("200", client.getTags().get("http.status"));
+    }
+
+    @Test
+    void testUpdateInventory_TimeoutPastDeadline() {
+        // Arrange: the read timed out because it was cut down to the deadline
+        server.expect(requestTo("http://inventory/inventory/update"))
+                .andRespond(request -> {
+                    try {
+                        Thread.sleep(60);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    throw new SocketTimeoutException("Read timed out");
+                });
+        RequestDeadline.start(50);
+
+        // Act & Assert
+        try {
+            assertThrows(DeadlineExceededException.class, () -> inventoryClient.updateInventory(
+                    new InventoryUpdateRequest(1001L, 5, null, "order-1")));
+        } finally {
+            RequestDeadline.clear();
+        }
+    }
+}
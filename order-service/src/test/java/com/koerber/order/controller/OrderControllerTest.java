@@ -1,19 +1,42 @@
 package com.koerber.order.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.koerber.order.datasource.DataSourceRouting;
 import com.koerber.order.dto.OrderRequest;
 import com.koerber.order.dto.OrderResponse;
+import com.koerber.order.dto.StatusTransitionRequest;
+import com.koerber.order.dto.StatusTransitionResult;
+import com.koerber.order.entity.Order;
+import com.koerber.order.entity.OrderStatus;
+import com.koerber.order.service.AsyncOrderProcessor;
+import com.koerber.order.service.HotProductTracker;
+import com.koerber.order.service.DeadlineExceededException;
+import com.koerber.order.service.OrderMetrics;
 import com.koerber.order.service.OrderService;
+import com.koerber.order.service.OrderStatusService;
+import com.koerber.order.service.RateLimiter;
+import com.koerber.order.service.RequestDeadline;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.time.LocalDate;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -30,6 +53,21 @@ class OrderControllerTest {
     @MockBean
     private OrderService orderService;
 
+    @MockBean
+    private AsyncOrderProcessor asyncOrderProcessor;
+
+    @MockBean
+    private RateLimiter rateLimiter;
+
+    @MockBean
+    private OrderMetrics orderMetrics;
+
+    @MockBean
+    private HotProductTracker hotProductTracker;
+
+    @MockBean
+    private OrderStatusService orderStatusService;
+
     @Test
     void testPlaceOrder_Success() throws Exception {
         // Arrange
@@ -56,7 +94,8 @@ class OrderControllerTest {
                 .andExpect(jsonPath("$.productName").value("Laptop"))
                 .andExpect(jsonPath("$.quantity").value(20))
                 .andExpect(jsonPath("$.status").value("PLACED"))
-                .andExpect(jsonPath("$.message").value("Order placed. Inventory reserved."));
+                .andExpect(jsonPath("$.message").value("Order placed. Inventory reserved."))
+                .andExpect(header().exists(DataSourceRouting.READ_AFTER_HEADER));
     }
 
     @Test
@@ -90,5 +129,151 @@ class OrderControllerTest {
                 .andExpect(status().isInternalServerError())
                 .andExpect(jsonPath("$.message").exists());
     }
-}
 
+    @Test
+    void testPlaceOrder_AsyncAccepted() throws Exception {
+        // Arrange
+        OrderRequest request = new OrderRequest(1001L, 20);
+        Order pending = new Order(100L, 1001L, 20, OrderStatus.PENDING, LocalDate.now(), null, null, null, "ref-100");
+
+        when(asyncOrderProcessor.isEnabled()).thenReturn(true);
+        when(asyncOrderProcessor.hasCapacity()).thenReturn(true);
+        when(orderService.acceptOrder(any(OrderRequest.class))).thenReturn(pending);
+
+        // Act & Assert
+        mockMvc.perform(post("/order")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/order/100"))
+                .andExpect(jsonPath("$.orderId").value(100))
+                .andExpect(jsonPath("$.status").value("PENDING"));
+
+        verify(asyncOrderProcessor).submit(100L);
+        verify(orderService, never()).placeOrder(any());
+    }
+
+    @Test
+    void testPlaceOrder_AsyncQueueFull() throws Exception {
+        // Arrange
+        OrderRequest request = new OrderRequest(1001L, 20);
+
+        when(asyncOrderProcessor.isEnabled()).thenReturn(true);
+        when(asyncOrderProcessor.hasCapacity()).thenReturn(false);
+        when(asyncOrderProcessor.getRetryAfterSeconds()).thenReturn(2L);
+
+        // Act & Assert
+        mockMvc.perform(post("/order")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "2"));
+
+        verify(orderService, never()).acceptOrder(any());
+    }
+
+    @Test
+    void testPlaceOrder_RateLimited() throws Exception {
+        // Arrange
+        OrderRequest request = new OrderRequest(1001L, 20);
+
+        when(rateLimiter.tryAcquire("noisy-client")).thenReturn(5L);
+
+        // Act & Assert
+        mockMvc.perform(post("/order")
+                        .header(RateLimiter.CLIENT_ID_HEADER, "noisy-client")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "5"));
+
+        verify(orderService, never()).placeOrder(any());
+    }
+
+    @Test
+    void testPlaceOrder_DeadlineExceeded() throws Exception {
+        // Arrange
+        OrderRequest request = new OrderRequest(1001L, 20);
+
+        when(orderService.placeOrder(any(OrderRequest.class)))
+                .thenThrow(new DeadlineExceededException("Deadline exceeded before updating inventory"));
+
+        // Act & Assert
+        mockMvc.perform(post("/order")
+                        .header(RequestDeadline.HEADER, "100")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isGatewayTimeout());
+
+        verify(orderMetrics).recordDeadlineExceeded();
+    }
+
+    @Test
+    void testGetOrder_Success() throws Exception {
+        // Arrange
+        OrderResponse response = new OrderResponse(
+                100L, 1001L, "Laptop", 20, "PLACED", Collections.singletonList(1L), null);
+        when(orderService.getOrder(100L)).thenReturn(response);
+
+        // Act & Assert
+        mockMvc.perform(get("/order/100"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("PLACED"))
+                .andExpect(jsonPath("$.reservedFromBatchIds[0]").value(1));
+    }
+
+    @Test
+    void testGetOrder_NotFound() throws Exception {
+        // Arrange
+        when(orderService.getOrder(999L)).thenThrow(new IllegalArgumentException("Order not found"));
+
+        // Act & Assert
+        mockMvc.perform(get("/order/999"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void testGetOrder_WithReadAfterHeader() throws Exception {
+        // Arrange
+        OrderResponse response = new OrderResponse(
+                100L, 1001L, "Laptop", 20, "PLACED", Collections.singletonList(1L), null);
+        when(orderService.getOrder(100L)).thenReturn(response);
+
+        // Act & Assert
+        mockMvc.perform(get("/order/100").header(DataSourceRouting.READ_AFTER_HEADER, "1700000000000"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.orderId").value(100));
+    }
+
+    @Test
+    void testTransitionStatuses_StreamsOneResultPerLine() throws Exception {
+        // Arrange
+        List<StatusTransitionRequest> requests = Arrays.asList(
+                new StatusTransitionRequest(100L, OrderStatus.SHIPPED),
+                new StatusTransitionRequest(101L, OrderStatus.DELIVERED));
+        doAnswer(invocation -> {
+            Consumer<List<StatusTransitionResult>> sink = invocation.getArgument(1);
+            sink.accept(Collections.singletonList(new StatusTransitionResult(100L, "SHIPPED", true, null)));
+            sink.accept(Collections.singletonList(new StatusTransitionResult(101L, "PLACED", false,
+                    "Cannot change status from PLACED to DELIVERED")));
+            return null;
+        }).when(orderStatusService).applyTransitions(any(), any());
+
+        // Act
+        MvcResult result = mockMvc.perform(post("/order/status-transitions")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(requests)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Assert
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(objectMapper.readValue(lines[0], StatusTransitionResult.class).isSuccess());
+        assertFalse(objectMapper.readValue(lines[1], StatusTransitionResult.class).isSuccess());
+    }
+}
@@ -0,0 +1,69 @@
+package com.koerber.order.health;
+
+import com.koerber.order.service.AsyncOrderProcessor;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.health.Status;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SaturationHealthIndicatorTest {
+
+    @Mock
+    private ObjectProvider<HikariDataSource> pools;
+
+    @Mock
+    private HikariDataSource pool;
+
+    @Mock
+    private HikariPoolMXBean mxBean;
+
+    @Mock
+    private AsyncOrderProcessor asyncOrderProcessor;
+
+    private SaturationHealthIndicator saturation;
+
+    @BeforeEach
+    void setUp() {
+        when(pools.iterator()).thenAnswer(invocation -> Collections.singletonList(pool).iterator());
+        when(pool.getHikariPoolMXBean()).thenReturn(mxBean);
+        when(pool.getMaximumPoolSize()).thenReturn(10);
+        when(pool.getPoolName()).thenReturn("order-primary");
+        when(mxBean.getActiveConnections()).thenReturn(2);
+        when(mxBean.getThreadsAwaitingConnection()).thenReturn(0);
+        when(asyncOrderProcessor.isEnabled()).thenReturn(true);
+        when(asyncOrderProcessor.getQueueCapacity()).thenReturn(200);
+        saturation = new SaturationHealthIndicator(pools, asyncOrderProcessor, 0.9, 5, 0.8);
+    }
+
+    @Test
+    void testUpWithShortQueue() {
+        // Arrange
+        when(asyncOrderProcessor.getQueueDepth()).thenReturn(10);
+
+        // Act & Assert
+        assertEquals(Status.UP, saturation.health().getStatus());
+        assertEquals(Status.UP, new StallHealthIndicator(saturation, -1).health().getStatus());
+    }
+
+    @Test
+    void testOutOfServiceWhenQueueNearlyFull() {
+        // Arrange
+        when(asyncOrderProcessor.getQueueDepth()).thenReturn(170);
+
+        // Act & Assert
+        assertEquals(Status.OUT_OF_SERVICE, saturation.health().getStatus());
+        assertEquals(Status.UP, new StallHealthIndicator(saturation, 60000).health().getStatus());
+        assertEquals(Status.DOWN, new StallHealthIndicator(saturation, -1).health().getStatus());
+    }
+}
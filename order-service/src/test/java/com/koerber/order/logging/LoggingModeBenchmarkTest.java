@@ -0,0 +1,151 @@
+package com.koerber.order.logging;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.FileAppender;
+import ch.qos.logback.core.encoder.Encoder;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.MDC;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares the logging cost per order request with the production logging
+ * mode (async JSON appender, hot-path lines sampled) and without it
+ * (synchronous pattern output, as on the console).
+ */
+@Slf4j
+class LoggingModeBenchmarkTest {
+
+    private static final int WARMUP_REQUESTS = 5_000;
+    private static final int MEASURED_REQUESTS = 20_000;
+
+    private static final String ORDER_SERVICE = "com.koerber.order.service.OrderService";
+    private static final String INVENTORY_CLIENT = "com.koerber.order.client.InventoryClient";
+
+    @TempDir
+    Path logDir;
+
+    @Test
+    void testProductionModeCheaperPerRequest() {
+        long plainNanos = nanosPerRequest(plainContext(logDir.resolve("plain.log")));
+        long productionNanos = nanosPerRequest(productionContext(logDir.resolve("production.log"), 0.1));
+
+        log.info("Logging per order request: plain={} ns, production={} ns", plainNanos, productionNanos);
+
+        assertTrue(productionNanos < plainNanos, "Production mode should cost the request thread less, but took "
+                + productionNanos + " ns against " + plainNanos + " ns");
+    }
+
+    @Test
+    void testProductionModeWritesJsonLines() throws Exception {
+        // Arrange
+        Path file = logDir.resolve("json.log");
+        LoggerContext context = productionContext(file, 0.0);
+
+        // Act
+        MDC.put("traceId", "4bf92f3577b34da6a3ce929d0e0e4736");
+        try {
+            context.getLogger(ORDER_SERVICE).info("Placing order for product ID: {}", 1001L);
+            context.getLogger(ORDER_SERVICE).warn("Order {} failed: \"{}\"", 42L, "Insufficient\ninventory");
+        } finally {
+            MDC.clear();
+        }
+        context.stop();
+
+        // Assert: the sampled INFO line is gone, the warning is kept and escaped
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(1, lines.size());
+        JsonNode json = new ObjectMapper().readTree(lines.get(0));
+        assertEquals("WARN", json.get("level").asText());
+        assertEquals(ORDER_SERVICE, json.get("logger").asText());
+        assertEquals("Order 42 failed: \"Insufficient\ninventory\"", json.get("message").asText());
+        assertEquals("4bf92f3577b34da6a3ce929d0e0e4736", json.get("traceId").asText());
+    }
+
+    // The lines one synchronous order logs on the request thread
+    private static long nanosPerRequest(LoggerContext context) {
+        Logger orderService = context.getLogger(ORDER_SERVICE);
+        Logger inventoryClient = context.getLogger(INVENTORY_CLIENT);
+        for (int i = 0; i < WARMUP_REQUESTS; i++) {
+            logRequest(orderService, inventoryClient, i);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_REQUESTS; i++) {
+            logRequest(orderService, inventoryClient, i);
+        }
+        long nanos = (System.nanoTime() - start) / MEASURED_REQUESTS;
+        context.stop();
+        return nanos;
+    }
+
+    private static void logRequest(Logger orderService, Logger inventoryClient, long orderId) {
+        MDC.put("traceId", "4bf92f3577b34da6a3ce929d0e0e4736");
+        MDC.put("spanId", "00f067aa0ba902b7");
+        try {
+            orderService.info("Placing order for product ID: {} with quantity: {}", 1001L, 5);
+            inventoryClient.info("Checking inventory for product {} at {}", 1001L, "http://localhost:8081");
+            inventoryClient.info("Updating inventory at {}", "http://localhost:8081/inventory/update");
+            orderService.info("Order created successfully with ID: {}", orderId);
+        } finally {
+            MDC.clear();
+        }
+    }
+
+    private static LoggerContext plainContext(Path file) {
+        LoggerContext context = new LoggerContext();
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern("%d{yyyy-MM-dd HH:mm:ss.SSS} %5p [%X{traceId:-},%X{spanId:-}] --- [%t] %-40.40logger{39} : %m%n");
+        encoder.start();
+        context.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME).addAppender(fileAppender(context, file, encoder));
+        context.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME).setLevel(Level.INFO);
+        return context;
+    }
+
+    private static LoggerContext productionContext(Path file, double sampleRate) {
+        LoggerContext context = new LoggerContext();
+        LogSamplingFilter filter = new LogSamplingFilter();
+        filter.setSampledLoggers(ORDER_SERVICE + "," + INVENTORY_CLIENT);
+        filter.setSampleRate(sampleRate);
+        filter.setContext(context);
+        filter.start();
+        context.addTurboFilter(filter);
+
+        JsonLogEncoder encoder = new JsonLogEncoder();
+        encoder.setContext(context);
+        encoder.start();
+        AsyncAppender async = new AsyncAppender();
+        async.setName(LoggingMetrics.ASYNC_APPENDER);
+        async.setContext(context);
+        async.setQueueSize(8192);
+        async.setNeverBlock(true);
+        async.addAppender(fileAppender(context, file, encoder));
+        async.start();
+        context.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME).addAppender(async);
+        context.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME).setLevel(Level.INFO);
+        return context;
+    }
+
+    private static FileAppender<ILoggingEvent> fileAppender(LoggerContext context, Path file,
+                                                            Encoder<ILoggingEvent> encoder) {
+        FileAppender<ILoggingEvent> appender = new FileAppender<>();
+        appender.setContext(context);
+        appender.setFile(file.toString());
+        appender.setEncoder(encoder);
+        appender.start();
+        return appender;
+    }
+}
@@ -2,20 +2,31 @@ package com.koerber.order.service;
 
 import com.koerber.order.client.InventoryClient;
 import com.koerber.order.dto.*;
+import com.koerber.order.entity.ArchivedOrder;
 import com.koerber.order.entity.Order;
 import com.koerber.order.entity.OrderStatus;
+import com.koerber.order.jfr.OrderPlacedEvent;
+import com.koerber.order.repository.ArchivedOrderRepository;
 import com.koerber.order.repository.OrderRepository;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -27,9 +38,15 @@ class OrderServiceTest {
     @Mock
     private OrderRepository orderRepository;
 
+    @Mock
+    private ArchivedOrderRepository archivedOrderRepository;
+
     @Mock
     private InventoryClient inventoryClient;
 
+    @Mock
+    private ProductCatalog productCatalog;
+
     @InjectMocks
     private OrderService orderService;
 
@@ -63,7 +80,6 @@ class OrderServiceTest {
         Order savedOrder = new Order();
         savedOrder.setOrderId(100L);
         savedOrder.setProductId(1001L);
-        savedOrder.setProductName("Laptop");
         savedOrder.setQuantity(20);
         savedOrder.setStatus(OrderStatus.PLACED);
         savedOrder.setOrderDate(LocalDate.now());
@@ -145,5 +161,183 @@ class OrderServiceTest {
         verify(inventoryClient, times(1)).updateInventory(any());
         verify(orderRepository, never()).save(any());
     }
-}
 
+    @Test
+    void testAcceptOrder_InvalidQuantity() {
+        // Arrange
+        OrderRequest request = new OrderRequest(1001L, 0);
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> {
+            orderService.acceptOrder(request);
+        });
+
+        verify(orderRepository, never()).save(any());
+    }
+
+    @Test
+    void testProcessPendingOrder_Success() {
+        // Arrange
+        Order pending = new Order(100L, 1001L, 20, OrderStatus.PENDING, LocalDate.now(), null, null, null, "ref-100");
+
+        when(orderRepository.findById(100L)).thenReturn(Optional.of(pending));
+        when(inventoryClient.checkInventory(1001L)).thenReturn(inventoryResponse);
+        when(inventoryClient.updateInventory(any(InventoryUpdateRequest.class)))
+                .thenReturn(inventoryUpdateResponse);
+
+        // Act
+        orderService.processPendingOrder(100L);
+
+        // Assert
+        assertEquals(OrderStatus.PLACED, pending.getStatus());
+        verify(productCatalog, times(1)).register(1001L, "Laptop");
+        assertEquals("1", pending.getReservedFromBatchIds());
+        ArgumentCaptor<InventoryUpdateRequest> sent = ArgumentCaptor.forClass(InventoryUpdateRequest.class);
+        verify(inventoryClient).updateInventory(sent.capture());
+        assertEquals("ref-100", sent.getValue().getOrderRef());
+        verify(orderRepository, times(1)).completePending(100L, OrderStatus.PENDING, OrderStatus.PLACED,
+                "1", null, null);
+        verify(orderRepository, never()).save(any());
+    }
+
+    @Test
+    void testProcessPendingOrder_InsufficientInventory() {
+        // Arrange
+        Order pending = new Order(100L, 1001L, 100, OrderStatus.PENDING, LocalDate.now(), null, null, null, "ref-100");
+
+        when(orderRepository.findById(100L)).thenReturn(Optional.of(pending));
+        when(inventoryClient.checkInventory(1001L)).thenReturn(inventoryResponse);
+
+        // Act
+        orderService.processPendingOrder(100L);
+
+        // Assert
+        assertEquals(OrderStatus.FAILED, pending.getStatus());
+        assertTrue(pending.getFailureReason().contains("Insufficient inventory"));
+        verify(inventoryClient, never()).updateInventory(any());
+        verify(orderRepository, times(1)).completePending(eq(100L), eq(OrderStatus.PENDING),
+                eq(OrderStatus.FAILED), isNull(), isNull(), startsWith("Insufficient inventory"));
+    }
+
+    @Test
+    void testProcessPendingOrder_TruncatesFailureReason() {
+        // Arrange: Inventory Service answers with a long error body
+        Order pending = new Order(100L, 1001L, 20, OrderStatus.PENDING, LocalDate.now(), null, null, null, "ref-100");
+        InventoryUpdateResponse rejected = new InventoryUpdateResponse();
+        rejected.setMessage(String.join("", Collections.nCopies(600, "x")));
+
+        when(orderRepository.findById(100L)).thenReturn(Optional.of(pending));
+        when(inventoryClient.checkInventory(1001L)).thenReturn(inventoryResponse);
+        when(inventoryClient.updateInventory(any(InventoryUpdateRequest.class))).thenReturn(rejected);
+
+        // Act
+        orderService.processPendingOrder(100L);
+
+        // Assert
+        assertEquals(OrderStatus.FAILED, pending.getStatus());
+        assertEquals(Order.FAILURE_REASON_LENGTH, pending.getFailureReason().length());
+    }
+
+    @Test
+    void testAcceptOrder_AssignsUniqueOrderRef() {
+        // Arrange
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        Order first = orderService.acceptOrder(new OrderRequest(1001L, 1));
+        Order second = orderService.acceptOrder(new OrderRequest(1001L, 1));
+
+        // Assert: a restart reuses order IDs, so the reference must not be derived from them
+        assertEquals(36, first.getOrderRef().length());
+        assertNotEquals(first.getOrderRef(), second.getOrderRef());
+    }
+
+    @Test
+    void testPlaceOrder_DeadlineExceeded() {
+        // Arrange
+        OrderRequest request = new OrderRequest(1001L, 20);
+        when(inventoryClient.checkInventory(1001L)).thenReturn(inventoryResponse);
+        when(inventoryClient.updateInventory(any(InventoryUpdateRequest.class)))
+                .thenThrow(new DeadlineExceededException("Deadline exceeded during inventory update"));
+
+        // Act & Assert
+        assertThrows(DeadlineExceededException.class, () -> orderService.placeOrder(request));
+        verify(orderRepository, never()).save(any());
+    }
+
+    @Test
+    void testPlaceOrder_RecordsFlightEvent() throws Exception {
+        // Arrange
+        OrderRequest request = new OrderRequest(1001L, 20);
+        when(inventoryClient.checkInventory(1001L)).thenReturn(inventoryResponse);
+        when(inventoryClient.updateInventory(any(InventoryUpdateRequest.class)))
+                .thenReturn(inventoryUpdateResponse);
+        when(orderRepository.save(any(Order.class))).thenReturn(
+                new Order(100L, 1001L, 20, OrderStatus.PLACED, LocalDate.now(), "1", null, null, "ref-100"));
+
+        Path file = Files.createTempFile("order-service-", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(OrderPlacedEvent.class);
+            recording.start();
+
+            // Act
+            orderService.placeOrder(request);
+
+            recording.stop();
+            recording.dump(file);
+
+            // Assert
+            RecordedEvent event = RecordingFile.readAllEvents(file).stream()
+                    .filter(e -> e.getEventType().getName().equals("com.koerber.order.OrderPlaced"))
+                    .findFirst()
+                    .orElseThrow(AssertionError::new);
+            assertEquals(100L, event.getLong("orderId"));
+            assertEquals(1001L, event.getLong("productId"));
+            assertEquals("PLACED", event.getString("outcome"));
+            assertTrue(event.getDuration("inventoryCheckDuration").toNanos() > 0);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    void testGetOrder_FromArchive() {
+        // Arrange
+        ArchivedOrder archived = new ArchivedOrder(5L, 1001L, 2, OrderStatus.DELIVERED,
+                LocalDate.now().minusDays(200), "1,2", null, LocalDateTime.now(), "ref-5");
+
+        when(orderRepository.findById(5L)).thenReturn(Optional.empty());
+        when(archivedOrderRepository.findById(5L)).thenReturn(Optional.of(archived));
+        when(productCatalog.getName(1001L)).thenReturn("Laptop");
+
+        // Act
+        OrderResponse response = orderService.getOrder(5L);
+
+        // Assert
+        assertEquals("DELIVERED", response.getStatus());
+        assertEquals("Laptop", response.getProductName());
+        assertEquals(Arrays.asList(1L, 2L), response.getReservedFromBatchIds());
+    }
+
+    @Test
+    void testGetOrdersByProduct_IncludeArchived() {
+        // Arrange
+        Order hot = new Order(12L, 1001L, 1, OrderStatus.PLACED, LocalDate.now(), "1", null, null, "ref-12");
+        ArchivedOrder cold = new ArchivedOrder(5L, 1001L, 2, OrderStatus.DELIVERED,
+                LocalDate.now().minusDays(200), "1", null, LocalDateTime.now(), "ref-5");
+
+        when(orderRepository.findByProductId(1001L)).thenReturn(Collections.singletonList(hot));
+        when(archivedOrderRepository.findByProductId(1001L)).thenReturn(Collections.singletonList(cold));
+
+        // Act
+        List<OrderResponse> hotOnly = orderService.getOrdersByProduct(1001L, false);
+        List<OrderResponse> both = orderService.getOrdersByProduct(1001L, true);
+
+        // Assert
+        assertEquals(1, hotOnly.size());
+        assertEquals(2, both.size());
+        assertEquals(5L, both.get(0).getOrderId());
+        assertEquals(12L, both.get(1).getOrderId());
+        verify(archivedOrderRepository, times(1)).findByProductId(1001L);
+    }
+}
@@ -0,0 +1,292 @@
+package com.koerber.order.service;
+
+import com.koerber.order.client.ConsistentHashRing;
+import com.koerber.order.client.InventoryClient;
+import com.koerber.order.dto.PartitionBatchDTO;
+import com.koerber.order.dto.PartitionHandoffDTO;
+import com.koerber.order.dto.PartitionReservationDTO;
+import com.koerber.order.dto.RebalanceResponse;
+import com.koerber.order.entity.PartitionRing;
+import com.koerber.order.repository.PartitionRingRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PartitionRebalancerTest {
+
+    private static final String NODE_A = "http://localhost:8081";
+    private static final String NODE_B = "http://localhost:8083";
+    private static final String NODE_C = "http://localhost:8085";
+
+    @Mock
+    private InventoryClient inventoryClient;
+
+    @Mock
+    private PartitionRingRepository partitionRingRepository;
+
+    @InjectMocks
+    private PartitionRebalancer partitionRebalancer;
+
+    @Test
+    void testAddPartition_HandsOffOwnedProducts() {
+        // Arrange
+        ConsistentHashRing ring = new ConsistentHashRing(Collections.singletonList(NODE_A), 128);
+        List<Long> products = LongStream.rangeClosed(1001, 1100).boxed().collect(Collectors.toList());
+        List<Long> movingToB = products.stream()
+                .filter(id -> ring.withNode(NODE_B).nodeFor(id).equals(NODE_B))
+                .collect(Collectors.toList());
+        PartitionHandoffDTO exported = new PartitionHandoffDTO(movingToB, new ArrayList<>(), new ArrayList<>());
+
+        when(inventoryClient.getRing()).thenReturn(ring);
+        when(inventoryClient.getPartitionProducts(NODE_A)).thenReturn(products);
+        when(inventoryClient.getPartitionProducts(NODE_B)).thenReturn(Collections.emptyList());
+        when(inventoryClient.getPartitionHeldProducts(NODE_A)).thenReturn(Collections.emptyList());
+        when(inventoryClient.exportPartitionProducts(NODE_A, movingToB)).thenReturn(exported);
+
+        // Act
+        RebalanceResponse response = partitionRebalancer.addPartition(NODE_B);
+
+        // Assert
+        assertFalse(movingToB.isEmpty());
+        assertEquals(movingToB.size(), response.getMovedProducts());
+        assertEquals(movingToB.size(), response.getDroppedProducts());
+        assertEquals(1L, response.getEpoch());
+
+        InOrder inOrder = inOrder(inventoryClient, partitionRingRepository);
+        inOrder.verify(inventoryClient).exportPartitionProducts(NODE_A, movingToB);
+        inOrder.verify(inventoryClient).importPartitionProducts(NODE_B, exported);
+        ArgumentCaptor<PartitionRing> stored = ArgumentCaptor.forClass(PartitionRing.class);
+        inOrder.verify(partitionRingRepository).save(stored.capture());
+        inOrder.verify(inventoryClient).setRing(any(ConsistentHashRing.class));
+        inOrder.verify(inventoryClient).dropPartitionProducts(NODE_A, movingToB);
+        assertEquals(NODE_A + "," + NODE_B, stored.getValue().getPartitions());
+        assertEquals(1L, stored.getValue().getEpoch());
+    }
+
+    @Test
+    void testAddPartition_KeepsReservedStockOverSeedCopy() {
+        // Arrange: both instances loaded the seed data; only A took reservations
+        ConsistentHashRing ring = new ConsistentHashRing(Collections.singletonList(NODE_A), 128);
+        FakeCluster cluster = new FakeCluster(ring);
+        List<Long> products = LongStream.rangeClosed(1001, 1100).boxed().collect(Collectors.toList());
+        products.forEach(productId -> {
+            cluster.seed(NODE_A, productId, 10);
+            cluster.seed(NODE_B, productId, 10);
+        });
+        products.forEach(productId -> cluster.reserve(productId, 7));
+
+        // Act
+        RebalanceResponse response = partitionRebalancer.addPartition(NODE_B);
+
+        // Assert: every product is held once, with the stock left after the reservations
+        ConsistentHashRing target = ring.withNode(NODE_B);
+        assertTrue(response.getMovedProducts() > 0);
+        for (Long productId : products) {
+            String owner = target.nodeFor(productId);
+            String other = owner.equals(NODE_A) ? NODE_B : NODE_A;
+            assertEquals(Integer.valueOf(3), cluster.stock(owner).get(productId), "product " + productId);
+            assertFalse(cluster.stock(other).containsKey(productId), "product " + productId);
+            assertTrue(cluster.reservations(owner).contains("order-" + productId));
+        }
+        verify(inventoryClient, never()).exportPartitionProducts(eq(NODE_B), anyList());
+    }
+
+    @Test
+    void testRebalance_ConservesStockAcrossPartitions() {
+        // Arrange: reservations routed across two partitions, then a third is added
+        ConsistentHashRing ring = new ConsistentHashRing(Arrays.asList(NODE_A, NODE_B), 128);
+        FakeCluster cluster = new FakeCluster(ring);
+        List<Long> products = LongStream.rangeClosed(1001, 1200).boxed().collect(Collectors.toList());
+        for (Long productId : products) {
+            cluster.seed(ring.nodeFor(productId), productId, 50);
+            cluster.seed(NODE_C, productId, 50);
+        }
+        int reserved = 0;
+        for (Long productId : products) {
+            int quantity = (int) (productId % 7) + 1;
+            cluster.reserve(productId, quantity);
+            reserved += quantity;
+        }
+        int expected = products.size() * 50 - reserved;
+
+        // Act
+        partitionRebalancer.addPartition(NODE_C);
+
+        // Assert
+        int total = 0;
+        for (String node : Arrays.asList(NODE_A, NODE_B, NODE_C)) {
+            total += cluster.stock(node).values().stream().mapToInt(Integer::intValue).sum();
+        }
+        assertEquals(expected, total);
+        assertEquals(products.size(), cluster.reservationCount());
+        assertFalse(cluster.stock(NODE_C).isEmpty());
+    }
+
+    @Test
+    void testRebalance_RefusesProductsWithActiveHolds() {
+        // Arrange
+        ConsistentHashRing ring = new ConsistentHashRing(Collections.singletonList(NODE_A), 128);
+        List<Long> products = LongStream.rangeClosed(1001, 1100).boxed().collect(Collectors.toList());
+        Long held = products.stream()
+                .filter(id -> ring.withNode(NODE_B).nodeFor(id).equals(NODE_B))
+                .findFirst().get();
+        when(inventoryClient.getRing()).thenReturn(ring);
+        when(inventoryClient.getPartitionProducts(NODE_A)).thenReturn(products);
+        when(inventoryClient.getPartitionProducts(NODE_B)).thenReturn(Collections.emptyList());
+        when(inventoryClient.getPartitionHeldProducts(NODE_A)).thenReturn(Collections.singletonList(held));
+
+        // Act & Assert: nothing is fenced, moved or rerouted
+        assertThrows(IllegalStateException.class, () -> partitionRebalancer.addPartition(NODE_B));
+        verify(inventoryClient, never()).exportPartitionProducts(anyString(), anyList());
+        verify(inventoryClient, never()).setRing(any());
+        verify(partitionRingRepository, never()).save(any());
+    }
+
+    @Test
+    void testRestoreRing_RoutesToStoredPartitions() {
+        // Arrange
+        when(inventoryClient.getRing()).thenReturn(new ConsistentHashRing(Collections.singletonList(NODE_A), 128));
+        when(partitionRingRepository.findById(PartitionRing.CURRENT)).thenReturn(Optional.of(
+                new PartitionRing(PartitionRing.CURRENT, 3L, NODE_A + "," + NODE_B, LocalDateTime.now())));
+
+        // Act
+        partitionRebalancer.restoreRing();
+
+        // Assert
+        ArgumentCaptor<ConsistentHashRing> ring = ArgumentCaptor.forClass(ConsistentHashRing.class);
+        verify(inventoryClient).setRing(ring.capture());
+        assertEquals(Arrays.asList(NODE_A, NODE_B), ring.getValue().getNodes());
+        assertEquals(3L, partitionRebalancer.getEpoch());
+    }
+
+    @Test
+    void testRestoreRing_KeepsConfiguredPartitionsWhenNoneStored() {
+        // Arrange
+        when(partitionRingRepository.findById(PartitionRing.CURRENT)).thenReturn(Optional.empty());
+
+        // Act
+        partitionRebalancer.restoreRing();
+
+        // Assert
+        verify(inventoryClient, never()).setRing(any());
+        assertEquals(0L, partitionRebalancer.getEpoch());
+    }
+
+    @Test
+    void testRemoveLastPartition() {
+        // Arrange
+        when(inventoryClient.getRing()).thenReturn(new ConsistentHashRing(Collections.singletonList(NODE_A), 128));
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> partitionRebalancer.removePartition(NODE_A));
+        verify(inventoryClient, never()).setRing(any());
+        verify(partitionRingRepository, never()).save(any());
+        verify(inventoryClient, never()).dropPartitionProducts(eq(NODE_A), anyList());
+    }
+
+    /**
+     * Partitions kept in memory behind the mocked client: stock per product
+     * and reservation records, exported, imported and dropped like the real ones
+     */
+    private class FakeCluster {
+
+        private final Map<String, Map<Long, Integer>> stock = new HashMap<>();
+        private final Map<String, Map<String, Long>> reservations = new HashMap<>();
+        private ConsistentHashRing ring;
+
+        FakeCluster(ConsistentHashRing initial) {
+            ring = initial;
+            when(inventoryClient.getRing()).thenAnswer(invocation -> ring);
+            doAnswer(invocation -> ring = invocation.getArgument(0)).when(inventoryClient).setRing(any());
+            lenient().when(inventoryClient.getPartitionProducts(anyString()))
+                    .thenAnswer(invocation -> new ArrayList<>(stock(invocation.getArgument(0)).keySet()));
+            lenient().when(inventoryClient.getPartitionHeldProducts(anyString())).thenReturn(Collections.emptyList());
+            lenient().when(inventoryClient.exportPartitionProducts(anyString(), anyList())).thenAnswer(invocation -> {
+                String node = invocation.getArgument(0);
+                List<Long> productIds = invocation.getArgument(1);
+                List<PartitionBatchDTO> batches = new ArrayList<>();
+                List<PartitionReservationDTO> records = new ArrayList<>();
+                for (Long productId : productIds) {
+                    batches.add(new PartitionBatchDTO(productId, productId, "Product", stock(node).get(productId),
+                            LocalDate.of(2027, 1, 1), "MAIN"));
+                }
+                reservationsOf(node).forEach((orderRef, productId) -> {
+                    if (productIds.contains(productId)) {
+                        records.add(new PartitionReservationDTO(orderRef, productId, 1, productId + ":1",
+                                LocalDateTime.now(), null));
+                    }
+                });
+                return new PartitionHandoffDTO(productIds, batches, records);
+            });
+            lenient().doAnswer(invocation -> {
+                String node = invocation.getArgument(0);
+                PartitionHandoffDTO handoff = invocation.getArgument(1);
+                handoff.getProductIds().forEach(stock(node)::remove);
+                reservationsOf(node).values().removeAll(handoff.getProductIds());
+                handoff.getBatches().forEach(batch -> stock(node).put(batch.getProductId(), batch.getQuantity()));
+                handoff.getReservations().forEach(record ->
+                        reservationsOf(node).put(record.getOrderRef(), record.getProductId()));
+                return null;
+            }).when(inventoryClient).importPartitionProducts(anyString(), any(PartitionHandoffDTO.class));
+            lenient().doAnswer(invocation -> {
+                String node = invocation.getArgument(0);
+                List<Long> productIds = invocation.getArgument(1);
+                productIds.forEach(stock(node)::remove);
+                reservationsOf(node).values().removeAll(productIds);
+                return null;
+            }).when(inventoryClient).dropPartitionProducts(anyString(), anyList());
+        }
+
+        void seed(String node, Long productId, int quantity) {
+            stock(node).put(productId, quantity);
+        }
+
+        /** Reserve on the partition the ring routes the product to, as InventoryClient does */
+        void reserve(Long productId, int quantity) {
+            String node = ring.nodeFor(productId);
+            stock(node).merge(productId, -quantity, Integer::sum);
+            reservationsOf(node).put("order-" + productId, productId);
+        }
+
+        Map<Long, Integer> stock(String node) {
+            return stock.computeIfAbsent(node, key -> new HashMap<>());
+        }
+
+        Set<String> reservations(String node) {
+            return reservationsOf(node).keySet();
+        }
+
+        int reservationCount() {
+            return reservations.values().stream().mapToInt(Map::size).sum();
+        }
+
+        private Map<String, Long> reservationsOf(String node) {
+            return reservations.computeIfAbsent(node, key -> new HashMap<>());
+        }
+    }
+}